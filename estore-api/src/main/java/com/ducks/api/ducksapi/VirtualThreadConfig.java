@@ -0,0 +1,84 @@
+package com.ducks.api.ducksapi;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Handles every request on a virtual thread of its own instead of Tomcat's
+ * pool of platform threads, when {@code spring.threads.virtual.enabled} is
+ * true
+ * <br>
+ * A request waiting on a store's lock or on its file then parks its virtual
+ * thread rather than holding one of the pool's threads, so slow saves no
+ * longer starve the requests that only read. The stores guard themselves with
+ * {@link java.util.concurrent.locks.ReentrantLock locks} rather than
+ * monitors for this reason: a virtual thread blocked inside a monitor keeps
+ * its carrier thread
+ * <br>
+ * Virtual threads need Java 21. They are looked up when the application
+ * starts, as the code is built for Java 11; on an older runtime a warning is
+ * logged and requests stay on the platform pool
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+    private static final Logger LOG = Logger.getLogger(VirtualThreadConfig.class.getName());
+
+    private final ExecutorService executor = newVirtualThreadExecutor(); // Null if the runtime has no virtual threads
+
+    /**
+     * @return A customizer that hands requests to the virtual thread executor
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadCustomizer() {
+        return protocolHandler -> customize(protocolHandler, executor);
+    }
+
+    /**
+     * Makes a protocol handler run its requests on an executor
+     *
+     * @param protocolHandler The protocol handler
+     * @param executor        The executor, null to keep the handler's own pool
+     */
+    static void customize(ProtocolHandler protocolHandler, ExecutorService executor) {
+        if (executor != null) {
+            protocolHandler.setExecutor(executor);
+        }
+    }
+
+    /**
+     * @return An executor that starts a virtual thread for every task, or null
+     *         if the runtime has no virtual threads
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOG.log(Level.WARNING, "Virtual threads need Java 21, running requests on platform threads on Java {0}",
+                    Runtime.version().feature());
+            return null;
+        }
+    }
+
+    /**
+     * Stops taking requests once the server has stopped
+     */
+    @PreDestroy
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
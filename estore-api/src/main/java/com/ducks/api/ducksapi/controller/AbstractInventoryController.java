@@ -2,9 +2,9 @@ package com.ducks.api.ducksapi.controller;
 
 import java.io.IOException;
 import java.util.logging.Level;
-import java.util.logging.Logger;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import com.ducks.api.ducksapi.model.Duck;
@@ -12,7 +12,8 @@ import com.ducks.api.ducksapi.persistence.DuckDAO;
 
 public abstract class AbstractInventoryController {
     protected DuckDAO duckDao;
-    private Logger log;
+    private RequestLog log;
+    private CatalogResponseCache catalogCache = new CatalogResponseCache(); // Serialized catalog
 
     /**
      * Creates a REST API controller to reponds to requests
@@ -22,7 +23,7 @@ public abstract class AbstractInventoryController {
      *                <br>
      *                This dependency is injected by the Spring Framework
      */
-    protected AbstractInventoryController(DuckDAO duckDao, Logger log) {
+    protected AbstractInventoryController(DuckDAO duckDao, RequestLog log) {
         this.duckDao = duckDao;
         this.log = log;
     }
@@ -54,22 +55,32 @@ public abstract class AbstractInventoryController {
 
     /**
      * Responds to the GET request for all {@linkplain Duck ducks}
+     * <br>
+     * The JSON body is cached until the catalog changes and is sent with a
+     * strong ETag, so clients that poll can revalidate with If-None-Match
      * 
-     * @return ResponseEntity with array of {@link Duck ducks} objects (may be
-     *         empty) and HTTP status of OK<br>
-     *         ResponseEntity with HTTP status of NOT_FOUND if no ducks are
+     * @param ifNoneMatch The If-None-Match header of the request, may be null
+     * 
+     * @return ResponseEntity with the JSON array of {@link Duck ducks}, its ETag
+     *         and HTTP status of OK<br>
+     *         ResponseEntity with HTTP status of NOT_MODIFIED if the ETag matches
+     *         ifNoneMatch<br>
+     *         ResponseEntity with HTTP status of NO_CONTENT if no ducks are
      *         found<br>
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
      */
-    public ResponseEntity<Duck[]> getDucks(String logMessage) {
+    public ResponseEntity<byte[]> getDucks(String ifNoneMatch, String logMessage) {
         log.info(logMessage);
         try {
-            Duck[] ducks = duckDao.getDucks();
-            if (ducks != null && ducks.length != 0) {
-                return new ResponseEntity<>(ducks, HttpStatus.OK);
-            } else {
+            CatalogResponseCache.Body body = catalogCache.get(duckDao);
+            if (body.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             }
+            if (body.matches(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(body.getETag()).build();
+            }
+            return ResponseEntity.ok().eTag(body.getETag()).contentType(MediaType.APPLICATION_JSON)
+                    .body(body.getJson());
         } catch (IOException ioe) {
             log.log(Level.SEVERE, ioe.getLocalizedMessage());
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -81,21 +92,34 @@ public abstract class AbstractInventoryController {
      * contains
      * the text in name
      * 
-     * @param name The name parameter which contains the text used to find the
-     *             {@link Duck ducks}
+     * @param name   The name parameter which contains the text used to find the
+     *               {@link Duck ducks}
+     * @param offset The number of matches to skip, null for none
+     * @param limit  The maximum number of matches to return, null for no limit
      * 
      * @return ResponseEntity with array of {@link Duck duck} objects (may be empty)
      *         and HTTP status of OK<br>
      *         ResponseEntity with HTTP status of NOT_FOUND if no ducks are
      *         found<br>
+     *         ResponseEntity with HTTP status of BAD_REQUEST if offset or limit
+     *         is negative<br>
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
      *         Example: Find all ducks that contain the text "ma"
      *         GET http://localhost:8080/inventory/?name=ma
      */
-    public ResponseEntity<Duck[]> searchDucks(String name, String logMessage) {
+    public ResponseEntity<Duck[]> searchDucks(String name, Integer offset, Integer limit, String logMessage) {
         log.log(Level.INFO, logMessage, name);
+        if ((offset != null && offset < 0) || (limit != null && limit < 0)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
         try {
-            Duck[] ducks = duckDao.findDucks(name);
+            Duck[] ducks;
+            if (offset == null && limit == null) {
+                ducks = duckDao.findDucks(name);
+            } else {
+                ducks = duckDao.findDucks(name, offset == null ? 0 : offset,
+                        limit == null ? Integer.MAX_VALUE : limit);
+            }
 
             if (ducks != null && ducks.length != 0) {
                 return new ResponseEntity<>(ducks, HttpStatus.OK);
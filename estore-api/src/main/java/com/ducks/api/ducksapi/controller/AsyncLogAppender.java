@@ -0,0 +1,246 @@
+package com.ducks.api.ducksapi.controller;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Hands log records from request threads to one appender thread through a
+ * bounded ring buffer, so request threads never wait on a log handler
+ * <br>
+ * Request threads claim a slot with a compare-and-set and never block. Once
+ * the ring is three quarters full, only one in {@code sampleEvery} records
+ * below {@link Level#WARNING} is kept; once it is full, those records are
+ * dropped. Both are counted. Warnings and errors are never sampled, and are
+ * logged on the calling thread when the ring is full rather than lost
+ * <br>
+ * Records are formatted by the handlers on the appender thread, so their
+ * parameters must not be changed after they are logged
+ *
+ * @author SWEN-261-06 Team 8
+ */
+class AsyncLogAppender implements Runnable {
+    /**
+     * A record and the logger it was logged to
+     */
+    private static final class Entry {
+        private final Logger logger;
+        private final LogRecord record;
+
+        private Entry(Logger logger, LogRecord record) {
+            this.logger = logger;
+            this.record = record;
+        }
+    }
+
+    private final int mask; // Capacity - 1, the capacity being a power of two
+    private final int highWater; // Queued records above which records are sampled
+    private final int sampleEvery; // One in this many records is kept above the high water mark
+    private final AtomicReferenceArray<Entry> entries; // The ring
+    private final AtomicLongArray sequences; // Which lap of the ring every slot is ready for
+    private final AtomicLong enqueued = new AtomicLong(); // Slots claimed by request threads
+    private volatile long dequeued; // Slots taken by the appender thread
+    private final AtomicLong sampleCount = new AtomicLong(); // Records seen above the high water mark
+    private final LongAdder dropped = new LongAdder(); // Records lost to a full ring
+    private final LongAdder sampledOut = new LongAdder(); // Records left out by sampling
+    private volatile Thread thread; // The appender thread, null until started
+    private volatile boolean sleeping; // Whether the appender thread waits for records
+
+    /**
+     * Creates an appender, without starting its thread
+     *
+     * @param capacity    How many records the ring holds, rounded up to a power
+     *                    of two
+     * @param sampleEvery One in how many records is kept when the ring is
+     *                    filling up
+     */
+    AsyncLogAppender(int capacity, int sampleEvery) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        this.mask = size - 1;
+        this.highWater = size - size / 4;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.entries = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int slot = 0; slot < size; ++slot) {
+            sequences.set(slot, slot);
+        }
+    }
+
+    /**
+     * Starts the appender thread, which drains what is left when the JVM shuts
+     * down
+     *
+     * @param name The name of the thread
+     */
+    void start(String name) {
+        Thread appender = new Thread(this, name);
+        appender.setDaemon(true);
+        thread = appender;
+        appender.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(TimeUnit.SECONDS.toNanos(1))));
+    }
+
+    /**
+     * Queues a record for the appender thread. The level must already have
+     * been checked
+     *
+     * @param logger  The logger to publish the record through
+     * @param level   The level of the record
+     * @param message The message, with {0} style placeholders
+     * @param params  The parameters of the message, may be null
+     *
+     * @return true if the record was queued or logged
+     */
+    boolean append(Logger logger, Level level, String message, Object[] params) {
+        boolean important = level.intValue() >= Level.WARNING.intValue();
+        if (!important && size() >= highWater && sampleCount.getAndIncrement() % sampleEvery != 0) {
+            sampledOut.increment();
+            return false;
+        }
+
+        LogRecord record = new LogRecord(level, message);
+        record.setLoggerName(logger.getName());
+        // Stops the record from looking for its caller on the appender thread
+        record.setSourceClassName(logger.getName());
+        record.setSourceMethodName(null);
+        record.setParameters(params);
+        if (!offer(new Entry(logger, record))) {
+            if (important) {
+                logger.log(record);
+                return true;
+            }
+            dropped.increment();
+            return false;
+        }
+        if (sleeping) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    /**
+     * Claims the next slot of the ring and fills it
+     *
+     * @return false if the ring is full
+     */
+    private boolean offer(Entry entry) {
+        long position = enqueued.get();
+        while (true) {
+            int slot = (int) position & mask;
+            long lap = sequences.get(slot) - position;
+            if (lap == 0) {
+                if (enqueued.compareAndSet(position, position + 1)) {
+                    entries.set(slot, entry);
+                    sequences.set(slot, position + 1); // Ready for the appender
+                    return true;
+                }
+                position = enqueued.get();
+            } else if (lap < 0) {
+                return false; // The appender has not emptied the slot yet
+            } else {
+                position = enqueued.get(); // Another thread claimed the slot
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest record from the ring. Only called by one thread at a
+     * time, which then moves {@code dequeued} on once the record is published
+     *
+     * @return The record, or null if there is none ready
+     */
+    private Entry poll() {
+        long position = dequeued;
+        int slot = (int) position & mask;
+        if (sequences.get(slot) != position + 1) {
+            return null;
+        }
+        Entry entry = entries.get(slot);
+        entries.set(slot, null);
+        sequences.set(slot, position + mask + 1); // Free for the next lap
+        return entry;
+    }
+
+    /**
+     * Publishes every record that is ready. Only called by the appender thread,
+     * or instead of it when it was not started
+     *
+     * @return The number of records published
+     */
+    int drain() {
+        int published = 0;
+        Entry entry;
+        while ((entry = poll()) != null) {
+            try {
+                entry.logger.log(entry.record);
+            } catch (RuntimeException e) {
+                // A broken handler must not stop the appender
+            }
+            // Only now, so that a flush waits for the record to be published
+            dequeued = dequeued + 1;
+            ++published;
+        }
+        return published;
+    }
+
+    /**
+     * Publishes records as they come in
+     */
+    @Override
+    public void run() {
+        while (true) {
+            drain();
+            sleeping = true;
+            if (size() == 0) {
+                LockSupport.park(this);
+            }
+            sleeping = false;
+        }
+    }
+
+    /**
+     * Waits for the appender thread to publish every queued record
+     *
+     * @param timeoutNanos How long to wait at most
+     *
+     * @return true if the ring was emptied in time
+     */
+    boolean flush(long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (size() > 0) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of records waiting to be published
+     */
+    int size() {
+        return (int) Math.max(0, enqueued.get() - dequeued);
+    }
+
+    /**
+     * @return The number of records lost because the ring was full
+     */
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return The number of records left out by sampling
+     */
+    long getSampledOut() {
+        return sampledOut.sum();
+    }
+}
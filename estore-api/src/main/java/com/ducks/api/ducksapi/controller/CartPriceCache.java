@@ -0,0 +1,210 @@
+package com.ducks.api.ducksapi.controller;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ducks.api.ducksapi.model.CartItems;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.Price;
+import com.ducks.api.ducksapi.model.PriceTable;
+import com.ducks.api.ducksapi.model.PricedCart;
+import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.ducks.api.ducksapi.persistence.DuckDAO;
+
+/**
+ * Holds the last {@linkplain PricedCart priced cart} of every customer and
+ * brings it up to date from the previous one rather than pricing the cart
+ * again
+ * <br>
+ * Each entry is tagged with the {@linkplain DuckDAO#getGeneration()
+ * generation} and {@linkplain PriceTable#getVersion() price table} it was
+ * priced at. While neither has moved, only lines whose quantity changed or that
+ * were added or removed are touched, and the total is adjusted by the
+ * difference. Once either moves, every line is checked against its
+ * {@linkplain Duck duck}, but only the lines whose price or name changed are
+ * replaced
+ * <br>
+ * Only the pricings of the most recently priced carts are kept, as many as
+ * {@code carts.cache.capacity} allows carts in memory. A cart whose pricing
+ * was dropped is priced again in full the next time
+ *
+ * @author SWEN-261-06 Team 8
+ */
+class CartPriceCache {
+    static final int DEFAULT_CAPACITY = 100000; // Pricings kept when no capacity is given
+
+    private final ReentrantLock lock = new ReentrantLock(); // Guards entries
+    private final Map<Integer, Entry> entries; // Customer id -> last pricing, least recently used first
+
+    /**
+     * A priced cart and what it was priced from
+     */
+    private static final class Entry {
+        private final long generation; // Generation the lines were priced at
+        private final long priceVersion; // Version of the price table the lines were priced at
+        private final CartItems items; // Copy of the items that were priced
+        private final Set<String> unparsed; // Copy of the item keys that are not duck ids
+        private final Map<Integer, PricedCart.Line> lines; // Duck id -> priced line
+        private final PricedCart priced; // The response
+
+        private Entry(long generation, long priceVersion, CartItems items, Set<String> unparsed,
+                Map<Integer, PricedCart.Line> lines, PricedCart priced) {
+            this.generation = generation;
+            this.priceVersion = priceVersion;
+            this.items = items;
+            this.unparsed = unparsed;
+            this.lines = lines;
+            this.priced = priced;
+        }
+    }
+
+    /**
+     * Creates a cache that keeps {@value #DEFAULT_CAPACITY} pricings
+     */
+    CartPriceCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a cache that keeps the given number of pricings, dropping the
+     * least recently used one beyond that
+     *
+     * @param capacity The number of pricings kept
+     *
+     * @throws IllegalArgumentException if there is not room for at least one
+     *                                  pricing
+     */
+    CartPriceCache(int capacity) throws IllegalArgumentException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The cart price cache must have room for at least one cart");
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Prices a cart, reusing whatever is still current from the last time the
+     * cart of the same customer was priced
+     * <br>
+     * Concurrent calls for the same customer each build a consistent entry for
+     * the versions they read, so whichever is stored last wins without harm
+     *
+     * @param cart    The cart to price
+     * @param duckDao The DAO the ducks are read from
+     *
+     * @return The priced cart
+     *
+     * @throws IOException if a duck cannot be read
+     */
+    PricedCart get(ShoppingCart cart, DuckDAO duckDao) throws IOException {
+        // Read the versions before the ducks so that a change racing with the
+        // pricing leaves the entry tagged with an older version, never a newer one
+        long generation = duckDao.getGeneration();
+        long priceVersion = Price.getTable().getVersion();
+        CartItems items = cart.getCartItems();
+        Set<String> unparsed = cart.getUnparsedItems().keySet();
+        Entry previous = find(cart.getCustomerId());
+        boolean current = previous != null && previous.generation == generation
+                && previous.priceVersion == priceVersion;
+        if (current && previous.items.equals(items) && previous.unparsed.equals(unparsed)) {
+            return previous.priced;
+        }
+
+        Map<Integer, PricedCart.Line> lines = new HashMap<>();
+        long totalCents = previous != null ? previous.priced.getTotalCents() : 0;
+        for (int slot = items.nextSlot(-1); slot >= 0; slot = items.nextSlot(slot)) {
+            int duckId = items.idAt(slot);
+            int quantity = items.quantityAt(slot);
+            PricedCart.Line before = previous != null ? previous.lines.get(duckId) : null;
+            PricedCart.Line after;
+            if (before != null && current) {
+                after = before.withQuantity(quantity);
+            } else if (current && previous.items.contains(duckId)) {
+                continue; // Was unavailable, and no duck has been created since
+            } else {
+                Duck duck = duckDao.getDuck(duckId);
+                if (duck == null) {
+                    after = null;
+                } else if (before != null && before.isCurrent(duck)) {
+                    after = before.withQuantity(quantity);
+                } else {
+                    after = new PricedCart.Line(duck, quantity);
+                }
+            }
+            if (after != null) {
+                lines.put(duckId, after);
+                totalCents += after.getTotalCents();
+            }
+            if (before != null) {
+                totalCents -= before.getTotalCents();
+            }
+        }
+        // Lines no longer in the cart
+        if (previous != null) {
+            for (Map.Entry<Integer, PricedCart.Line> line : previous.lines.entrySet()) {
+                if (!items.contains(line.getKey())) {
+                    totalCents -= line.getValue().getTotalCents();
+                }
+            }
+        }
+
+        List<PricedCart.Line> ordered = new ArrayList<>(lines.values());
+        ordered.sort(Comparator.comparingInt(PricedCart.Line::getDuckId));
+        List<String> unavailable = new ArrayList<>(unparsed);
+        for (int slot = items.nextSlot(-1); slot >= 0; slot = items.nextSlot(slot)) {
+            if (!lines.containsKey(items.idAt(slot))) {
+                unavailable.add(Integer.toString(items.idAt(slot)));
+            }
+        }
+        unavailable.sort(null);
+        PricedCart priced = new PricedCart(cart.getCustomerId(), ordered, unavailable, totalCents);
+        Entry entry = new Entry(generation, priceVersion, new CartItems(items), Set.copyOf(unparsed), lines,
+                priced);
+        lock.lock();
+        try {
+            entries.put(cart.getCustomerId(), entry);
+        } finally {
+            lock.unlock();
+        }
+        return priced;
+    }
+
+    /**
+     * @param customerId The customer id of a cart
+     *
+     * @return The last pricing of the cart, null if there is none
+     */
+    private Entry find(int customerId) {
+        lock.lock();
+        try {
+            return entries.get(customerId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets the pricing of a customer's cart
+     *
+     * @param customerId The customer id of the cart
+     */
+    void remove(int customerId) {
+        lock.lock();
+        try {
+            entries.remove(customerId);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.ducks.api.ducksapi.controller;
+
+import java.io.IOException;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.DigestUtils;
+
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.Price;
+import com.ducks.api.ducksapi.model.PriceTable;
+import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Holds the JSON body of the full {@linkplain Duck duck} catalog so that it is
+ * only serialized again after the catalog has changed
+ * <br>
+ * The body is tagged with the {@linkplain DuckDAO#getGeneration() generation}
+ * and the {@linkplain PriceTable#getVersion() price table} it was built from,
+ * since a change of pricing rules changes the prices in it, and a strong ETag
+ * computed over its bytes
+ *
+ * @author SWEN-261-06 Team 8
+ */
+class CatalogResponseCache {
+    private final ObjectMapper objectMapper; // Serializes the catalog the same
+                                             // way the JSON message converter does
+    private volatile Body body; // The latest serialized catalog, null until
+                                // the first request
+
+    /**
+     * A serialized catalog and the generation and prices it was built from
+     */
+    static final class Body {
+        private final long generation; // Generation the bytes were built from
+        private final long priceVersion; // Version of the price table the bytes were built from
+        private final byte[] json; // The catalog as JSON, null when it is empty
+        private final String eTag; // Quoted hash of the JSON
+
+        private Body(long generation, long priceVersion, byte[] json, String eTag) {
+            this.generation = generation;
+            this.priceVersion = priceVersion;
+            this.json = json;
+            this.eTag = eTag;
+        }
+
+        /**
+         * @return The catalog as JSON, must not be modified
+         */
+        byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * @return The quoted strong ETag of the JSON
+         */
+        String getETag() {
+            return eTag;
+        }
+
+        /**
+         * @return true if the catalog has no {@linkplain Duck ducks}
+         */
+        boolean isEmpty() {
+            return json == null;
+        }
+
+        /**
+         * Checks an If-None-Match header against the ETag
+         *
+         * @param ifNoneMatch The header value, may be null
+         *
+         * @return true if the client already holds this body
+         */
+        boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || eTag == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*") || tag.equals(eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Creates an empty cache that serializes with Spring's default JSON settings
+     */
+    CatalogResponseCache() {
+        this(Jackson2ObjectMapperBuilder.json().build());
+    }
+
+    /**
+     * Creates an empty cache
+     *
+     * @param objectMapper Serializes the catalog
+     */
+    CatalogResponseCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Retrieves the serialized catalog, rebuilding it if the generation of the
+     * {@linkplain DuckDAO DAO} or the price table has moved on
+     * <br>
+     * Concurrent rebuilds of the same generation produce identical bodies, so
+     * whichever one is stored last wins without harm
+     *
+     * @param duckDao The DAO the catalog is read from
+     *
+     * @return The serialized catalog
+     *
+     * @throws IOException if the catalog cannot be read or serialized
+     */
+    Body get(DuckDAO duckDao) throws IOException {
+        // Read the generation before the ducks so that a change racing with the
+        // rebuild leaves the body tagged with an older generation, never a newer one
+        long generation = duckDao.getGeneration();
+        long priceVersion = Price.getTable().getVersion();
+        Body current = body;
+        if (current != null && current.generation == generation && current.priceVersion == priceVersion) {
+            return current;
+        }
+
+        Duck[] ducks = duckDao.getDucks();
+        if (ducks == null || ducks.length == 0) {
+            current = new Body(generation, priceVersion, null, null);
+        } else {
+            byte[] json = objectMapper.writeValueAsBytes(ducks);
+            current = new Body(generation, priceVersion, json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+        }
+        body = current;
+        return current;
+    }
+}
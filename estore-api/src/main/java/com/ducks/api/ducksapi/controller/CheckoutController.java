@@ -4,8 +4,8 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
-import java.util.logging.Logger;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,10 +15,12 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ducks.api.ducksapi.model.CartItems;
 import com.ducks.api.ducksapi.model.Duck;
 import com.ducks.api.ducksapi.model.ShoppingCart;
 import com.ducks.api.ducksapi.persistence.DuckDAO;
 import com.ducks.api.ducksapi.persistence.ShoppingCartDAO;
+import com.ducks.api.ducksapi.persistence.StockHolds;
 
 /**
  * Handles the REST API requests for the Checkout resource
@@ -33,9 +35,10 @@ import com.ducks.api.ducksapi.persistence.ShoppingCartDAO;
 @RestController
 @RequestMapping("cart/checkout")
 public class CheckoutController {
-    private static final Logger LOG = Logger.getLogger(CheckoutController.class.getName());
+    private static final RequestLog LOG = RequestLog.getLog(CheckoutController.class);
     private ShoppingCartDAO cartDao;
     private DuckDAO duckDao;
+    private StockHolds holds; // Holds the ducks in every cart, if enabled
 
     /**
      * Creates a REST API controller to reponds to requests
@@ -50,17 +53,48 @@ public class CheckoutController {
      *                <br>
      *                This dependency is injected by the Spring Framework
      */
-    public CheckoutController(ShoppingCartDAO cartDAO, @Qualifier("duckFileDAO") DuckDAO duckDAO) {
+    public CheckoutController(ShoppingCartDAO cartDAO, DuckDAO duckDAO) {
+        this(cartDAO, duckDAO, StockHolds.disabled());
+    }
+
+    /**
+     * Creates a REST API controller to reponds to requests, that turns the
+     * ducks held for a cart into the sale
+     * 
+     * @param cartDao The {@link ShoppingCatDAO Cart Data Access Object} to
+     *                perform
+     *                CRUD operations<br>
+     *                This dependency is injected by the Spring Framework
+     * 
+     * @param duckDAO The {@link DuckDAO Duck Data Access Object} to perform CRUD
+     *                operations
+     *                <br>
+     *                This dependency is injected by the Spring Framework
+     * 
+     * @param holds   The {@link StockHolds holds} of every cart<br>
+     *                This dependency is injected by the Spring Framework
+     */
+    @Autowired
+    public CheckoutController(ShoppingCartDAO cartDAO, @Qualifier("duckFileDAO") DuckDAO duckDAO,
+            StockHolds holds) {
         this.cartDao = cartDAO;
         this.duckDao = duckDAO;
+        this.holds = holds;
     }
 
     /**
      * Checks out a shopping cart; UPDATES the CART and the INVENTORY
+     * <br>
+     * The stock of every line is taken in a single {@link DuckDAO#reserveStock}
+     * call, and is put back if the cart cannot be cleared afterwards. Ducks
+     * {@linkplain StockHolds held} for the cart are turned into the sale, and a
+     * cart that holds ducks is not looked up in the catalog first, as taking
+     * the stock checks every line anyway
      * 
      * @param id The id of the cart
      * @return 200 if the cart has only valid items
-     *         422 if the cart is empty or contains invalid items
+     *         422 if the cart is empty, contains invalid items or runs out of
+     *         stock while being checked out
      *         404 if the cart does not exist
      *         500 if the cartDao or duckDao fails
      */
@@ -74,36 +108,55 @@ public class CheckoutController {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
 
-            Map<String, Duck> invalidItems = getInvalidItems(cart);
             // 422
-            if (!invalidItems.isEmpty() || cart.getItems().isEmpty()) {
+            CartItems held = holds.peek(id);
+            if (cart.getItems().isEmpty() || (held.isEmpty() && !getInvalidItems(cart).isEmpty())) {
                 return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
             }
 
-            // Loops through cart items
-            for (Map.Entry<String, Integer> entry : cart.getItems().entrySet()) {
-                // Because of previous item validation, it is theoretically not possible for
-                // entry.getKey() to not be a number. Just in case, NPE is caught. 500 is the
-                // correct response
-                int duckId = Integer.parseInt(entry.getKey());
-                int quantityReq = entry.getValue();
-
-                // Because of previous item validation, it is theoretically not possible for
-                // duck to be null. Just in case, NPE is caught. 500 is the correct response
-                Duck duck = duckDao.getDuck(duckId);
-                duck.setQuantity(duck.getQuantity() - quantityReq);
-                duckDao.updateDuck(duck);
+            // Because of previous item validation, it is theoretically not possible for
+            // a key to not be a duck id. Just in case, 500 is the correct response
+            if (!cart.getUnparsedItems().isEmpty()) {
+                LOG.log(Level.SEVERE, "Cart {0} has items that are not duck ids", id);
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
             }
+            CartItems order = cart.getCartItems();
 
-            // Clear the items and update the cart
-            cart.setItems(new HashMap<>());
-            cartDao.updateShoppingCart(cart);
+            // Takes every line out of stock in one unit, the held part of it
+            // from the hold; fails without changing anything if stock ran out
+            held = holds.take(id);
+            boolean reserved;
+            try {
+                reserved = held.isEmpty() ? duckDao.reserveStock(order) : duckDao.reserveStock(order, held);
+            } catch (IOException ioe) {
+                // The DAO put the stock back as held, so the holds must be
+                // tracked again or nothing would ever let go of them
+                holds.restore(id, held);
+                throw ioe;
+            }
+            if (!reserved) {
+                holds.restore(id, held);
+                return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            holds.releaseUnused(held, order);
+
+            // Clear the items and update the cart. If the cart cannot be saved, the
+            // stock is put back so that the checkout does not half happen
+            cart.setCartItems(new CartItems());
+            try {
+                cartDao.updateShoppingCart(cart);
+            } catch (IOException ioe) {
+                cart.setCartItems(order);
+                duckDao.releaseStock(order);
+                holds.update(cart);
+                throw ioe;
+            }
 
             // 200
             return new ResponseEntity<>(cart, HttpStatus.OK);
-        } catch (IOException | NullPointerException | NumberFormatException exc) {
-            // Realisitically this NPE and NFE should never be thrown, but to prevent
-            // any possibility of runtime crashes, I am catching them
+        } catch (IOException | NullPointerException exc) {
+            // Realisitically this NPE should never be thrown, but to prevent
+            // any possibility of runtime crashes, I am catching it
             LOG.log(Level.SEVERE, exc.getLocalizedMessage());
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -128,39 +181,45 @@ public class CheckoutController {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
 
-            Map<String, Duck> invalidItems = getInvalidItems(cart);
-            // 200
-            if (invalidItems.isEmpty()) {
-                return new ResponseEntity<>(HttpStatus.OK);
-            }
-
-            // 200 + new cart object
-            Map<String, Integer> cartItems = cart.getItems();
-            Map<String, Integer> newCartItems = new HashMap<>();
+            // Every line is resolved against the catalog in one call, and the
+            // corrected items are built in the same pass. Ducks held for the
+            // cart count as available to it
+            CartItems cartItems = cart.getCartItems();
+            CartItems held = holds.peek(id);
+            int[] duckIds = cartItems.getIds();
+            Duck[] ducks = duckDao.getDucks(duckIds);
+            CartItems newCartItems = new CartItems(duckIds.length);
+            // Keys that are not duck ids are always invalid, and are left out
+            boolean valid = cart.getUnparsedItems().isEmpty();
 
-            // Loops through the cart's items
-            for (Map.Entry<String, Integer> cartEntry : cartItems.entrySet()) {
-                String cartDuckIdStr = cartEntry.getKey();
-                int cartQuantity = cartEntry.getValue();
+            for (int i = 0; i < duckIds.length; ++i) {
+                int cartQuantity = cartItems.getQuantity(duckIds[i]);
+                Duck duck = ducks[i];
+                int available = duck == null ? 0 : duck.getAvailable() + held.getQuantity(duckIds[i]);
 
                 // Item is not invalid
-                if (!invalidItems.containsKey(cartDuckIdStr)) {
-                    newCartItems.put(cartDuckIdStr, cartQuantity);
+                if (duck != null && available >= cartQuantity) {
+                    newCartItems.setQuantity(duckIds[i], cartQuantity);
                     continue;
                 }
+                valid = false;
 
-                Duck invalidDuck = invalidItems.get(cartDuckIdStr);
-                // Either Id is not a number or duck is no longer available
-                // Realistically, id should always be a number
-                if (invalidDuck == null) {
+                // Duck is no longer available, or none is left in stock
+                if (available <= 0) {
                     continue;
                 }
 
                 // Item's requested quantity exceeds quantity available, so the amount requested
                 // will be changed to the amount available
-                newCartItems.put(cartDuckIdStr, invalidDuck.getQuantity());
+                newCartItems.setQuantity(duckIds[i], available);
             }
 
+            // 200
+            if (valid) {
+                return new ResponseEntity<>(HttpStatus.OK);
+            }
+
+            // 200 + new cart object
             ShoppingCart returnCart = new ShoppingCart(cart.getCustomerId(), newCartItems);
             return new ResponseEntity<>(returnCart, HttpStatus.OK);
         } catch (IOException ioe) {
@@ -173,43 +232,35 @@ public class CheckoutController {
     /**
      * Gets all invalid items in a cart. An invalid item is an item that
      * is either no longer available in the inventory or has a quantity requested
-     * that exceeds the quantity available in the inventory
+     * that exceeds the quantity available in the inventory, not counting ducks
+     * {@linkplain StockHolds held} for other carts
      * 
      * @param cart The cart being checked
      * @return All of the invalid items in the cart, if any
      */
     protected Map<String, Duck> getInvalidItems(ShoppingCart cart) throws IOException {
-        Map<String, Integer> itemsMap = cart.getItems();
-        // False is map is empty
-        if (itemsMap.isEmpty()) {
-            return new HashMap<>();
-        }
-
+        CartItems items = cart.getCartItems();
         Map<String, Duck> invalidItems = new HashMap<>();
-        // Loops through the invalidItems map
-        for (Map.Entry<String, Integer> entry : itemsMap.entrySet()) {
-            String duckIdStr = entry.getKey();
-            int quantity = entry.getValue();
 
-            int duckId;
-            try {
-                duckId = Integer.parseInt(duckIdStr);
-            } catch (NumberFormatException ex) {
-                // Invalid if id is not a numbeer
-                invalidItems.put(duckIdStr, null);
-                continue;
-            }
+        // Invalid if id is not a number
+        for (String duckIdStr : cart.getUnparsedItems().keySet()) {
+            invalidItems.put(duckIdStr, null);
+        }
 
-            Duck duck = duckDao.getDuck(duckId);
+        // Every line is resolved against the catalog in one call
+        int[] duckIds = items.getIds();
+        Duck[] ducks = duckDao.getDucks(duckIds);
+        for (int i = 0; i < duckIds.length; ++i) {
+            Duck duck = ducks[i];
             // Invalid if duck does not exist
             if (duck == null) {
-                invalidItems.put(duckIdStr, null);
+                invalidItems.put(Integer.toString(duckIds[i]), null);
                 continue;
             }
 
             // Invalid if the requested quantity exceeds the quantity available
-            if (duck.getQuantity() < quantity) {
-                invalidItems.put(duckIdStr, duck);
+            if (duck.getAvailable() < items.getQuantity(duckIds[i])) {
+                invalidItems.put(Integer.toString(duckIds[i]), duck);
             }
         }
         return invalidItems;
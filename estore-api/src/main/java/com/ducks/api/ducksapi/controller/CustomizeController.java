@@ -1,8 +1,8 @@
 package com.ducks.api.ducksapi.controller;
 
-import java.util.logging.Logger;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -29,7 +30,7 @@ import com.ducks.api.ducksapi.persistence.DuckDAO;
 @RestController
 @RequestMapping("customduck")
 public class CustomizeController extends AbstractInventoryController {
-    private static final Logger LOG = Logger.getLogger(CustomizeController.class.getName());
+    private static final RequestLog LOG = RequestLog.getLog(CustomizeController.class);
 
     /**
      * Creates a REST API controller to reponds to requests
@@ -61,15 +62,20 @@ public class CustomizeController extends AbstractInventoryController {
     /**
      * Responds to the GET request for all {@linkplain Duck ducks}
      * 
-     * @return ResponseEntity with array of {@link Duck ducks} objects (may be
-     *         empty) and HTTP status of OK<br>
-     *         ResponseEntity with HTTP status of NOT_FOUND if no ducks are
+     * @param ifNoneMatch The If-None-Match header, if the client sent one
+     * 
+     * @return ResponseEntity with the JSON array of {@link Duck ducks}, its ETag
+     *         and HTTP status of OK<br>
+     *         ResponseEntity with HTTP status of NOT_MODIFIED if the client's copy
+     *         is still current<br>
+     *         ResponseEntity with HTTP status of NO_CONTENT if no ducks are
      *         found<br>
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
      */
     @GetMapping("")
-    public ResponseEntity<Duck[]> getDucks() {
-        return super.getDucks("GET /customduck");
+    public ResponseEntity<byte[]> getDucks(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return super.getDucks(ifNoneMatch, "GET /customduck");
     }
 
     /**
@@ -1,8 +1,8 @@
 package com.ducks.api.ducksapi.controller;
 
-import java.util.logging.Logger;
 
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -30,7 +31,7 @@ import com.ducks.api.ducksapi.persistence.DuckDAO;
 @RestController
 @RequestMapping("inventory")
 public class InventoryController extends AbstractInventoryController {
-    private static final Logger LOG = Logger.getLogger(InventoryController.class.getName());
+    private static final RequestLog LOG = RequestLog.getLog(InventoryController.class);
 
     /**
      * Creates a REST API controller to reponds to requests
@@ -62,36 +63,46 @@ public class InventoryController extends AbstractInventoryController {
     /**
      * Responds to the GET request for all {@linkplain Duck ducks}
      * 
-     * @return ResponseEntity with array of {@link Duck ducks} objects (may be
-     *         empty) and HTTP status of OK<br>
-     *         ResponseEntity with HTTP status of NOT_FOUND if no ducks are
+     * @param ifNoneMatch The If-None-Match header, if the client sent one
+     * 
+     * @return ResponseEntity with the JSON array of {@link Duck ducks}, its ETag
+     *         and HTTP status of OK<br>
+     *         ResponseEntity with HTTP status of NOT_MODIFIED if the client's copy
+     *         is still current<br>
+     *         ResponseEntity with HTTP status of NO_CONTENT if no ducks are
      *         found<br>
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
      */
     @GetMapping("")
-    public ResponseEntity<Duck[]> getDucks() {
-        return super.getDucks("GET /inventory");
+    public ResponseEntity<byte[]> getDucks(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return super.getDucks(ifNoneMatch, "GET /inventory");
     }
 
     /**
      * Responds to the GET request for all {@linkplain Duck ducks} whose name
      * contains
-     * the text in name
+     * the text in name, ignoring case
      * 
-     * @param name The name parameter which contains the text used to find the
-     *             {@link Duck ducks}
+     * @param name   The name parameter which contains the text used to find the
+     *               {@link Duck ducks}
+     * @param offset The number of matches to skip, optional
+     * @param limit  The maximum number of matches to return, optional
      * 
      * @return ResponseEntity with array of {@link Duck duck} objects (may be empty)
      *         and HTTP status of OK<br>
      *         ResponseEntity with HTTP status of NOT_FOUND if no ducks are
      *         found<br>
+     *         ResponseEntity with HTTP status of BAD_REQUEST if offset or limit
+     *         is negative<br>
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
-     *         Example: Find all ducks that contain the text "ma"
-     *         GET http://localhost:8080/inventory/?name=ma
+     *         Example: Find the first 20 ducks that contain the text "ma"
+     *         GET http://localhost:8080/inventory/search?name=ma&offset=0&limit=20
      */
     @GetMapping("/search")
-    public ResponseEntity<Duck[]> searchDucks(@RequestParam String name) {
-        return super.searchDucks(name, "GET /inventory/search?name={0}");
+    public ResponseEntity<Duck[]> searchDucks(@RequestParam String name,
+            @RequestParam(required = false) Integer offset, @RequestParam(required = false) Integer limit) {
+        return super.searchDucks(name, offset, limit, "GET /inventory/search?name={0}");
     }
 
     /**
@@ -0,0 +1,83 @@
+package com.ducks.api.ducksapi.controller;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.logging.Level;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ducks.api.ducksapi.model.PricingRule;
+import com.ducks.api.ducksapi.persistence.PricingEngine;
+
+/**
+ * Handles the REST API requests for the Pricing Rule resource
+ * <p>
+ * {@literal @}RestController Spring annotation identifies this class as a REST
+ * API
+ * method handler to the Spring framework
+ *
+ * @author SWEN-261-06 Team 8
+ */
+
+@RestController
+@RequestMapping("pricing")
+public class PricingController {
+    private static final RequestLog LOG = RequestLog.getLog(PricingController.class);
+    private PricingEngine pricingEngine;
+
+    /**
+     * Creates a REST API controller to reponds to requests
+     *
+     * @param pricingEngine The {@link PricingEngine Pricing Engine} that keeps
+     *                      and compiles the rules<br>
+     *                      This dependency is injected by the Spring Framework
+     */
+    public PricingController(PricingEngine pricingEngine) {
+        this.pricingEngine = pricingEngine;
+    }
+
+    /**
+     * Responds to the GET request for all {@linkplain PricingRule pricing rules}
+     *
+     * @return ResponseEntity with array of {@link PricingRule pricing rules} (may
+     *         be empty) in the order they apply and HTTP status of OK
+     */
+    @GetMapping("/rules")
+    public ResponseEntity<PricingRule[]> getRules() {
+        LOG.info("GET /pricing/rules");
+        return new ResponseEntity<>(pricingEngine.getRules(), HttpStatus.OK);
+    }
+
+    /**
+     * Replaces every {@linkplain PricingRule pricing rule}. Prices change as
+     * soon as the new rules are compiled, before this responds
+     *
+     * @param rules The {@link PricingRule pricing rules} in the order they apply
+     *
+     * @return ResponseEntity with the saved {@link PricingRule pricing rules} and
+     *         HTTP status of OK<br>
+     *         ResponseEntity with HTTP status of BAD_REQUEST if rules or any
+     *         rule is null<br>
+     *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+     */
+    @PutMapping("/rules")
+    public ResponseEntity<PricingRule[]> setRules(@RequestBody PricingRule[] rules) {
+        LOG.log(Level.INFO, "PUT /pricing/rules {0} rules", rules == null ? 0 : rules.length);
+        if (rules == null || Arrays.asList(rules).contains(null)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            pricingEngine.setRules(rules);
+            return new ResponseEntity<>(pricingEngine.getRules(), HttpStatus.OK);
+        } catch (IOException ioe) {
+            LOG.log(Level.SEVERE, ioe.getLocalizedMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
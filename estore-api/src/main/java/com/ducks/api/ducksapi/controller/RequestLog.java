@@ -0,0 +1,113 @@
+package com.ducks.api.ducksapi.controller;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Logs the requests of a controller without making the request thread wait on
+ * the log handlers
+ * <br>
+ * Messages use {0} style placeholders and are only queued if the level is
+ * enabled on the underlying {@link Logger}; formatting happens later, on the
+ * one appender thread shared by every controller. Records lost to overload are
+ * counted by {@code estore.log.dropped} and {@code estore.log.sampled}
+ * <br>
+ * Parameters are formatted with {@code toString()}, so they must never be or
+ * contain a password
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public final class RequestLog {
+    static final int CAPACITY = 8192; // Records the ring holds
+    static final int SAMPLE_EVERY = 8; // One in this many records is kept when the ring is filling up
+
+    private static final AsyncLogAppender APPENDER = startAppender();
+
+    private final Logger logger; // Where records are published, and whose level is checked
+
+    private RequestLog(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * @param type The class that logs
+     *
+     * @return A log publishing through the {@link Logger} named after the class
+     */
+    public static RequestLog getLog(Class<?> type) {
+        return new RequestLog(Logger.getLogger(type.getName()));
+    }
+
+    private static AsyncLogAppender startAppender() {
+        AsyncLogAppender appender = new AsyncLogAppender(CAPACITY, SAMPLE_EVERY);
+        appender.start("request-log-appender");
+        FunctionCounter.builder("estore.log.dropped", appender, AsyncLogAppender::getDropped)
+                .description("Log records lost because the queue was full").register(Metrics.globalRegistry);
+        FunctionCounter.builder("estore.log.sampled", appender, AsyncLogAppender::getSampledOut)
+                .description("Log records left out while the queue was filling up")
+                .register(Metrics.globalRegistry);
+        Gauge.builder("estore.log.queued", appender, AsyncLogAppender::size)
+                .description("Log records waiting to be written").register(Metrics.globalRegistry);
+        return appender;
+    }
+
+    /**
+     * @param level A level
+     *
+     * @return Whether records of the level are published
+     */
+    public boolean isLoggable(Level level) {
+        return logger.isLoggable(level);
+    }
+
+    /**
+     * Logs a message at {@link Level#INFO}
+     *
+     * @param message The message
+     */
+    public void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    /**
+     * Logs a message
+     *
+     * @param level   The level of the message
+     * @param message The message
+     */
+    public void log(Level level, String message) {
+        if (logger.isLoggable(level)) {
+            APPENDER.append(logger, level, message, null);
+        }
+    }
+
+    /**
+     * Logs a message with one parameter
+     *
+     * @param level   The level of the message
+     * @param message The message, with a {0} placeholder
+     * @param param   The parameter
+     */
+    public void log(Level level, String message, Object param) {
+        if (logger.isLoggable(level)) {
+            APPENDER.append(logger, level, message, new Object[] { param });
+        }
+    }
+
+    /**
+     * Logs a message with several parameters
+     *
+     * @param level   The level of the message
+     * @param message The message, with {0}, {1}, ... placeholders
+     * @param params  The parameters
+     */
+    public void log(Level level, String message, Object... params) {
+        if (logger.isLoggable(level)) {
+            APPENDER.append(logger, level, message, params);
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.ducks.api.ducksapi.controller;
 
 import java.io.IOException;
 import java.util.logging.Level;
-import java.util.logging.Logger;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,8 +17,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.PricedCart;
 import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.ducks.api.ducksapi.persistence.DuckDAO;
 import com.ducks.api.ducksapi.persistence.ShoppingCartDAO;
+import com.ducks.api.ducksapi.persistence.StockHolds;
 
 /**
  * Handles the REST API requests for the Shopping Cart resource
@@ -32,8 +38,11 @@ import com.ducks.api.ducksapi.persistence.ShoppingCartDAO;
 @RequestMapping("cart")
 public class ShoppingCartController {
 
-    private static final Logger LOG = Logger.getLogger(ShoppingCartController.class.getName());
+    private static final RequestLog LOG = RequestLog.getLog(ShoppingCartController.class);
     private ShoppingCartDAO cartDao;
+    private DuckDAO duckDao;
+    private StockHolds holds; // Holds the ducks in every cart, if enabled
+    private final CartPriceCache priceCache; // Last pricing of the most recently priced carts
 
     /**
      * Creates a REST API controller to reponds to shopping cart requests
@@ -41,9 +50,66 @@ public class ShoppingCartController {
      * @param cartDao The {@link ShoppingCatDAO Cart Data Access Object} to perform
      *                CRUD operations<br>
      *                This dependency is injected by the Spring Framework
+     * 
+     * @param duckDao The {@link DuckDAO Duck Data Access Object} carts are priced
+     *                from<br>
+     *                This dependency is injected by the Spring Framework
      */
-    public ShoppingCartController(ShoppingCartDAO cartDao) {
+    public ShoppingCartController(ShoppingCartDAO cartDao, DuckDAO duckDao) {
+        this(cartDao, duckDao, StockHolds.disabled());
+    }
+
+    /**
+     * Creates a REST API controller to reponds to shopping cart requests, that
+     * holds the ducks in every cart saved
+     * 
+     * @param cartDao The {@link ShoppingCatDAO Cart Data Access Object} to perform
+     *                CRUD operations<br>
+     *                This dependency is injected by the Spring Framework
+     * 
+     * @param duckDao The {@link DuckDAO Duck Data Access Object} carts are priced
+     *                from<br>
+     *                This dependency is injected by the Spring Framework
+     * 
+     * @param holds   The {@link StockHolds holds} moved whenever a cart is
+     *                saved<br>
+     *                This dependency is injected by the Spring Framework
+     */
+    public ShoppingCartController(ShoppingCartDAO cartDao, DuckDAO duckDao, StockHolds holds) {
+        this(cartDao, duckDao, holds, CartPriceCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a REST API controller to reponds to shopping cart requests, that
+     * holds the ducks in every cart saved and keeps the pricing of a given
+     * number of carts
+     * 
+     * @param cartDao       The {@link ShoppingCatDAO Cart Data Access Object} to
+     *                      perform CRUD operations<br>
+     *                      This dependency is injected by the Spring Framework
+     * 
+     * @param duckDao       The {@link DuckDAO Duck Data Access Object} carts are
+     *                      priced from<br>
+     *                      This dependency is injected by the Spring Framework
+     * 
+     * @param holds         The {@link StockHolds holds} moved whenever a cart is
+     *                      saved<br>
+     *                      This dependency is injected by the Spring Framework
+     * 
+     * @param cacheCapacity The number of carts whose last pricing is kept, the
+     *                      same as the carts kept in memory
+     * 
+     * @throws IllegalArgumentException if there is not room for at least one
+     *                                  pricing
+     */
+    @Autowired
+    public ShoppingCartController(ShoppingCartDAO cartDao, @Qualifier("duckFileDAO") DuckDAO duckDao,
+            StockHolds holds, @Value("${carts.cache.capacity:100000}") int cacheCapacity)
+            throws IllegalArgumentException {
         this.cartDao = cartDao;
+        this.duckDao = duckDao;
+        this.holds = holds;
+        this.priceCache = new CartPriceCache(cacheCapacity);
     }
 
     /**
@@ -75,6 +141,36 @@ public class ShoppingCartController {
         }
     }
 
+    /**
+     * Retrieves a {@linkplain ShoppingCart shopping cart} with the price of every
+     * line and the total, using the current price of every {@linkplain Duck duck}
+     * <br>
+     * The pricing is kept between requests and only the lines that changed since
+     * are priced again
+     * 
+     * @param id The customer id of the {@linkplain ShoppingCart shopping cart}
+     * 
+     * @return 200 + the {@linkplain PricedCart priced cart}<br>
+     *         404 if no {@linkplain ShoppingCart shopping cart} with a matching id
+     *         is found<br>
+     *         500 if an issue with underlying storage
+     */
+    @GetMapping("/{id}/priced")
+    public ResponseEntity<PricedCart> getPricedShoppingCart(@PathVariable int id) {
+        LOG.log(Level.INFO, "GET /cart/{0}/priced", id);
+        try {
+            ShoppingCart cart = cartDao.getShoppingCart(id);
+            if (cart == null) {
+                priceCache.remove(id);
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(priceCache.get(cart, duckDao), HttpStatus.OK);
+        } catch (IOException ioe) {
+            LOG.log(Level.SEVERE, ioe.getLocalizedMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Responds to the GET request for all {@linkplain ShoppingCart Shopping carts}
      * 
@@ -116,6 +212,7 @@ public class ShoppingCartController {
         try {
             ShoppingCart newCart = cartDao.createShoppingCart(cart);
             if (newCart != null) {
+                holds.update(newCart);
                 return new ResponseEntity<>(newCart, HttpStatus.CREATED);
             } else {
                 return new ResponseEntity<>(HttpStatus.CONFLICT);
@@ -143,6 +240,7 @@ public class ShoppingCartController {
         try {
             ShoppingCart updateCart = cartDao.updateShoppingCart(cart);
             if (updateCart != null) {
+                holds.update(updateCart);
                 return new ResponseEntity<>(updateCart, HttpStatus.OK);
             } else {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -168,6 +266,8 @@ public class ShoppingCartController {
         LOG.log(Level.INFO, "DELETE /cart/{0}", id);
         try {
             if (cartDao.deleteShoppingCart(id)) {
+                priceCache.remove(id);
+                holds.release(id);
                 return new ResponseEntity<>(HttpStatus.OK);
             } else {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -1,8 +1,9 @@
 package com.ducks.api.ducksapi.controller;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
-import java.util.logging.Logger;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,8 +19,8 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ducks.api.ducksapi.model.Account;
-import com.ducks.api.ducksapi.model.UserAccount;
 import com.ducks.api.ducksapi.persistence.AccountDAO;
+import com.ducks.api.ducksapi.persistence.CredentialService;
 
 /**
  * 
@@ -35,21 +36,24 @@ import com.ducks.api.ducksapi.persistence.AccountDAO;
 @RestController
 @RequestMapping("/")
 public class UserController {
-    private static final Logger LOG = Logger.getLogger(UserController.class.getName());
+    private static final RequestLog LOG = RequestLog.getLog(UserController.class);
 
     private AccountDAO accountDAO;
+    private CredentialService credentials;
 
     /**
      * Creates a REST API controller to reponds to requests specifically for
      * accoount data
      * 
-     * @param accountDAO The {@link AccountDAO Account Data Access Object} to
-     *                   perform CRUD operations
+     * @param accountDAO  The {@link AccountDAO Account Data Access Object} to
+     *                    perform CRUD operations
+     * @param credentials The {@link CredentialService} that checks passwords
      * 
-     *                   This dependency is injected by the Spring Framework
+     *                    These dependencies are injected by the Spring Framework
      */
-    public UserController(AccountDAO accountDAO) {
+    public UserController(AccountDAO accountDAO, CredentialService credentials) {
         this.accountDAO = accountDAO;
+        this.credentials = credentials;
     }
 
     /**
@@ -62,6 +66,8 @@ public class UserController {
      *         account} object already exists<br>
      *         ResponseEntity with HTTP status of NOT_ACCEPTABLE if {@link Account}
      *         has weak password
+     *         ResponseEntity with HTTP status of SERVICE_UNAVAILABLE if too many
+     *         passwords are already being hashed
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
      */
     @PostMapping("/accounts")
@@ -83,6 +89,8 @@ public class UserController {
             }
             // Account exists in the system already.
             return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (RejectedExecutionException ree) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
             // Something went wrong not related to user creation.
         } catch (IOException ioe) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -94,6 +102,11 @@ public class UserController {
      * Responds to the GET request for a {@linkplain Account account} attempting to
      * login to the site
      * We want to get the database account to load all their data.
+     * <br>
+     * The password is checked on the {@link CredentialService} threads, so the
+     * request thread is released while the hash is computed. A stored hash made
+     * with older hashing settings is replaced in the background once the
+     * password is known to match
      * 
      * @param username The username of the login attempt
      * @param password The password of the login attempt
@@ -103,36 +116,64 @@ public class UserController {
      *         HttpStatus CONFLICT if the authentication failed
      *         HttpStatus NOT_FOUND if the login attempt was for an account was not
      *         found in the database
+     *         HttpStatus SERVICE_UNAVAILABLE if too many logins are already being
+     *         checked
      *         HttpStatus INTERNAL_SERVER_ERROR otherwise.
      */
     @GetMapping("/login")
-    public ResponseEntity<Account> loginUser(@RequestParam String username, @RequestParam String password) {
+    public CompletableFuture<ResponseEntity<Account>> loginUser(@RequestParam String username,
+            @RequestParam String password) {
         // curl.exe -X GET 'http://localhost:8080/login?username=TEST&password=TEST'
-        LOG.log(Level.INFO, "GET /login {0}", username + " " + password);
+        LOG.log(Level.INFO, "GET /login {0}", username);
 
         try {
-            Account[] databaseAccounts = accountDAO.findAccounts(username);
-            // This means account does exist in system
-            if (databaseAccounts.length != 0) {
-                // Create a temporary account. Only one account with the username can exist so
-                // ID doesn't matter
-                UserAccount tempAccount = new UserAccount(-100, username, password);
-                for (Account databaseAccount : databaseAccounts) {
-                    // Same username and hashed password
-                    if (databaseAccount.equals(tempAccount)) {
-                        return new ResponseEntity<>(databaseAccount, HttpStatus.OK);
+            Account databaseAccount = accountDAO.getAccountByUsername(username);
+            // Account does not exist in system, need to tell user to create one
+            if (databaseAccount == null) {
+                return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+            }
+            // Usernames are unique regardless of case, so only the password is left
+            // to check
+            String passwordHash = databaseAccount.getPasswordHash();
+            return credentials.verify(password, passwordHash).thenApply(matches -> {
+                if (matches) {
+                    if (credentials.getHasher().needsRehash(passwordHash)) {
+                        rehash(databaseAccount.getId(), password, passwordHash);
                     }
+                    return new ResponseEntity<>(databaseAccount, HttpStatus.OK);
                 }
-                // Account exists in the system, but wrong login information was provided by
-                // user.
+                // Account exists in the system, but wrong login information was provided
+                // by user.
                 return new ResponseEntity<>(HttpStatus.CONFLICT);
-                // Account does not exist in system, need to tell user to create one
-            } else {
-                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-            }
+            });
+        } catch (RejectedExecutionException ree) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
             // Something went wrong not related to user authentication.
         } catch (IOException ioe) {
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR));
+        }
+    }
+
+    /**
+     * Replaces the password hash of an account with one made with the current
+     * hashing settings, without making the login wait for it. If it fails, the
+     * hash is replaced on a later login
+     * 
+     * @param id           The id of the account
+     * @param password     The password, known to match the hash
+     * @param passwordHash The stored hash
+     */
+    private void rehash(int id, String password, String passwordHash) {
+        try {
+            credentials.hash(password).thenAccept(newHash -> {
+                try {
+                    accountDAO.rehashPassword(id, passwordHash, newHash);
+                } catch (IOException ioe) {
+                    LOG.log(Level.WARNING, "Could not save the new password hash of account {0}", id);
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            // The hashing threads are busy, so leave it to a later login
         }
     }
 
@@ -145,6 +186,8 @@ public class UserController {
      * @return
      *         HttpStatus OK if the account was saved successfully
      *         HttpStatus CONFLICT if the account failed to save
+     *         HttpStatus SERVICE_UNAVAILABLE if too many passwords are already
+     *         being hashed
      *         HttpStatus INTERNAL_SERVER_ERROR otherwise.
      */
     @PutMapping("/logout")
@@ -162,6 +205,8 @@ public class UserController {
             // Account did not save. Most likely an empty account body was entered (not
             // logged in)
             return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (RejectedExecutionException ree) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
         } catch (IOException ioe) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -225,6 +270,7 @@ public class UserController {
      * @param account The account being updated
      * @return 404 if account doesn't exist
      *         422 if password isn't strong
+     *         503 if too many passwords are already being hashed
      *         200 + account obj if updated successfully
      *         500 if dao fails
      */
@@ -246,6 +292,8 @@ public class UserController {
             }
 
             return new ResponseEntity<Account>(updated, HttpStatus.OK);
+        } catch (RejectedExecutionException ree) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
         } catch (IOException e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
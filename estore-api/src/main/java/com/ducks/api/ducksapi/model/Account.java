@@ -1,8 +1,10 @@
 package com.ducks.api.ducksapi.model;
 
+import java.util.Objects;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
@@ -29,9 +31,16 @@ public abstract class Account {
     @JsonProperty("username")
     private String username;
 
-    @JsonProperty("plainPassword")
+    // Only ever read from requests; it is hashed into passwordHash and never
+    // written back out
+    @JsonProperty(value = "plainPassword", access = JsonProperty.Access.WRITE_ONLY)
     private String plainPassword;
 
+    // Kept out of responses and requests; the Data Access Object's mapper
+    // writes it to the file
+    @JsonIgnore
+    private String passwordHash;
+
     @JsonProperty("adminStatus")
     private boolean adminStatus;
 
@@ -118,7 +127,8 @@ public abstract class Account {
     }
 
     /**
-     * @return the password of the account
+     * @return the password of the account as it was sent by the client, null
+     *         once it has been hashed
      */
     public String getPlainPassword() {
         return plainPassword;
@@ -126,6 +136,8 @@ public abstract class Account {
 
     /**
      * Changes the password of an account
+     * <br>
+     * The password stays in plaintext only until the Data Access Object hashes it
      * 
      * @param newPassword The passworld the account should change to.
      */
@@ -133,6 +145,25 @@ public abstract class Account {
         this.plainPassword = newPassword;
     }
 
+    /**
+     * @return the stored hash of the password, null if it has not been hashed
+     *         yet
+     */
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    /**
+     * Replaces the stored hash of the password and forgets the plaintext
+     * password
+     * 
+     * @param passwordHash The new hash
+     */
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+        this.plainPassword = null;
+    }
+
     /**
      * Checks if the entered password matches the current password
      * 
@@ -170,6 +201,9 @@ public abstract class Account {
      * @return True if the password meets requirements, false otherwise.
      */
     public boolean validateStrongPassword(String password) {
+        if (password == null) {
+            return false;
+        }
         Matcher matcher = strongPasswordRegex.matcher(password);
         return matcher.find();
     }
@@ -256,22 +290,26 @@ public abstract class Account {
 
     /**
      * {@inheritDoc}}
+     * <br>
+     * Only the username, as accounts are written to the logs
      */
     @Override
     public String toString() {
-        return username + ":" + plainPassword;
+        return username;
     }
 
     /**
-     * ID and admin status don't matter in this regard. This is solely for login
-     * verification purposes.
+     * ID and admin status don't matter in this regard. Either password form may
+     * be null once the Data Access Object has hashed the password
      * {@inheritDoc}
      */
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof Account) {
             Account other = (Account) obj;
-            return (this.username.equals(other.getUsername()) && this.plainPassword.equals(other.getPlainPassword()));
+            return Objects.equals(this.username, other.getUsername())
+                    && Objects.equals(this.plainPassword, other.getPlainPassword())
+                    && Objects.equals(this.passwordHash, other.getPasswordHash());
         }
         return false;
     }
@@ -308,7 +346,7 @@ public abstract class Account {
      */
     @Override
     public int hashCode() {
-        return this.username.hashCode() + this.plainPassword.hashCode();
+        return Objects.hash(username, plainPassword, passwordHash);
     }
 
 }
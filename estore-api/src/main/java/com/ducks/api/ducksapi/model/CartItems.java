@@ -0,0 +1,405 @@
+package com.ducks.api.ducksapi.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The items of a {@linkplain ShoppingCart shopping cart}: the quantity of
+ * every {@linkplain Duck duck}, by duck id
+ * <br>
+ * Ids and quantities are kept in two primitive arrays with open addressing and
+ * linear probing, so looking up or walking a cart neither parses nor boxes.
+ * Slots are walked with {@link #nextSlot(int)}:
+ *
+ * <pre>
+ * for (int slot = items.nextSlot(-1); slot &gt;= 0; slot = items.nextSlot(slot)) {
+ *     int duckId = items.idAt(slot);
+ *     int quantity = items.quantityAt(slot);
+ * }
+ * </pre>
+ *
+ * It is also a {@code Map<Integer, Integer>}, so it can be handed to code that
+ * takes an order as a map, such as {@link
+ * com.ducks.api.ducksapi.persistence.DuckDAO#reserveStock(Map)}; that view
+ * boxes, and its iterators do not support removal
+ * <br>
+ * Quantities are always greater than 0, which is how a free slot is told apart
+ * from a used one. Not thread-safe
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public final class CartItems extends AbstractMap<Integer, Integer> {
+    private static final int[] NONE = new int[0]; // Shared by every cart that never had an item
+    private static final int MIN_CAPACITY = 8;
+    private static final int PHI = 0x9E3779B9; // Spreads consecutive ids over the table
+
+    private int[] ids = NONE; // Duck id of every used slot
+    private int[] quantities = NONE; // Quantity of every slot, 0 if the slot is free
+    private int size; // Number of used slots
+    private int shift; // 32 - log2 of the capacity
+
+    /**
+     * Creates an empty set of items
+     */
+    public CartItems() {
+    }
+
+    /**
+     * Creates an empty set of items with room for the given number of ducks
+     *
+     * @param expected The number of ducks expected
+     */
+    public CartItems(int expected) {
+        if (expected > 0) {
+            allocate(capacityFor(expected));
+        }
+    }
+
+    /**
+     * Creates a copy of a set of items
+     *
+     * @param other The items to copy
+     */
+    public CartItems(CartItems other) {
+        if (other.size > 0) {
+            ids = other.ids.clone();
+            quantities = other.quantities.clone();
+            size = other.size;
+            shift = other.shift;
+        }
+    }
+
+    /**
+     * @param expected A number of ducks
+     *
+     * @return The smallest power of two table that holds them under three
+     *         quarters full
+     */
+    private static int capacityFor(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L < expected * 4L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Replaces the table with an empty one
+     *
+     * @param capacity A power of two
+     */
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        quantities = new int[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * @return The slot the id is first looked for at
+     */
+    private int home(int duckId) {
+        return (duckId * PHI) >>> shift;
+    }
+
+    /**
+     * @return The slot holding the id, or -1 if there is none
+     */
+    private int find(int duckId) {
+        if (size == 0) {
+            return -1;
+        }
+        int mask = ids.length - 1;
+        for (int slot = home(duckId);; slot = (slot + 1) & mask) {
+            if (quantities[slot] == 0) {
+                return -1;
+            }
+            if (ids[slot] == duckId) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * @param duckId The id of a duck
+     *
+     * @return The quantity of the duck, or 0 if it is not in the cart
+     */
+    public int getQuantity(int duckId) {
+        int slot = find(duckId);
+        return slot < 0 ? 0 : quantities[slot];
+    }
+
+    /**
+     * @param duckId The id of a duck
+     *
+     * @return true if the duck is in the cart
+     */
+    public boolean contains(int duckId) {
+        return find(duckId) >= 0;
+    }
+
+    /**
+     * Sets the quantity of a duck, adding it if it is not in the cart
+     *
+     * @param duckId   The id of the duck
+     * @param quantity The quantity, greater than 0
+     *
+     * @return The previous quantity, or 0 if the duck was not in the cart
+     *
+     * @throws IllegalArgumentException if the quantity is less than or equal
+     *                                  to 0
+     */
+    public int setQuantity(int duckId, int quantity) throws IllegalArgumentException {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantities must be greater than 0");
+        }
+        if ((size + 1) * 4L > ids.length * 3L) {
+            grow();
+        }
+        int mask = ids.length - 1;
+        int slot = home(duckId);
+        while (quantities[slot] != 0) {
+            if (ids[slot] == duckId) {
+                int previous = quantities[slot];
+                quantities[slot] = quantity;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        ids[slot] = duckId;
+        quantities[slot] = quantity;
+        ++size;
+        return 0;
+    }
+
+    /**
+     * Takes a duck out of the cart
+     * <br>
+     * The entries after it in its run are shifted back, so lookups never have
+     * to step over removed slots
+     *
+     * @param duckId The id of the duck
+     *
+     * @return The quantity it had, or 0 if it was not in the cart
+     */
+    public int removeItem(int duckId) {
+        int hole = find(duckId);
+        if (hole < 0) {
+            return 0;
+        }
+        int removed = quantities[hole];
+        int mask = ids.length - 1;
+        for (int slot = (hole + 1) & mask; quantities[slot] != 0; slot = (slot + 1) & mask) {
+            // An entry may fill the hole if the hole lies between its home and it
+            if (((slot - home(ids[slot])) & mask) >= ((slot - hole) & mask)) {
+                ids[hole] = ids[slot];
+                quantities[hole] = quantities[slot];
+                hole = slot;
+            }
+        }
+        quantities[hole] = 0;
+        --size;
+        return removed;
+    }
+
+    /**
+     * Doubles the table, or creates it if the cart never had an item
+     */
+    private void grow() {
+        int[] oldIds = ids;
+        int[] oldQuantities = quantities;
+        allocate(Math.max(MIN_CAPACITY, oldIds.length * 2));
+        int mask = ids.length - 1;
+        for (int old = 0; old < oldIds.length; ++old) {
+            if (oldQuantities[old] != 0) {
+                int slot = home(oldIds[old]);
+                while (quantities[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                ids[slot] = oldIds[old];
+                quantities[slot] = oldQuantities[old];
+            }
+        }
+    }
+
+    /**
+     * @param slot A used slot, or -1 to start from the beginning
+     *
+     * @return The next used slot after the given one, or -1 if there is none
+     */
+    public int nextSlot(int slot) {
+        for (int next = slot + 1; next < quantities.length; ++next) {
+            if (quantities[next] != 0) {
+                return next;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param slot A used slot, as returned by {@link #nextSlot(int)}
+     *
+     * @return The duck id in the slot
+     */
+    public int idAt(int slot) {
+        return ids[slot];
+    }
+
+    /**
+     * @param slot A used slot, as returned by {@link #nextSlot(int)}
+     *
+     * @return The quantity in the slot
+     */
+    public int quantityAt(int slot) {
+        return quantities[slot];
+    }
+
+    /**
+     * @return The ids of every duck in the cart, in ascending order
+     */
+    public int[] getIds() {
+        int[] sorted = new int[size];
+        int index = 0;
+        for (int slot = nextSlot(-1); slot >= 0; slot = nextSlot(slot)) {
+            sorted[index++] = ids[slot];
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Integer && contains((Integer) key);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer get(Object key) {
+        int slot = key instanceof Integer ? find((Integer) key) : -1;
+        return slot < 0 ? null : quantities[slot];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the quantity is less than or equal
+     *                                  to 0
+     */
+    @Override
+    public Integer put(Integer duckId, Integer quantity) throws IllegalArgumentException {
+        int previous = setQuantity(duckId, quantity);
+        return previous == 0 ? null : previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer remove(Object key) {
+        int removed = key instanceof Integer ? removeItem((Integer) key) : 0;
+        return removed == 0 ? null : removed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(quantities, 0);
+        size = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Map.Entry<Integer, Integer>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<Integer, Integer>> iterator() {
+                return new Iterator<>() {
+                    private int next = nextSlot(-1);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+
+                    @Override
+                    public Map.Entry<Integer, Integer> next() {
+                        if (next < 0) {
+                            throw new NoSuchElementException();
+                        }
+                        Map.Entry<Integer, Integer> entry = new SimpleImmutableEntry<>(ids[next], quantities[next]);
+                        next = nextSlot(next);
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof CartItems)) {
+            return super.equals(obj);
+        }
+        CartItems other = (CartItems) obj;
+        if (other.size != size) {
+            return false;
+        }
+        for (int slot = nextSlot(-1); slot >= 0; slot = nextSlot(slot)) {
+            if (other.getQuantity(ids[slot]) != quantities[slot]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        // Same as the sum of the entry hash codes that Map requires
+        int hash = 0;
+        for (int slot = nextSlot(-1); slot >= 0; slot = nextSlot(slot)) {
+            hash += ids[slot] ^ quantities[slot];
+        }
+        return hash;
+    }
+}
@@ -1,7 +1,10 @@
 package com.ducks.api.ducksapi.model;
 
 import java.beans.Transient;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongUnaryOperator;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -19,11 +22,25 @@ public class Duck {
     @JsonProperty("name")
     private String name;
 
-    @JsonProperty("quantity")
-    private int quantity;
+    // Lets stock be taken, returned and held atomically without locking the duck
+    private static final AtomicLongFieldUpdater<Duck> STOCK = AtomicLongFieldUpdater.newUpdater(Duck.class,
+            "stock");
+    private static final int RETIRED = -1; // Held quantity of a duck that has been replaced or deleted
+
+    // The quantity on hand and the part of it held for carts, packed by Stock.
+    // Only the quantity on hand is saved
+    private volatile long stock;
 
-    @JsonProperty("price")
-    private double price;
+    // A price set by hand, or 0 when the price is worked out from the
+    // attributes each time it is read. The only price that is read from JSON:
+    // "price" is what the pricing rules make of it, and reading that back would
+    // apply a promotion to itself
+    @JsonProperty("customPrice")
+    private double customPrice;
+
+    // Whether per duck pricing rules apply, false for customized ducks whose ids
+    // are not catalog ids
+    private boolean catalogItem = true;
 
     @JsonProperty("size")
     private Size size;
@@ -34,20 +51,19 @@ public class Duck {
     @JsonProperty("outfit")
     private DuckOutfit outfit;
 
-    private Price priceObject;
-
     /**
      * Create a Duck with the given id and name
      * 
-     * @param id       The id of the Duck
-     * @param name     The name of the Duck
-     * @param quantity The number of ducks available
-     * @param price    The price of the Duck
-     * @param size     The size of the Duck
-     * @param color    The color of the duck
+     * @param id          The id of the Duck
+     * @param name        The name of the Duck
+     * @param quantity    The number of ducks available
+     * @param customPrice The price set by hand, 0 to work it out from the
+     *                    attributes
+     * @param size        The size of the Duck
+     * @param color       The color of the duck
      * @throws IllegalArgumentException If name is null, empty, or blank.
      *                                  If quanity is less than 0
-     *                                  If price is less than 0
+     *                                  If customPrice is less than 0
      *                                  If size/color/outfit is null
      *                                  If the duckOutfit is considered invalid
      * 
@@ -64,21 +80,20 @@ public class Duck {
      *                                  value, i.e. 0 for int
      */
     public Duck(@JsonProperty("id") int id, @JsonProperty("name") String name, @JsonProperty("quantity") int quantity,
-            @JsonProperty("price") double price, @JsonProperty("size") Size size, @JsonProperty("color") Colors color,
+            @JsonProperty("customPrice") double customPrice, @JsonProperty("size") Size size, @JsonProperty("color") Colors color,
             @JsonProperty("outfit") DuckOutfit outfit) throws IllegalArgumentException {
         this.id = id;
         this.name = name;
-        this.quantity = quantity;
+        this.stock = Stock.of(quantity, 0);
         this.size = size;
         this.color = color;
         this.outfit = outfit;
-        this.price = price;
 
         String isValidResponse = isValid();
         if (isValidResponse != null) {
             throw new IllegalArgumentException(isValidResponse);
         } else {
-            updatePrice(price);
+            updatePrice(customPrice);
         }
     }
 
@@ -112,57 +127,282 @@ public class Duck {
 
     /**
      * Get the quantity of the duck available
+     * <br>
+     * This is the quantity on hand, including the ducks held for carts
      * 
      * @return The quantity of the duck available
      */
+    @JsonProperty("quantity")
     public int getQuantity() {
-        return quantity;
+        return Stock.quantity(stock);
     }
 
     /**
-     * Sets the quantity of the duck available
+     * Sets the quantity of the duck available, keeping the ducks held for carts
+     * held
      * 
      * @param quantity The number of ducks available
      */
     public void setQuantity(int quantity) {
-        this.quantity = quantity;
+        while (true) {
+            long current = stock;
+            if (STOCK.compareAndSet(this, current, Stock.of(quantity, Stock.held(current)))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The number of ducks held for shopping carts
+     */
+    @JsonIgnore
+    public int getHeld() {
+        return Math.max(0, Stock.held(stock));
+    }
+
+    /**
+     * Sets the number of ducks held for shopping carts, for stores that keep
+     * holds apart from the duck
+     * 
+     * @param held The number of ducks held
+     */
+    @JsonIgnore
+    public void setHeld(int held) {
+        while (true) {
+            long current = stock;
+            if (STOCK.compareAndSet(this, current, Stock.of(Stock.quantity(current), held))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The number of ducks that can still be taken or held by a cart
+     *         that has none of them held
+     */
+    @JsonIgnore
+    public int getAvailable() {
+        long current = stock;
+        return Stock.held(current) == RETIRED ? Stock.quantity(current) : Stock.available(current);
+    }
+
+    /**
+     * Atomically takes the given amount out of the quantity available, as long
+     * as there is enough
+     * 
+     * @param amount The number of ducks being taken
+     * 
+     * @return true if the amount was taken, false if not enough ducks are
+     *         available (the quantity is left unchanged)
+     */
+    public boolean takeQuantity(int amount) {
+        return takeQuantity(amount, 0);
+    }
+
+    /**
+     * Atomically takes the given amount out of the quantity available, part of
+     * it from the ducks held for the cart being checked out
+     * 
+     * @param amount The number of ducks being taken
+     * @param held   How many of them were held for the cart
+     * 
+     * @return true if the amount was taken, false if fewer ducks are held or
+     *         the rest is not available, or if the duck has been
+     *         {@linkplain #isRetired() retired} (the stock is left unchanged)
+     */
+    public boolean takeQuantity(int amount, int held) {
+        return update(current -> Stock.take(current, amount, held));
+    }
+
+    /**
+     * Atomically adds the given amount back to the quantity available
+     * 
+     * @param amount The number of ducks being returned
+     * 
+     * @return false if the duck has been {@linkplain #isRetired() retired}, in
+     *         which case nothing changed
+     */
+    public boolean returnQuantity(int amount) {
+        return returnQuantity(amount, 0);
+    }
+
+    /**
+     * Atomically adds the given amount back to the quantity available, the
+     * reverse of {@link #takeQuantity(int, int)}
+     * 
+     * @param amount The number of ducks being returned
+     * @param held   How many of them are held for a cart again
+     * 
+     * @return false if the duck has been {@linkplain #isRetired() retired}, in
+     *         which case nothing changed
+     */
+    public boolean returnQuantity(int amount, int held) {
+        return update(current -> Stock.put(current, amount, held));
+    }
+
+    /**
+     * Atomically holds ducks for a shopping cart, so that no other cart can
+     * take them
+     * 
+     * @param amount The number of ducks to hold
+     * 
+     * @return true if they were held, false if not that many are available or
+     *         the duck has been {@linkplain #isRetired() retired}
+     */
+    public boolean holdQuantity(int amount) {
+        return update(current -> Stock.hold(current, amount));
+    }
+
+    /**
+     * Atomically lets go of ducks held for a shopping cart
+     * 
+     * @param amount The number of ducks no longer held
+     * 
+     * @return false if the duck has been {@linkplain #isRetired() retired}, in
+     *         which case its replacement holds them
+     */
+    public boolean releaseHeld(int amount) {
+        return update(current -> Stock.release(current, amount));
+    }
+
+    /**
+     * Takes over the ducks held for carts from the duck that this one replaces,
+     * and {@linkplain #isRetired() retires} it
+     * 
+     * @param previous The duck being replaced, may be null or this duck, in
+     *                 which case nothing changes
+     */
+    public void replace(Duck previous) {
+        if (previous == null || previous == this) {
+            return;
+        }
+        int held = previous.retire();
+        update(current -> Stock.of(Stock.quantity(current), Stock.held(current) + held));
+    }
+
+    /**
+     * Stops any more stock being taken from or held on this duck, so that
+     * changes go to the duck that replaces it instead of being lost
+     * 
+     * @return The number of ducks that were held
+     */
+    public int retire() {
+        while (true) {
+            long current = stock;
+            if (Stock.held(current) == RETIRED) {
+                return 0;
+            }
+            if (STOCK.compareAndSet(this, current, Stock.of(Stock.quantity(current), RETIRED))) {
+                return Stock.held(current);
+            }
+        }
+    }
+
+    /**
+     * @return true if the duck was replaced or deleted, so its stock can no
+     *         longer change
+     */
+    @JsonIgnore
+    public boolean isRetired() {
+        return Stock.held(stock) == RETIRED;
+    }
+
+    /**
+     * Applies a stock operation with a compare-and-set loop
+     * 
+     * @param operation Gives the new stock, or {@link Stock#SHORT}
+     * 
+     * @return false if the operation was short or the duck is retired
+     */
+    private boolean update(LongUnaryOperator operation) {
+        while (true) {
+            long current = stock;
+            if (Stock.held(current) == RETIRED) {
+                return false;
+            }
+            long next = operation.applyAsLong(current);
+            if (next == Stock.SHORT) {
+                return false;
+            }
+            if (STOCK.compareAndSet(this, current, next)) {
+                return true;
+            }
+        }
     }
 
     /**
      * Gets the price of the duck
+     * <br>
+     * Worked out on every call from the active {@linkplain PriceTable pricing
+     * rules}, starting from the custom price or, if none was set, the size,
+     * color and outfit. Allocates nothing
+     * <br>
+     * Only written to JSON. A "price" in a request or a file is ignored, so the
+     * price served to a client never becomes a custom price when it is sent
+     * back; set "customPrice" instead
      * 
      * @return The price of the duck
      */
+    @JsonProperty(value = "price", access = JsonProperty.Access.READ_ONLY)
     public double getPrice() {
-        return price;
+        if (!catalogItem) {
+            double custom = customPrice;
+            return custom != 0 ? custom : Price.calculate(size, color, outfit.getMask());
+        }
+        return Price.calculate(id, size, color, outfit.getMask(), customPrice);
+    }
+
+    /**
+     * Gets the price set by hand, before any pricing rules
+     * 
+     * @return The custom price of the duck, 0 if it is based on the attributes
+     */
+    public double getCustomPrice() {
+        return customPrice;
+    }
+
+    /**
+     * Checks whether per duck pricing rules apply to this duck
+     * 
+     * @return true for catalog ducks, false for customized ones
+     */
+    @JsonIgnore
+    public boolean isCatalogItem() {
+        return catalogItem;
+    }
+
+    /**
+     * Sets whether per duck pricing rules apply to this duck
+     * 
+     * @param catalogItem false if the id of the duck is not a catalog id
+     */
+    @JsonIgnore
+    public void setCatalogItem(boolean catalogItem) {
+        this.catalogItem = catalogItem;
     }
 
     /**
      * Updates the price when any changes were made to the duck.
+     * <br>
+     * Drops any custom price, so the price follows the attributes again
      */
     public void updatePrice() {
-        priceObject = new Price(this);
-        this.price = priceObject.getPrice();
+        customPrice = 0;
     }
 
     /**
      * Custom price for duck, not based on attributes.
      * 
-     * @param price The custom price of the duck
+     * @param price The custom price of the duck, 0 to base it on the attributes
      */
     public void updatePrice(double price) {
-        if (price == 0) {
-            updatePrice();
-        } else {
-            priceObject = new Price(price);
-            this.price = priceObject.getPrice();
-        }
+        customPrice = price;
     }
 
     /**
-     * Sets the price of the duck
+     * Sets the custom price of the duck
      * 
-     * @param price The price of the duck
+     * @param price The custom price of the duck, 0 to base it on the attributes
      */
     public void setPrice(Double price) {
         updatePrice(price);
@@ -352,7 +592,7 @@ public class Duck {
             issues += "Name must not be null, empty, or blank. ";
         }
 
-        if (quantity < 0) {
+        if (getQuantity() < 0) {
             issues += "Quantity must be equal to or greater than 0. ";
         }
 
@@ -383,14 +623,14 @@ public class Duck {
         }
 
         Duck other = (Duck) obj;
-        return this.id == other.id && this.name.equals(other.name) && this.quantity == other.quantity
-                && this.price == other.price && this.size == other.size && this.color == other.color
+        return this.id == other.id && this.name.equals(other.name) && this.getQuantity() == other.getQuantity()
+                && this.getPrice() == other.getPrice() && this.size == other.size && this.color == other.color
                 && this.outfit.equals(other.outfit);
     }
 
     @Override
     public int hashCode() {
-        return this.id + this.name.hashCode() + this.quantity + Double.hashCode(price) + this.size.hashCode()
+        return this.id + this.name.hashCode() + this.getQuantity() + Double.hashCode(getPrice()) + this.size.hashCode()
                 + this.color.hashCode() + this.outfit.hashCode();
     }
 
@@ -399,7 +639,7 @@ public class Duck {
      */
     @Override
     public String toString() {
-        return String.format(STRING_FORMAT, id, name, quantity, price, size, color, outfit.getHatUID(),
+        return String.format(STRING_FORMAT, id, name, getQuantity(), getPrice(), size, color, outfit.getHatUID(),
                 outfit.getShirtUID(), outfit.getShoesUID(), outfit.getHandItemUID(), outfit.getJewelryUID());
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.ducks.api.ducksapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class DuckOutfit {
@@ -153,6 +154,19 @@ public class DuckOutfit {
         return new int[] { hatUID, shirtUID, shoesUID, handItemUID, jewelryUID };
     }
 
+    /**
+     * Retrieves which slots of the outfit are customized, without allocating
+     * 
+     * @return A bitmask with bit 0 set for the hat, 1 for the shirt, 2 for the
+     *         shoes, 3 for the hand item and 4 for the jewelry, whenever that
+     *         slot's UID is not 0
+     */
+    @JsonIgnore
+    public int getMask() {
+        return (hatUID != 0 ? 1 : 0) | (shirtUID != 0 ? 1 << 1 : 0) | (shoesUID != 0 ? 1 << 2 : 0)
+                | (handItemUID != 0 ? 1 << 3 : 0) | (jewelryUID != 0 ? 1 << 4 : 0);
+    }
+
     /**
      * Checks whether all of the properties are valid.
      * The class is considered invalid if any of the properties are less than 0
@@ -4,20 +4,28 @@ import org.springframework.stereotype.Component;
 
 /**
  * Represents the price of duck.
- * 
+ * <br>
+ * Prices are read from the active {@link PriceTable}, which holds the base
+ * price of every size and color pair, the surcharge of every combination of
+ * customized outfit slots and any per duck prices, with the current
+ * {@linkplain PricingRule pricing rules} already applied. A price is a few
+ * array reads and allocates nothing
+ *
  * @author Travis Hill
  */
 @Component
 public class Price {
+    static final double OUTFIT_PRICE = 2.00; // Surcharge for each customized outfit slot
+    private static volatile PriceTable table = PriceTable.standard(); // The active rules, compiled
+
     private double finalPrice;
-    private double outfitPrice = 2.00;
 
     public Price() {
     }
 
     /*
      * Creates a Price object that stores the price of a duck
-     * 
+     *
      * @param duck The duck object the price is being made for.
      */
     public Price(Duck duck) {
@@ -26,34 +34,69 @@ public class Price {
 
     /*
      * Allows custom price to be input rather than calculating based on attributes
-     * 
+     *
      * @param price The custom price wanted.
      */
     public Price(double price) {
         this.finalPrice = price;
     }
 
+    /**
+     * @return The table prices are currently read from
+     */
+    public static PriceTable getTable() {
+        return table;
+    }
+
+    /**
+     * Replaces the table prices are read from. Every price read afterwards,
+     * on any thread, uses the new table
+     *
+     * @param table The newly compiled table
+     */
+    public static void setTable(PriceTable table) {
+        Price.table = table;
+    }
+
+    /**
+     * Calculates the price of a duck from its attributes without allocating
+     *
+     * @param size       The size of the duck
+     * @param color      The color of the duck
+     * @param outfitMask The customized outfit slots, as returned by
+     *                   {@link DuckOutfit#getMask()}
+     * @return The total price of the duck as a double.
+     */
+    public static double calculate(Size size, Colors color, int outfitMask) {
+        return table.price(size, color, outfitMask);
+    }
+
+    /**
+     * Calculates the price of a duck, including any price set for it by id,
+     * without allocating
+     *
+     * @param id          The id of the duck
+     * @param size        The size of the duck
+     * @param color       The color of the duck
+     * @param outfitMask  The customized outfit slots, as returned by
+     *                    {@link DuckOutfit#getMask()}
+     * @param customPrice The price set by hand, 0 to work it out from the
+     *                    attributes
+     * @return The total price of the duck as a double.
+     */
+    public static double calculate(int id, Size size, Colors color, int outfitMask, double customPrice) {
+        return table.price(id, size, color, outfitMask, customPrice);
+    }
+
     /**
      * Calculates the price of a duck based on its size, color, and outfit
      * attributes.
-     * 
+     *
      * @param duck The duck that the price is being based off of.
      * @return The total price of the duck as a double.
      */
     private double calculatePrice(Duck duck) {
-        DuckOutfit outfit = duck.getOutfit();
-        Colors color = duck.getColor();
-        Size size = duck.getSize();
-        double basePrice = color.getPrice() + size.getPrice();
-        int[] outfitAsArray = outfit.getOutfitAsArray();
-        for (int i = 0; i < outfitAsArray.length; i++) {
-            // No customized option.
-            if (outfitAsArray[i] == 0) {
-                continue;
-            }
-            basePrice += outfitPrice;
-        }
-        return basePrice;
+        return calculate(duck.getSize(), duck.getColor(), duck.getOutfit().getMask());
     }
 
     /*
@@ -0,0 +1,266 @@
+package com.ducks.api.ducksapi.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The set of {@linkplain PricingRule pricing rules} active at one moment,
+ * compiled into flat lookup arrays
+ * <br>
+ * A price is one read from the size x color table, one read from the table of
+ * surcharges for every combination of customized outfit slots and, when any
+ * SKU rules are active, one read from a table indexed by duck id (or a binary
+ * search over the ids, if they are too sparse for such a table). Nothing is
+ * allocated and no rule is looked at
+ * <br>
+ * Tables are immutable. Changing the rules, or reaching the start or end of a
+ * timed rule, means compiling a new table
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public final class PriceTable {
+    private static final Size[] SIZES = Size.values();
+    private static final Colors[] COLORS = Colors.values();
+    private static final int SLOTS = PricingRule.Slot.values().length;
+    private static final AtomicLong VERSIONS = new AtomicLong(); // Hands out table versions
+    private static final int DENSE_IDS_PER_SKU = 16; // How sparse SKU ids may be for a direct index
+
+    private final long version; // Unique to this table, grows with every compile
+    private final long validUntil; // Epoch millis the next timed rule starts or ends
+    private final double[] base; // Size x color, by ordinal
+    private final double[] surcharge; // Total surcharge of every outfit mask
+    private final int[] skuIds; // Ascending ids of the ducks with SKU rules
+    private final int[] skuIndex; // Id -> position in the SKU arrays + 1 (0 for none), null if too sparse
+    private final double[] skuPrices; // Price set for each SKU, NaN to keep the computed one
+    private final double[] skuFactors; // Multiplier for each SKU, 1 for none
+
+    private PriceTable(long validUntil, double[] base, double[] surcharge, int[] skuIds, double[] skuPrices,
+            double[] skuFactors) {
+        this.version = VERSIONS.incrementAndGet();
+        this.validUntil = validUntil;
+        this.base = base;
+        this.surcharge = surcharge;
+        this.skuIds = skuIds;
+        this.skuIndex = denseIndex(skuIds);
+        this.skuPrices = skuPrices;
+        this.skuFactors = skuFactors;
+    }
+
+    /**
+     * Compiles the rules that are active at the given time
+     * <br>
+     * Rules are applied in order, so a later rule that sets an amount replaces
+     * an earlier one, while percentages off compound
+     *
+     * @param rules The rules, active or not
+     * @param now   The time in epoch millis
+     *
+     * @return The table
+     */
+    public static PriceTable compile(List<PricingRule> rules, long now) {
+        double[] base = new double[SIZES.length * COLORS.length];
+        for (Size size : SIZES) {
+            for (Colors color : COLORS) {
+                base[index(size, color)] = size.getPrice() + color.getPrice();
+            }
+        }
+        double[] slots = new double[SLOTS];
+        Arrays.fill(slots, Price.OUTFIT_PRICE);
+        TreeMap<Integer, double[]> skus = new TreeMap<>(); // id -> { price, factor }
+        long validUntil = Long.MAX_VALUE;
+
+        for (PricingRule rule : rules) {
+            validUntil = Math.min(validUntil, nextBoundary(rule, now));
+            if (!rule.isActive(now)) {
+                continue;
+            }
+            double factor = 1 - rule.getPercentOff() / 100;
+            switch (rule.getType()) {
+                case BASE:
+                    for (Size size : SIZES) {
+                        for (Colors color : COLORS) {
+                            if ((rule.getSize() == null || rule.getSize() == size)
+                                    && (rule.getColor() == null || rule.getColor() == color)) {
+                                int index = index(size, color);
+                                base[index] = apply(base[index], rule.getPrice(), factor);
+                            }
+                        }
+                    }
+                    break;
+                case SLOT:
+                    for (PricingRule.Slot slot : PricingRule.Slot.values()) {
+                        if (rule.getSlot() == null || rule.getSlot() == slot) {
+                            slots[slot.ordinal()] = apply(slots[slot.ordinal()], rule.getPrice(), factor);
+                        }
+                    }
+                    break;
+                case SKU:
+                    double[] sku = skus.computeIfAbsent(rule.getDuckId(), id -> new double[] { Double.NaN, 1 });
+                    if (rule.getPrice() != null) {
+                        sku[0] = rule.getPrice();
+                    }
+                    sku[1] *= factor;
+                    break;
+            }
+        }
+
+        double[] surcharge = new double[1 << SLOTS];
+        for (int mask = 1; mask < surcharge.length; ++mask) {
+            int slot = Integer.numberOfTrailingZeros(mask);
+            surcharge[mask] = surcharge[mask & (mask - 1)] + slots[slot];
+        }
+
+        int[] skuIds = new int[skus.size()];
+        double[] skuPrices = new double[skus.size()];
+        double[] skuFactors = new double[skus.size()];
+        int index = 0;
+        for (var sku : skus.entrySet()) {
+            skuIds[index] = sku.getKey();
+            skuPrices[index] = sku.getValue()[0];
+            skuFactors[index] = sku.getValue()[1];
+            ++index;
+        }
+        return new PriceTable(validUntil, base, surcharge, skuIds, skuPrices, skuFactors);
+    }
+
+    /**
+     * @return The table with no rules, which prices ducks by their size, color
+     *         and outfit only
+     */
+    public static PriceTable standard() {
+        return compile(List.of(), 0);
+    }
+
+    /**
+     * @param skuIds Ascending ids of the ducks with SKU rules
+     *
+     * @return A table mapping every id from 0 up to the greatest one to its
+     *         position + 1, or null if the ids are negative or too sparse for
+     *         the table to be worth its memory
+     */
+    private static int[] denseIndex(int[] skuIds) {
+        if (skuIds.length == 0 || skuIds[0] < 0) {
+            return null;
+        }
+        long length = skuIds[skuIds.length - 1] + 1L;
+        if (length > Math.max(1024, (long) skuIds.length * DENSE_IDS_PER_SKU)) {
+            return null;
+        }
+        int[] index = new int[(int) length];
+        for (int sku = 0; sku < skuIds.length; ++sku) {
+            index[skuIds[sku]] = sku + 1;
+        }
+        return index;
+    }
+
+    /**
+     * @param rule A rule
+     * @param now  The time in epoch millis
+     *
+     * @return The first start or end of the rule after now, or
+     *         {@link Long#MAX_VALUE} if there is none
+     */
+    private static long nextBoundary(PricingRule rule, long now) {
+        Long startsAt = rule.getStartsAt();
+        Long endsAt = rule.getEndsAt();
+        if (startsAt != null && startsAt > now) {
+            return startsAt;
+        }
+        if (endsAt != null && endsAt > now) {
+            return endsAt;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @param amount The current amount
+     * @param price  The amount set by a rule, null to keep the current one
+     * @param factor What is left after the percentage off
+     *
+     * @return The amount after the rule, rounded to cents
+     */
+    private static double apply(double amount, Double price, double factor) {
+        return cents((price != null ? price : amount) * factor);
+    }
+
+    /**
+     * @param amount An amount of money
+     *
+     * @return The amount rounded to the nearest cent
+     */
+    private static double cents(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+
+    /**
+     * @return The index of a size and color pair in the base table
+     */
+    private static int index(Size size, Colors color) {
+        return size.ordinal() * COLORS.length + color.ordinal();
+    }
+
+    /**
+     * @return A number that changes whenever a new table is compiled, so caches
+     *         of prices can tell that they are stale
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The time in epoch millis at which a timed rule starts or ends and
+     *         this table must be compiled again, {@link Long#MAX_VALUE} if never
+     */
+    public long getValidUntil() {
+        return validUntil;
+    }
+
+    /**
+     * Prices a duck from its attributes, ignoring SKU rules
+     *
+     * @param size       The size of the duck
+     * @param color      The color of the duck
+     * @param outfitMask The customized outfit slots, as returned by
+     *                   {@link DuckOutfit#getMask()}
+     *
+     * @return The price
+     */
+    public double price(Size size, Colors color, int outfitMask) {
+        return base[index(size, color)] + surcharge[outfitMask];
+    }
+
+    /**
+     * Prices a duck
+     *
+     * @param id          The id of the duck
+     * @param size        The size of the duck
+     * @param color       The color of the duck
+     * @param outfitMask  The customized outfit slots, as returned by
+     *                    {@link DuckOutfit#getMask()}
+     * @param customPrice The price set by hand, 0 to work it out from the
+     *                    attributes
+     *
+     * @return The price
+     */
+    public double price(int id, Size size, Colors color, int outfitMask, double customPrice) {
+        double price = customPrice != 0 ? customPrice : base[index(size, color)] + surcharge[outfitMask];
+        if (skuIds.length == 0) {
+            return price;
+        }
+        int sku;
+        if (skuIndex != null) {
+            sku = id >= 0 && id < skuIndex.length ? skuIndex[id] - 1 : -1;
+        } else {
+            sku = Arrays.binarySearch(skuIds, id);
+        }
+        if (sku < 0) {
+            return price;
+        }
+        if (!Double.isNaN(skuPrices[sku])) {
+            price = skuPrices[sku];
+        }
+        return skuFactors[sku] == 1 ? price : cents(price * skuFactors[sku]);
+    }
+}
@@ -0,0 +1,209 @@
+package com.ducks.api.ducksapi.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Represents a {@linkplain ShoppingCart shopping cart} with the current price
+ * of every line and the total, so it can be shown without fetching each
+ * {@linkplain Duck duck}
+ * <br>
+ * Amounts are kept in cents while they are added up, so a total built from
+ * many lines does not drift
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class PricedCart {
+    /**
+     * One line of a priced cart
+     */
+    public static class Line {
+        @JsonProperty("duckId")
+        private final int duckId;
+
+        @JsonProperty("name")
+        private final String name;
+
+        @JsonProperty("quantity")
+        private final int quantity;
+
+        private final long unitCents; // Price of one duck in cents
+
+        /**
+         * Creates a line
+         *
+         * @param duckId    The id of the duck
+         * @param name      The name of the duck
+         * @param quantity  The number of ducks in the cart
+         * @param unitCents The price of one duck in cents
+         */
+        public Line(int duckId, String name, int quantity, long unitCents) {
+            this.duckId = duckId;
+            this.name = name;
+            this.quantity = quantity;
+            this.unitCents = unitCents;
+        }
+
+        /**
+         * Creates a line priced from a duck
+         *
+         * @param duck     The duck
+         * @param quantity The number of ducks in the cart
+         */
+        public Line(Duck duck, int quantity) {
+            this(duck.getId(), duck.getName(), quantity, toCents(duck.getPrice()));
+        }
+
+        /**
+         * @param quantity The new number of ducks in the cart
+         *
+         * @return This line if the quantity is the same, otherwise a copy with
+         *         the new quantity at the same price
+         */
+        public Line withQuantity(int quantity) {
+            return quantity == this.quantity ? this : new Line(duckId, name, quantity, unitCents);
+        }
+
+        /**
+         * @param duck The duck this line is for, as it is now
+         *
+         * @return true if the name and price of the duck are still the ones on
+         *         this line
+         */
+        public boolean isCurrent(Duck duck) {
+            return name.equals(duck.getName()) && unitCents == toCents(duck.getPrice());
+        }
+
+        /**
+         * @return The id of the duck
+         */
+        public int getDuckId() {
+            return duckId;
+        }
+
+        /**
+         * @return The name of the duck
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The number of ducks in the cart
+         */
+        public int getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * @return The price of one duck
+         */
+        @JsonProperty("unitPrice")
+        public double getUnitPrice() {
+            return unitCents / 100.0;
+        }
+
+        /**
+         * @return The price of every duck on the line
+         */
+        @JsonProperty("lineTotal")
+        public double getLineTotal() {
+            return getTotalCents() / 100.0;
+        }
+
+        /**
+         * @return The price of every duck on the line in cents
+         */
+        @JsonIgnore
+        public long getTotalCents() {
+            return unitCents * quantity;
+        }
+    }
+
+    @JsonProperty("customerId")
+    private final int customerId;
+
+    @JsonProperty("lines")
+    private final List<Line> lines; // Ordered by duck id
+
+    @JsonProperty("unavailable")
+    private final List<String> unavailable; // Item keys with no duck in the catalog
+
+    private final long totalCents; // Sum of every line in cents
+
+    /**
+     * Creates a priced cart
+     *
+     * @param customerId  The customer id that the shopping cart belongs to
+     * @param lines       The priced lines, ordered by duck id
+     * @param unavailable The item keys that no longer match a duck
+     * @param totalCents  The sum of every line in cents
+     */
+    public PricedCart(int customerId, List<Line> lines, List<String> unavailable, long totalCents) {
+        this.customerId = customerId;
+        this.lines = lines;
+        this.unavailable = unavailable;
+        this.totalCents = totalCents;
+    }
+
+    /**
+     * @param price An amount of money
+     *
+     * @return The amount in whole cents
+     */
+    static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    /**
+     * @return The customer id of which this shopping cart belongs to
+     */
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * @return The priced lines, ordered by duck id
+     */
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * @return The item keys that do not match a duck in the catalog, which are
+     *         left out of the total
+     */
+    public List<String> getUnavailable() {
+        return unavailable;
+    }
+
+    /**
+     * @return The number of ducks on every priced line
+     */
+    @JsonProperty("quantity")
+    public int getQuantity() {
+        int quantity = 0;
+        for (Line line : lines) {
+            quantity += line.getQuantity();
+        }
+        return quantity;
+    }
+
+    /**
+     * @return The price of the whole cart
+     */
+    @JsonProperty("total")
+    public double getTotal() {
+        return totalCents / 100.0;
+    }
+
+    /**
+     * @return The price of the whole cart in cents
+     */
+    @JsonIgnore
+    public long getTotalCents() {
+        return totalCents;
+    }
+}
@@ -0,0 +1,269 @@
+package com.ducks.api.ducksapi.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Represents one promotional pricing rule
+ * <br>
+ * A rule targets either the base price of some size and color pairs, the
+ * surcharge of an outfit slot, or a single duck by id. It may set a new amount,
+ * take a percentage off, or both, and may be limited to a window of time
+ * <br>
+ * Rules are never evaluated per request; the active ones are
+ * {@linkplain PriceTable#compile compiled} into a {@link PriceTable}
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PricingRule {
+    /**
+     * What a rule applies to
+     */
+    public enum Type {
+        /**
+         * The base price of every matching size and color pair
+         */
+        BASE,
+        /**
+         * The surcharge of a customized outfit slot
+         */
+        SLOT,
+        /**
+         * The final price of a single duck
+         */
+        SKU
+    }
+
+    /**
+     * The outfit slots, in the bit order of {@link DuckOutfit#getMask()}
+     */
+    public enum Slot {
+        HAT, SHIRT, SHOES, HAND_ITEM, JEWELRY
+    }
+
+    @JsonProperty("type")
+    private final Type type;
+
+    @JsonProperty("size")
+    private final Size size; // BASE only, null for every size
+
+    @JsonProperty("color")
+    private final Colors color; // BASE only, null for every color
+
+    @JsonProperty("slot")
+    private final Slot slot; // SLOT only, null for every slot
+
+    @JsonProperty("duckId")
+    private final Integer duckId; // SKU only
+
+    @JsonProperty("price")
+    private final Double price; // The new amount, null to keep the current one
+
+    @JsonProperty("percentOff")
+    private final double percentOff; // Taken off after the amount is set
+
+    @JsonProperty("startsAt")
+    private final Long startsAt; // Epoch millis the rule starts at, null for always
+
+    @JsonProperty("endsAt")
+    private final Long endsAt; // Epoch millis the rule ends at (exclusive), null for never
+
+    /**
+     * Create a pricing rule
+     *
+     * @param type       What the rule applies to
+     * @param size       The size a BASE rule applies to, null for all
+     * @param color      The color a BASE rule applies to, null for all
+     * @param slot       The slot a SLOT rule applies to, null for all
+     * @param duckId     The id of the duck a SKU rule applies to
+     * @param price      The new base price, surcharge or duck price, null to
+     *                   keep the current one
+     * @param percentOff The percentage taken off, from 0 to 100
+     * @param startsAt   When the rule starts in epoch millis, null for always
+     * @param endsAt     When the rule ends in epoch millis, null for never
+     *
+     * @throws IllegalArgumentException If the rule is invalid
+     */
+    public PricingRule(@JsonProperty("type") Type type, @JsonProperty("size") Size size,
+            @JsonProperty("color") Colors color, @JsonProperty("slot") Slot slot,
+            @JsonProperty("duckId") Integer duckId, @JsonProperty("price") Double price,
+            @JsonProperty("percentOff") double percentOff, @JsonProperty("startsAt") Long startsAt,
+            @JsonProperty("endsAt") Long endsAt) throws IllegalArgumentException {
+        this.type = type;
+        this.size = size;
+        this.color = color;
+        this.slot = slot;
+        this.duckId = duckId;
+        this.price = price;
+        this.percentOff = percentOff;
+        this.startsAt = startsAt;
+        this.endsAt = endsAt;
+
+        String isValidResponse = isValid();
+        if (isValidResponse != null) {
+            throw new IllegalArgumentException(isValidResponse);
+        }
+    }
+
+    /**
+     * Creates a rule for the base price of a size and color pair
+     *
+     * @param size       The size, null for all
+     * @param color      The color, null for all
+     * @param price      The new base price, null to keep the current one
+     * @param percentOff The percentage taken off
+     *
+     * @return The rule, active at all times
+     */
+    public static PricingRule base(Size size, Colors color, Double price, double percentOff) {
+        return new PricingRule(Type.BASE, size, color, null, null, price, percentOff, null, null);
+    }
+
+    /**
+     * Creates a rule for the surcharge of an outfit slot
+     *
+     * @param slot       The slot, null for all
+     * @param price      The new surcharge, null to keep the current one
+     * @param percentOff The percentage taken off
+     *
+     * @return The rule, active at all times
+     */
+    public static PricingRule slot(Slot slot, Double price, double percentOff) {
+        return new PricingRule(Type.SLOT, null, null, slot, null, price, percentOff, null, null);
+    }
+
+    /**
+     * Creates a rule for the price of a single duck
+     *
+     * @param duckId     The id of the duck
+     * @param price      The new price, null to keep the current one
+     * @param percentOff The percentage taken off
+     *
+     * @return The rule, active at all times
+     */
+    public static PricingRule sku(int duckId, Double price, double percentOff) {
+        return new PricingRule(Type.SKU, null, null, null, duckId, price, percentOff, null, null);
+    }
+
+    /**
+     * Creates a copy of this rule limited to a window of time
+     *
+     * @param startsAt When the rule starts in epoch millis, null for always
+     * @param endsAt   When the rule ends in epoch millis, null for never
+     *
+     * @return The new rule
+     */
+    public PricingRule during(Long startsAt, Long endsAt) {
+        return new PricingRule(type, size, color, slot, duckId, price, percentOff, startsAt, endsAt);
+    }
+
+    /**
+     * @return What the rule applies to
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return The size a BASE rule applies to, null for all
+     */
+    public Size getSize() {
+        return size;
+    }
+
+    /**
+     * @return The color a BASE rule applies to, null for all
+     */
+    public Colors getColor() {
+        return color;
+    }
+
+    /**
+     * @return The slot a SLOT rule applies to, null for all
+     */
+    public Slot getSlot() {
+        return slot;
+    }
+
+    /**
+     * @return The id of the duck a SKU rule applies to
+     */
+    public Integer getDuckId() {
+        return duckId;
+    }
+
+    /**
+     * @return The new amount, null to keep the current one
+     */
+    public Double getPrice() {
+        return price;
+    }
+
+    /**
+     * @return The percentage taken off
+     */
+    public double getPercentOff() {
+        return percentOff;
+    }
+
+    /**
+     * @return When the rule starts in epoch millis, null for always
+     */
+    public Long getStartsAt() {
+        return startsAt;
+    }
+
+    /**
+     * @return When the rule ends in epoch millis, null for never
+     */
+    public Long getEndsAt() {
+        return endsAt;
+    }
+
+    /**
+     * Checks whether the rule applies at the given time
+     *
+     * @param now The time in epoch millis
+     *
+     * @return true if the rule has started and not yet ended
+     */
+    public boolean isActive(long now) {
+        return (startsAt == null || startsAt <= now) && (endsAt == null || now < endsAt);
+    }
+
+    /**
+     * Checks whether all of the properties are valid.
+     * The rule is considered invalid if any of the conditions are met:
+     *
+     * If type is null
+     * If a SKU rule has no duck id
+     * If the price is negative, infinite or not a number
+     * If the percentage off is not between 0 and 100
+     * If the rule ends before it starts
+     *
+     * @return A string detailing what properties are invalid
+     */
+    private String isValid() {
+        String issues = "";
+        if (type == null) {
+            issues += "Type must not be null. ";
+        } else if (type == Type.SKU && duckId == null) {
+            issues += "SKU rules must have a duck id. ";
+        }
+
+        if (price != null && !(price >= 0 && price < Double.POSITIVE_INFINITY)) {
+            issues += "Price must be equal to or greater than 0. ";
+        }
+
+        if (!(percentOff >= 0 && percentOff <= 100)) {
+            issues += "Percent off must be between 0 and 100. ";
+        }
+
+        if (startsAt != null && endsAt != null && endsAt <= startsAt) {
+            issues += "A rule must end after it starts. ";
+        }
+
+        return issues.isEmpty() ? null : issues;
+    }
+}
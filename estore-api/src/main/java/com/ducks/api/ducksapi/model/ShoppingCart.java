@@ -1,10 +1,16 @@
 package com.ducks.api.ducksapi.model;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.StringJoiner;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -19,11 +25,16 @@ public class ShoppingCart {
     @JsonProperty("customerId")
     private final int customerId;
 
-    @JsonProperty("items")
-    private Map<String, Integer> items;
+    private CartItems items; // Duck id -> quantity
+
+    private Map<String, Integer> unparsedItems = Map.of(); // Item keys that are not duck ids, kept as they were sent
 
     /**
      * Creates a new shopping cart with the given item list
+     * <br>
+     * Keys written as plain duck ids are stored as ints, anything else is kept
+     * apart as it was sent, so that it is written back unchanged and can be
+     * reported as invalid
      * 
      * @param customerId The customer id that the shopping cart belongs to
      * @param items      The items to add to the shopping cart
@@ -37,6 +48,18 @@ public class ShoppingCart {
             String exMsg = "The items map can not contain values which are less than or equal to 0";
             throw new IllegalArgumentException(exMsg);
         }
+        setItems(items);
+    }
+
+    /**
+     * Creates a new shopping cart with the given items
+     * 
+     * @param customerId The customer id that the shopping cart belongs to
+     * @param items      The items of the shopping cart, which the cart takes
+     *                   over
+     */
+    public ShoppingCart(int customerId, CartItems items) {
+        this.customerId = customerId;
         this.items = items;
     }
 
@@ -46,7 +69,7 @@ public class ShoppingCart {
      * @param customerId The customer id that the shopping cart belongs to
      */
     public ShoppingCart(int customerId) {
-        this(customerId, new HashMap<>());
+        this(customerId, new CartItems());
     }
 
     /**
@@ -57,12 +80,17 @@ public class ShoppingCart {
     }
 
     /**
-     * Gets the items map
+     * Gets the items map, keyed by duck id as a string like it is sent over the
+     * wire
+     * <br>
+     * The map is a read-only view that is built as it is read; code that walks
+     * the items should use {@link #getCartItems()} instead
      * 
      * @return The items map
      */
+    @JsonProperty("items")
     public Map<String, Integer> getItems() {
-        return items;
+        return new ItemsView();
     }
 
     /**
@@ -71,7 +99,70 @@ public class ShoppingCart {
      * @param items The new map
      */
     public void setItems(Map<String, Integer> items) {
+        CartItems parsed = new CartItems(items.size());
+        Map<String, Integer> unparsed = Map.of();
+        for (Map.Entry<String, Integer> item : items.entrySet()) {
+            String key = item.getKey();
+            Integer duckId = parseDuckId(key);
+            if (duckId != null) {
+                parsed.setQuantity(duckId, item.getValue());
+            } else {
+                if (unparsed.isEmpty()) {
+                    unparsed = new HashMap<>();
+                }
+                unparsed.put(key, item.getValue());
+            }
+        }
+        this.items = parsed;
+        this.unparsedItems = unparsed;
+    }
+
+    /**
+     * Gets the items keyed by duck id
+     * 
+     * @return The items, which the caller may change
+     */
+    @JsonIgnore
+    public CartItems getCartItems() {
+        return items;
+    }
+
+    /**
+     * Replaces every item of the cart
+     * 
+     * @param items The new items, which the cart takes over
+     */
+    @JsonIgnore
+    public void setCartItems(CartItems items) {
         this.items = items;
+        this.unparsedItems = Map.of();
+    }
+
+    /**
+     * Gets the items whose keys are not duck ids, which can never be checked
+     * out
+     * 
+     * @return The items, usually none
+     */
+    @JsonIgnore
+    public Map<String, Integer> getUnparsedItems() {
+        return Collections.unmodifiableMap(unparsedItems);
+    }
+
+    /**
+     * @param key An item key
+     * 
+     * @return The duck id the key is written as, or null if the key is not
+     *         written exactly as a duck id
+     */
+    private static Integer parseDuckId(String key) {
+        try {
+            int duckId = Integer.parseInt(key);
+            // "01" or "+1" would not be written back the same way
+            return Integer.toString(duckId).equals(key) ? duckId : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     /**
@@ -89,6 +180,69 @@ public class ShoppingCart {
         return invalidItemCount == 0;
     }
 
+    /**
+     * Read-only view of the items keyed by duck id as a string
+     */
+    private class ItemsView extends AbstractMap<String, Integer> {
+        @Override
+        public int size() {
+            return items.size() + unparsedItems.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return items.isEmpty() && unparsedItems.isEmpty();
+        }
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof String)) {
+                return null;
+            }
+            Integer duckId = parseDuckId((String) key);
+            return duckId != null ? items.get(duckId) : unparsedItems.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    Iterator<Map.Entry<String, Integer>> unparsed = unparsedItems.entrySet().iterator();
+                    return new Iterator<>() {
+                        private int slot = items.nextSlot(-1);
+
+                        @Override
+                        public boolean hasNext() {
+                            return slot >= 0 || unparsed.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, Integer> next() {
+                            if (slot < 0) {
+                                return unparsed.next();
+                            }
+                            Map.Entry<String, Integer> entry = new SimpleImmutableEntry<>(
+                                    Integer.toString(items.idAt(slot)), items.quantityAt(slot));
+                            slot = items.nextSlot(slot);
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return ItemsView.this.size();
+                }
+            };
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -99,7 +253,8 @@ public class ShoppingCart {
         }
 
         ShoppingCart other = (ShoppingCart) obj;
-        return this.customerId == other.customerId && this.items.equals(other.items);
+        return this.customerId == other.customerId && this.items.equals(other.items)
+                && this.unparsedItems.equals(other.unparsedItems);
     }
 
     /**
@@ -107,7 +262,7 @@ public class ShoppingCart {
      */
     @Override
     public int hashCode() {
-        return this.customerId + this.items.hashCode();
+        return this.customerId + this.items.hashCode() + this.unparsedItems.hashCode();
     }
 
 
@@ -116,12 +271,16 @@ public class ShoppingCart {
      */
     @Override
     public String toString() {
-        // Converts each map entry to a string in the form key=value
+        // Converts each item to a string in the form key=value, ids in ascending
+        // order and then any keys that are not ids
         // Then, joins them on ', '
-        String itemsString = items.entrySet()
-                .stream()
-                .map(Object::toString)
-                .collect(Collectors.joining(", "));
+        StringJoiner itemsString = new StringJoiner(", ");
+        for (int duckId : items.getIds()) {
+            itemsString.add(duckId + "=" + items.getQuantity(duckId));
+        }
+        for (Map.Entry<String, Integer> item : unparsedItems.entrySet()) {
+            itemsString.add(item.toString());
+        }
         return String.format(FORMAT, this.customerId, itemsString);
     }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.ducks.api.ducksapi.model;
+
+/**
+ * Packs the stock of one {@linkplain Duck duck} into a single long, so that
+ * the quantity on hand and the part of it held for shopping carts always
+ * change together with one compare-and-set
+ * <br>
+ * The quantity on hand is the high half and the quantity held is the low
+ * half. What is left for anyone without a hold is the difference. The
+ * operations return the new word, or {@link #SHORT} when there is not enough
+ * stock for them, and never change anything themselves
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public final class Stock {
+    public static final long SHORT = Long.MIN_VALUE; // Returned when there is not enough stock
+
+    private Stock() {
+    }
+
+    /**
+     * @param quantity The quantity on hand
+     * @param held     The part of it held for carts
+     *
+     * @return The packed stock
+     */
+    public static long of(int quantity, int held) {
+        return ((long) quantity << 32) | (held & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param stock A packed stock
+     *
+     * @return The quantity on hand
+     */
+    public static int quantity(long stock) {
+        return (int) (stock >> 32);
+    }
+
+    /**
+     * @param stock A packed stock
+     *
+     * @return The quantity held for carts
+     */
+    public static int held(long stock) {
+        return (int) stock;
+    }
+
+    /**
+     * @param stock A packed stock
+     *
+     * @return The quantity that is not held, which is 0 if the quantity on
+     *         hand has been set below what is held
+     */
+    public static int available(long stock) {
+        return Math.max(0, quantity(stock) - held(stock));
+    }
+
+    /**
+     * Takes ducks out of stock, part of them from what is held
+     *
+     * @param stock  A packed stock
+     * @param amount The number of ducks taken
+     * @param held   How many of them were held
+     *
+     * @return The new stock, or {@link #SHORT} if fewer than held ducks are
+     *         held or the rest is more than is available
+     */
+    public static long take(long stock, int amount, int held) {
+        if (held(stock) < held || available(stock) < amount - held) {
+            return SHORT;
+        }
+        return of(quantity(stock) - amount, held(stock) - held);
+    }
+
+    /**
+     * Puts ducks back into stock, the reverse of {@link #take(long, int, int)}
+     *
+     * @param stock  A packed stock
+     * @param amount The number of ducks put back
+     * @param held   How many of them are held again
+     *
+     * @return The new stock
+     */
+    public static long put(long stock, int amount, int held) {
+        return of(quantity(stock) + amount, held(stock) + held);
+    }
+
+    /**
+     * Holds ducks for a cart
+     *
+     * @param stock  A packed stock
+     * @param amount The number of ducks to hold
+     *
+     * @return The new stock, or {@link #SHORT} if not that many are available
+     */
+    public static long hold(long stock, int amount) {
+        if (available(stock) < amount) {
+            return SHORT;
+        }
+        return of(quantity(stock), held(stock) + amount);
+    }
+
+    /**
+     * Lets go of ducks held for a cart
+     *
+     * @param stock  A packed stock
+     * @param amount The number of ducks no longer held
+     *
+     * @return The new stock, never holding fewer than 0
+     */
+    public static long release(long stock, int amount) {
+        return of(quantity(stock), held(stock) - Math.min(held(stock), amount));
+    }
+}
@@ -21,7 +21,7 @@ public class UserAccount extends Account {
     @JsonProperty("username")
     private String username;
 
-    @JsonProperty("plainPassword")
+    @JsonProperty(value = "plainPassword", access = JsonProperty.Access.WRITE_ONLY)
     private String plainPassword;
 
     // information created during shipping details
@@ -1,6 +1,7 @@
 package com.ducks.api.ducksapi.persistence;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 import com.ducks.api.ducksapi.model.Account;
 
@@ -21,6 +22,19 @@ public interface AccountDAO {
 
     Account[] getAccounts() throws IOException;
 
+    /**
+     * Retrieves a future that completes once every change made to the
+     * {@linkplain Account accounts} so far has been written to the underlying
+     * storage
+     * <br>
+     * Callers that need their change to be durable before responding can wait
+     * on it; everyone else can ignore it
+     * 
+     * @return A future that completes when the pending changes are written, or
+     *         completes exceptionally if writing them failed
+     */
+    CompletableFuture<Void> getDurabilityFuture();
+
     /**
      * Finds all {@linkplain Account accounts} whose username contains the given text
      * 
@@ -45,6 +59,22 @@ public interface AccountDAO {
      */
     Account getAccount(int id) throws IOException;
 
+    /**
+     * Retrieves the {@linkplain Account account} with the given username,
+     * ignoring case
+     * <br>
+     * Usernames are unique regardless of case, so this is a single lookup
+     * 
+     * @param username The username of the {@link Account account} to get
+     * 
+     * @return a {@link Account account} object with the matching username
+     * <br>
+     * null if no {@link Account account} with a matching username is found
+     * 
+     * @throws IOException if an issue with underlying storage
+     */
+    Account getAccountByUsername(String username) throws IOException;
+
     /**
      * Creates and saves a {@linkplain Account account}
      * 
@@ -55,18 +85,25 @@ public interface AccountDAO {
      * @return new {@link Account account} if successful, false otherwise 
      * 
      * @throws IOException if an issue with underlying storage
+     * @throws java.util.concurrent.RejectedExecutionException if the password
+     * cannot be hashed because the {@link CredentialService} is saturated
      */
     Account createAccount(Account account) throws IOException;
 
     /**
      * Updates and saves a {@linkplain Account account}
+     * <br>
+     * If the account carries a plaintext password it replaces the stored one,
+     * otherwise the stored password is kept
      * 
      * @param {@link Account account} object to be updated and saved
      * 
      * @return updated {@link Account account} if successful, null if
-     * {@link Account account} could not be found
+     * {@link Account account} could not be found or the new password is weak
      * 
      * @throws IOException if underlying storage cannot be accessed
+     * @throws java.util.concurrent.RejectedExecutionException if the password
+     * cannot be hashed because the {@link CredentialService} is saturated
      */
     Account updateAccount(Account account) throws IOException;
 
@@ -97,9 +134,29 @@ public interface AccountDAO {
      * false if account password was not changed
      * 
      * @throws IOException if underlying storage cannot be accessed
+     * @throws java.util.concurrent.RejectedExecutionException if the password
+     * cannot be hashed because the {@link CredentialService} is saturated
      */
     boolean changePassword(int id, String originalPass, String newPass) throws IOException;
 
+    /**
+     * Replaces the password hash of a {@linkplain Account account} with a hash of
+     * the same password made with the current hashing settings
+     * 
+     * @param id The id of the {@link Account account}
+     * 
+     * @param currentHash The hash being replaced
+     * 
+     * @param newHash The new hash of the same password
+     * 
+     * @return true if the hash was replaced
+     * <br>
+     * false if the account no longer exists or its password changed meanwhile
+     * 
+     * @throws IOException if underlying storage cannot be accessed
+     */
+    boolean rehashPassword(int id, String currentHash, String newHash) throws IOException;
+
 
     /**
      * Changes the First Name of a {@linkplain Account account} with the new First Name.
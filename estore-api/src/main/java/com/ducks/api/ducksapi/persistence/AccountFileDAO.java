@@ -2,10 +2,29 @@ package com.ducks.api.ducksapi.persistence;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -22,14 +41,27 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Component
 public class AccountFileDAO implements AccountDAO {
+    private static final Logger LOG = Logger.getLogger(AccountFileDAO.class.getName());
 
     Map<Integer, Account> accounts; // Creates a local cache of account objects so the file doesn't have to
                                     // be read from each time
+    private Map<String, Integer> idsByUsername; // Account id for every lowercased username
     private ObjectMapper objectMapper; // Provides conversion between Account objects and JSON text format
                                        // written to the file
     private static int nextID; // The next ID to assign to a account
     private String filename; // Filename to read and write to
     private Account adminAccount = new OwnerAccount(); // Reserved owner account.
+    private final long flushWindowMs; // How long mutations are batched before
+                                      // being written, 0 writes immediately
+    private final WriteBatchMetrics metrics = new WriteBatchMetrics(); // Batch size and flush latency
+    private final StoreMetrics storeMetrics = new StoreMetrics("accounts"); // Operation, file and lock wait timings
+    private final ReentrantLock accountsLock = new ReentrantLock(); // Guards the accounts and the pending batch
+    private final ReentrantLock fileLock = new ReentrantLock(); // Serializes writes to the file
+    private ScheduledExecutorService flusher; // Background thread that writes batches
+    private int pendingMutations; // Mutations made since the last flush
+    private CompletableFuture<Void> pendingFlush; // Completes once the pending batch is written
+    private final CredentialService credentials; // Hashes passwords off the request threads
+    private final boolean ownsCredentials; // Whether the credential service was made for, and is closed with, this DAO
 
     /**
      * Creates a Account File Data Access Object
@@ -40,11 +72,89 @@ public class AccountFileDAO implements AccountDAO {
      * 
      * @throws IOException when file cannot be accessed or read from
      */
-    public AccountFileDAO(@Value("${accounts.file}") String filename, ObjectMapper objectMapper) throws IOException {
+    public AccountFileDAO(String filename, ObjectMapper objectMapper) throws IOException {
+        this(filename, objectMapper, 0);
+    }
+
+    /**
+     * Creates a Account File Data Access Object that batches writes, hashing
+     * passwords with the default settings
+     * 
+     * @param filename      Filename to read from and write to
+     * @param objectMapper  Provides JSON Object to/from Java Object
+     *                      Serialization/Deserialization
+     * @param flushWindowMs How long mutations are collected before they are
+     *                      written, 0 or less writes every mutation immediately
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    public AccountFileDAO(String filename, ObjectMapper objectMapper, long flushWindowMs) throws IOException {
+        this(filename, objectMapper, flushWindowMs,
+                new CredentialService(new Pbkdf2PasswordHasher(310000), 0, 64), true);
+    }
+
+    /**
+     * Creates a Account File Data Access Object that batches writes
+     * <br>
+     * Every mutation marks the file as dirty and a background flusher writes all
+     * of the mutations made within a window in a single write
+     * <br>
+     * Accounts stored with a plaintext password are hashed and written back
+     * while loading
+     * 
+     * @param filename      Filename to read from and write to
+     * @param objectMapper  Provides JSON Object to/from Java Object
+     *                      Serialization/Deserialization
+     * @param flushWindowMs How long mutations are collected before they are
+     *                      written, 0 or less writes every mutation immediately
+     * @param credentials   Hashes the passwords
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    @Autowired
+    public AccountFileDAO(@Value("${accounts.file}") String filename, ObjectMapper objectMapper,
+            @Value("${accounts.flush.window-ms:0}") long flushWindowMs, CredentialService credentials)
+            throws IOException {
+        this(filename, objectMapper, flushWindowMs, credentials, false);
+    }
+
+    /**
+     * Creates a Account File Data Access Object that batches writes
+     * <br>
+     * The accounts are read and written with a copy of the object mapper that
+     * also handles their password hashes, which every other mapper leaves out
+     * 
+     * @param filename        Filename to read from and write to
+     * @param objectMapper    Provides JSON Object to/from Java Object
+     *                        Serialization/Deserialization
+     * @param flushWindowMs   How long mutations are collected before they are
+     *                        written, 0 or less writes every mutation immediately
+     * @param credentials     Hashes the passwords
+     * @param ownsCredentials Whether the credential service is closed along with
+     *                        this Data Access Object
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    private AccountFileDAO(String filename, ObjectMapper objectMapper, long flushWindowMs,
+            CredentialService credentials, boolean ownsCredentials) throws IOException {
         this.filename = filename;
-        this.objectMapper = objectMapper;
+        this.objectMapper = objectMapper.copy();
+        this.objectMapper.addMixIn(Account.class, AccountFileMixIn.class);
+        this.flushWindowMs = flushWindowMs;
+        this.credentials = credentials;
+        this.ownsCredentials = ownsCredentials;
+        this.pendingFlush = CompletableFuture.completedFuture(null);
+        if (flushWindowMs > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "accounts-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
         load();
         createAccount(adminAccount);
+        storeMetrics.gauge(this, dao -> dao.accounts.size());
+        storeMetrics.batches(metrics);
     }
 
     /**
@@ -55,14 +165,169 @@ public class AccountFileDAO implements AccountDAO {
      */
     private boolean save() throws IOException {
         Account[] accountArray = getAccountsArray();
+        long start = System.nanoTime();
 
         // Serializes the Java Objects to JSON objects into the file
         // Throws IOException if an error occurs reading/writing to the file
-        objectMapper.writeValue(new File(filename), accountArray);
+        byte[] json = objectMapper.writeValueAsBytes(accountArray);
+        write(json);
 
+        storeMetrics.saved(json.length, start);
         return true;
     }
 
+    /**
+     * Replaces the file with the given contents
+     * <br>
+     * The contents are written to a temporary file, forced to the disk and
+     * moved over the old file, so that once this returns they survive a crash
+     * and a crash part way through never leaves a half written file behind
+     * 
+     * @param json The new contents of the file
+     * 
+     * @throws IOException when file cannot be accessed or written to
+     */
+    private void write(byte[] json) throws IOException {
+        Path file = Paths.get(filename);
+        Path temp = Paths.get(filename + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(json);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Makes a mutation durable. Must be called while holding the accounts lock.
+     * <br>
+     * Without a flush window the file is written right away, otherwise the
+     * mutation joins the pending batch and a flush is scheduled if one is not
+     * already
+     * 
+     * @return true if the mutation was written or queued successfully
+     * 
+     * @throws IOException when file cannot be accessed or written to
+     */
+    private boolean commit() throws IOException {
+        if (flusher == null) {
+            long start = System.nanoTime();
+            save();
+            metrics.record(1, System.nanoTime() - start);
+            return true;
+        }
+
+        ++pendingMutations;
+        if (pendingFlush.isDone()) {
+            pendingFlush = new CompletableFuture<>();
+            flusher.schedule(this::flushQuietly, flushWindowMs, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /**
+     * Writes every pending mutation to the file in one write
+     * <br>
+     * The accounts are serialized while holding the accounts lock, but the file
+     * itself is written after releasing it so that readers and new mutations are
+     * not held up by the disk. The batch's durability future completes once the
+     * file is on the disk
+     * 
+     * @throws IOException when file cannot be accessed or written to
+     */
+    public void flush() throws IOException {
+        fileLock.lock();
+        try {
+            byte[] json;
+            int batchSize;
+            CompletableFuture<Void> batchFlush;
+            long waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                if (pendingMutations == 0) {
+                    return;
+                }
+                json = objectMapper.writeValueAsBytes(getAccountsArray());
+                batchSize = pendingMutations;
+                batchFlush = pendingFlush;
+                pendingMutations = 0;
+                pendingFlush = CompletableFuture.completedFuture(null);
+            } finally {
+                accountsLock.unlock();
+            }
+
+            long start = System.nanoTime();
+            try {
+                write(json);
+            } catch (IOException ioe) {
+                // Put the batch back so that the next flush retries it
+                waiting = System.nanoTime();
+                accountsLock.lock();
+                try {
+                    storeMetrics.locked(waiting);
+                    pendingMutations += batchSize;
+                    if (pendingFlush.isDone()) {
+                        pendingFlush = new CompletableFuture<>();
+                        flusher.schedule(this::flushQuietly, flushWindowMs, TimeUnit.MILLISECONDS);
+                    }
+                } finally {
+                    accountsLock.unlock();
+                }
+                batchFlush.completeExceptionally(ioe);
+                throw ioe;
+            }
+            metrics.record(batchSize, System.nanoTime() - start);
+            storeMetrics.saved(json.length, start);
+            batchFlush.complete(null);
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    /**
+     * Runs a scheduled {@link #flush()}, logging instead of throwing on failure
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException ioe) {
+            LOG.log(Level.SEVERE, ioe.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Writes any pending mutations and stops the background flusher, and the
+     * hashing threads if they were made for this Data Access Object, when the
+     * application shuts down
+     * 
+     * @throws IOException when file cannot be accessed or written to
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        try {
+            if (flusher != null) {
+                flusher.shutdown();
+                flush();
+            }
+        } finally {
+            if (ownsCredentials) {
+                credentials.close();
+            }
+        }
+    }
+
+    /**
+     * @return The batch size and flush latency statistics of this Data Access
+     *         Object
+     */
+    public WriteBatchMetrics getWriteBatchMetrics() {
+        return metrics;
+    }
+
     /**
      * Loads {@linkplain Account accounts} from the JSON file and stores them into a
      * Map.
@@ -75,16 +340,26 @@ public class AccountFileDAO implements AccountDAO {
      */
     private boolean load() throws IOException {
         accounts = new TreeMap<>();
+        idsByUsername = new HashMap<>();
         nextID = 0;
+        long start = System.nanoTime();
 
         // Deserializes the JSON Objects in the file to an array of accounts.
         // Throws IOException if an error occurs reading/accessing the file
         Account[] accountArray = objectMapper.readValue(new File(filename), Account[].class);
 
         // Add each account to the tree map and find the greatest ID.
+        boolean migrated = false;
         for (Account account : accountArray) {
+            // Files written before passwords were hashed store them in plaintext.
+            // This runs once at startup, so it can hash on the calling thread
+            if (account.getPasswordHash() == null && account.getPlainPassword() != null) {
+                account.setPasswordHash(credentials.getHasher().hash(account.getPlainPassword()));
+                migrated = true;
+            }
             // Uses account ID as key in map, stores account as value to key.
             accounts.put(account.getId(), account);
+            idsByUsername.putIfAbsent(usernameKey(account.getUsername()), account.getId());
             int currAccountID = account.getId();
             if (currAccountID > nextID) {
                 nextID = currAccountID;
@@ -94,6 +369,12 @@ public class AccountFileDAO implements AccountDAO {
         // duplicates
         // use pre-increment since its stored in a variable.
         ++nextID;
+        storeMetrics.loaded(start);
+
+        // Don't leave the plaintext passwords on disk
+        if (migrated) {
+            save();
+        }
         return true;
     }
 
@@ -134,6 +415,39 @@ public class AccountFileDAO implements AccountDAO {
         return accountArray;
     }
 
+    /**
+     * Brings a username into the form the username index is keyed on
+     * 
+     * @param username The username
+     * 
+     * @return The lowercased username
+     */
+    private static String usernameKey(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Removes an {@linkplain Account account} from the username index. Must be
+     * called while holding the accounts lock, after the account has left the map
+     * or been replaced in it
+     * 
+     * @param id       The id of the {@link Account account}
+     * @param username The username it was indexed under
+     */
+    private void unindexUsername(int id, String username) {
+        String key = usernameKey(username);
+        if (idsByUsername.remove(key, id)) {
+            // A file edited by hand may hold the same username twice, so hand the
+            // username over to any other account that still has it
+            for (Account account : accounts.values()) {
+                if (usernameKey(account.getUsername()).equals(key)) {
+                    idsByUsername.put(key, account.getId());
+                    break;
+                }
+            }
+        }
+    }
+
     /**
      * Generates the next id for a new {@linkplain} Account account}
      * 
@@ -151,9 +465,29 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public Account[] getAccounts() throws IOException {
         // Handles multiple click events
-        synchronized (accounts) {
+        long waiting = System.nanoTime();
+        accountsLock.lock();
+        try {
+            storeMetrics.locked(waiting);
             // No filter
             return getAccountsArray();
+        } finally {
+            accountsLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public CompletableFuture<Void> getDurabilityFuture() {
+        long waiting = System.nanoTime();
+        accountsLock.lock();
+        try {
+            storeMetrics.locked(waiting);
+            return pendingFlush;
+        } finally {
+            accountsLock.unlock();
         }
     }
 
@@ -163,9 +497,14 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public Account[] findAccounts(String containsText) throws IOException {
         // Handles multiple click events
-        synchronized (accounts) {
+        long waiting = System.nanoTime();
+        accountsLock.lock();
+        try {
+            storeMetrics.locked(waiting);
             // With filter
             return getAccountsArray(containsText);
+        } finally {
+            accountsLock.unlock();
         }
     }
 
@@ -175,13 +514,40 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public Account getAccount(int id) throws IOException {
         // Handles multiple click events
-        synchronized (accounts) {
+        long waiting = System.nanoTime();
+        accountsLock.lock();
+        try {
+            storeMetrics.locked(waiting);
             // If accounts has account id return it.
             if (accounts.containsKey(id)) {
                 return accounts.get(id);
             }
             // If the ID doesn't exist, return null
             return null;
+        } finally {
+            accountsLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public Account getAccountByUsername(String username) throws IOException {
+        long start = System.nanoTime();
+        try {
+            // Handles multiple click events
+            long waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                Integer id = idsByUsername.get(usernameKey(username));
+                return id == null ? null : accounts.get(id);
+            } finally {
+                accountsLock.unlock();
+            }
+        } finally {
+            storeMetrics.operation("getByUsername", start);
         }
     }
 
@@ -190,37 +556,63 @@ public class AccountFileDAO implements AccountDAO {
      */
     @Override
     public Account createAccount(Account account) throws IOException {
-        // Handles multiple click events
-        synchronized (accounts) {
-            // Create new account object with nextID as its unique ID.
-            // First we check if the account username already exists
-            Account[] accountArray = getAccountsArray(account.getUsername());
-            for (Account existingAccount : accountArray) {
-                String existingUsername = existingAccount.getUsername();
-                // Username already exists in the inventory, return null
-                if (existingUsername.equalsIgnoreCase(account.getUsername())) {
+        long start = System.nanoTime();
+        try {
+            String key = usernameKey(account.getUsername());
+            // Handles multiple click events
+            long waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                // First we check if the account username already exists, before
+                // spending time on hashing the password
+                if (idsByUsername.containsKey(key)) {
+                    // Username already exists in the inventory, return null
                     return null;
                 }
-            }
-            Account newAccount;
-            // This account should be the only admin account made by the FileDAO. The rest
-            // should be made via the pre-made admin account and setAdminStatus.
-            if (account.getUsername().equals("admin")) {
-                newAccount = new OwnerAccount();
-                // Create regular user account
-            } else {
-                newAccount = new UserAccount(nextID(), account.getUsername(), account.getPlainPassword());
+            } finally {
+                accountsLock.unlock();
             }
 
             // Don't save account to database if the password is invalid.
             // However we want the account object still to use in the UserController for
             // feedback purposes.
-            if (account.validateStrongPassword(account.getPlainPassword())) {
-                accounts.put(newAccount.getId(), newAccount);
-                // Save changes to the database
-                save();
+            String plainPassword = account.getPlainPassword();
+            boolean strongPassword = account.validateStrongPassword(plainPassword);
+            // Hashing is slow, so it is done without holding the lock
+            String passwordHash = strongPassword ? credentials.hash(plainPassword).join() : null;
+
+            waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                // Another request may have taken the username while hashing
+                if (idsByUsername.containsKey(key)) {
+                    return null;
+                }
+                Account newAccount;
+                // This account should be the only admin account made by the FileDAO. The rest
+                // should be made via the pre-made admin account and setAdminStatus.
+                if (account.getUsername().equals("admin")) {
+                    newAccount = new OwnerAccount();
+                    // Create regular user account
+                } else {
+                    newAccount = new UserAccount(nextID(), account.getUsername(), plainPassword);
+                }
+
+                if (strongPassword) {
+                    newAccount.setPasswordHash(passwordHash);
+                    accounts.put(newAccount.getId(), newAccount);
+                    idsByUsername.put(key, newAccount.getId());
+                    // Save changes to the database
+                    commit();
+                }
+                return newAccount;
+            } finally {
+                accountsLock.unlock();
             }
-            return newAccount;
+        } finally {
+            storeMetrics.operation("create", start);
         }
     }
 
@@ -229,21 +621,45 @@ public class AccountFileDAO implements AccountDAO {
      */
     @Override
     public Account updateAccount(Account account) throws IOException {
-        // Handles multiple click events
-        synchronized (accounts) {
-            int accountID = account.getId();
-            // Fail account update if password is not strong
-            if (!account.validateStrongPassword(account.getPlainPassword())) {
-                return null;
+        long start = System.nanoTime();
+        try {
+            // A missing password keeps the current one; a new one must be strong
+            String plainPassword = account.getPlainPassword();
+            String passwordHash = null;
+            if (plainPassword != null) {
+                // Fail account update if password is not strong
+                if (!account.validateStrongPassword(plainPassword)) {
+                    return null;
+                }
+                // Hashing is slow, so it is done without holding the lock
+                passwordHash = credentials.hash(plainPassword).join();
             }
-            // If the database has the account in it, put the changed account into it.
-            if (accounts.containsKey(accountID)) {
-                accounts.put(accountID, account);
-                // Save changes to database.
-                save();
-                return account;
+
+            // Handles multiple click events
+            long waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                int accountID = account.getId();
+                // If the database has the account in it, put the changed account into it.
+                if (accounts.containsKey(accountID)) {
+                    Account previous = accounts.get(accountID);
+                    // Never trust a hash sent by the client
+                    account.setPasswordHash(passwordHash != null ? passwordHash : previous.getPasswordHash());
+                    accounts.put(accountID, account);
+                    // The username may have changed with the update
+                    unindexUsername(accountID, previous.getUsername());
+                    idsByUsername.putIfAbsent(usernameKey(account.getUsername()), accountID);
+                    // Save changes to database.
+                    commit();
+                    return account;
+                }
+                return null;
+            } finally {
+                accountsLock.unlock();
             }
-            return null;
+        } finally {
+            storeMetrics.operation("update", start);
         }
     }
 
@@ -252,16 +668,27 @@ public class AccountFileDAO implements AccountDAO {
      */
     @Override
     public boolean deleteAccount(int id) throws IOException {
-        // Handles multiple clickEvents
-        synchronized (accounts) {
-            // Checks if account is in database
-            if (accounts.containsKey(id)) {
-                accounts.remove(id);
-                save();
-                return true;
+        long start = System.nanoTime();
+        try {
+            // Handles multiple clickEvents
+            long waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                // Checks if account is in database
+                if (accounts.containsKey(id)) {
+                    Account removed = accounts.remove(id);
+                    unindexUsername(id, removed.getUsername());
+                    commit();
+                    return true;
+                }
+                // Account is not in database, therefore cannot be deleted
+                return false;
+            } finally {
+                accountsLock.unlock();
             }
-            // Account is not in database, therefore cannot be deleted
-            return false;
+        } finally {
+            storeMetrics.operation("delete", start);
         }
     }
 
@@ -269,24 +696,25 @@ public class AccountFileDAO implements AccountDAO {
      * * {@inheritDoc}}
      */
     @Override
-    public boolean changePassword(int id, String originalPass, String newPass) throws IOException {
-        // Handles multiple clickEvents
-        synchronized (accounts) {
-            // Checks if account is in database
-            if (accounts.containsKey(id)) {
-                Account account = getAccount(id);
-                String currPassword = account.getPlainPassword();
-                // checks if they have permission to change password & checks if the newPassword
-                // is a strong password
-                if (originalPass.equals(currPassword) && account.validateStrongPassword(newPass)) {
-                    // changes password
-                    account.setPassword(newPass);
-                    // Save changes to database
-                    return save();
+    public boolean rehashPassword(int id, String currentHash, String newHash) throws IOException {
+        long start = System.nanoTime();
+        try {
+            long waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                Account account = accounts.get(id);
+                // Give up if the account was deleted or its password changed meanwhile
+                if (account == null || !currentHash.equals(account.getPasswordHash())) {
+                    return false;
                 }
+                account.setPasswordHash(newHash);
+                return commit();
+            } finally {
+                accountsLock.unlock();
             }
-            // Account not in database, can't change password
-            return false;
+        } finally {
+            storeMetrics.operation("rehashPassword", start);
         }
     }
 
@@ -294,23 +722,48 @@ public class AccountFileDAO implements AccountDAO {
      * * {@inheritDoc}}
      */
     @Override
-    public boolean changeFirstName(int id, String newFirstName) throws IOException {
-        // Handles multiple clickEvents
-        synchronized (accounts) {
-            // Checks if account is in database
-            if (accounts.containsKey(id)) {
-
-                // gets Account from id
-                Account account = getAccount(id);
-
-                // Changes First name
-                account.setFirstName(newFirstName);
+    public boolean changePassword(int id, String originalPass, String newPass) throws IOException {
+        long start = System.nanoTime();
+        try {
+            Account account;
+            // Handles multiple clickEvents
+            long waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                account = accounts.get(id);
+            } finally {
+                accountsLock.unlock();
+            }
+            // Account not in database or new password not strong, can't change password
+            if (account == null || !account.validateStrongPassword(newPass)) {
+                return false;
+            }
 
+            // Hashing is slow, so it is done without holding the lock
+            String currentHash = account.getPasswordHash();
+            if (!credentials.verify(originalPass, currentHash).join()) {
+                return false;
+            }
+            String newHash = credentials.hash(newPass).join();
+
+            waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                // Give up if the account was deleted or its password changed meanwhile
+                if (accounts.get(id) != account || !currentHash.equals(account.getPasswordHash())) {
+                    return false;
+                }
+                // changes password
+                account.setPasswordHash(newHash);
                 // Save changes to database
-                return save();
+                return commit();
+            } finally {
+                accountsLock.unlock();
             }
-            // Account not in database, can't change First Name
-            return false;
+        } finally {
+            storeMetrics.operation("changePassword", start);
         }
     }
 
@@ -318,23 +771,67 @@ public class AccountFileDAO implements AccountDAO {
      * * {@inheritDoc}}
      */
     @Override
-    public boolean changeLastName(int id, String newLastName) throws IOException {
-        // Handles multiple clickEvents
-        synchronized (accounts) {
-            // Checks if account is in database
-            if (accounts.containsKey(id)) {
+    public boolean changeFirstName(int id, String newFirstName) throws IOException {
+        long start = System.nanoTime();
+        try {
+            // Handles multiple clickEvents
+            long waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                // Checks if account is in database
+                if (accounts.containsKey(id)) {
+
+                    // gets Account from id
+                    Account account = accounts.get(id);
+
+                    // Changes First name
+                    account.setFirstName(newFirstName);
 
-                // gets Account from id
-                Account account = getAccount(id);
+                    // Save changes to database
+                    return commit();
+                }
+                // Account not in database, can't change First Name
+                return false;
+            } finally {
+                accountsLock.unlock();
+            }
+        } finally {
+            storeMetrics.operation("changeFirstName", start);
+        }
+    }
 
-                // Changes Last name
-                account.setLastName(newLastName);
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public boolean changeLastName(int id, String newLastName) throws IOException {
+        long start = System.nanoTime();
+        try {
+            // Handles multiple clickEvents
+            long waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                // Checks if account is in database
+                if (accounts.containsKey(id)) {
+
+                    // gets Account from id
+                    Account account = accounts.get(id);
+
+                    // Changes Last name
+                    account.setLastName(newLastName);
 
-                // Save changes to database
-                return save();
+                    // Save changes to database
+                    return commit();
+                }
+                // Account not in database, can't change Last Name
+                return false;
+            } finally {
+                accountsLock.unlock();
             }
-            // Account not in database, can't change Last Name
-            return false;
+        } finally {
+            storeMetrics.operation("changeLastName", start);
         }
     }
 
@@ -343,22 +840,32 @@ public class AccountFileDAO implements AccountDAO {
      */
     @Override
     public boolean changeAddress(int id, String newAddress) throws IOException {
-        // Handles multiple clickEvents
-        synchronized (accounts) {
-            // Checks if account is in database
-            if (accounts.containsKey(id)) {
-
-                // gets Account from id
-                Account account = getAccount(id);
-
-                // Changes Address
-                account.setAddress(newAddress);
+        long start = System.nanoTime();
+        try {
+            // Handles multiple clickEvents
+            long waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                // Checks if account is in database
+                if (accounts.containsKey(id)) {
+
+                    // gets Account from id
+                    Account account = accounts.get(id);
+
+                    // Changes Address
+                    account.setAddress(newAddress);
 
-                // Save changes to database
-                return save();
+                    // Save changes to database
+                    return commit();
+                }
+                // Account not in database, can't change Address
+                return false;
+            } finally {
+                accountsLock.unlock();
             }
-            // Account not in database, can't change Address
-            return false;
+        } finally {
+            storeMetrics.operation("changeAddress", start);
         }
     }
 
@@ -367,22 +874,32 @@ public class AccountFileDAO implements AccountDAO {
      */
     @Override
     public boolean changeCity(int id, String newCity) throws IOException {
-        // Handles multiple clickEvents
-        synchronized (accounts) {
-            // Checks if account is in database
-            if (accounts.containsKey(id)) {
-
-                // gets Account from id
-                Account account = getAccount(id);
+        long start = System.nanoTime();
+        try {
+            // Handles multiple clickEvents
+            long waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                // Checks if account is in database
+                if (accounts.containsKey(id)) {
+
+                    // gets Account from id
+                    Account account = accounts.get(id);
+
+                    // Changes City
+                    account.setCity(newCity);
 
-                // Changes City
-                account.setCity(newCity);
-
-                // Save changes to database
-                return save();
+                    // Save changes to database
+                    return commit();
+                }
+                // Account not in database, can't change City
+                return false;
+            } finally {
+                accountsLock.unlock();
             }
-            // Account not in database, can't change City
-            return false;
+        } finally {
+            storeMetrics.operation("changeCity", start);
         }
     }
 
@@ -391,22 +908,32 @@ public class AccountFileDAO implements AccountDAO {
      */
     @Override
     public boolean changeZipCode(int id, String newZipCode) throws IOException {
-        // Handles multiple clickEvents
-        synchronized (accounts) {
-            // Checks if account is in database
-            if (accounts.containsKey(id)) {
+        long start = System.nanoTime();
+        try {
+            // Handles multiple clickEvents
+            long waiting = System.nanoTime();
+            accountsLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                // Checks if account is in database
+                if (accounts.containsKey(id)) {
+
+                    // gets Account from id
+                    Account account = accounts.get(id);
+
+                    // Changes ZipCode
+                    account.setZipCode(newZipCode);
 
-                // gets Account from id
-                Account account = getAccount(id);
-
-                // Changes ZipCode
-                account.setZipCode(newZipCode);
-
-                // Save changes to database
-                return save();
+                    // Save changes to database
+                    return commit();
+                }
+                // Account not in database, can't change ZipCode
+                return false;
+            } finally {
+                accountsLock.unlock();
             }
-            // Account not in database, can't change ZipCode
-            return false;
+        } finally {
+            storeMetrics.operation("changeZipCode", start);
         }
     }
 }
@@ -0,0 +1,18 @@
+package com.ducks.api.ducksapi.persistence;
+
+import com.ducks.api.ducksapi.model.Account;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Mixed into {@link Account} by the {@link AccountFileDAO}'s own object
+ * mapper, so that the password hash, which is left out of every response, is
+ * still written to and read from the accounts file
+ *
+ * @author SWEN-261-06 Team 8
+ */
+abstract class AccountFileMixIn {
+    @JsonIgnore(false)
+    @JsonProperty("passwordHash")
+    private String passwordHash;
+}
@@ -0,0 +1,106 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ducks.api.ducksapi.model.Account;
+
+/**
+ * Runs {@linkplain PasswordHasher password hashing} for {@linkplain Account
+ * accounts} on a small dedicated pool of threads
+ * <br>
+ * Hashing is slow on purpose, so it is kept off the request threads and the
+ * number of hashes that may wait for a thread is capped. Once the queue is
+ * full new work is rejected straight away instead of piling up, so callers can
+ * answer with 503 and let the client retry
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Component
+public class CredentialService {
+    private final PasswordHasher hasher; // Hashes and verifies passwords
+    private final ThreadPoolExecutor executor; // Bounded pool the hashing runs on
+
+    /**
+     * Creates a credential service
+     *
+     * @param hasher        Hashes and verifies passwords
+     * @param threads       Number of hashing threads, 0 or less for one per
+     *                      processor
+     * @param queueCapacity Number of hashes that may wait for a thread before new
+     *                      ones are rejected
+     */
+    @Autowired
+    public CredentialService(PasswordHasher hasher, @Value("${accounts.password.threads:0}") int threads,
+            @Value("${accounts.password.queue-capacity:64}") int queueCapacity) {
+        this.hasher = hasher;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "credential-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @return The hasher used by this service, for callers that are already off
+     *         the request threads (e.g. while loading at startup)
+     */
+    public PasswordHasher getHasher() {
+        return hasher;
+    }
+
+    /**
+     * Hashes a password on the credential pool
+     *
+     * @param password The password in plaintext
+     *
+     * @return A future holding the encoded hash
+     *
+     * @throws RejectedExecutionException if the pool is saturated
+     */
+    public CompletableFuture<String> hash(String password) {
+        return CompletableFuture.supplyAsync(() -> hasher.hash(password), executor);
+    }
+
+    /**
+     * Checks a password against a stored hash on the credential pool
+     *
+     * @param password The password in plaintext
+     * @param encoded  The stored hash
+     *
+     * @return A future holding true if the password matches
+     *
+     * @throws RejectedExecutionException if the pool is saturated
+     */
+    public CompletableFuture<Boolean> verify(String password, String encoded) {
+        return CompletableFuture.supplyAsync(() -> hasher.verify(password, encoded), executor);
+    }
+
+    /**
+     * @return The number of hashes waiting for a thread
+     */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops the hashing threads when the application shuts down
+     */
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -2,9 +2,12 @@ package com.ducks.api.ducksapi.persistence;
 
 import java.io.IOException;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.PricingRule;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -13,6 +16,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * {@literal @}Component Spring annotation instantiates a single instance of
  * this
  * class and injects the instance into other classes as needed
+ * <br>
+ * Customized ducks have ids of their own that overlap with the catalog, so
+ * they are kept out of {@linkplain PricingRule.Type#SKU per duck pricing rules}
  * 
  * @author Travis Hill
  */
@@ -32,4 +38,42 @@ public class CustomDuckFileDAO extends DuckFileDAOAbstract {
             throws IOException {
         super(filename, objectMapper);
     }
+
+    /**
+     * Creates a Duck File Data Access Object that can optionally record mutations
+     * in an append-only journal instead of rewriting the file every time
+     * 
+     * @param filename         Filename to read from and write to
+     * @param objectMapper     Provides JSON Object to/from Java Object
+     *                         serialization and deserialization
+     * @param journaled        Whether mutations are appended to a journal
+     * @param syncEvery        How many journal appends are grouped into one fsync
+     * @param compactThreshold How many journal appends before the journal is
+     *                         folded back into the file
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    @Autowired
+    public CustomDuckFileDAO(@Value("${custom_ducks.file}") String filename, ObjectMapper objectMapper,
+            @Value("${ducks.journal.enabled:false}") boolean journaled,
+            @Value("${ducks.journal.sync-every:1}") int syncEvery,
+            @Value("${ducks.journal.compact-threshold:1000}") int compactThreshold) throws IOException {
+        super(filename, objectMapper, openJournal(filename, objectMapper, journaled, syncEvery, compactThreshold));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void adopt(Duck duck) {
+        duck.setCatalogItem(false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getStoreName() {
+        return "custom_ducks";
+    }
 }
@@ -0,0 +1,345 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compact binary snapshot of a {@linkplain Duck duck} catalog, read through a
+ * memory-mapped file
+ * <br>
+ * The file starts with a 16 byte header (magic, version, record count and the
+ * offset of the name heap), followed by one fixed-width record per duck and
+ * then the UTF-8 bytes of every name. A record holds the id, quantity, custom
+ * price (0 when the price follows the pricing rules), size and color
+ * ordinals, the five outfit UIDs and the offset and length of the name in the
+ * heap, so any field of any duck can be read without parsing the ones before
+ * it. All numbers are big-endian
+ * <br>
+ * Size and color are stored by ordinal, so new constants must be added to the
+ * end of those enums (or {@link #VERSION} bumped)
+ * <br>
+ * Run {@code main} to convert a JSON catalog to a snapshot or back
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class DuckBinarySnapshot {
+    public static final String EXTENSION = ".bin"; // Files with this ending are snapshots
+    static final int MAGIC = 0x4455434B; // "DUCK"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_BYTES = 48;
+
+    // Offsets of the fields within a record
+    private static final int ID = 0;
+    private static final int QUANTITY = 4;
+    private static final int PRICE = 8;
+    private static final int SIZE = 16;
+    private static final int COLOR = 17;
+    private static final int OUTFIT = 20; // Five ints: hat, shirt, shoes, hand item, jewelry
+    private static final int NAME_OFFSET = 40;
+    private static final int NAME_LENGTH = 44;
+
+    private static final Size[] SIZES = Size.values();
+    private static final Colors[] COLORS = Colors.values();
+
+    private final ByteBuffer buffer; // The whole file, only read with absolute gets
+    private final int count; // Number of records
+    private final int heapOffset; // Position of the first name byte
+
+    /**
+     * Wraps the contents of a snapshot after checking that the header and every
+     * name reference lie within it
+     *
+     * @param buffer The contents of the snapshot
+     *
+     * @throws IOException when the contents are not a valid snapshot
+     */
+    DuckBinarySnapshot(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a duck snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported duck snapshot version " + buffer.getInt(4));
+        }
+        this.buffer = buffer;
+        this.count = buffer.getInt(8);
+        this.heapOffset = buffer.getInt(12);
+        if (count < 0 || heapOffset != HEADER_BYTES + (long) count * RECORD_BYTES || heapOffset > buffer.limit()) {
+            throw new IOException("Corrupt duck snapshot header");
+        }
+        int heapLength = buffer.limit() - heapOffset;
+        for (int index = 0; index < count; ++index) {
+            int record = recordAt(index);
+            int nameOffset = buffer.getInt(record + NAME_OFFSET);
+            int nameLength = buffer.getInt(record + NAME_LENGTH);
+            if (nameOffset < 0 || nameLength < 0 || (long) nameOffset + nameLength > heapLength
+                    || (buffer.get(record + SIZE) & 0xFF) >= SIZES.length
+                    || (buffer.get(record + COLOR) & 0xFF) >= COLORS.length) {
+                throw new IOException("Corrupt duck snapshot record " + index);
+            }
+        }
+    }
+
+    /**
+     * Maps a snapshot file into memory
+     * <br>
+     * The mapping outlives the channel and is released by the garbage collector
+     * once the snapshot is no longer referenced
+     *
+     * @param file The snapshot file
+     *
+     * @return The snapshot
+     *
+     * @throws IOException when the file cannot be read or is not a valid snapshot
+     */
+    public static DuckBinarySnapshot open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new DuckBinarySnapshot(mapped);
+        }
+    }
+
+    /**
+     * @param index The index of a record
+     *
+     * @return The position of the record in the file
+     */
+    private static int recordAt(int index) {
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    /**
+     * @return The number of {@linkplain Duck ducks} in the snapshot
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param index The index of a record
+     *
+     * @return The id of the duck
+     */
+    public int getId(int index) {
+        return buffer.getInt(recordAt(index) + ID);
+    }
+
+    /**
+     * @param index The index of a record
+     *
+     * @return The quantity of the duck available
+     */
+    public int getQuantity(int index) {
+        return buffer.getInt(recordAt(index) + QUANTITY);
+    }
+
+    /**
+     * @param index The index of a record
+     *
+     * @return The custom price of the duck, 0 if it is worked out from the
+     *         attributes
+     */
+    public double getCustomPrice(int index) {
+        return buffer.getDouble(recordAt(index) + PRICE);
+    }
+
+    /**
+     * @param index The index of a record
+     *
+     * @return The size of the duck
+     */
+    public Size getSize(int index) {
+        return SIZES[buffer.get(recordAt(index) + SIZE) & 0xFF];
+    }
+
+    /**
+     * @param index The index of a record
+     *
+     * @return The color of the duck
+     */
+    public Colors getColor(int index) {
+        return COLORS[buffer.get(recordAt(index) + COLOR) & 0xFF];
+    }
+
+    /**
+     * @param index The index of a record
+     *
+     * @return A new copy of the outfit of the duck
+     */
+    public DuckOutfit getOutfit(int index) {
+        int outfit = recordAt(index) + OUTFIT;
+        return new DuckOutfit(buffer.getInt(outfit), buffer.getInt(outfit + 4), buffer.getInt(outfit + 8),
+                buffer.getInt(outfit + 12), buffer.getInt(outfit + 16));
+    }
+
+    /**
+     * @param index The index of a record
+     *
+     * @return The name of the duck, decoded from the name heap
+     */
+    public String getName(int index) {
+        int record = recordAt(index);
+        byte[] name = new byte[buffer.getInt(record + NAME_LENGTH)];
+        ByteBuffer heap = buffer.duplicate();
+        heap.position(heapOffset + buffer.getInt(record + NAME_OFFSET));
+        heap.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds the {@linkplain Duck duck} stored in a record
+     *
+     * @param index The index of a record
+     *
+     * @return A new duck
+     *
+     * @throws IllegalArgumentException if the record does not hold a valid duck
+     */
+    public Duck getDuck(int index) {
+        return new Duck(getId(index), getName(index), getQuantity(index), getCustomPrice(index), getSize(index),
+                getColor(index), getOutfit(index));
+    }
+
+    /**
+     * @return A new array holding every {@linkplain Duck duck} in the snapshot,
+     *         in file order
+     */
+    public Duck[] getDucks() {
+        Duck[] ducks = new Duck[count];
+        for (int index = 0; index < count; ++index) {
+            ducks[index] = getDuck(index);
+        }
+        return ducks;
+    }
+
+    /**
+     * Writes a snapshot of the given {@linkplain Duck ducks}
+     * <br>
+     * The snapshot is written to a temporary file and moved over the old one, so
+     * a crash never leaves a half written snapshot behind and readers that still
+     * have the old file mapped keep seeing it intact
+     *
+     * @param file  The snapshot file
+     * @param ducks The ducks to write
+     *
+     * @throws IOException when the file cannot be written
+     */
+    public static void write(File file, Duck[] ducks) throws IOException {
+        byte[][] names = new byte[ducks.length][];
+        long heapLength = 0;
+        for (int index = 0; index < ducks.length; ++index) {
+            names[index] = ducks[index].getName().getBytes(StandardCharsets.UTF_8);
+            heapLength += names[index].length;
+        }
+        long length = HEADER_BYTES + (long) ducks.length * RECORD_BYTES + heapLength;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Catalog too large for a duck snapshot");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) length);
+        int heapOffset = recordAt(ducks.length);
+        out.putInt(MAGIC).putInt(VERSION).putInt(ducks.length).putInt(heapOffset);
+        int nameOffset = 0;
+        for (int index = 0; index < ducks.length; ++index) {
+            Duck duck = ducks[index];
+            int record = recordAt(index);
+            out.putInt(record + ID, duck.getId());
+            out.putInt(record + QUANTITY, duck.getQuantity());
+            out.putDouble(record + PRICE, duck.getCustomPrice());
+            out.put(record + SIZE, (byte) duck.getSize().ordinal());
+            out.put(record + COLOR, (byte) duck.getColor().ordinal());
+            int[] outfit = duck.getOutfit().getOutfitAsArray();
+            for (int slot = 0; slot < outfit.length; ++slot) {
+                out.putInt(record + OUTFIT + slot * 4, outfit[slot]);
+            }
+            out.putInt(record + NAME_OFFSET, nameOffset);
+            out.putInt(record + NAME_LENGTH, names[index].length);
+            out.position(heapOffset + nameOffset);
+            out.put(names[index]);
+            nameOffset += names[index].length;
+        }
+        out.flip();
+
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Converts a JSON catalog into a binary snapshot
+     *
+     * @param json         The JSON file to read
+     * @param snapshot     The snapshot file to write
+     * @param objectMapper Provides JSON Object to Java Object deserialization
+     *
+     * @return The number of ducks converted
+     *
+     * @throws IOException when either file cannot be accessed
+     */
+    public static int fromJson(File json, File snapshot, ObjectMapper objectMapper) throws IOException {
+        Duck[] ducks = objectMapper.readValue(json, Duck[].class);
+        write(snapshot, ducks);
+        return ducks.length;
+    }
+
+    /**
+     * Converts a binary snapshot back into a JSON catalog
+     *
+     * @param snapshot     The snapshot file to read
+     * @param json         The JSON file to write
+     * @param objectMapper Provides Java Object to JSON Object serialization
+     *
+     * @return The number of ducks converted
+     *
+     * @throws IOException when either file cannot be accessed
+     */
+    public static int toJson(File snapshot, File json, ObjectMapper objectMapper) throws IOException {
+        Duck[] ducks = open(snapshot).getDucks();
+        objectMapper.writeValue(json, ducks);
+        return ducks.length;
+    }
+
+    /**
+     * Converts between the two catalog formats. A source ending in
+     * {@value #EXTENSION} is converted to JSON, anything else to a snapshot
+     *
+     * @param args The source and target file names
+     *
+     * @throws IOException when either file cannot be accessed
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: DuckBinarySnapshot <source> <target>");
+            System.exit(1);
+        }
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        File source = new File(args[0]);
+        File target = new File(args[1]);
+        int converted = args[0].endsWith(EXTENSION) ? toJson(source, target, objectMapper)
+                : fromJson(source, target, objectMapper);
+        System.out.println("Converted " + converted + " ducks from " + source + " to " + target);
+    }
+}
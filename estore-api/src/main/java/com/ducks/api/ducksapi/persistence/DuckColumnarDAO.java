@@ -0,0 +1,731 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongUnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
+import com.ducks.api.ducksapi.model.Stock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Implements file-based persistence for Ducks on top of parallel primitive
+ * arrays instead of a map of {@linkplain Duck duck} objects
+ * <br>
+ * Every field of a duck lives in its own column (ids, quantities, custom
+ * prices, size and color ordinals and one column per outfit UID), with one row
+ * per duck in ascending id order. {@link Duck} objects are only built when they
+ * are handed to a caller, so the catalog itself costs a few bytes per field
+ * rather than several objects per duck, and scans walk contiguous arrays
+ * <br>
+ * Reads and stock changes share a read lock (stock is taken with a
+ * compare-and-set on the quantity column); creates, updates and deletes take
+ * the write lock. The file may be JSON or a {@linkplain DuckBinarySnapshot
+ * binary snapshot}, which is loaded straight into the columns. Every mutation
+ * rewrites the whole file; the journal is not supported
+ * <br>
+ * Replaces {@link DuckFileDAO} as the inventory when {@code ducks.store} is
+ * set to {@code columnar}
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Component("duckFileDAO")
+@ConditionalOnProperty(name = "ducks.store", havingValue = "columnar")
+public class DuckColumnarDAO implements DuckDAO {
+    // Lets stock be taken, returned and held atomically without the write lock
+    private static final VarHandle STOCK = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int OUTFIT_SLOTS = 5; // hat, shirt, shoes, hand item, jewelry
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Size[] SIZES = Size.values();
+    private static final Colors[] COLORS = Colors.values();
+
+    private final String filename; // Filename to read from and write to
+    private final ObjectMapper objectMapper; // Converts ducks to and from JSON
+    private final boolean binary; // Whether the file is a binary snapshot
+    private final ReadWriteLock lock = new ReentrantReadWriteLock(); // Guards the shape of the columns
+    private final ReentrantLock fileLock = new ReentrantLock(); // Serializes writes to the file
+    private final DuckNameIndex nameIndex = new DuckNameIndex(); // Trigram index over the names
+    private final AtomicLong generation = new AtomicLong(); // Bumped after every visible change
+    private final StoreMetrics storeMetrics = new StoreMetrics("ducks"); // Operation, file and lock wait timings
+
+    private int count; // Number of rows in use
+    private int nextId; // The next id to assign to a new duck
+    private int[] ids; // Id of every row, ascending
+    private String[] names; // Name of every row
+    private long[] stock; // Packed Stock of every row, only changed through STOCK
+    private double[] prices; // Custom price of every row, 0 when computed
+    private byte[] sizes; // Size ordinal of every row
+    private byte[] colors; // Color ordinal of every row
+    private int[][] outfits; // One column per outfit slot
+
+    /**
+     * Creates a columnar Duck Data Access Object
+     *
+     * @param filename     Filename to read from and write to, a name ending in
+     *                     {@value DuckBinarySnapshot#EXTENSION} is read as a
+     *                     binary snapshot
+     * @param objectMapper Provides JSON Object to/from Java Object serialization
+     *                     and deserialization
+     *
+     * @throws IOException when file cannot be accessed or read from
+     */
+    public DuckColumnarDAO(@Value("${ducks.file}") String filename, ObjectMapper objectMapper) throws IOException {
+        this.filename = filename;
+        this.objectMapper = objectMapper;
+        this.binary = filename.endsWith(DuckBinarySnapshot.EXTENSION);
+        load();
+        storeMetrics.gauge(this, DuckColumnarDAO::size);
+    }
+
+    /**
+     * Fills the columns from the file, sorts the rows by id and indexes the
+     * names
+     *
+     * @throws IOException when file cannot be accessed or read from
+     */
+    private void load() throws IOException {
+        long start = System.nanoTime();
+        allocate(INITIAL_CAPACITY);
+        if (binary) {
+            // Straight from the mapped file into the columns, without building
+            // a Duck for every record
+            DuckBinarySnapshot snapshot = DuckBinarySnapshot.open(new File(filename));
+            ensureCapacity(snapshot.size());
+            for (int index = 0; index < snapshot.size(); ++index) {
+                DuckOutfit outfit = snapshot.getOutfit(index);
+                ids[count] = snapshot.getId(index);
+                names[count] = snapshot.getName(index);
+                stock[count] = Stock.of(snapshot.getQuantity(index), 0);
+                prices[count] = snapshot.getCustomPrice(index);
+                sizes[count] = (byte) snapshot.getSize(index).ordinal();
+                colors[count] = (byte) snapshot.getColor(index).ordinal();
+                setOutfit(count, outfit);
+                ++count;
+            }
+        } else {
+            Duck[] duckArray = objectMapper.readValue(new File(filename), Duck[].class);
+            ensureCapacity(duckArray.length);
+            for (Duck duck : duckArray) {
+                ids[count] = duck.getId();
+                setRow(count, duck);
+                ++count;
+            }
+        }
+        sortById();
+
+        nextId = 0;
+        for (int row = 0; row < count; ++row) {
+            nameIndex.put(ids[row], names[row]);
+        }
+        if (count > 0) {
+            nextId = ids[count - 1];
+        }
+        ++nextId;
+        generation.incrementAndGet();
+        storeMetrics.loaded(start);
+    }
+
+    /**
+     * Replaces every column with an empty one
+     *
+     * @param capacity The number of rows to make room for
+     */
+    private void allocate(int capacity) {
+        count = 0;
+        ids = new int[capacity];
+        names = new String[capacity];
+        stock = new long[capacity];
+        prices = new double[capacity];
+        sizes = new byte[capacity];
+        colors = new byte[capacity];
+        outfits = new int[OUTFIT_SLOTS][capacity];
+    }
+
+    /**
+     * Grows every column so it can hold at least the given number of rows. Must
+     * be called while holding the write lock (or while loading)
+     *
+     * @param capacity The number of rows to make room for
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int grown = Math.max(capacity, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, grown);
+        names = Arrays.copyOf(names, grown);
+        stock = Arrays.copyOf(stock, grown);
+        prices = Arrays.copyOf(prices, grown);
+        sizes = Arrays.copyOf(sizes, grown);
+        colors = Arrays.copyOf(colors, grown);
+        for (int slot = 0; slot < OUTFIT_SLOTS; ++slot) {
+            outfits[slot] = Arrays.copyOf(outfits[slot], grown);
+        }
+    }
+
+    /**
+     * Puts the rows in ascending id order, keeping only the last row for an id
+     * that appears more than once, as loading it into a map would
+     */
+    private void sortById() {
+        boolean sorted = true;
+        for (int row = 1; row < count && sorted; ++row) {
+            sorted = ids[row - 1] < ids[row];
+        }
+        if (sorted) {
+            return;
+        }
+
+        // Sort (id, row) pairs packed into longs, so the rows of equal ids stay
+        // in file order
+        long[] order = new long[count];
+        for (int row = 0; row < count; ++row) {
+            order[row] = ((long) ids[row] << 32) | row;
+        }
+        Arrays.sort(order);
+
+        int[] oldIds = ids;
+        String[] oldNames = names;
+        long[] oldStock = stock;
+        double[] oldPrices = prices;
+        byte[] oldSizes = sizes;
+        byte[] oldColors = colors;
+        int[][] oldOutfits = outfits;
+        int rows = count;
+        allocate(oldIds.length);
+        for (int i = 0; i < rows; ++i) {
+            if (i + 1 < rows && (int) (order[i + 1] >> 32) == (int) (order[i] >> 32)) {
+                continue; // A later row has the same id
+            }
+            int from = (int) order[i];
+            ids[count] = oldIds[from];
+            names[count] = oldNames[from];
+            stock[count] = oldStock[from];
+            prices[count] = oldPrices[from];
+            sizes[count] = oldSizes[from];
+            colors[count] = oldColors[from];
+            for (int slot = 0; slot < OUTFIT_SLOTS; ++slot) {
+                outfits[slot][count] = oldOutfits[slot][from];
+            }
+            ++count;
+        }
+    }
+
+    /**
+     * Copies every field but the id of a {@linkplain Duck duck} into a row.
+     * Whatever the row held for carts stays held
+     *
+     * @param row  The row to write
+     * @param duck The duck to copy
+     */
+    private void setRow(int row, Duck duck) {
+        names[row] = duck.getName();
+        while (true) {
+            long current = (long) STOCK.getVolatile(stock, row);
+            if (STOCK.compareAndSet(stock, row, current, Stock.of(duck.getQuantity(), Stock.held(current)))) {
+                break;
+            }
+        }
+        prices[row] = duck.getCustomPrice();
+        sizes[row] = (byte) duck.getSize().ordinal();
+        colors[row] = (byte) duck.getColor().ordinal();
+        setOutfit(row, duck.getOutfit());
+    }
+
+    /**
+     * Copies an outfit into a row
+     *
+     * @param row    The row to write
+     * @param outfit The outfit to copy
+     */
+    private void setOutfit(int row, DuckOutfit outfit) {
+        int[] uids = outfit.getOutfitAsArray();
+        for (int slot = 0; slot < OUTFIT_SLOTS; ++slot) {
+            outfits[slot][row] = uids[slot];
+        }
+    }
+
+    /**
+     * Builds a {@linkplain Duck duck} from a row. Must be called while holding
+     * the lock
+     *
+     * @param row The row to read
+     *
+     * @return A new duck, owned by the caller
+     */
+    private Duck toDuck(int row) {
+        DuckOutfit outfit = new DuckOutfit(outfits[0][row], outfits[1][row], outfits[2][row], outfits[3][row],
+                outfits[4][row]);
+        long current = (long) STOCK.getVolatile(stock, row);
+        Duck duck = new Duck(ids[row], names[row], Stock.quantity(current), prices[row], SIZES[sizes[row]],
+                COLORS[colors[row]], outfit);
+        duck.setHeld(Stock.held(current));
+        return duck;
+    }
+
+    /**
+     * Finds the row of an id. Must be called while holding the lock
+     *
+     * @param id The id to look for
+     *
+     * @return The row, or a negative number if there is no such duck
+     */
+    private int rowOf(int id) {
+        return Arrays.binarySearch(ids, 0, count, id);
+    }
+
+    /**
+     * Builds the {@linkplain Duck ducks} for a range of rows
+     *
+     * @param from The first row
+     * @param to   One past the last row
+     *
+     * @return The array of {@link Duck ducks}, may be empty
+     */
+    private Duck[] toDucks(int from, int to) {
+        lock.readLock().lock();
+        try {
+            from = Math.min(from, count);
+            to = Math.min(to, count);
+            Duck[] ducks = new Duck[Math.max(0, to - from)];
+            for (int row = from; row < to; ++row) {
+                ducks[row - from] = toDuck(row);
+            }
+            return ducks;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes every {@linkplain Duck duck} to the file
+     * <br>
+     * Saves are serialized and each one reads the columns when it starts, so the
+     * last save to finish always holds the latest state
+     *
+     * @return true if the {@link Duck ducks} were written successfully
+     *
+     * @throws IOException when file cannot be accessed or written to
+     */
+    private boolean save() throws IOException {
+        fileLock.lock();
+        try {
+            Duck[] duckArray = toDucks(0, Integer.MAX_VALUE);
+            File file = new File(filename);
+            long start = System.nanoTime();
+            if (binary) {
+                DuckBinarySnapshot.write(file, duckArray);
+            } else {
+                objectMapper.writeValue(file, duckArray);
+            }
+            storeMetrics.saved(file.length(), start);
+            return true;
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of {@linkplain Duck ducks} in the store
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     * <br>
+     * Every call builds a new array of new {@link Duck ducks}
+     */
+    @Override
+    public Duck[] getDucks() {
+        return toDucks(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck[] findDucks(String containsText) {
+        return findDucks(containsText, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck[] findDucks(String containsText, int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            if (offset < 0 || limit < 0) {
+                throw new IllegalArgumentException("offset and limit must not be negative");
+            }
+            if (containsText == null) {
+                return toDucks(offset, (int) Math.min((long) offset + limit, Integer.MAX_VALUE));
+            }
+            int[] matches = nameIndex.search(containsText, offset, limit);
+            lock.readLock().lock();
+            try {
+                Duck[] found = new Duck[matches.length];
+                int size = 0;
+                for (int id : matches) {
+                    int row = rowOf(id);
+                    // A duck deleted after the index was searched is left out
+                    if (row >= 0) {
+                        found[size++] = toDuck(row);
+                    }
+                }
+                return size == found.length ? found : Arrays.copyOf(found, size);
+            } finally {
+                lock.readLock().unlock();
+            }
+        } finally {
+            storeMetrics.operation("find", start);
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck getDuck(int id) {
+        lock.readLock().lock();
+        try {
+            int row = rowOf(id);
+            return row < 0 ? null : toDuck(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     * <br>
+     * The read lock is taken once for all of the ids. Ascending ids narrow each
+     * search to the rows from the previous one on
+     */
+    @Override
+    public Duck[] getDucks(int[] ids) {
+        Duck[] found = new Duck[ids.length];
+        lock.readLock().lock();
+        try {
+            int from = 0; // Where the previous id would be in the id column
+            for (int i = 0; i < ids.length; ++i) {
+                if (i > 0 && ids[i] < ids[i - 1]) {
+                    from = 0;
+                }
+                int row = Arrays.binarySearch(this.ids, from, count, ids[i]);
+                if (row >= 0) {
+                    found[i] = toDuck(row);
+                    from = row;
+                } else {
+                    from = -(row + 1);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck getDuckByName(String name) {
+        Integer id = nameIndex.idOf(name);
+        return id == null ? null : getDuck(id);
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck createDuck(Duck duck) throws IOException {
+        long start = System.nanoTime();
+        try {
+            Duck newDuck;
+            long waiting = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                storeMetrics.locked(waiting);
+                if (nameIndex.idOf(duck.getName()) != null) {
+                    return null;
+                }
+                newDuck = new Duck(nextId++, duck.getName(), duck.getQuantity(), duck.getCustomPrice(), duck.getSize(),
+                        duck.getColor(), duck.getOutfit());
+                // New ids are always the greatest, so the row goes at the end
+                ensureCapacity(count + 1);
+                ids[count] = newDuck.getId();
+                setRow(count, newDuck);
+                ++count;
+                nameIndex.put(newDuck.getId(), newDuck.getName());
+                generation.incrementAndGet();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            save(); // may throw an IOException
+            return newDuck;
+        } finally {
+            storeMetrics.operation("create", start);
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck updateDuck(Duck duck) throws IOException {
+        long start = System.nanoTime();
+        try {
+            long waiting = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                storeMetrics.locked(waiting);
+                int row = rowOf(duck.getId());
+                if (row < 0) {
+                    return null; // duck does not exist
+                }
+                setRow(row, duck);
+                nameIndex.put(duck.getId(), duck.getName());
+                generation.incrementAndGet();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            save(); // may throw an IOException
+            return duck;
+        } finally {
+            storeMetrics.operation("update", start);
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public boolean deleteDuck(int id) throws IOException {
+        long start = System.nanoTime();
+        try {
+            long waiting = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                storeMetrics.locked(waiting);
+                int row = rowOf(id);
+                if (row < 0) {
+                    return false;
+                }
+                // Close the gap so the rows stay contiguous and ordered
+                int after = count - row - 1;
+                System.arraycopy(ids, row + 1, ids, row, after);
+                System.arraycopy(names, row + 1, names, row, after);
+                System.arraycopy(stock, row + 1, stock, row, after);
+                System.arraycopy(prices, row + 1, prices, row, after);
+                System.arraycopy(sizes, row + 1, sizes, row, after);
+                System.arraycopy(colors, row + 1, colors, row, after);
+                for (int[] column : outfits) {
+                    System.arraycopy(column, row + 1, column, row, after);
+                }
+                names[--count] = null;
+                stock[count] = 0; // A later row must not inherit its holds
+                nameIndex.remove(id);
+                generation.incrementAndGet();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return save();
+        } finally {
+            storeMetrics.operation("delete", start);
+        }
+    }
+
+    /**
+     * Atomically applies a change to the stock of a row, as long as there is
+     * enough. Must be called while holding the read lock
+     *
+     * @param row    The row of the duck
+     * @param change Computes the new {@link Stock}, or {@link Stock#SHORT}
+     *
+     * @return true if the change was made
+     */
+    private boolean updateStock(int row, LongUnaryOperator change) {
+        while (true) {
+            long current = (long) STOCK.getVolatile(stock, row);
+            long updated = change.applyAsLong(current);
+            if (updated == Stock.SHORT) {
+                return false;
+            }
+            if (STOCK.compareAndSet(stock, row, current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Adds quantities back to the stock of the given ids, skipping ids that no
+     * longer exist
+     *
+     * @param items Map of {@link Duck duck} id to the quantity being returned
+     * @param held  Map of {@link Duck duck} id to the quantity that was held
+     * @param ids   The ids to return stock to
+     * @param size  The number of ids to use
+     *
+     * @return true if any stock was returned
+     */
+    private boolean returnQuantities(Map<Integer, Integer> items, Map<Integer, Integer> held, int[] ids, int size) {
+        boolean returned = false;
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < size; ++i) {
+                int row = rowOf(ids[i]);
+                if (row >= 0) {
+                    int quantity = items.get(ids[i]);
+                    int toHeld = Math.min(quantity, held.getOrDefault(ids[i], 0));
+                    updateStock(row, current -> Stock.put(current, quantity, toHeld));
+                    returned = true;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (returned) {
+            generation.incrementAndGet();
+        }
+        return returned;
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public boolean reserveStock(Map<Integer, Integer> items) throws IOException {
+        return reserveStock(items, Map.of());
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public boolean reserveStock(Map<Integer, Integer> items, Map<Integer, Integer> held) throws IOException {
+        long start = System.nanoTime();
+        try {
+            int[] taken = new int[items.size()];
+            int size = 0;
+            lock.readLock().lock();
+            try {
+                for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                    int row = rowOf(item.getKey());
+                    int quantity = item.getValue();
+                    int fromHeld = Math.min(quantity, held.getOrDefault(item.getKey(), 0));
+                    if (row < 0 || quantity <= 0
+                            || !updateStock(row, current -> Stock.take(current, quantity, fromHeld))) {
+                        // Put back the lines that were already taken
+                        for (int i = 0; i < size; ++i) {
+                            int back = items.get(taken[i]);
+                            int toHeld = Math.min(back, held.getOrDefault(taken[i], 0));
+                            updateStock(rowOf(taken[i]), current -> Stock.put(current, back, toHeld));
+                        }
+                        return false;
+                    }
+                    taken[size++] = item.getKey();
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            generation.incrementAndGet();
+
+            try {
+                save(); // may throw an IOException
+            } catch (IOException ioe) {
+                // Nothing was persisted, so put the stock back as well
+                returnQuantities(items, held, taken, size);
+                throw ioe;
+            }
+            return true;
+        } finally {
+            storeMetrics.operation("reserve", start);
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public void releaseStock(Map<Integer, Integer> items) throws IOException {
+        long start = System.nanoTime();
+        try {
+            int[] returned = new int[items.size()];
+            int size = 0;
+            for (int id : items.keySet()) {
+                returned[size++] = id;
+            }
+            if (returnQuantities(items, Map.of(), returned, size)) {
+                save(); // may throw an IOException
+            }
+        } finally {
+            storeMetrics.operation("release", start);
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public boolean holdStock(int id, int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        // Holds are not part of the catalog that is served, so the generation
+        // stays the same
+        lock.readLock().lock();
+        try {
+            int row = rowOf(id);
+            return row >= 0 && updateStock(row, current -> Stock.hold(current, quantity));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public void releaseHold(int id, int quantity) {
+        lock.readLock().lock();
+        try {
+            int row = rowOf(id);
+            if (row >= 0) {
+                updateStock(row, current -> Stock.release(current, quantity));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ducks.api.ducksapi.persistence;
 
 import java.io.IOException;
+import java.util.Map;
 
 import com.ducks.api.ducksapi.model.Duck;
 
@@ -14,13 +15,28 @@ public interface DuckDAO {
      * Retrieves all {@linkplain Duck ducks}
      * 
      * @return An array of {@link Duck duck} objects, may be empty
-     *         FHERO
+     *         <br>
+     *         The array may be shared between callers and must not be
+     *         modified
      * @throws IOException if an issue with underlying storage
      */
     Duck[] getDucks() throws IOException;
 
     /**
-     * Finds all {@linkplain Duck ducks} whose name contains the given text
+     * Retrieves the catalog generation, a counter that changes whenever a
+     * {@linkplain Duck duck} is created, updated, deleted or has its stock
+     * changed
+     * <br>
+     * Lets callers tell whether something they built from {@link #getDucks()}
+     * is still current without comparing the ducks themselves
+     * 
+     * @return The current generation
+     */
+    long getGeneration();
+
+    /**
+     * Finds all {@linkplain Duck ducks} whose name contains the given text,
+     * ignoring case
      * 
      * @param containsText The text to match against
      * 
@@ -31,6 +47,23 @@ public interface DuckDAO {
      */
     Duck[] findDucks(String containsText) throws IOException;
 
+    /**
+     * Finds one page of the {@linkplain Duck ducks} whose name contains the
+     * given text, ignoring case
+     * <br>
+     * Matches are ordered by id, so consecutive pages do not overlap
+     * 
+     * @param containsText The text to match against
+     * @param offset       The number of matches to skip
+     * @param limit        The maximum number of matches to return
+     * 
+     * @return An array of at most limit {@link Duck ducks}, may be empty
+     * 
+     * @throws IllegalArgumentException if offset or limit is negative
+     * @throws IOException              if an issue with underlying storage
+     */
+    Duck[] findDucks(String containsText, int offset, int limit) throws IOException;
+
     /**
      * Retrieves a {@linkplain Duck duck} with the given id
      * 
@@ -45,7 +78,30 @@ public interface DuckDAO {
     Duck getDuck(int id) throws IOException;
 
     /**
-     * Retrieves a {@linkplain Duck duck} with the given name
+     * Retrieves the {@linkplain Duck ducks} with the given ids, all resolved
+     * against the same state of the catalog
+     * <br>
+     * Meant for checking a whole cart at once: the catalog is read (or locked)
+     * once for every id rather than once per id, so large carts do not
+     * contend with writers once per line
+     * 
+     * @param ids The ids of the {@link Duck ducks} to get, fastest when they
+     *            are in ascending order
+     * 
+     * @return An array as long as ids holding, at each position, the
+     *         {@link Duck duck} with the id at the same position, or null if
+     *         no {@link Duck duck} has that id
+     * 
+     * @throws IOException if an issue with underlying storage
+     */
+    Duck[] getDucks(int[] ids) throws IOException;
+
+    /**
+     * Retrieves a {@linkplain Duck duck} with the given name, ignoring case
+     * <br>
+     * Names are unique regardless of case, so this is the check used before
+     * creating or renaming a {@linkplain Duck duck}; implementations answer it
+     * without scanning every duck
      * 
      * @param name The name of the {@linkplain Duck duck}
      * 
@@ -92,4 +148,84 @@ public interface DuckDAO {
      * @throws IOException if underlying storage cannot be accessed
      */
     boolean deleteDuck(int id) throws IOException;
+
+    /**
+     * Takes the requested quantities of several {@linkplain Duck ducks} out of
+     * stock as a single unit
+     * <br>
+     * Either every line is taken out of stock and the change is persisted once,
+     * or nothing changes at all. Ducks {@linkplain #holdStock(int, int) held}
+     * for other carts are not taken
+     * 
+     * @param items Map of {@link Duck duck} id to the quantity being taken
+     * 
+     * @return true if every line was in stock and has been taken out
+     *         <br>
+     *         false if any {@link Duck duck} does not exist or does not have
+     *         enough stock, in which case nothing was changed
+     * 
+     * @throws IOException if underlying storage cannot be accessed
+     */
+    boolean reserveStock(Map<Integer, Integer> items) throws IOException;
+
+    /**
+     * Takes the requested quantities of several {@linkplain Duck ducks} out of
+     * stock as a single unit, turning the ducks held for the cart being checked
+     * out into the sale
+     * <br>
+     * Of every line, as many ducks as are held for it come out of what is
+     * {@linkplain #holdStock(int, int) held}, and only the rest has to be
+     * available
+     * 
+     * @param items Map of {@link Duck duck} id to the quantity being taken
+     * @param held  Map of {@link Duck duck} id to the quantity held for the
+     *              cart, may have fewer lines than items
+     * 
+     * @return true if every line was in stock and has been taken out
+     *         <br>
+     *         false if any {@link Duck duck} does not exist or does not have
+     *         enough stock, in which case nothing was changed
+     * 
+     * @throws IOException if underlying storage cannot be accessed
+     */
+    boolean reserveStock(Map<Integer, Integer> items, Map<Integer, Integer> held) throws IOException;
+
+    /**
+     * Puts quantities taken by {@link #reserveStock(Map)} back into stock
+     * <br>
+     * Used to undo a reservation when the rest of a checkout fails.
+     * {@linkplain Duck Ducks} that no longer exist are skipped
+     * 
+     * @param items Map of {@link Duck duck} id to the quantity being returned
+     * 
+     * @throws IOException if underlying storage cannot be accessed
+     */
+    void releaseStock(Map<Integer, Integer> items) throws IOException;
+
+    /**
+     * Holds ducks of a {@linkplain Duck duck} for a shopping cart, so that
+     * other checkouts cannot take them
+     * <br>
+     * Holds only live in memory. They are not saved, and the quantity that is
+     * saved still counts the held ducks
+     * 
+     * @param id       The id of the {@link Duck duck}
+     * @param quantity The number of ducks to hold
+     * 
+     * @return true if they are now held
+     *         <br>
+     *         false if the {@link Duck duck} does not exist or fewer ducks are
+     *         available
+     */
+    boolean holdStock(int id, int quantity);
+
+    /**
+     * Lets go of ducks held by {@link #holdStock(int, int)}
+     * <br>
+     * Holds on a {@linkplain Duck duck} that no longer exists are ignored
+     * 
+     * @param id       The id of the {@link Duck duck}
+     * @param quantity The number of ducks no longer held
+     */
+    void releaseHold(int id, int quantity);
 }
@@ -2,7 +2,9 @@ package com.ducks.api.ducksapi.persistence;
 
 import java.io.IOException;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -13,10 +15,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * {@literal @}Component Spring annotation instantiates a single instance of
  * this
  * class and injects the instance into other classes as needed
+ * <br>
+ * This is the default inventory store; setting {@code ducks.store} to
+ * {@code columnar} swaps in the {@link DuckColumnarDAO} instead
  * 
  * @author SWEN Faculty
  */
 @Component("duckFileDAO")
+@ConditionalOnProperty(name = "ducks.store", havingValue = "map", matchIfMissing = true)
 public class DuckFileDAO extends DuckFileDAOAbstract {
     
     /**
@@ -32,4 +38,25 @@ public class DuckFileDAO extends DuckFileDAOAbstract {
         super(filename, objectMapper);
     }
 
+    /**
+     * Creates a Duck File Data Access Object that can optionally record mutations
+     * in an append-only journal instead of rewriting the file every time
+     * 
+     * @param filename         Filename to read from and write to
+     * @param objectMapper     Provides JSON Object to/from Java Object
+     *                         serialization and deserialization
+     * @param journaled        Whether mutations are appended to a journal
+     * @param syncEvery        How many journal appends are grouped into one fsync
+     * @param compactThreshold How many journal appends before the journal is
+     *                         folded back into the file
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    @Autowired
+    public DuckFileDAO(@Value("${ducks.file}") String filename, ObjectMapper objectMapper,
+            @Value("${ducks.journal.enabled:false}") boolean journaled,
+            @Value("${ducks.journal.sync-every:1}") int syncEvery,
+            @Value("${ducks.journal.compact-threshold:1000}") int compactThreshold) throws IOException {
+        super(filename, objectMapper, openJournal(filename, objectMapper, journaled, syncEvery, compactThreshold));
+    }
 }
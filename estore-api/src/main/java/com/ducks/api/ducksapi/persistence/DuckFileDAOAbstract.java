@@ -2,9 +2,18 @@ package com.ducks.api.ducksapi.persistence;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import javax.annotation.PreDestroy;
 
 import org.springframework.stereotype.Component;
 
@@ -24,12 +33,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public abstract class DuckFileDAOAbstract implements DuckDAO {
     protected Map<Integer, Duck> ducks; // Provides a local cache of the duck objects
                               // so that we don't need to read from the file
-                              // each time
+                              // each time. Reads go straight to the concurrent
+                              // map; writers hold the write lock
+    private final ReentrantLock writeLock = new ReentrantLock(); // Serializes writes to the map and the file
     private ObjectMapper objectMapper; // Provides conversion between Duck
                                        // objects and JSON text format written
                                        // to the file
     private static int nextId; // The next Id to assign to a new duck
     private String filename; // Filename to read from and write to
+    private boolean binary; // Whether the file is a binary snapshot rather than
+                            // JSON, chosen by its extension
+    private DuckJournal journal; // Append-only log of mutations, null when
+                                 // every mutation rewrites the whole file
+    private volatile Duck[] snapshot = new Duck[0]; // Immutable copy of the catalog
+                                                    // ordered by id, replaced on
+                                                    // every structural change
+    private DuckNameIndex nameIndex; // Trigram index over the duck names
+    private final AtomicLong generation = new AtomicLong(); // Bumped after every change
+                                                            // that is visible to readers
+    private final StoreMetrics storeMetrics; // Operation, file and lock wait timings
 
     /**
      * Creates a Duck File Data Access Object
@@ -41,9 +63,63 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      * @throws IOException when file cannot be accessed or read from
      */
     protected DuckFileDAOAbstract(String filename, ObjectMapper objectMapper) throws IOException {
+        this(filename, objectMapper, null);
+    }
+
+    /**
+     * Creates a Duck File Data Access Object that records mutations in a
+     * {@linkplain DuckJournal journal} and only rewrites the file when the journal
+     * is compacted
+     * 
+     * @param filename     Filename to read from and write to
+     * @param objectMapper Provides JSON Object to/from Java Object serialization
+     *                     and deserialization
+     * @param journal      The journal to append mutations to, null to rewrite the
+     *                     file on every mutation
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    protected DuckFileDAOAbstract(String filename, ObjectMapper objectMapper, DuckJournal journal)
+            throws IOException {
         this.filename = filename;
         this.objectMapper = objectMapper;
+        this.journal = journal;
+        this.binary = filename.endsWith(DuckBinarySnapshot.EXTENSION);
+        this.storeMetrics = new StoreMetrics(getStoreName());
         load(); // load the ducks from the file
+        storeMetrics.gauge(this, dao -> dao.getDucksArray().length);
+    }
+
+    /**
+     * @return The name the metrics of this Data Access Object are tagged with
+     */
+    protected String getStoreName() {
+        return "ducks";
+    }
+
+    /**
+     * Creates the journal for a Duck File Data Access Object
+     * <br>
+     * The journal is kept next to the snapshot file as {@code <filename>.journal}
+     * 
+     * @param filename         The snapshot file the journal belongs to
+     * @param objectMapper     Provides JSON Object to/from Java Object
+     *                         serialization and deserialization
+     * @param enabled          Whether journaling is turned on
+     * @param syncEvery        How many appends are grouped into one fsync
+     * @param compactThreshold How many appends before the journal is folded into
+     *                         the snapshot
+     * 
+     * @return The journal, or null if journaling is disabled
+     * 
+     * @throws IOException when the journal file cannot be opened
+     */
+    protected static DuckJournal openJournal(String filename, ObjectMapper objectMapper, boolean enabled,
+            int syncEvery, int compactThreshold) throws IOException {
+        if (!enabled) {
+            return null;
+        }
+        return new DuckJournal(filename + ".journal", objectMapper, syncEvery, compactThreshold);
     }
 
     /**
@@ -58,29 +134,29 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
     }
 
     /**
-     * Generates an array of {@linkplain Duck ducks} from the tree map
+     * Retrieves the current snapshot of all {@linkplain Duck ducks}
      * 
-     * @return The array of {@link Duck ducks}, may be empty
+     * @return The array of {@link Duck ducks}, may be empty. Shared with every
+     *         caller, so it must not be modified
      */
     private Duck[] getDucksArray() {
-        return getDucksArray(null);
+        return snapshot;
     }
 
     /**
-     * Generates an array of {@linkplain Duck ducks} from the tree map for any
-     * {@linkplain Duck ducks} that contains the text specified by containsText
+     * Looks up the {@linkplain Duck ducks} for ids returned by the name index
      * <br>
-     * If containsText is null, the array contains all of the {@linkplain Duck
-     * ducks}
-     * in the tree map
+     * A duck deleted after the index was searched is left out
+     * 
+     * @param ids The ids to look up
      * 
      * @return The array of {@link Duck ducks}, may be empty
      */
-    private Duck[] getDucksArray(String containsText) { // if containsText == null, no filter
-        ArrayList<Duck> duckArrayList = new ArrayList<>();
-
-        for (Duck duck : ducks.values()) {
-            if (containsText == null || duck.getName().contains(containsText)) {
+    private Duck[] getDucksArray(int[] ids) {
+        ArrayList<Duck> duckArrayList = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Duck duck = ducks.get(id);
+            if (duck != null) {
                 duckArrayList.add(duck);
             }
         }
@@ -90,9 +166,32 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
         return duckArray;
     }
 
+    /**
+     * Replaces the snapshot with a fresh copy of the map. Must be called by
+     * writers after every create, update and delete
+     * <br>
+     * Stock changes update the {@link Duck duck} objects in place, so they are
+     * visible through the existing snapshot without republishing it; they only
+     * bump the generation
+     */
+    private void publish() {
+        snapshot = ducks.values().toArray(new Duck[0]);
+        generation.incrementAndGet();
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public long getGeneration() {
+        // Bumped only after a change is applied, so anything built from the
+        // catalog under a generation is never older than that generation
+        return generation.get();
+    }
+
     /**
      * Saves the {@linkplain Duck ducks} from the map into the file as an array of
-     * JSON objects
+     * JSON objects, or as a {@linkplain DuckBinarySnapshot binary snapshot}
      * 
      * @return true if the {@link Duck ducks} were written successfully
      * 
@@ -100,16 +199,158 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      */
     private boolean save() throws IOException {
         Duck[] duckArray = getDucksArray();
+        File file = new File(filename);
+        long start = System.nanoTime();
+
+        if (binary) {
+            // Always goes through a temporary file, as the old snapshot may
+            // still be mapped
+            DuckBinarySnapshot.write(file, duckArray);
+        } else {
+            // Serializes the Java Objects to JSON objects into the file
+            // writeValue will thrown an IOException if there is an issue
+            // with the file or reading from the file
+            objectMapper.writeValue(file, duckArray);
+        }
+        storeMetrics.saved(file.length(), start);
+        return true;
+    }
+
+    /**
+     * Persists the creation or update of a single {@linkplain Duck duck}
+     * <br>
+     * Without a journal the whole file is rewritten, otherwise the change is
+     * appended to the journal
+     * 
+     * @param duck The {@link Duck duck} that was created or updated
+     * 
+     * @return true if the change was written successfully
+     * 
+     * @throws IOException when file cannot be accessed or written to
+     */
+    private boolean persistPut(Duck duck) throws IOException {
+        if (journal == null) {
+            return save();
+        }
+        journal.appendPut(duck);
+        return compactIfNeeded();
+    }
+
+    /**
+     * Persists the deletion of a single {@linkplain Duck duck}
+     * 
+     * @param id The id of the deleted {@link Duck duck}
+     * 
+     * @return true if the change was written successfully
+     * 
+     * @throws IOException when file cannot be accessed or written to
+     */
+    private boolean persistDelete(int id) throws IOException {
+        if (journal == null) {
+            return save();
+        }
+        journal.appendDelete(id);
+        return compactIfNeeded();
+    }
+
+    /**
+     * Persists a change to the stock of several {@linkplain Duck ducks} as a
+     * single write
+     * <br>
+     * Stock is taken without the write lock, so by the time it is held an
+     * update may have replaced a changed duck or a delete removed it. The ducks
+     * now in the catalog under the same ids are written instead, and removed
+     * ones are skipped; writing the changed ones would undo the update, or bring
+     * the duck back, when the journal is replayed. Must be called holding the
+     * write lock
+     * 
+     * @param changed The {@link Duck ducks} whose stock was changed
+     * 
+     * @return true if the change was written successfully
+     * 
+     * @throws IOException when file cannot be accessed or written to
+     */
+    private boolean persistPutAll(List<Duck> changed) throws IOException {
+        if (journal == null) {
+            return save();
+        }
+        List<Duck> current = new ArrayList<>(changed.size());
+        for (Duck duck : changed) {
+            Duck now = ducks.get(duck.getId());
+            if (now != null) {
+                current.add(now);
+            }
+        }
+        if (current.isEmpty()) {
+            return true;
+        }
+        journal.appendPutAll(current);
+        return compactIfNeeded();
+    }
 
-        // Serializes the Java Objects to JSON objects into the file
-        // writeValue will thrown an IOException if there is an issue
-        // with the file or reading from the file
-        objectMapper.writeValue(new File(filename), duckArray);
+    /**
+     * Folds the journal into a new snapshot once it has grown past its
+     * threshold
+     * <br>
+     * The snapshot is written to a temporary file and moved over the old one so
+     * that a crash never leaves a half written snapshot behind; replaying the
+     * journal on top of the new snapshot is harmless if the crash happens before
+     * the journal is emptied
+     * 
+     * @return true if the journal and snapshot are up to date
+     * 
+     * @throws IOException when file cannot be accessed or written to
+     */
+    private boolean compactIfNeeded() throws IOException {
+        if (!journal.needsCompaction()) {
+            return true;
+        }
+        File snapshot = new File(filename);
+        long start = System.nanoTime();
+        if (binary) {
+            DuckBinarySnapshot.write(snapshot, getDucksArray());
+        } else {
+            File temp = new File(filename + ".tmp");
+            objectMapper.writeValue(temp, getDucksArray());
+            Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        storeMetrics.saved(snapshot.length(), start);
+        journal.reset();
         return true;
     }
 
     /**
-     * Loads {@linkplain Duck ducks} from the JSON file into the map
+     * Flushes and closes the journal when the application shuts down
+     * 
+     * @throws IOException when the journal cannot be written to
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (journal != null) {
+            long waiting = System.nanoTime();
+            writeLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                journal.close();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Prepares a {@linkplain Duck duck} before it is stored; does nothing unless
+     * overridden
+     * 
+     * @param duck The duck being loaded, created or updated
+     */
+    protected void adopt(Duck duck) {
+    }
+
+    /**
+     * Loads {@linkplain Duck ducks} from the JSON file (or binary snapshot) into
+     * the map, then replays the journal (if any) on top of it
      * <br>
      * Also sets next id to one more than the greatest id found in the file
      * 
@@ -118,23 +359,40 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      * @throws IOException when file cannot be accessed or read from
      */
     private boolean load() throws IOException {
-        ducks = new TreeMap<>();
+        ducks = new ConcurrentSkipListMap<>();
+        nameIndex = new DuckNameIndex();
         nextId = 0;
+        long start = System.nanoTime();
 
         // Deserializes the JSON objects from the file into an array of ducks
         // readValue will throw an IOException if there's an issue with the file
-        // or reading from the file
-        Duck[] duckArray = objectMapper.readValue(new File(filename), Duck[].class);
+        // or reading from the file. A binary snapshot is mapped and read field
+        // by field instead of being parsed
+        Duck[] duckArray = binary ? DuckBinarySnapshot.open(new File(filename)).getDucks()
+                : objectMapper.readValue(new File(filename), Duck[].class);
 
-        // Add each duck to the tree map and keep track of the greatest id
+        // Add each duck to the tree map
         for (Duck duck : duckArray) {
             ducks.put(duck.getId(), duck);
+        }
+
+        // Apply the changes made since the snapshot was written
+        if (journal != null) {
+            journal.replay(ducks);
+        }
+
+        // Keep track of the greatest id and index the names
+        for (Duck duck : ducks.values()) {
+            adopt(duck);
             if (duck.getId() > nextId) {
                 nextId = duck.getId();
             }
+            nameIndex.put(duck.getId(), duck.getName());
         }
         // Make the next id one greater than the maximum from the file
         ++nextId;
+        publish();
+        storeMetrics.loaded(start);
         return true;
     }
 
@@ -143,9 +401,7 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      */
     @Override
     public Duck[] getDucks() {
-        synchronized (ducks) {
-            return getDucksArray();
-        }
+        return getDucksArray();
     }
 
     /**
@@ -153,8 +409,28 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      */
     @Override
     public Duck[] findDucks(String containsText) {
-        synchronized (ducks) {
-            return getDucksArray(containsText);
+        return findDucks(containsText, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck[] findDucks(String containsText, int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            if (offset < 0 || limit < 0) {
+                throw new IllegalArgumentException("offset and limit must not be negative");
+            }
+            if (containsText == null) {
+                Duck[] current = getDucksArray();
+                int from = Math.min(offset, current.length);
+                int to = (int) Math.min((long) from + limit, current.length);
+                return Arrays.copyOfRange(current, from, to);
+            }
+            return getDucksArray(nameIndex.search(containsText, offset, limit));
+        } finally {
+            storeMetrics.operation("find", start);
         }
     }
 
@@ -163,26 +439,104 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      */
     @Override
     public Duck getDuck(int id) {
-        synchronized (ducks) {
-            if (ducks.containsKey(id))
-                return ducks.get(id);
-            else
-                return null;
+        return ducks.get(id); // null if not found
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Every id is searched for in the published snapshot, which is ordered by
+     * id, so a create or delete running at the same time is seen by all of the
+     * ids or by none. Ascending ids narrow each search to the part of the
+     * snapshot from the previous one on
+     */
+    @Override
+    public Duck[] getDucks(int[] ids) {
+        Duck[] current = getDucksArray();
+        Duck[] found = new Duck[ids.length];
+        int from = 0; // Where the previous id would be in the snapshot
+        for (int i = 0; i < ids.length; ++i) {
+            if (i > 0 && ids[i] < ids[i - 1]) {
+                from = 0;
+            }
+            int index = indexOf(current, from, ids[i]);
+            if (index >= 0) {
+                found[i] = current[index];
+                from = index;
+            } else {
+                from = -(index + 1);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Binary searches part of a snapshot for an id
+     * 
+     * @param snapshot The ducks, ordered by id
+     * @param from     The first index to search
+     * @param id       The id to look for
+     * 
+     * @return The index of the duck with the id, or -(insertion point + 1) if
+     *         there is none
+     */
+    private static int indexOf(Duck[] snapshot, int from, int id) {
+        int low = from;
+        int high = snapshot.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = snapshot[middle].getId();
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
         }
+        return -(low + 1);
     }
 
     /**
      * {@inheritDoc}
      */
     public Duck getDuckByName(String name) {
-        synchronized (ducks) {
-            Duck[] duckArr = getDucksArray(name);
-            for (Duck duck : duckArr) {
-                if (duck.getName().equalsIgnoreCase(name)) {
-                    return duck;
+        Integer id = nameIndex.idOf(name);
+        return id == null ? null : ducks.get(id);
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck createDuck(Duck duck) throws IOException {
+        long start = System.nanoTime();
+        try {
+            long waiting = System.nanoTime();
+            writeLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                // We create a new duck object because the id field is immutable
+                // and we need to assign the next unique id
+                // Modified the constructor to handle duck accessories # Travis 2/15
+                Duck foundDuck = getDuckByName(duck.getName());
+                if (foundDuck != null) {
+                    return null;
                 }
+
+                Duck newDuck = new Duck(nextId(), duck.getName(), duck.getQuantity(), duck.getCustomPrice(), duck.getSize(),
+                        duck.getColor(), duck.getOutfit());
+                adopt(newDuck);
+                ducks.put(newDuck.getId(), newDuck);
+                nameIndex.put(newDuck.getId(), newDuck.getName());
+                publish();
+                persistPut(newDuck); // may throw an IOException
+                return newDuck;
+            } finally {
+                writeLock.unlock();
             }
-            return null;
+        } finally {
+            storeMetrics.operation("create", start);
         }
     }
 
@@ -190,21 +544,56 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      ** {@inheritDoc}
      */
     @Override
-    public Duck createDuck(Duck duck) throws IOException {
-        synchronized (ducks) {
-            // We create a new duck object because the id field is immutable
-            // and we need to assign the next unique id
-            // Modified the constructor to handle duck accessories # Travis 2/15
-            Duck foundDuck = getDuckByName(duck.getName());
-            if (foundDuck != null) {
-                return null;
+    public Duck updateDuck(Duck duck) throws IOException {
+        long start = System.nanoTime();
+        try {
+            long waiting = System.nanoTime();
+            writeLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                if (!ducks.containsKey(duck.getId()))
+                    return null; // duck does not exist
+
+                adopt(duck);
+                // Holds for carts carry over, and stock changes racing with the
+                // update move on to the new duck
+                duck.replace(ducks.get(duck.getId()));
+                ducks.put(duck.getId(), duck);
+                nameIndex.put(duck.getId(), duck.getName());
+                publish();
+                persistPut(duck); // may throw an IOException
+                return duck;
+            } finally {
+                writeLock.unlock();
             }
+        } finally {
+            storeMetrics.operation("update", start);
+        }
+    }
 
-            Duck newDuck = new Duck(nextId(), duck.getName(), duck.getQuantity(), duck.getPrice(), duck.getSize(),
-                    duck.getColor(), duck.getOutfit());
-            ducks.put(newDuck.getId(), newDuck);
-            save(); // may throw an IOException
-            return newDuck;
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public boolean deleteDuck(int id) throws IOException {
+        long start = System.nanoTime();
+        try {
+            long waiting = System.nanoTime();
+            writeLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                if (ducks.containsKey(id)) {
+                    ducks.remove(id).retire();
+                    nameIndex.remove(id);
+                    publish();
+                    return persistDelete(id);
+                } else
+                    return false;
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            storeMetrics.operation("delete", start);
         }
     }
 
@@ -212,14 +601,70 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      ** {@inheritDoc}
      */
     @Override
-    public Duck updateDuck(Duck duck) throws IOException {
-        synchronized (ducks) {
-            if (!ducks.containsKey(duck.getId()))
-                return null; // duck does not exist
+    public boolean reserveStock(Map<Integer, Integer> items) throws IOException {
+        return reserveStock(items, Map.of());
+    }
 
-            ducks.put(duck.getId(), duck);
-            save(); // may throw an IOException
-            return duck;
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public boolean reserveStock(Map<Integer, Integer> items, Map<Integer, Integer> held) throws IOException {
+        long start = System.nanoTime();
+        try {
+            // Each line is taken with a compare-and-set on its own duck, so checkouts
+            // of unrelated ducks never wait on each other
+            List<Duck> taken = new ArrayList<>(items.size());
+            for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                int quantity = item.getValue();
+                int fromHeld = Math.min(quantity, held.getOrDefault(item.getKey(), 0));
+                Duck duck = quantity <= 0 ? null
+                        : applyToCurrent(item.getKey(), current -> current.takeQuantity(quantity, fromHeld));
+                if (duck == null) {
+                    // Put back the lines that were already taken
+                    returnQuantities(taken, items, held);
+                    return false;
+                }
+                taken.add(duck);
+            }
+            generation.incrementAndGet();
+
+            long waiting = System.nanoTime();
+            writeLock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                try {
+                    persistPutAll(taken); // may throw an IOException
+                } catch (IOException ioe) {
+                    // Nothing was persisted, so put the stock back as well
+                    returnQuantities(taken, items, held);
+                    throw ioe;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            return true;
+        } finally {
+            storeMetrics.operation("reserve", start);
+        }
+    }
+
+    /**
+     * Adds the quantities of the given lines back to their {@linkplain Duck
+     * ducks}
+     * 
+     * @param taken The {@link Duck ducks} whose stock was taken
+     * @param items Map of {@link Duck duck} id to the quantity that was taken
+     * @param held  Map of {@link Duck duck} id to the quantity that was held
+     */
+    private void returnQuantities(List<Duck> taken, Map<Integer, Integer> items, Map<Integer, Integer> held) {
+        for (Duck duck : taken) {
+            int quantity = items.get(duck.getId());
+            int toHeld = Math.min(quantity, held.getOrDefault(duck.getId(), 0));
+            applyToCurrent(duck.getId(), current -> current.returnQuantity(quantity, toHeld));
+        }
+        if (!taken.isEmpty()) {
+            generation.incrementAndGet();
         }
     }
 
@@ -227,13 +672,77 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      ** {@inheritDoc}
      */
     @Override
-    public boolean deleteDuck(int id) throws IOException {
-        synchronized (ducks) {
-            if (ducks.containsKey(id)) {
-                ducks.remove(id);
-                return save();
-            } else
-                return false;
+    public void releaseStock(Map<Integer, Integer> items) throws IOException {
+        long start = System.nanoTime();
+        try {
+            List<Duck> returned = new ArrayList<>(items.size());
+            for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                int quantity = item.getValue();
+                Duck duck = applyToCurrent(item.getKey(), current -> current.returnQuantity(quantity));
+                if (duck != null) {
+                    returned.add(duck);
+                }
+            }
+            if (!returned.isEmpty()) {
+                generation.incrementAndGet();
+                long waiting = System.nanoTime();
+                writeLock.lock();
+                try {
+                    storeMetrics.locked(waiting);
+                    persistPutAll(returned); // may throw an IOException
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        } finally {
+            storeMetrics.operation("release", start);
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public boolean holdStock(int id, int quantity) {
+        return quantity > 0 && applyToCurrent(id, duck -> duck.holdQuantity(quantity)) != null;
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public void releaseHold(int id, int quantity) {
+        applyToCurrent(id, duck -> duck.releaseHeld(quantity));
+    }
+
+    /**
+     * Applies a stock change to the {@linkplain Duck duck} with the given id
+     * <br>
+     * Updates and deletes {@linkplain Duck#retire() retire} the duck they
+     * replace, so a change that lands on a retired duck is tried again on the
+     * duck now in the map instead of being lost
+     * 
+     * @param id     The id of the duck
+     * @param change The change, false if there was not enough stock or the duck
+     *               is retired
+     * 
+     * @return The duck the change was applied to, or null if there is no such
+     *         duck or it did not have enough stock
+     */
+    private Duck applyToCurrent(int id, Predicate<Duck> change) {
+        while (true) {
+            Duck duck = ducks.get(id);
+            if (duck == null) {
+                return null;
+            }
+            if (change.test(duck)) {
+                return duck;
+            }
+            if (!duck.isRetired()) {
+                return null;
+            }
+            // Retired but still in the map: its replacement is being put in
+            Thread.onSpinWait();
         }
     }
 }
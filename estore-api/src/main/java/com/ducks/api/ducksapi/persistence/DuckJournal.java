@@ -0,0 +1,271 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.ducks.api.ducksapi.model.Duck;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Append-only log of {@linkplain Duck duck} mutations that sits in front of a
+ * JSON snapshot file
+ * <br>
+ * Each mutation is written as one JSON line instead of rewriting the whole
+ * snapshot. The log is replayed on top of the snapshot when the snapshot is
+ * loaded, and is emptied again once the owner has compacted it into a new
+ * snapshot
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class DuckJournal implements Closeable {
+    private static final byte NEWLINE = '\n';
+
+    private final Path path; // Location of the log file
+    private final ObjectMapper objectMapper; // Converts entries to and from JSON
+    private final int syncEvery; // Number of appends grouped into one fsync
+    private final int compactThreshold; // Number of entries before compaction is due
+    private FileChannel channel; // Open channel to the log file
+    private int unsynced; // Appends written since the last fsync
+    private int entries; // Entries in the log since the last reset
+
+    /**
+     * Represents a single mutation recorded in the log
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static class Entry {
+        static final String PUT = "PUT";
+        static final String PUT_ALL = "PUT_ALL";
+        static final String DELETE = "DELETE";
+
+        @JsonProperty("op")
+        final String op;
+
+        @JsonProperty("id")
+        final int id;
+
+        @JsonProperty("duck")
+        final Duck duck;
+
+        @JsonProperty("ducks")
+        final List<Duck> ducks;
+
+        /**
+         * Creates a journal entry
+         *
+         * @param op    One of {@link #PUT}, {@link #PUT_ALL} or {@link #DELETE}
+         * @param id    The id of the affected duck, unused for {@link #PUT_ALL}
+         * @param duck  The new state of the duck for {@link #PUT}
+         * @param ducks The new state of every duck for {@link #PUT_ALL}
+         */
+        @JsonCreator
+        Entry(@JsonProperty("op") String op, @JsonProperty("id") int id, @JsonProperty("duck") Duck duck,
+                @JsonProperty("ducks") List<Duck> ducks) {
+            this.op = op;
+            this.id = id;
+            this.duck = duck;
+            this.ducks = ducks;
+        }
+    }
+
+    /**
+     * Opens (or creates) a journal file
+     *
+     * @param filename         The file the log is appended to
+     * @param objectMapper     Provides JSON Object to/from Java Object
+     *                         serialization and deserialization
+     * @param syncEvery        How many appends are grouped into one fsync, 1
+     *                         forces every append to disk
+     * @param compactThreshold How many entries may accumulate before
+     *                         {@link #needsCompaction()} reports true
+     *
+     * @throws IOException when the file cannot be opened
+     */
+    public DuckJournal(String filename, ObjectMapper objectMapper, int syncEvery, int compactThreshold)
+            throws IOException {
+        this.path = Paths.get(filename);
+        this.objectMapper = objectMapper;
+        this.syncEvery = Math.max(1, syncEvery);
+        this.compactThreshold = Math.max(1, compactThreshold);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+    }
+
+    /**
+     * Records that a {@linkplain Duck duck} was created or updated
+     *
+     * @param duck The new state of the duck
+     *
+     * @throws IOException when the log cannot be written to
+     */
+    public void appendPut(Duck duck) throws IOException {
+        append(new Entry(Entry.PUT, duck.getId(), duck, null));
+    }
+
+    /**
+     * Records that several {@linkplain Duck ducks} were updated together
+     * <br>
+     * The ducks are written as one line and forced to disk right away, so after
+     * a crash either all of them are replayed or none are
+     *
+     * @param ducks The new state of the ducks
+     *
+     * @throws IOException when the log cannot be written to
+     */
+    public void appendPutAll(List<Duck> ducks) throws IOException {
+        append(new Entry(Entry.PUT_ALL, 0, null, ducks));
+        sync();
+    }
+
+    /**
+     * Records that a {@linkplain Duck duck} was deleted
+     *
+     * @param id The id of the deleted duck
+     *
+     * @throws IOException when the log cannot be written to
+     */
+    public void appendDelete(int id) throws IOException {
+        append(new Entry(Entry.DELETE, id, null, null));
+    }
+
+    /**
+     * Writes an entry as a single line, forcing the log to disk once enough
+     * appends have been grouped together
+     *
+     * @param entry The entry to write
+     *
+     * @throws IOException when the log cannot be written to
+     */
+    private void append(Entry entry) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(entry);
+        byte[] line = Arrays.copyOf(json, json.length + 1);
+        line[json.length] = NEWLINE;
+
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        ++entries;
+        if (++unsynced >= syncEvery) {
+            sync();
+        }
+    }
+
+    /**
+     * Forces any appends that have not been synced yet to disk
+     *
+     * @throws IOException when the log cannot be forced
+     */
+    public void sync() throws IOException {
+        if (unsynced > 0) {
+            channel.force(false);
+            unsynced = 0;
+        }
+    }
+
+    /**
+     * Applies every entry in the log on top of the given map
+     * <br>
+     * A partially written last line (e.g. from a crash mid-append) is discarded
+     * and cut off the file so that new appends start on a clean line
+     *
+     * @param ducks The map loaded from the snapshot, keyed by duck id
+     *
+     * @return The number of entries that were applied
+     *
+     * @throws IOException when the log cannot be read
+     */
+    public int replay(Map<Integer, Duck> ducks) throws IOException {
+        byte[] data = Files.readAllBytes(path);
+        int applied = 0;
+        int start = 0;
+        int validLength = 0;
+
+        while (start < data.length) {
+            int end = start;
+            while (end < data.length && data[end] != NEWLINE) {
+                ++end;
+            }
+            // A line without its newline was never completely written
+            if (end == data.length) {
+                break;
+            }
+
+            if (end > start) {
+                Entry entry;
+                try {
+                    entry = objectMapper.readValue(data, start, end - start, Entry.class);
+                } catch (JsonProcessingException ex) {
+                    break;
+                }
+                if (Entry.DELETE.equals(entry.op)) {
+                    ducks.remove(entry.id);
+                } else if (Entry.PUT_ALL.equals(entry.op)) {
+                    for (Duck duck : entry.ducks) {
+                        ducks.put(duck.getId(), duck);
+                    }
+                } else {
+                    ducks.put(entry.id, entry.duck);
+                }
+                ++applied;
+            }
+            start = end + 1;
+            validLength = start;
+        }
+
+        if (validLength < data.length) {
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+        entries = applied;
+        return applied;
+    }
+
+    /**
+     * @return true once enough entries have accumulated that the owner should
+     *         write a new snapshot and {@link #reset()} the log
+     */
+    public boolean needsCompaction() {
+        return entries >= compactThreshold;
+    }
+
+    /**
+     * Empties the log; called after its entries have been folded into a
+     * snapshot
+     *
+     * @throws IOException when the log cannot be truncated
+     */
+    public void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(false);
+        unsynced = 0;
+        entries = 0;
+    }
+
+    /**
+     * Syncs and closes the log
+     *
+     * @throws IOException when the log cannot be forced or closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            sync();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.ducks.api.ducksapi.model.Duck;
+
+/**
+ * In-memory trigram index over {@linkplain Duck duck} names that answers
+ * case-insensitive substring searches without scanning every duck
+ * <br>
+ * Every lowercased name is split into its overlapping three character grams,
+ * and each gram keeps a sorted list of the ids whose name contains it. A query
+ * only has to look at the ids shared by all of its grams, and each of those is
+ * then checked against the full name to rule out false positives. Queries
+ * shorter than a gram fall back to a scan of the names
+ * <br>
+ * It also maps each whole name to its id, so exact name lookups (used to keep
+ * names unique) take constant time
+ * <br>
+ * The index is updated incrementally and is safe to search while it is being
+ * updated
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class DuckNameIndex {
+    static final int GRAM_LENGTH = 3; // Number of characters in a gram
+    private static final int[] NO_IDS = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock(); // Lets searches run together
+    private final Map<Integer, String> names = new HashMap<>(); // Normalized name of every indexed id
+    private final Map<String, Integer> idsByName = new HashMap<>(); // Id of every normalized name
+    private final Map<Long, Postings> grams = new HashMap<>(); // Ids containing each gram
+    private final Postings allIds = new Postings(); // Every indexed id, used by the fallback scan
+
+    /**
+     * A growable, sorted list of ids
+     */
+    static final class Postings {
+        private int[] ids = new int[4]; // Ids in ascending order, valid up to size
+        private int size; // Number of ids in the list
+
+        /**
+         * Adds an id, keeping the list sorted. Ids usually arrive in increasing
+         * order, so this is normally an append
+         *
+         * @param id The id to add
+         */
+        void add(int id) {
+            int index = size == 0 || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            ++size;
+        }
+
+        /**
+         * Removes an id if it is in the list
+         *
+         * @param id The id to remove
+         */
+        void remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+                --size;
+            }
+        }
+
+        /**
+         * @param id The id to look for
+         *
+         * @return true if the id is in the list
+         */
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        /**
+         * @return The number of ids in the list
+         */
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Brings a name or query into the form the index compares on
+     *
+     * @param text The text to normalize
+     *
+     * @return The lowercased text
+     */
+    public static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Packs the gram starting at the given index into a single key
+     *
+     * @param text  Normalized text
+     * @param start Index of the first character of the gram
+     *
+     * @return The key of the gram
+     */
+    private static long gramAt(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    /**
+     * Collects the distinct grams of a normalized text
+     *
+     * @param text Normalized text
+     *
+     * @return The keys of the grams in the order they first appear
+     */
+    private static Set<Long> gramsOf(String text) {
+        Set<Long> keys = new LinkedHashSet<>();
+        for (int start = 0; start + GRAM_LENGTH <= text.length(); ++start) {
+            keys.add(gramAt(text, start));
+        }
+        return keys;
+    }
+
+    /**
+     * Indexes a name under an id, replacing whatever name the id had before
+     *
+     * @param id   The id of the {@linkplain Duck duck}
+     * @param name The name of the {@linkplain Duck duck}
+     */
+    public void put(int id, String name) {
+        String normalized = normalize(name);
+        lock.writeLock().lock();
+        try {
+            String previous = names.put(id, normalized);
+            if (normalized.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            idsByName.putIfAbsent(normalized, id);
+            for (long key : gramsOf(normalized)) {
+                grams.computeIfAbsent(key, k -> new Postings()).add(id);
+            }
+            allIds.add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an id from the index
+     *
+     * @param id The id of the {@linkplain Duck duck}
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            String previous = names.remove(id);
+            if (previous != null) {
+                unindex(id, previous);
+                allIds.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an id from the postings of every gram of its old name and from the
+     * name lookup. Must be called while holding the write lock
+     *
+     * @param id   The id to remove
+     * @param name The normalized name the id was indexed under
+     */
+    private void unindex(int id, String name) {
+        for (long key : gramsOf(name)) {
+            Postings postings = grams.get(key);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.size() == 0) {
+                    grams.remove(key);
+                }
+            }
+        }
+        if (idsByName.remove(name, id)) {
+            // A file edited by hand may hold the same name twice, so hand the
+            // name over to any other duck that still has it
+            Postings candidates = name.length() < GRAM_LENGTH ? allIds : grams.get(gramAt(name, 0));
+            for (int c = 0; candidates != null && c < candidates.size(); ++c) {
+                int other = candidates.ids[c];
+                if (other != id && name.equals(names.get(other))) {
+                    idsByName.put(name, other);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the id of the {@linkplain Duck duck} with the given name, ignoring
+     * case
+     *
+     * @param name The name to look up
+     *
+     * @return The id, or null if no duck has that name
+     */
+    public Integer idOf(String name) {
+        String normalized = normalize(name);
+        lock.readLock().lock();
+        try {
+            return idsByName.get(normalized);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the ids whose name contains the given text, ignoring case
+     *
+     * @param text   The text to look for
+     * @param offset Number of matches to skip
+     * @param limit  Maximum number of matches to return
+     *
+     * @return The matching ids in ascending order
+     */
+    public int[] search(String text, int offset, int limit) {
+        String query = normalize(text);
+        lock.readLock().lock();
+        try {
+            if (query.length() < GRAM_LENGTH) {
+                return collect(allIds, new Postings[0], query, offset, limit);
+            }
+
+            Set<Long> keys = gramsOf(query);
+            Postings[] lists = new Postings[keys.size()];
+            int i = 0;
+            for (long key : keys) {
+                Postings postings = grams.get(key);
+                if (postings == null) {
+                    return NO_IDS; // No name contains this gram
+                }
+                lists[i++] = postings;
+            }
+            // Walk the rarest gram and probe the others
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+            return collect(lists[0], Arrays.copyOfRange(lists, 1, lists.length), query, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walks the candidate ids in order and keeps those that appear in every
+     * other list and whose name really contains the query. Must be called while
+     * holding the read lock
+     *
+     * @param candidates The ids to walk
+     * @param others     Lists every match must also appear in
+     * @param query      The normalized query
+     * @param offset     Number of matches to skip
+     * @param limit      Maximum number of matches to return
+     *
+     * @return The matching ids in ascending order
+     */
+    private int[] collect(Postings candidates, Postings[] others, String query, int offset, int limit) {
+        int[] found = new int[Math.min(limit, candidates.size())];
+        int count = 0;
+        int skipped = 0;
+        for (int c = 0; c < candidates.size() && count < found.length; ++c) {
+            int id = candidates.ids[c];
+            if (!inAll(others, id) || !names.get(id).contains(query)) {
+                continue;
+            }
+            if (skipped < offset) {
+                ++skipped;
+            } else {
+                found[count++] = id;
+            }
+        }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
+    /**
+     * @param lists The lists to check
+     * @param id    The id to look for
+     *
+     * @return true if every list contains the id
+     */
+    private static boolean inAll(Postings[] lists, int id) {
+        for (Postings list : lists) {
+            if (!list.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of indexed ids
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ducks.api.ducksapi.persistence;
+
+import com.ducks.api.ducksapi.model.Account;
+
+/**
+ * Defines how {@linkplain Account account} passwords are turned into stored
+ * hashes and checked against them
+ * <br>
+ * Implementations are expected to be deliberately slow, so callers should run
+ * them through the {@link CredentialService} rather than on request threads
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public interface PasswordHasher {
+    /**
+     * Hashes a password with a fresh random salt
+     *
+     * @param password The password in plaintext
+     *
+     * @return The encoded hash, including everything needed to verify it later
+     */
+    String hash(String password);
+
+    /**
+     * Checks a password against a hash produced by {@link #hash(String)}
+     *
+     * @param password The password in plaintext
+     * @param encoded  The stored hash
+     *
+     * @return true if the password matches, false if it does not or the hash
+     *         cannot be read
+     */
+    boolean verify(String password, String encoded);
+
+    /**
+     * @param encoded The stored hash
+     *
+     * @return true if the hash was made with different settings than this hasher
+     *         uses now, and should be replaced the next time the password is
+     *         known
+     */
+    boolean needsRehash(String encoded);
+}
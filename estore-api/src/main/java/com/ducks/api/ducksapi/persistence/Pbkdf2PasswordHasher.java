@@ -0,0 +1,118 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hashes passwords with PBKDF2-HMAC-SHA256
+ * <br>
+ * Hashes are encoded as {@code pbkdf2-sha256$<iterations>$<salt>$<hash>} with
+ * the salt and hash in Base64, so the cost can be raised later without breaking
+ * the hashes that are already stored
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Component
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+    static final String ALGORITHM = "pbkdf2-sha256"; // Prefix of every encoded hash
+    private static final String KEY_FACTORY = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations; // Cost of new hashes
+    private final SecureRandom random = new SecureRandom(); // Source of salts
+
+    /**
+     * Creates a hasher
+     *
+     * @param iterations The number of PBKDF2 iterations for new hashes; each
+     *                   verification costs about as much as one hash
+     */
+    public Pbkdf2PasswordHasher(@Value("${accounts.password.iterations:310000}") int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("iterations must be at least 1");
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * @return The number of iterations used for new hashes
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = derive(password, salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return ALGORITHM + "$" + iterations + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(hash);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean verify(String password, String encoded) {
+        if (password == null || encoded == null) {
+            return false;
+        }
+        String[] parts = encoded.split("\\$");
+        if (parts.length != 4 || !ALGORITHM.equals(parts[0])) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            // Compare in constant time so the response time does not leak how much
+            // of the hash matched
+            return storedIterations > 0 && MessageDigest.isEqual(expected, derive(password, salt, storedIterations));
+        } catch (IllegalArgumentException ex) {
+            return false; // Not a number or not Base64
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean needsRehash(String encoded) {
+        return encoded == null || !encoded.startsWith(ALGORITHM + "$" + iterations + "$");
+    }
+
+    /**
+     * Runs PBKDF2 over a password
+     *
+     * @param password   The password in plaintext
+     * @param salt       The salt
+     * @param iterations The number of iterations
+     *
+     * @return The derived key
+     */
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(KEY_FACTORY).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException ex) {
+            // Ships with every standard JDK since Java 8
+            throw new IllegalStateException(KEY_FACTORY + " is not available", ex);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
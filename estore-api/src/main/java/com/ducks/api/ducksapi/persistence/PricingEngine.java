@@ -0,0 +1,214 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.Price;
+import com.ducks.api.ducksapi.model.PriceTable;
+import com.ducks.api.ducksapi.model.PricingRule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Keeps the {@linkplain PricingRule pricing rules} in a JSON file and the
+ * {@linkplain PriceTable compiled table} every {@linkplain Duck duck} is
+ * priced from up to date
+ * <br>
+ * The table is compiled when the rules are loaded or replaced, and again
+ * whenever a timed rule starts or ends, on a background thread scheduled for
+ * that moment. Prices never look at the rules themselves
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Component
+public class PricingEngine {
+    private static final Logger LOG = Logger.getLogger(PricingEngine.class.getName());
+
+    private final String filename; // Filename to read from and write to
+    private final ObjectMapper objectMapper; // Provides conversion between PricingRule
+                                             // objects and JSON text format written
+                                             // to the file
+    private final LongSupplier clock; // The time in epoch millis
+    private final ScheduledExecutorService compiler; // Recompiles when timed rules start or end
+    private final ReentrantLock lock = new ReentrantLock(); // Guards the rules and the pending recompile
+    private PricingRule[] rules; // Every rule, active or not, in the order they apply
+    private ScheduledFuture<?> nextCompile; // The pending recompile, null if none
+
+    /**
+     * Creates a pricing engine and publishes the table compiled from the rules
+     * in the file
+     *
+     * @param filename     Filename to read from and write to
+     * @param objectMapper Provides JSON Object to/from Java Object serialization
+     *                     and deserialization
+     *
+     * @throws IOException when file cannot be accessed or read from
+     */
+    @Autowired
+    public PricingEngine(@Value("${pricing.rules.file:data/pricing_rules.json}") String filename,
+            ObjectMapper objectMapper) throws IOException {
+        this(filename, objectMapper, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a pricing engine that reads the time from the given clock
+     *
+     * @param filename     Filename to read from and write to
+     * @param objectMapper Provides JSON Object to/from Java Object serialization
+     *                     and deserialization
+     * @param clock        The time in epoch millis
+     *
+     * @throws IOException when file cannot be accessed or read from
+     */
+    PricingEngine(String filename, ObjectMapper objectMapper, LongSupplier clock) throws IOException {
+        this.filename = filename;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.compiler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pricing-compiler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        load();
+    }
+
+    /**
+     * Loads the rules from the file and compiles them
+     *
+     * @throws IOException when file cannot be accessed or read from
+     */
+    private void load() throws IOException {
+        lock.lock();
+        try {
+            PricingRule[] loaded = objectMapper.readValue(new File(filename), PricingRule[].class);
+            rules = loaded != null ? Arrays.stream(loaded).filter(Objects::nonNull).toArray(PricingRule[]::new)
+                    : new PricingRule[0];
+            compile();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Compiles the rules active right now, publishes the table and schedules the
+     * next compile for when a timed rule starts or ends
+     *
+     * @return The table
+     */
+    PriceTable compile() {
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            PriceTable table = PriceTable.compile(Arrays.asList(rules), now);
+            Price.setTable(table);
+
+            if (nextCompile != null) {
+                nextCompile.cancel(false);
+                nextCompile = null;
+            }
+            if (table.getValidUntil() != Long.MAX_VALUE && !compiler.isShutdown()) {
+                nextCompile = compiler.schedule(this::compileOnSchedule, table.getValidUntil() - now,
+                        TimeUnit.MILLISECONDS);
+            }
+            LOG.log(Level.INFO, "Compiled {0} pricing rules into table {1}",
+                    new Object[] { rules.length, table.getVersion() });
+            return table;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs a scheduled compile, logging rather than losing any failure
+     * <br>
+     * Does nothing once the engine is closed: a compile that was already
+     * running when it closed would otherwise publish its table over the
+     * standard one, or over that of the engine replacing it
+     */
+    private void compileOnSchedule() {
+        lock.lock();
+        try {
+            if (!compiler.isShutdown()) {
+                compile();
+            }
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "Could not compile pricing rules", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves every rule, active or not
+     *
+     * @return A copy of the rules in the order they apply
+     */
+    public PricingRule[] getRules() {
+        lock.lock();
+        try {
+            return rules.clone();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces every rule, saves them and publishes the newly compiled table
+     *
+     * @param rules The rules in the order they apply
+     *
+     * @return The table compiled from the rules
+     *
+     * @throws IOException when file cannot be accessed or written to
+     */
+    public PriceTable setRules(PricingRule[] rules) throws IOException {
+        lock.lock();
+        try {
+            PricingRule[] replacement = rules.clone();
+            objectMapper.writeValue(new File(filename), replacement);
+            this.rules = replacement;
+            return compile();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The table prices are currently read from
+     */
+    public PriceTable getTable() {
+        return Price.getTable();
+    }
+
+    /**
+     * Stops recompiling and goes back to the standard prices when the
+     * application shuts down
+     */
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            compiler.shutdownNow();
+            nextCompile = null;
+            Price.setTable(PriceTable.standard());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
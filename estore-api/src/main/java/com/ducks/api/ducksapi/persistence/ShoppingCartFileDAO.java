@@ -2,101 +2,503 @@ package com.ducks.api.ducksapi.persistence;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+/**
+ * Keeps the {@linkplain ShoppingCart shopping carts} in JSON files, split into
+ * shards by customer id
+ * <br>
+ * Every shard has its own lock and its own file, so saving carts of customers
+ * in different shards happens in parallel, and a save only writes the carts of
+ * one shard. With one shard the file is {@code carts.file} itself; otherwise
+ * shard {@code i} is kept in {@code <carts.file>.i}
+ * <br>
+ * The first time there is more than one shard, {@code carts.file} is split
+ * into the shard files, the number of shards is written to
+ * {@code <carts.file>.shards} and {@code carts.file} is renamed to
+ * {@code <carts.file>.unsharded}, so that it is never read again. As a cart's
+ * shard depends on the number of shards, starting with a different number
+ * than the one written is refused rather than losing the carts in the other
+ * files
+ * <br>
+ * Only the {@code carts.cache.capacity} most recently used carts are kept in
+ * memory. The files are streamed in at startup, the least recently used carts
+ * making room for the next ones, and a shard that no longer has all of its
+ * carts in memory is saved by streaming its file through, so memory does not
+ * grow with the number of customers. Which customers have a cart is always
+ * known, in a bit set per shard, so asking for a cart that does not exist
+ * never reads a file. The bit set only covers ids below
+ * {@value #DENSE_IDS}; the ids of the carts beyond, which come from the
+ * request and not from the account ids handed out, go into a hash set so that
+ * one large id cannot make a shard allocate a bit for every id below it
+ * <br>
+ * A cart that is not in memory is read back by scanning the file of its shard
+ * up to the cart, so a miss costs up to a read of the whole shard file. More
+ * shards make each file, and so each miss, smaller
+ */
 @Component
 public class ShoppingCartFileDAO implements ShoppingCartDAO {
-    Map<Integer, ShoppingCart> carts; // Provides a local cache of the shopping cart objects
-                                      // so that we don't need to read from the file
-                                      // each time
+    static final int DENSE_IDS = 1 << 20; // Customer ids kept in the bit sets, 128 KB a shard at most
+
+    private final Shard[] shards; // The carts of every shard, by customer id modulo their number
     private ObjectMapper objectMapper; // Provides conversion between Duck
                                        // objects and JSON text format written
                                        // to the file
     private String filename; // Filename to read from and write to
+    private final File layoutFile; // Holds the number of shards the carts are split into
+    private final StoreMetrics storeMetrics = new StoreMetrics("carts"); // Operation, file and lock wait timings
 
     /**
-     * Creates a ShoppingCart File Data Access Object
-     * 
+     * Visits the carts stored in a file
+     */
+    @FunctionalInterface
+    private interface CartVisitor {
+        /**
+         * @param cart A stored cart
+         *
+         * @return false to stop visiting
+         *
+         * @throws IOException when a file cannot be accessed
+         */
+        boolean visit(ShoppingCart cart) throws IOException;
+    }
+
+    /**
+     * The carts of one shard and the file they are saved to. Every field is
+     * guarded by {@code lock}
+     */
+    private static final class Shard {
+        private final File file; // Where the carts of the shard are saved
+        private final ReentrantLock lock = new ReentrantLock(); // Guards the shard and its file
+        private final Map<Integer, ShoppingCart> carts; // The carts in memory, least recently used first
+        private final BitSet ids = new BitSet(); // Customer id / number of shards of every cart below DENSE_IDS
+        private final Set<Integer> sparseIds = new HashSet<>(); // Negative ids and ids from DENSE_IDS up
+        private boolean complete = true; // Whether every cart of the shard is in memory
+
+        private Shard(File file, int capacity) {
+            this.file = file;
+            this.carts = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, ShoppingCart> eldest) {
+                    // Carts are saved as they change, so the eldest can go as is
+                    if (size() > capacity) {
+                        complete = false;
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    /**
+     * Creates a ShoppingCart File Data Access Object that keeps every cart in
+     * one file
+     *
      * @param filename     Filename to read from and write to
      * @param objectMapper Provides JSON Object to/from Java Object serialization
      *                     and deserialization
-     * 
+     *
      * @throws IOException when file cannot be accessed or read from
      */
-    public ShoppingCartFileDAO(@Value("${carts.file}") String filename, ObjectMapper objectMapper) throws IOException {
+    public ShoppingCartFileDAO(String filename, ObjectMapper objectMapper) throws IOException {
+        this(filename, objectMapper, 1);
+    }
+
+    /**
+     * Creates a ShoppingCart File Data Access Object that keeps every cart in
+     * memory
+     *
+     * @param filename     Filename to read from and write to
+     * @param objectMapper Provides JSON Object to/from Java Object serialization
+     *                     and deserialization
+     * @param shards       The number of shards, each saved to its own file
+     *
+     * @throws IOException              when file cannot be accessed or read from
+     * @throws IllegalArgumentException if there is not at least one shard
+     */
+    public ShoppingCartFileDAO(String filename, ObjectMapper objectMapper, int shards)
+            throws IOException, IllegalArgumentException {
+        this(filename, objectMapper, shards, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a ShoppingCart File Data Access Object
+     *
+     * @param filename     Filename to read from and write to
+     * @param objectMapper Provides JSON Object to/from Java Object serialization
+     *                     and deserialization
+     * @param shards       The number of shards, each saved to its own file
+     * @param capacity     The number of carts kept in memory, spread evenly over
+     *                     the shards
+     *
+     * @throws IOException              when file cannot be accessed or read from
+     * @throws IllegalArgumentException if there is not at least one shard or
+     *                                  room for at least one cart
+     */
+    @Autowired
+    public ShoppingCartFileDAO(@Value("${carts.file}") String filename, ObjectMapper objectMapper,
+            @Value("${carts.shards:1}") int shards, @Value("${carts.cache.capacity:100000}") int capacity)
+            throws IOException, IllegalArgumentException {
+        if (shards < 1) {
+            throw new IllegalArgumentException("There must be at least one cart shard");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The cart cache must have room for at least one cart");
+        }
         this.filename = filename;
         this.objectMapper = objectMapper;
-        load(); // load the shopping carts from the file
+        this.layoutFile = new File(filename + ".shards");
+        this.shards = new Shard[shards];
+        int shardCapacity = (int) ((capacity + (long) shards - 1) / shards);
+        for (int shard = 0; shard < shards; ++shard) {
+            this.shards[shard] = new Shard(new File(shards == 1 ? filename : filename + "." + shard),
+                    shardCapacity);
+        }
+        checkLayout();
+        load(); // load the shopping carts from the files
+        storeMetrics.gauge(this, ShoppingCartFileDAO::getCount);
     }
 
     /**
-     * Saves the {@linkplain ShoppingCart carts} from the map into the file as an
-     * array of
-     * JSON objects
-     * 
+     * @param customerId The customer id of a cart
+     *
+     * @return The shard the cart belongs to
+     */
+    private Shard shardOf(int customerId) {
+        return shards[Math.floorMod(customerId, shards.length)];
+    }
+
+    /**
+     * Checks whether a customer has a cart, in memory or not. Must be called
+     * while holding the lock of the shard
+     *
+     * @param shard      The shard of the customer
+     * @param customerId The customer id
+     *
+     * @return true if the customer has a cart
+     */
+    private boolean exists(Shard shard, int customerId) {
+        return isDense(customerId) ? shard.ids.get(customerId / shards.length) : shard.sparseIds.contains(customerId);
+    }
+
+    /**
+     * Records whether a customer has a cart. Must be called while holding the
+     * lock of the shard
+     *
+     * @param shard      The shard of the customer
+     * @param customerId The customer id
+     * @param exists     Whether the customer has a cart
+     */
+    private void setExists(Shard shard, int customerId, boolean exists) {
+        if (isDense(customerId)) {
+            shard.ids.set(customerId / shards.length, exists);
+        } else if (exists) {
+            shard.sparseIds.add(customerId);
+        } else {
+            shard.sparseIds.remove(customerId);
+        }
+    }
+
+    /**
+     * @param customerId A customer id
+     *
+     * @return true if the id is kept in the bit set of its shard
+     */
+    private static boolean isDense(int customerId) {
+        return customerId >= 0 && customerId < DENSE_IDS;
+    }
+
+    /**
+     * Makes sure the carts are split into as many shard files as there are
+     * shards, splitting the one cart file the first time there is more than one
+     *
+     * @throws IOException              when a file cannot be accessed
+     * @throws IllegalArgumentException if the carts are split into a different
+     *                                  number of shards
+     */
+    private void checkLayout() throws IOException, IllegalArgumentException {
+        if (layoutFile.exists()) {
+            int split = Integer.parseInt(Files.readString(layoutFile.toPath()).trim());
+            if (split != shards.length) {
+                throw new IllegalArgumentException("There are " + shards.length + " cart shards, but the carts in "
+                        + filename + " are split into " + split + "; set carts.shards back to " + split);
+            }
+        } else if (shards.length > 1) {
+            split();
+        }
+    }
+
+    /**
+     * Splits the one cart file into the shard files, streaming the carts
+     * through, then records the number of shards and renames the cart file
+     * <br>
+     * While the cart file is there, every shard file is written again from it,
+     * replacing any left from an earlier split: the cart file holds every cart,
+     * for instance after the shards were merged back into it to change their
+     * number. Without a cart file, shards that already have a file keep it.
+     * Every file is written to a temporary file first, so a split that stops
+     * part way is done again by the next start
+     *
+     * @throws IOException when a file cannot be accessed
+     */
+    private void split() throws IOException {
+        File cartFile = new File(filename);
+        JsonGenerator[] generators = new JsonGenerator[shards.length]; // Null for shards whose file is kept
+        try {
+            for (int shard = 0; shard < shards.length; ++shard) {
+                if (cartFile.exists() || !shards[shard].file.exists()) {
+                    generators[shard] = objectMapper.getFactory()
+                            .createGenerator(new File(shards[shard].file.getPath() + ".tmp"), JsonEncoding.UTF8);
+                    generators[shard].writeStartArray();
+                }
+            }
+            if (cartFile.exists()) {
+                visitFile(cartFile, cart -> {
+                    JsonGenerator generator = generators[Math.floorMod(cart.getCustomerId(), shards.length)];
+                    if (generator != null) {
+                        objectMapper.writeValue(generator, cart);
+                    }
+                    return true;
+                });
+            }
+            for (JsonGenerator generator : generators) {
+                if (generator != null) {
+                    generator.writeEndArray();
+                }
+            }
+        } finally {
+            for (JsonGenerator generator : generators) {
+                if (generator != null) {
+                    generator.close();
+                }
+            }
+        }
+
+        for (int shard = 0; shard < shards.length; ++shard) {
+            if (generators[shard] != null) {
+                Files.move(new File(shards[shard].file.getPath() + ".tmp").toPath(), shards[shard].file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        Files.writeString(layoutFile.toPath(), Integer.toString(shards.length));
+        if (cartFile.exists()) {
+            Files.move(cartFile.toPath(), new File(filename + ".unsharded").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Saves the {@linkplain ShoppingCart carts} of a shard into its file as an
+     * array of JSON objects. Must be called while holding the lock of the shard
+     * <br>
+     * A shard with every cart in memory is written from memory. Otherwise its
+     * file is read one cart at a time and written again with the carts in
+     * memory in place of the stored ones, leaving out deleted carts
+     *
+     * @param shard The shard to save
+     *
      * @return true if the {@link ShoppingCart carts} were written successfully
-     * 
+     *
      * @throws IOException when file cannot be accessed or written to
      */
-    private boolean save() throws IOException {
-        ShoppingCart[] cartArray = getShoppingCarts();
+    private boolean save(Shard shard) throws IOException {
+        long start = System.nanoTime();
+        if (shard.complete) {
+            ShoppingCart[] cartArray = shard.carts.values().toArray(new ShoppingCart[0]);
+            Arrays.sort(cartArray, Comparator.comparingInt(ShoppingCart::getCustomerId));
+
+            // Serializes the Java Objects to JSON objects into the file
+            // writeValue will thrown an IOException if there is an issue
+            // with the file or reading from the file
+            objectMapper.writeValue(shard.file, cartArray);
+            storeMetrics.saved(shard.file.length(), start);
+            return true;
+        }
 
-        // Serializes the Java Objects to JSON objects into the file
-        // writeValue will thrown an IOException if there is an issue
-        // with the file or reading from the file
-        objectMapper.writeValue(new File(filename), cartArray);
+        File temp = new File(shard.file.getPath() + ".tmp");
+        Set<Integer> written = new HashSet<>();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(temp, JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            visitStored(shard, stored -> {
+                int customerId = stored.getCustomerId();
+                if (exists(shard, customerId) && written.add(customerId)) {
+                    ShoppingCart resident = shard.carts.get(customerId);
+                    objectMapper.writeValue(generator, resident != null ? resident : stored);
+                }
+                return true;
+            });
+            // Carts created since the file was last written
+            for (ShoppingCart cart : shard.carts.values()) {
+                if (!written.contains(cart.getCustomerId())) {
+                    objectMapper.writeValue(generator, cart);
+                }
+            }
+            generator.writeEndArray();
+        }
+        Files.move(temp.toPath(), shard.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        storeMetrics.saved(shard.file.length(), start);
         return true;
     }
 
     /**
-     * Loads {@linkplain ShoppingCart carts} from the JSON file into the map
-     * <br>
-     * 
-     * @return true if the file was read successfully
-     * 
+     * Reads the carts of a shard from its file one at a time. Must be called
+     * while holding the lock of the shard
+     *
+     * @param shard   The shard to read
+     * @param visitor Called with every cart of the shard, in file order
+     *
      * @throws IOException when file cannot be accessed or read from
      */
-    private boolean load() throws IOException {
-        carts = new TreeMap<>();
+    private void visitStored(Shard shard, CartVisitor visitor) throws IOException {
+        visitFile(shard.file, cart -> shardOf(cart.getCustomerId()) != shard || visitor.visit(cart));
+    }
 
-        // Deserializes the JSON objects from the file into an array of carts
-        // readValue will throw an IOException if there's an issue with the file
-        // or reading from the file
-        ShoppingCart[] cartArray = objectMapper.readValue(new File(filename), ShoppingCart[].class);
+    /**
+     * Reads the carts of a file one at a time
+     *
+     * @param file    The file to read
+     * @param visitor Called with every cart of the file, in file order
+     *
+     * @throws IOException when file cannot be accessed or read from
+     */
+    private void visitFile(File file, CartVisitor visitor) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected an array of carts in " + file);
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                if (!visitor.visit(objectMapper.readValue(parser, ShoppingCart.class))) {
+                    return;
+                }
+            }
+        }
+    }
 
-        // Add each cart to the tree map and keep track of the greatest id
-        for (ShoppingCart cart : cartArray) {
-            carts.put(cart.getCustomerId(), cart);
+    /**
+     * Finds a cart in memory, or reads it back from the file of its shard. Must
+     * be called while holding the lock of the shard
+     * <br>
+     * A cart that is not in memory costs a read of the shard file up to the
+     * cart
+     *
+     * @param shard      The shard of the customer
+     * @param customerId The customer id
+     *
+     * @return The cart, or null if the customer has none
+     *
+     * @throws IOException when file cannot be accessed or read from
+     */
+    private ShoppingCart find(Shard shard, int customerId) throws IOException {
+        ShoppingCart cart = shard.carts.get(customerId);
+        if (cart != null || shard.complete || !exists(shard, customerId)) {
+            return cart;
+        }
+        ShoppingCart[] found = new ShoppingCart[1];
+        visitStored(shard, stored -> {
+            if (stored.getCustomerId() != customerId) {
+                return true;
+            }
+            found[0] = stored;
+            return false;
+        });
+        if (found[0] != null) {
+            shard.carts.put(customerId, found[0]);
         }
+        return found[0];
+    }
 
+    /**
+     * Loads {@linkplain ShoppingCart carts} from the JSON files into the shards,
+     * streaming them in one at a time. Once a shard's cache is full, every cart
+     * read pushes out the least recently read one, so only as many carts as the
+     * cache has room for are ever held
+     *
+     * @return true if the files were read successfully
+     *
+     * @throws IOException when file cannot be accessed or read from
+     */
+    private boolean load() throws IOException {
+        long start = System.nanoTime();
+        for (Shard shard : shards) {
+            visitStored(shard, cart -> add(shard, cart));
+        }
+        storeMetrics.loaded(start);
         return true;
     }
 
     /**
-     * Generates an array of {@linkplain ShoppingCart carts} from the tree map for
-     * each
-     * {@linkplain ShoppingCart carts} in the tree map
-     * 
-     * @return The array of {@link ShoppingCart carts}, may be empty
+     * Adds a loaded cart to its shard
+     *
+     * @param shard The shard of the cart
+     * @param cart  The cart
+     *
+     * @return true, to go on loading
      */
-    private ShoppingCart[] getShoppingCartArray() {
-        ArrayList<ShoppingCart> cartArrayList = new ArrayList<>();
+    private boolean add(Shard shard, ShoppingCart cart) {
+        shard.lock.lock();
+        try {
+            shard.carts.put(cart.getCustomerId(), cart);
+            setExists(shard, cart.getCustomerId(), true);
+            return true;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
 
-        for (ShoppingCart cart : carts.values()) {
-            cartArrayList.add(cart);
+    /**
+     * @return The number of carts, in memory or not
+     */
+    int getCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                count += shard.ids.cardinality() + shard.sparseIds.size();
+            } finally {
+                shard.lock.unlock();
+            }
         }
+        return count;
+    }
 
-        ShoppingCart[] cartArray = new ShoppingCart[cartArrayList.size()];
-        cartArrayList.toArray(cartArray);
-        return cartArray;
+    /**
+     * @return The number of carts in memory
+     */
+    int getResidentCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                count += shard.carts.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return count;
     }
 
     /**
@@ -104,15 +506,27 @@ public class ShoppingCartFileDAO implements ShoppingCartDAO {
      */
     @Override
     public ShoppingCart createShoppingCart(ShoppingCart cart) throws IOException {
-        synchronized (carts) {
-            // Checks if a customer already has a shopping cart
-            if (carts.get(cart.getCustomerId()) != null) {
-                return null;
-            }
+        long start = System.nanoTime();
+        try {
+            Shard shard = shardOf(cart.getCustomerId());
+            long waiting = System.nanoTime();
+            shard.lock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                // Checks if a customer already has a shopping cart
+                if (exists(shard, cart.getCustomerId())) {
+                    return null;
+                }
 
-            carts.put(cart.getCustomerId(), cart);
-            save();
-            return cart;
+                shard.carts.put(cart.getCustomerId(), cart);
+                setExists(shard, cart.getCustomerId(), true);
+                save(shard);
+                return cart;
+            } finally {
+                shard.lock.unlock();
+            }
+        } finally {
+            storeMetrics.operation("create", start);
         }
     }
 
@@ -121,13 +535,25 @@ public class ShoppingCartFileDAO implements ShoppingCartDAO {
      */
     @Override
     public boolean deleteShoppingCart(int id) throws IOException {
-        synchronized (carts) {
-            if (carts.get(id) == null) {
-                return false;
-            }
+        long start = System.nanoTime();
+        try {
+            Shard shard = shardOf(id);
+            long waiting = System.nanoTime();
+            shard.lock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                if (!exists(shard, id)) {
+                    return false;
+                }
 
-            carts.remove(id);
-            return save();
+                shard.carts.remove(id);
+                setExists(shard, id, false);
+                return save(shard);
+            } finally {
+                shard.lock.unlock();
+            }
+        } finally {
+            storeMetrics.operation("delete", start);
         }
     }
 
@@ -135,19 +561,57 @@ public class ShoppingCartFileDAO implements ShoppingCartDAO {
      * {@inheritDoc}
      */
     @Override
-    public ShoppingCart getShoppingCart(int id) {
-        synchronized (carts) {
-            return carts.get(id); // NULL If not found
+    public ShoppingCart getShoppingCart(int id) throws IOException {
+        long start = System.nanoTime();
+        try {
+            Shard shard = shardOf(id);
+            long waiting = System.nanoTime();
+            shard.lock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                return find(shard, id); // NULL If not found
+            } finally {
+                shard.lock.unlock();
+            }
+        } finally {
+            storeMetrics.operation("get", start);
         }
     }
 
     /**
      * {@inheritDoc}
+     * <br>
+     * The carts are in customer id order. Every shard is read on its own, so a
+     * save running at the same time may be seen in one shard and not another.
+     * Shards without every cart in memory are read from their file
      */
     @Override
-    public ShoppingCart[] getShoppingCarts() {
-        synchronized (carts) {
-            return getShoppingCartArray();
+    public ShoppingCart[] getShoppingCarts() throws IOException {
+        long start = System.nanoTime();
+        try {
+            List<ShoppingCart> cartArrayList = new ArrayList<>();
+            for (Shard shard : shards) {
+                long waiting = System.nanoTime();
+                shard.lock.lock();
+                try {
+                    storeMetrics.locked(waiting);
+                    if (shard.complete) {
+                        cartArrayList.addAll(shard.carts.values());
+                    } else {
+                        visitStored(shard, stored -> {
+                            ShoppingCart resident = shard.carts.get(stored.getCustomerId());
+                            cartArrayList.add(resident != null ? resident : stored);
+                            return true;
+                        });
+                    }
+                } finally {
+                    shard.lock.unlock();
+                }
+            }
+            cartArrayList.sort(Comparator.comparingInt(ShoppingCart::getCustomerId));
+            return cartArrayList.toArray(new ShoppingCart[0]);
+        } finally {
+            storeMetrics.operation("getAll", start);
         }
     }
 
@@ -156,16 +620,26 @@ public class ShoppingCartFileDAO implements ShoppingCartDAO {
      */
     @Override
     public ShoppingCart updateShoppingCart(ShoppingCart cart) throws IOException {
-        synchronized (carts) {
-            if (carts.get(cart.getCustomerId()) == null) {
-                return null;
-            }
+        long start = System.nanoTime();
+        try {
+            Shard shard = shardOf(cart.getCustomerId());
+            long waiting = System.nanoTime();
+            shard.lock.lock();
+            try {
+                storeMetrics.locked(waiting);
+                if (!exists(shard, cart.getCustomerId())) {
+                    return null;
+                }
 
-            carts.put(cart.getCustomerId(), cart);
-            save();
-            return cart;
+                shard.carts.put(cart.getCustomerId(), cart);
+                save(shard);
+                return cart;
+            } finally {
+                shard.lock.unlock();
+            }
+        } finally {
+            storeMetrics.operation("update", start);
         }
-
     }
 
 }
@@ -0,0 +1,375 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ducks.api.ducksapi.model.CartItems;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.ShoppingCart;
+
+/**
+ * Holds the {@linkplain Duck ducks} in every {@linkplain ShoppingCart shopping
+ * cart} for a while, so that a customer who checks out soon after filling their
+ * cart finds the ducks still there
+ * <br>
+ * Every change to a cart moves its holds to match, as far as there is stock
+ * for them, and pushes back when they expire. Expired holds are let go of by a
+ * hashed timer wheel: each hold is put in the bucket of the tick it expires
+ * in, and a background thread only looks at the buckets whose ticks have
+ * passed, however many holds there are
+ * <br>
+ * Holds only live in memory, and are off unless {@code carts.holds.enabled} is
+ * set
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Component
+public class StockHolds {
+    private static final Logger LOG = Logger.getLogger(StockHolds.class.getName());
+
+    private final DuckDAO duckDao; // Where the ducks are held
+    private final boolean enabled; // Whether carts hold ducks at all
+    private final long ttlMillis; // How long a hold lasts after the cart last changed
+    private final long tickMillis; // How far apart the buckets of the wheel are
+    private final LongSupplier clock; // The time in epoch millis
+    private final Map<Integer, Hold> holds = new ConcurrentHashMap<>(); // Holds by customer id
+    private final List<List<Expiry>> wheel; // Expiries by tick, modulo its size; guarded by itself
+    private long reapedTick; // The last tick reaped; guarded by wheel
+    private ScheduledExecutorService reaper; // Reaps every tick, null if reaped by hand
+
+    /**
+     * The ducks held for one cart, never changed once created
+     */
+    private static final class Hold {
+        private final CartItems items; // Quantity held of every duck
+        private final long expiresAt; // When the hold ends, in epoch millis
+
+        private Hold(CartItems items, long expiresAt) {
+            this.items = items;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * An entry of the timer wheel. A hold that was pushed back leaves its old
+     * entries behind, which are dropped when their tick comes
+     */
+    private static final class Expiry {
+        private final int customerId; // The cart that may expire
+        private final long expiresAt; // When it expired as of this entry
+
+        private Expiry(int customerId, long expiresAt) {
+            this.customerId = customerId;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Creates the holds of every cart, reaping them on a background thread
+     *
+     * @param duckDao    The {@link DuckDAO Duck Data Access Object} the ducks
+     *                   are held in
+     * @param enabled    Whether carts hold ducks at all
+     * @param ttlSeconds How long a hold lasts after the cart last changed
+     * @param tickMillis How often expired holds are let go of
+     */
+    @Autowired
+    public StockHolds(@Qualifier("duckFileDAO") DuckDAO duckDao,
+            @Value("${carts.holds.enabled:false}") boolean enabled,
+            @Value("${carts.holds.ttl-seconds:900}") long ttlSeconds,
+            @Value("${carts.holds.tick-millis:1000}") long tickMillis) {
+        this(duckDao, enabled, TimeUnit.SECONDS.toMillis(ttlSeconds), tickMillis, System::currentTimeMillis);
+        if (enabled) {
+            reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cart-hold-reaper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reaper.scheduleAtFixedRate(this::reapOnSchedule, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Creates the holds of every cart, reading the time from the given clock
+     * and only reaping when {@link #reap(long)} is called
+     *
+     * @param duckDao    The {@link DuckDAO Duck Data Access Object} the ducks
+     *                   are held in
+     * @param enabled    Whether carts hold ducks at all
+     * @param ttlMillis  How long a hold lasts after the cart last changed
+     * @param tickMillis How far apart the buckets of the wheel are
+     * @param clock      The time in epoch millis
+     *
+     * @throws IllegalArgumentException if the time to live or tick is not
+     *                                  positive
+     */
+    StockHolds(DuckDAO duckDao, boolean enabled, long ttlMillis, long tickMillis, LongSupplier clock)
+            throws IllegalArgumentException {
+        if (ttlMillis <= 0 || tickMillis <= 0) {
+            throw new IllegalArgumentException("Hold time to live and tick must be greater than 0");
+        }
+        this.duckDao = duckDao;
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        // One turn of the wheel covers a whole time to live, so most buckets
+        // only hold entries for their next tick
+        int slots = (int) Math.min(1 << 16, ttlMillis / tickMillis + 2);
+        this.wheel = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; ++slot) {
+            wheel.add(new ArrayList<>());
+        }
+        this.reapedTick = clock.getAsLong() / tickMillis;
+    }
+
+    /**
+     * @return Holds that never hold anything, for controllers created without
+     *         them
+     */
+    public static StockHolds disabled() {
+        return new StockHolds(null, false, 1, 1, () -> 0);
+    }
+
+    /**
+     * @return true if carts hold ducks
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Moves the holds of a cart to match its items and restarts their time to
+     * live
+     * <br>
+     * Only the difference is held or let go of. A line whose quantity went up
+     * keeps its old hold if there is not enough stock for the new quantity.
+     * Items that are not duck ids are never held
+     *
+     * @param cart The cart as it was just saved
+     */
+    public void update(ShoppingCart cart) {
+        if (!enabled) {
+            return;
+        }
+        CartItems wanted = cart.getCartItems();
+        long expiresAt = clock.getAsLong() + ttlMillis;
+        Hold hold = holds.compute(cart.getCustomerId(), (customerId, previous) -> {
+            CartItems items = new CartItems(wanted.size());
+            if (previous != null) {
+                // Let go of what is no longer wanted
+                CartItems before = previous.items;
+                for (int slot = before.nextSlot(-1); slot >= 0; slot = before.nextSlot(slot)) {
+                    int duckId = before.idAt(slot);
+                    int heldQuantity = before.quantityAt(slot);
+                    int wantedQuantity = wanted.getQuantity(duckId);
+                    if (wantedQuantity < heldQuantity) {
+                        duckDao.releaseHold(duckId, heldQuantity - wantedQuantity);
+                    }
+                    if (wantedQuantity > 0) {
+                        items.setQuantity(duckId, Math.min(wantedQuantity, heldQuantity));
+                    }
+                }
+            }
+            // Then hold what is newly wanted
+            for (int slot = wanted.nextSlot(-1); slot >= 0; slot = wanted.nextSlot(slot)) {
+                int duckId = wanted.idAt(slot);
+                int wantedQuantity = wanted.quantityAt(slot);
+                int heldQuantity = items.getQuantity(duckId);
+                if (wantedQuantity > heldQuantity && duckDao.holdStock(duckId, wantedQuantity - heldQuantity)) {
+                    items.setQuantity(duckId, wantedQuantity);
+                }
+            }
+            return items.isEmpty() ? null : new Hold(items, expiresAt);
+        });
+        if (hold != null) {
+            schedule(cart.getCustomerId(), expiresAt);
+        }
+    }
+
+    /**
+     * @param customerId The customer id of a cart
+     *
+     * @return A copy of what is held for the cart, empty if nothing is
+     */
+    public CartItems peek(int customerId) {
+        Hold hold = holds.get(customerId);
+        return hold == null ? new CartItems() : new CartItems(hold.items);
+    }
+
+    /**
+     * Takes the holds of a cart over, so that they can be turned into a sale.
+     * The ducks stay held until the caller takes them out of stock or gives
+     * them back with {@link #restore(int, CartItems)}
+     *
+     * @param customerId The customer id of the cart
+     *
+     * @return What was held for the cart, empty if nothing was
+     */
+    public CartItems take(int customerId) {
+        Hold hold = enabled ? holds.remove(customerId) : null;
+        return hold == null ? new CartItems() : hold.items;
+    }
+
+    /**
+     * Gives back holds that were {@linkplain #take(int) taken} but not used,
+     * with a new time to live. If the cart has been given new holds since, the
+     * old ones are let go of instead
+     *
+     * @param customerId The customer id of the cart
+     * @param held       What was taken
+     */
+    public void restore(int customerId, CartItems held) {
+        if (held.isEmpty()) {
+            return;
+        }
+        long expiresAt = clock.getAsLong() + ttlMillis;
+        Hold hold = holds.compute(customerId, (id, current) -> {
+            if (current != null) {
+                release(held);
+                return current;
+            }
+            return new Hold(held, expiresAt);
+        });
+        if (hold.expiresAt == expiresAt) {
+            schedule(customerId, expiresAt);
+        }
+    }
+
+    /**
+     * Lets go of whatever part of a taken hold the order did not use, such as a
+     * line held for more ducks than were bought
+     *
+     * @param held  What was {@linkplain #take(int) taken}
+     * @param order Map of {@link Duck duck} id to the quantity bought
+     */
+    public void releaseUnused(CartItems held, Map<Integer, Integer> order) {
+        for (int slot = held.nextSlot(-1); slot >= 0; slot = held.nextSlot(slot)) {
+            int unused = held.quantityAt(slot) - order.getOrDefault(held.idAt(slot), 0);
+            if (unused > 0) {
+                duckDao.releaseHold(held.idAt(slot), unused);
+            }
+        }
+    }
+
+    /**
+     * Lets go of every hold of a cart, such as when it is deleted
+     *
+     * @param customerId The customer id of the cart
+     */
+    public void release(int customerId) {
+        Hold hold = enabled ? holds.remove(customerId) : null;
+        if (hold != null) {
+            release(hold.items);
+        }
+    }
+
+    /**
+     * @param items Quantity held of every duck, all of which is let go of
+     */
+    private void release(CartItems items) {
+        for (int slot = items.nextSlot(-1); slot >= 0; slot = items.nextSlot(slot)) {
+            duckDao.releaseHold(items.idAt(slot), items.quantityAt(slot));
+        }
+    }
+
+    /**
+     * Puts an expiry in the bucket of the first tick at or after it
+     *
+     * @param customerId The cart that may expire
+     * @param expiresAt  When it expires
+     */
+    private void schedule(int customerId, long expiresAt) {
+        long tick = (expiresAt + tickMillis - 1) / tickMillis;
+        synchronized (wheel) {
+            wheel.get((int) (tick % wheel.size())).add(new Expiry(customerId, expiresAt));
+        }
+    }
+
+    /**
+     * Lets go of every hold that has expired, visiting the buckets of the ticks
+     * passed since the last time
+     *
+     * @param now The time in epoch millis
+     *
+     * @return The number of carts whose holds expired
+     */
+    int reap(long now) {
+        List<Expiry> due = new ArrayList<>();
+        synchronized (wheel) {
+            long nowTick = now / tickMillis;
+            // After a full turn every bucket has been visited
+            long from = Math.max(reapedTick + 1, nowTick - wheel.size() + 1);
+            for (long tick = from; tick <= nowTick; ++tick) {
+                Iterator<Expiry> bucket = wheel.get((int) (tick % wheel.size())).iterator();
+                while (bucket.hasNext()) {
+                    Expiry expiry = bucket.next();
+                    if (expiry.expiresAt <= now) {
+                        bucket.remove();
+                        due.add(expiry);
+                    }
+                }
+            }
+            reapedTick = Math.max(reapedTick, nowTick);
+        }
+
+        int expired = 0;
+        for (Expiry expiry : due) {
+            boolean[] released = new boolean[1];
+            holds.computeIfPresent(expiry.customerId, (customerId, hold) -> {
+                if (hold.expiresAt > now) {
+                    return hold; // Pushed back since this entry was made
+                }
+                release(hold.items);
+                released[0] = true;
+                return null;
+            });
+            if (released[0]) {
+                ++expired;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Runs a scheduled reap, logging rather than losing any failure
+     */
+    private void reapOnSchedule() {
+        try {
+            int expired = reap(clock.getAsLong());
+            if (expired > 0) {
+                LOG.log(Level.FINE, "Released the holds of {0} carts", expired);
+            }
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "Could not release expired holds", e);
+        }
+    }
+
+    /**
+     * Stops reaping when the application shuts down. The holds go with the
+     * ducks they are in, which also only live in memory
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (reaper != null) {
+            reaper.shutdownNow();
+            reaper = null;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times the operations, file reads and writes and lock waits of a file based
+ * Data Access Object, and reports how many records it holds
+ * <br>
+ * Every meter is tagged with the name of the store. They are registered with
+ * Micrometer's global registry, which Spring Boot adds its own registry to, so
+ * they are exported by the actuator without the Data Access Objects having a
+ * registry injected, and record nothing when there is no Spring application
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class StoreMetrics {
+    static final String OPERATION = "estore.store.operation"; // Time of each public operation
+    static final String FILE = "estore.store.file"; // Time of each load and save of the file
+    static final String FILE_BYTES = "estore.store.file.bytes"; // Bytes written by each save
+    static final String LOCK_WAIT = "estore.store.lock.wait"; // Time spent waiting for the store's lock
+    static final String SIZE = "estore.store.size"; // Number of records held
+    static final String FLUSH = "estore.store.flush"; // Count and time of the batched writes
+    static final String FLUSH_MUTATIONS = "estore.store.flush.mutations"; // Mutations carried by those writes
+    static final String FLUSH_BATCH_MAX = "estore.store.flush.batch.max"; // Most mutations in one write
+
+    private final String store; // The store tag of every meter
+    private final MeterRegistry registry; // Where the meters are registered
+    private final Map<String, Timer> operations = new ConcurrentHashMap<>(); // Operation timers by name
+    private final Timer loads; // Time of each load
+    private final Timer saves; // Time of each save
+    private final DistributionSummary written; // Bytes of each save
+    private final Timer lockWait; // Time spent waiting for the lock
+
+    /**
+     * Creates the metrics of a store in the global registry
+     *
+     * @param store The name the meters are tagged with
+     */
+    public StoreMetrics(String store) {
+        this(store, Metrics.globalRegistry);
+    }
+
+    /**
+     * Creates the metrics of a store
+     *
+     * @param store    The name the meters are tagged with
+     * @param registry Where the meters are registered
+     */
+    StoreMetrics(String store, MeterRegistry registry) {
+        this.store = store;
+        this.registry = registry;
+        this.loads = Timer.builder(FILE).tag("store", store).tag("operation", "load")
+                .description("Time to read the file of a store").register(registry);
+        this.saves = Timer.builder(FILE).tag("store", store).tag("operation", "save")
+                .description("Time to write the file of a store").register(registry);
+        this.written = DistributionSummary.builder(FILE_BYTES).tag("store", store).baseUnit("bytes")
+                .description("Bytes written by each save of a store").register(registry);
+        this.lockWait = Timer.builder(LOCK_WAIT).tag("store", store)
+                .description("Time spent waiting to enter the lock of a store").register(registry);
+    }
+
+    /**
+     * Reports the number of records a store holds
+     * <br>
+     * The gauge only holds a weak reference to the owner. If a gauge with the
+     * same store is already registered, it is kept
+     *
+     * @param <T>   The type of the owner
+     * @param owner What the size is read from
+     * @param size  Reads the number of records from the owner
+     */
+    public <T> void gauge(T owner, ToDoubleFunction<T> size) {
+        Gauge.builder(SIZE, owner, size).tag("store", store).description("Number of records in a store")
+                .register(registry);
+    }
+
+    /**
+     * Reports the batched writes of a store
+     * <br>
+     * The meters only hold a weak reference to the statistics
+     *
+     * @param batches The running totals of the batched writes
+     */
+    public void batches(WriteBatchMetrics batches) {
+        FunctionTimer.builder(FLUSH, batches, WriteBatchMetrics::getFlushCount,
+                WriteBatchMetrics::getTotalFlushNanos, TimeUnit.NANOSECONDS).tag("store", store)
+                .description("Batched writes of a store and the time spent on them").register(registry);
+        FunctionCounter.builder(FLUSH_MUTATIONS, batches, WriteBatchMetrics::getMutationCount).tag("store", store)
+                .description("Mutations carried by the batched writes of a store").register(registry);
+        Gauge.builder(FLUSH_BATCH_MAX, batches, WriteBatchMetrics::getMaxBatchSize).tag("store", store)
+                .description("Most mutations carried by one batched write of a store").register(registry);
+    }
+
+    /**
+     * Records the time of a public operation
+     *
+     * @param operation  The name of the operation
+     * @param startNanos {@link System#nanoTime()} when the operation started
+     */
+    public void operation(String operation, long startNanos) {
+        Timer timer = operations.get(operation);
+        if (timer == null) {
+            timer = operations.computeIfAbsent(operation, name -> Timer.builder(OPERATION).tag("store", store)
+                    .tag("operation", name).description("Time of an operation of a store").register(registry));
+        }
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the time spent waiting for the lock of the store. Called first
+     * thing once the lock is held
+     *
+     * @param waitingSince {@link System#nanoTime()} before the lock was asked for
+     */
+    public void locked(long waitingSince) {
+        lockWait.record(System.nanoTime() - waitingSince, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a read of the file
+     *
+     * @param startNanos {@link System#nanoTime()} when the read started
+     */
+    public void loaded(long startNanos) {
+        loads.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a write of the file
+     *
+     * @param bytes      The number of bytes written
+     * @param startNanos {@link System#nanoTime()} when the write started
+     */
+    public void saved(long bytes, long startNanos) {
+        saves.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        written.record(bytes);
+    }
+}
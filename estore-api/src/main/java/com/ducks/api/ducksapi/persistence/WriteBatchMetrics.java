@@ -0,0 +1,90 @@
+package com.ducks.api.ducksapi.persistence;
+
+/**
+ * Keeps running totals about the batched writes of a file based Data Access
+ * Object: how many mutations each flush carried and how long each flush took
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class WriteBatchMetrics {
+    private long flushes; // Number of flushes written to the file
+    private long mutations; // Number of mutations carried by those flushes
+    private int lastBatchSize; // Mutations carried by the latest flush
+    private int maxBatchSize; // Most mutations carried by a single flush
+    private long totalFlushNanos; // Time spent writing the file
+    private long lastFlushNanos; // Time spent on the latest flush
+    private long maxFlushNanos; // Longest time spent on a single flush
+
+    /**
+     * Records a completed flush
+     *
+     * @param batchSize  The number of mutations written by the flush
+     * @param flushNanos How long the flush took in nanoseconds
+     */
+    public synchronized void record(int batchSize, long flushNanos) {
+        ++flushes;
+        mutations += batchSize;
+        lastBatchSize = batchSize;
+        maxBatchSize = Math.max(maxBatchSize, batchSize);
+        totalFlushNanos += flushNanos;
+        lastFlushNanos = flushNanos;
+        maxFlushNanos = Math.max(maxFlushNanos, flushNanos);
+    }
+
+    /**
+     * @return The number of flushes written so far
+     */
+    public synchronized long getFlushCount() {
+        return flushes;
+    }
+
+    /**
+     * @return The number of mutations written so far
+     */
+    public synchronized long getMutationCount() {
+        return mutations;
+    }
+
+    /**
+     * @return The number of mutations carried by the latest flush
+     */
+    public synchronized int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * @return The most mutations carried by a single flush
+     */
+    public synchronized int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @return The average number of mutations per flush, 0 if nothing has been
+     *         flushed yet
+     */
+    public synchronized double getAverageBatchSize() {
+        return flushes == 0 ? 0 : (double) mutations / flushes;
+    }
+
+    /**
+     * @return The total time spent flushing, in nanoseconds
+     */
+    public synchronized long getTotalFlushNanos() {
+        return totalFlushNanos;
+    }
+
+    /**
+     * @return The time the latest flush took, in nanoseconds
+     */
+    public synchronized long getLastFlushNanos() {
+        return lastFlushNanos;
+    }
+
+    /**
+     * @return The longest time a single flush took, in nanoseconds
+     */
+    public synchronized long getMaxFlushNanos() {
+        return maxFlushNanos;
+    }
+}
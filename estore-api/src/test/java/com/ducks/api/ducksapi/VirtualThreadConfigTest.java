@@ -0,0 +1,84 @@
+package com.ducks.api.ducksapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the Virtual Thread Config class
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Controller-tier")
+public class VirtualThreadConfigTest {
+
+    @Test
+    public void testVirtualThreadExecutor() throws Exception {
+        // Setup
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need Java 21");
+
+        // Invoke
+        ExecutorService executor = VirtualThreadConfig.newVirtualThreadExecutor();
+
+        // Analyze
+        assertNotNull(executor);
+        try {
+            Object virtual = executor
+                    .submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()))
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(true, virtual);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testNoVirtualThreadsBeforeJava21() {
+        // Setup
+        assumeTrue(Runtime.version().feature() < 21, "Virtual threads are available");
+
+        // Invoke
+        ExecutorService executor = VirtualThreadConfig.newVirtualThreadExecutor();
+
+        // Analyze
+        assertNull(executor);
+    }
+
+    @Test
+    public void testCustomize() {
+        // Setup
+        ProtocolHandler mockProtocolHandler = mock(ProtocolHandler.class);
+        ExecutorService mockExecutor = mock(ExecutorService.class);
+
+        // Invoke
+        VirtualThreadConfig.customize(mockProtocolHandler, mockExecutor);
+
+        // Analyze
+        verify(mockProtocolHandler).setExecutor(mockExecutor);
+    }
+
+    @Test
+    public void testCustomizeWithoutExecutor() {
+        // Setup
+        ProtocolHandler mockProtocolHandler = mock(ProtocolHandler.class);
+
+        // Invoke
+        VirtualThreadConfig.customize(mockProtocolHandler, null);
+
+        // Analyze
+        verify(mockProtocolHandler, never()).setExecutor(any(Executor.class));
+    }
+}
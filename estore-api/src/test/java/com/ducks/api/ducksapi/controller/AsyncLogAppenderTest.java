@@ -0,0 +1,147 @@
+package com.ducks.api.ducksapi.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the Async Log Appender class
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Controller-tier")
+public class AsyncLogAppenderTest {
+    Logger logger;
+    Handler handler;
+    List<LogRecord> published;
+    AsyncLogAppender appender;
+
+    /**
+     * Before each test, we will create an appender for 8 records, whose thread
+     * is not started, and a logger that keeps what it publishes
+     */
+    @BeforeEach
+    public void setupAsyncLogAppender() {
+        published = new CopyOnWriteArrayList<>();
+        handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                published.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        logger = Logger.getLogger(AsyncLogAppenderTest.class.getName());
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        appender = new AsyncLogAppender(8, 4);
+    }
+
+    @AfterEach
+    public void removeHandler() {
+        logger.removeHandler(handler);
+    }
+
+    @Test
+    public void testAppendAndDrain() {
+        // Invoke
+        boolean queued = appender.append(logger, Level.INFO, "GET /cart/{0}", new Object[] { 7 });
+        int waiting = appender.size();
+        int drained = appender.drain();
+
+        // Analyze
+        assertTrue(queued);
+        assertEquals(1, waiting);
+        assertEquals(1, drained);
+        assertEquals(0, appender.size());
+        assertEquals("GET /cart/{0}", published.get(0).getMessage());
+        assertArrayEquals(new Object[] { 7 }, published.get(0).getParameters());
+        assertEquals(logger.getName(), published.get(0).getSourceClassName());
+    }
+
+    @Test
+    public void testSampleThenDrop() {
+        // Setup
+        for (int i = 0; i < 6; ++i) {
+            appender.append(logger, Level.INFO, "GET /", null);
+        }
+
+        // Invoke
+        for (int i = 0; i < 9; ++i) {
+            appender.append(logger, Level.INFO, "GET /", null);
+        }
+
+        // Analyze
+        assertEquals(8, appender.size());
+        assertEquals(6, appender.getSampledOut());
+        assertEquals(1, appender.getDropped());
+        assertEquals(8, appender.drain());
+    }
+
+    @Test
+    public void testWarningsAreNeverLost() {
+        // Setup
+        for (int i = 0; i < 8; ++i) {
+            appender.append(logger, Level.SEVERE, "queued", null);
+        }
+
+        // Invoke
+        boolean logged = appender.append(logger, Level.SEVERE, "full", null);
+
+        // Analyze
+        assertTrue(logged);
+        assertEquals(1, published.size()); // Logged right away
+        assertEquals("full", published.get(0).getMessage());
+        assertEquals(0, appender.getDropped());
+        assertEquals(0, appender.getSampledOut());
+    }
+
+    @Test
+    public void testWrapsAroundTheRing() {
+        // Invoke
+        for (int i = 0; i < 20; ++i) {
+            appender.append(logger, Level.INFO, "GET /{0}", new Object[] { i });
+            appender.drain();
+        }
+
+        // Analyze
+        assertEquals(20, published.size());
+        assertEquals(19, published.get(19).getParameters()[0]);
+        assertEquals(0, appender.getDropped());
+    }
+
+    @Test
+    public void testThreadPublishes() {
+        // Setup
+        appender.start("test-log-appender");
+
+        // Invoke
+        for (int i = 0; i < 5; ++i) {
+            appender.append(logger, Level.INFO, "GET /", null);
+        }
+        boolean flushed = appender.flush(TimeUnit.SECONDS.toNanos(5));
+
+        // Analyze
+        assertTrue(flushed);
+        assertEquals(5, published.size());
+    }
+}
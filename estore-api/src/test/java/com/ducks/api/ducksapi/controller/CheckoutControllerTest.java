@@ -3,10 +3,15 @@ package com.ducks.api.ducksapi.controller;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -19,6 +24,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import com.ducks.api.ducksapi.model.CartItems;
 import com.ducks.api.ducksapi.model.Colors;
 import com.ducks.api.ducksapi.model.Duck;
 import com.ducks.api.ducksapi.model.DuckOutfit;
@@ -26,6 +32,7 @@ import com.ducks.api.ducksapi.model.ShoppingCart;
 import com.ducks.api.ducksapi.model.Size;
 import com.ducks.api.ducksapi.persistence.DuckDAO;
 import com.ducks.api.ducksapi.persistence.ShoppingCartDAO;
+import com.ducks.api.ducksapi.persistence.StockHolds;
 
 /**
  * Test the Checkout Controller class
@@ -68,6 +75,16 @@ public class CheckoutControllerTest {
         when(mockDuckDAO.getDuck(1)).thenReturn(duckOne);
         when(mockDuckDAO.getDuck(2)).thenReturn(duckTwo);
         when(mockDuckDAO.getDuck(3)).thenReturn(duckThree);
+        // Bulk lookups answer with whatever each single lookup is stubbed to
+        when(mockDuckDAO.getDucks(any(int[].class))).thenAnswer(invocation -> {
+            int[] ids = invocation.getArgument(0);
+            Duck[] ducks = new Duck[ids.length];
+            for (int i = 0; i < ids.length; ++i) {
+                ducks[i] = mockDuckDAO.getDuck(ids[i]);
+            }
+            return ducks;
+        });
+        when(mockDuckDAO.reserveStock(anyMap())).thenReturn(true);
     }
 
     @Test
@@ -76,10 +93,21 @@ public class CheckoutControllerTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(new ShoppingCart(0), response.getBody());
 
-        // Check inventory values
-        assertEquals(9, duckOne.getQuantity());
-        assertEquals(0, duckTwo.getQuantity());
-        assertEquals(2, duckThree.getQuantity());
+        // Check every line was reserved in a single call
+        verify(mockDuckDAO).reserveStock(Map.of(1, 1, 2, 2, 3, 3));
+        verify(mockCartDAO).updateShoppingCart(new ShoppingCart(0));
+    }
+
+    @Test
+    public void testCheckoutCartUpdateFails() throws IOException {
+        doThrow(new IOException()).when(mockCartDAO).updateShoppingCart(any(ShoppingCart.class));
+
+        ResponseEntity<ShoppingCart> response = checkoutController.checkout(0);
+
+        // The reserved stock is put back and the cart keeps its items
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        verify(mockDuckDAO).releaseStock(Map.of(1, 1, 2, 2, 3, 3));
+        assertEquals(3, mockCartDAO.getShoppingCart(0).getItems().size());
     }
 
     @Test
@@ -111,16 +139,18 @@ public class CheckoutControllerTest {
     }
 
     @Test
-    public void testCheckoutNullPointerException() throws IOException {
+    public void testCheckoutStockRanOut() throws IOException {
         ShoppingCart cart = mockCartDAO.getShoppingCart(0);
         CheckoutController spyController = spy(checkoutController);
 
+        // Validation passes, but the stock is gone by the time it is reserved
         doReturn(new HashMap<>()).when(spyController).getInvalidItems(cart);
-        when(mockDuckDAO.getDuck(3)).thenReturn(null);
+        when(mockDuckDAO.reserveStock(anyMap())).thenReturn(false);
 
         ResponseEntity<ShoppingCart> response = spyController.checkout(0);
 
-        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        verify(mockCartDAO, never()).updateShoppingCart(any(ShoppingCart.class));
     }
 
     @Test
@@ -205,4 +235,47 @@ public class CheckoutControllerTest {
         assertNull(actual.get("a"));
     }
 
+    @Test
+    public void testValidateLooksUpCartOnce() throws IOException {
+        doReturn(new Duck[] { duckOne, duckTwo, null }).when(mockDuckDAO).getDucks(new int[] { 1, 2, 3 });
+
+        ResponseEntity<ShoppingCart> response = checkoutController.validateCart(0);
+
+        assertEquals(new ShoppingCart(0, Map.of("1", 1, "2", 2)), response.getBody());
+        verify(mockDuckDAO).getDucks(new int[] { 1, 2, 3 });
+        verify(mockDuckDAO, never()).getDuck(anyInt());
+    }
+
+    @Test
+    public void testCheckoutConvertsHold() throws IOException {
+        StockHolds mockHolds = mock(StockHolds.class);
+        CheckoutController heldController = new CheckoutController(mockCartDAO, mockDuckDAO, mockHolds);
+        CartItems held = new CartItems(mockCartDAO.getShoppingCart(0).getCartItems());
+        when(mockHolds.peek(0)).thenReturn(new CartItems(held));
+        when(mockHolds.take(0)).thenReturn(held);
+        when(mockDuckDAO.reserveStock(anyMap(), anyMap())).thenReturn(true);
+
+        ResponseEntity<ShoppingCart> response = heldController.checkout(0);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(mockDuckDAO).reserveStock(held, held);
+        verify(mockDuckDAO, never()).getDucks(any(int[].class));
+        verify(mockHolds, never()).restore(anyInt(), any(CartItems.class));
+    }
+
+    @Test
+    public void testCheckoutRestoresHoldOnIOException() throws IOException {
+        StockHolds mockHolds = mock(StockHolds.class);
+        CheckoutController heldController = new CheckoutController(mockCartDAO, mockDuckDAO, mockHolds);
+        CartItems held = new CartItems(mockCartDAO.getShoppingCart(0).getCartItems());
+        when(mockHolds.peek(0)).thenReturn(new CartItems(held));
+        when(mockHolds.take(0)).thenReturn(held);
+        doThrow(new IOException()).when(mockDuckDAO).reserveStock(anyMap(), anyMap());
+
+        ResponseEntity<ShoppingCart> response = heldController.checkout(0);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        verify(mockHolds).restore(0, held);
+        verify(mockCartDAO, never()).updateShoppingCart(any(ShoppingCart.class));
+    }
 }
@@ -1,9 +1,14 @@
 package com.ducks.api.ducksapi.controller;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -12,7 +17,9 @@ import java.util.Random;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import com.ducks.api.ducksapi.model.Colors;
@@ -20,6 +27,8 @@ import com.ducks.api.ducksapi.model.Duck;
 import com.ducks.api.ducksapi.model.DuckOutfit;
 import com.ducks.api.ducksapi.model.Size;
 import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Test the Duck Controller class
@@ -30,6 +39,8 @@ import com.ducks.api.ducksapi.persistence.DuckDAO;
 public class CustomizeControllerTest {
     private static final Random RANDOM = new Random();
     private static int NEXT_ID = 0;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
     private CustomizeController duckController;
     private DuckDAO mockDuckDAO;
@@ -260,11 +271,64 @@ public class CustomizeControllerTest {
         when(mockDuckDAO.getDucks()).thenReturn(ducks);
 
         // Invoke
-        ResponseEntity<Duck[]> response = duckController.getDucks();
+        ResponseEntity<byte[]> response = duckController.getDucks(null);
 
         // Analyze
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(ducks, response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertNotNull(response.getHeaders().getETag());
+        assertArrayEquals(ducks, OBJECT_MAPPER.readValue(response.getBody(), Duck[].class));
+    }
+
+    @Test
+    public void testGetDucksCached() throws IOException {
+        // Setup
+        Duck[] ducks = new Duck[] { generateDuck() };
+        when(mockDuckDAO.getDucks()).thenReturn(ducks);
+        when(mockDuckDAO.getGeneration()).thenReturn(1L);
+
+        // Invoke
+        ResponseEntity<byte[]> first = duckController.getDucks(null);
+        ResponseEntity<byte[]> second = duckController.getDucks(null);
+
+        // Analyze
+        // The catalog did not change, so it is serialized only once
+        verify(mockDuckDAO, times(1)).getDucks();
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+    }
+
+    @Test
+    public void testGetDucksGenerationChanged() throws IOException {
+        // Setup
+        Duck[] before = new Duck[] { generateDuck() };
+        Duck[] after = new Duck[] { before[0], generateDuck() };
+        when(mockDuckDAO.getDucks()).thenReturn(before, after);
+        when(mockDuckDAO.getGeneration()).thenReturn(1L, 2L);
+
+        // Invoke
+        ResponseEntity<byte[]> first = duckController.getDucks(null);
+        ResponseEntity<byte[]> second = duckController.getDucks(first.getHeaders().getETag());
+
+        // Analyze
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertNotEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        assertArrayEquals(after, OBJECT_MAPPER.readValue(second.getBody(), Duck[].class));
+    }
+
+    @Test
+    public void testGetDucksNotModified() throws IOException {
+        // Setup
+        when(mockDuckDAO.getDucks()).thenReturn(new Duck[] { generateDuck() });
+        String eTag = duckController.getDucks(null).getHeaders().getETag();
+
+        // Invoke
+        ResponseEntity<byte[]> response = duckController.getDucks("\"stale\", " + eTag);
+
+        // Analyze
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(eTag, response.getHeaders().getFirst(HttpHeaders.ETAG));
+        assertNull(response.getBody());
     }
 
     @Test
@@ -273,7 +337,7 @@ public class CustomizeControllerTest {
         when(mockDuckDAO.getDucks()).thenReturn(null);
 
         // Invoke
-        ResponseEntity<Duck[]> response = duckController.getDucks();
+        ResponseEntity<byte[]> response = duckController.getDucks(null);
 
         // Analyze
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
@@ -286,7 +350,7 @@ public class CustomizeControllerTest {
         when(mockDuckDAO.getDucks()).thenReturn(new Duck[0]);
 
         // Invoke
-        ResponseEntity<Duck[]> response = duckController.getDucks();
+        ResponseEntity<byte[]> response = duckController.getDucks("*");
 
         // Analyze
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
@@ -300,7 +364,7 @@ public class CustomizeControllerTest {
         doThrow(new IOException()).when(mockDuckDAO).getDucks();
 
         // Invoke
-        ResponseEntity<Duck[]> response = duckController.getDucks();
+        ResponseEntity<byte[]> response = duckController.getDucks(null);
 
         // Analyze
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
@@ -0,0 +1,94 @@
+package com.ducks.api.ducksapi.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.ducks.api.ducksapi.model.PricingRule;
+import com.ducks.api.ducksapi.persistence.PricingEngine;
+
+/**
+ * Test the Pricing Controller class
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Controller-tier")
+public class PricingControllerTest {
+    private PricingController pricingController;
+    private PricingEngine mockPricingEngine;
+    private PricingRule[] rules;
+
+    /**
+     * Before each test, create a new PricingController object and inject
+     * a mock Pricing Engine
+     */
+    @BeforeEach
+    public void setupPricingController() {
+        mockPricingEngine = mock(PricingEngine.class);
+        pricingController = new PricingController(mockPricingEngine);
+        rules = new PricingRule[] { PricingRule.sku(99, 1.00, 0) };
+    }
+
+    @Test
+    public void testGetRules() {
+        // Setup
+        when(mockPricingEngine.getRules()).thenReturn(rules);
+
+        // Invoke
+        ResponseEntity<PricingRule[]> response = pricingController.getRules();
+
+        // Analyze
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(rules, response.getBody());
+    }
+
+    @Test
+    public void testSetRules() throws IOException {
+        // Setup
+        when(mockPricingEngine.getRules()).thenReturn(rules);
+
+        // Invoke
+        ResponseEntity<PricingRule[]> response = pricingController.setRules(rules);
+
+        // Analyze
+        verify(mockPricingEngine).setRules(rules);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals(rules, response.getBody());
+    }
+
+    @Test
+    public void testSetRulesBadRequest() throws IOException {
+        // Invoke
+        ResponseEntity<PricingRule[]> missing = pricingController.setRules(null);
+        ResponseEntity<PricingRule[]> nullRule = pricingController.setRules(new PricingRule[] { null });
+
+        // Analyze
+        assertEquals(HttpStatus.BAD_REQUEST, missing.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, nullRule.getStatusCode());
+        verify(mockPricingEngine, never()).setRules(null);
+    }
+
+    @Test
+    public void testSetRulesHandleException() throws IOException {
+        // Setup
+        doThrow(new IOException()).when(mockPricingEngine).setRules(rules);
+
+        // Invoke
+        ResponseEntity<PricingRule[]> response = pricingController.setRules(rules);
+
+        // Analyze
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+}
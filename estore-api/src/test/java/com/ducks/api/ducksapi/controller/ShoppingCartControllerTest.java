@@ -2,12 +2,17 @@ package com.ducks.api.ducksapi.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -15,8 +20,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.PricedCart;
 import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.ducks.api.ducksapi.model.Size;
+import com.ducks.api.ducksapi.persistence.DuckDAO;
 import com.ducks.api.ducksapi.persistence.ShoppingCartDAO;
+import com.ducks.api.ducksapi.persistence.StockHolds;
 
 /**
  * Handles the REST API requests for the Shopping Cart resource
@@ -31,6 +43,7 @@ import com.ducks.api.ducksapi.persistence.ShoppingCartDAO;
 @Tag("Controller-tier")
 public class ShoppingCartControllerTest {
     private ShoppingCartDAO mockCartDAO;
+    private DuckDAO mockDuckDAO;
     private ShoppingCartController cartController;
 
     /**
@@ -40,7 +53,8 @@ public class ShoppingCartControllerTest {
     @BeforeEach
     public void setupInventoryController() {
         mockCartDAO = mock(ShoppingCartDAO.class);
-        cartController = new ShoppingCartController(mockCartDAO);
+        mockDuckDAO = mock(DuckDAO.class);
+        cartController = new ShoppingCartController(mockCartDAO, mockDuckDAO);
     }
 
     @Test
@@ -296,4 +310,147 @@ public class ShoppingCartControllerTest {
         assertNull(response.getBody());
     }
 
+    @Test
+    public void testGetPricedShoppingCart() throws IOException {
+        // Setup
+        HashMap<String, Integer> items = new HashMap<>();
+        items.put("2", 3);
+        items.put("1", 2);
+        items.put("9", 1);
+        when(mockCartDAO.getShoppingCart(0)).thenReturn(new ShoppingCart(0, items));
+        when(mockDuckDAO.getDuck(1)).thenReturn(new Duck(1, "Wi-Fire", 10, 9.99, Size.SMALL, Colors.BLUE,
+                new DuckOutfit(0, 0, 0, 0, 0)));
+        when(mockDuckDAO.getDuck(2)).thenReturn(new Duck(2, "Ice Gladiator", 10, 0, Size.MEDIUM, Colors.RED,
+                new DuckOutfit(1, 0, 0, 0, 0)));
+
+        // Invoke
+        ResponseEntity<PricedCart> response = cartController.getPricedShoppingCart(0);
+
+        // Analyze
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        PricedCart priced = response.getBody();
+        assertEquals(2, priced.getLines().size());
+        assertEquals(1, priced.getLines().get(0).getDuckId());
+        assertEquals(19.98, priced.getLines().get(0).getLineTotal());
+        assertEquals(8.00, priced.getLines().get(1).getUnitPrice());
+        assertEquals(43.98, priced.getTotal());
+        assertEquals(5, priced.getQuantity());
+        assertEquals(List.of("9"), priced.getUnavailable());
+    }
+
+    @Test
+    public void testGetPricedShoppingCartIncremental() throws IOException {
+        // Setup
+        HashMap<String, Integer> items = new HashMap<>();
+        items.put("1", 2);
+        items.put("2", 1);
+        ShoppingCart cart = new ShoppingCart(0, items);
+        when(mockCartDAO.getShoppingCart(0)).thenReturn(cart);
+        when(mockDuckDAO.getGeneration()).thenReturn(1L);
+        when(mockDuckDAO.getDuck(1)).thenReturn(new Duck(1, "Wi-Fire", 10, 10.00, Size.SMALL, Colors.BLUE,
+                new DuckOutfit(0, 0, 0, 0, 0)));
+        when(mockDuckDAO.getDuck(2)).thenReturn(new Duck(2, "Ice Gladiator", 10, 5.00, Size.MEDIUM, Colors.RED,
+                new DuckOutfit(0, 0, 0, 0, 0)));
+        when(mockDuckDAO.getDuck(3)).thenReturn(new Duck(3, "Galactic Agent", 10, 1.25, Size.MEDIUM, Colors.RED,
+                new DuckOutfit(0, 0, 0, 0, 0)));
+        PricedCart first = cartController.getPricedShoppingCart(0).getBody();
+
+        // Invoke
+        PricedCart unchanged = cartController.getPricedShoppingCart(0).getBody();
+        HashMap<String, Integer> changed = new HashMap<>();
+        changed.put("1", 3);
+        changed.put("3", 4);
+        cart.setItems(changed);
+        PricedCart second = cartController.getPricedShoppingCart(0).getBody();
+
+        // Analyze
+        assertEquals(25.00, first.getTotal());
+        assertEquals(first, unchanged);
+        assertEquals(35.00, second.getTotal());
+        verify(mockDuckDAO, times(1)).getDuck(1);
+        verify(mockDuckDAO, times(1)).getDuck(2);
+        verify(mockDuckDAO, times(1)).getDuck(3);
+    }
+
+    @Test
+    public void testGetPricedShoppingCartEvicted() throws IOException {
+        // Setup
+        cartController = new ShoppingCartController(mockCartDAO, mockDuckDAO, StockHolds.disabled(), 1);
+        HashMap<String, Integer> items = new HashMap<>();
+        items.put("1", 2);
+        when(mockCartDAO.getShoppingCart(0)).thenReturn(new ShoppingCart(0, items));
+        when(mockCartDAO.getShoppingCart(1)).thenReturn(new ShoppingCart(1, items));
+        when(mockDuckDAO.getGeneration()).thenReturn(1L);
+        when(mockDuckDAO.getDuck(1)).thenReturn(new Duck(1, "Wi-Fire", 10, 10.00, Size.SMALL, Colors.BLUE,
+                new DuckOutfit(0, 0, 0, 0, 0)));
+        cartController.getPricedShoppingCart(0);
+        cartController.getPricedShoppingCart(0);
+
+        // Invoke
+        cartController.getPricedShoppingCart(1);
+        PricedCart priced = cartController.getPricedShoppingCart(0).getBody();
+
+        // Analyze
+        assertEquals(20.00, priced.getTotal());
+        verify(mockDuckDAO, times(3)).getDuck(1);
+    }
+
+    @Test
+    public void testCacheCapacityException() {
+        // Invoke & Analyze
+        assertThrows(IllegalArgumentException.class,
+                () -> new ShoppingCartController(mockCartDAO, mockDuckDAO, StockHolds.disabled(), 0));
+    }
+
+    @Test
+    public void testGetPricedShoppingCartPriceChanged() throws IOException {
+        // Setup
+        HashMap<String, Integer> items = new HashMap<>();
+        items.put("1", 2);
+        items.put("2", 1);
+        when(mockCartDAO.getShoppingCart(0)).thenReturn(new ShoppingCart(0, items));
+        when(mockDuckDAO.getGeneration()).thenReturn(1L, 2L);
+        Duck duck = new Duck(1, "Wi-Fire", 10, 10.00, Size.SMALL, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0));
+        when(mockDuckDAO.getDuck(1)).thenReturn(duck);
+        when(mockDuckDAO.getDuck(2)).thenReturn(new Duck(2, "Ice Gladiator", 10, 5.00, Size.MEDIUM, Colors.RED,
+                new DuckOutfit(0, 0, 0, 0, 0)), (Duck) null);
+        PricedCart first = cartController.getPricedShoppingCart(0).getBody();
+
+        // Invoke
+        duck.setPrice(7.50);
+        PricedCart second = cartController.getPricedShoppingCart(0).getBody();
+
+        // Analyze
+        assertEquals(25.00, first.getTotal());
+        assertEquals(15.00, second.getTotal());
+        assertEquals(List.of("2"), second.getUnavailable());
+    }
+
+    @Test
+    public void testGetPricedShoppingCartNotFound() throws IOException {
+        // Setup
+        when(mockCartDAO.getShoppingCart(0)).thenReturn(null);
+
+        // Invoke
+        ResponseEntity<PricedCart> response = cartController.getPricedShoppingCart(0);
+
+        // Analyze
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(mockDuckDAO, never()).getGeneration();
+    }
+
+    @Test
+    public void testGetPricedShoppingCartException() throws IOException {
+        // Setup
+        HashMap<String, Integer> items = new HashMap<>();
+        items.put("1", 2);
+        when(mockCartDAO.getShoppingCart(0)).thenReturn(new ShoppingCart(0, items));
+        doThrow(new IOException()).when(mockDuckDAO).getDuck(1);
+
+        // Invoke
+        ResponseEntity<PricedCart> response = cartController.getPricedShoppingCart(0);
+
+        // Analyze
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
 }
@@ -2,11 +2,20 @@ package com.ducks.api.ducksapi.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -16,6 +25,9 @@ import org.springframework.http.ResponseEntity;
 
 import com.ducks.api.ducksapi.model.Account;
 import com.ducks.api.ducksapi.persistence.AccountDAO;
+import com.ducks.api.ducksapi.persistence.CredentialService;
+import com.ducks.api.ducksapi.persistence.PasswordHasher;
+import com.ducks.api.ducksapi.persistence.Pbkdf2PasswordHasher;
 import com.ducks.api.ducksapi.model.UserAccount;
 
 /**
@@ -36,6 +48,7 @@ import com.ducks.api.ducksapi.model.UserAccount;
 public class UserControllerTest {
     private UserController userController;
     private AccountDAO mockAccountDAO;
+    private CredentialService credentials;
 
     /**
      * Before each test, create a new UserController object and inject
@@ -44,7 +57,8 @@ public class UserControllerTest {
     @BeforeEach
     public void setupUserController() {
         mockAccountDAO = mock(AccountDAO.class);
-        userController = new UserController(mockAccountDAO);
+        credentials = new CredentialService(new Pbkdf2PasswordHasher(1000), 1, 1);
+        userController = new UserController(mockAccountDAO, credentials);
     }
 
     @Test
@@ -158,15 +172,32 @@ public class UserControllerTest {
         // Setup
         Account[] accounts = new Account[1];
         accounts[0] = new UserAccount(11, "sam", "123456");
-        // when findAccounts is called, return a list of accounts simulating success
-        when(mockAccountDAO.findAccounts(accounts[0].getUsername())).thenReturn(accounts);
+        accounts[0].setPasswordHash(credentials.getHasher().hash("123456"));
+        // when getAccountByUsername is called, return the account simulating success
+        when(mockAccountDAO.getAccountByUsername(accounts[0].getUsername())).thenReturn(accounts[0]);
 
         // Invoke
-        ResponseEntity<Account> response = userController.loginUser(accounts[0].getUsername(),
-                accounts[0].getPlainPassword());
+        ResponseEntity<Account> response = userController.loginUser(accounts[0].getUsername(), "123456").join();
 
         // Analyze
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(mockAccountDAO, never()).rehashPassword(eq(11), anyString(), anyString());
+    }
+
+    @Test
+    public void testLoginUserRehashesOldHash() throws IOException {
+        // Setup
+        Account account = new UserAccount(11, "sam", "123456");
+        String oldHash = new Pbkdf2PasswordHasher(500).hash("123456");
+        account.setPasswordHash(oldHash);
+        when(mockAccountDAO.getAccountByUsername(account.getUsername())).thenReturn(account);
+
+        // Invoke
+        ResponseEntity<Account> response = userController.loginUser(account.getUsername(), "123456").join();
+
+        // Analyze
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(mockAccountDAO, timeout(5000)).rehashPassword(eq(11), eq(oldHash), anyString());
     }
 
     @Test
@@ -174,11 +205,13 @@ public class UserControllerTest {
         // Setup
         Account[] accounts = new Account[1];
         accounts[0] = new UserAccount(11, "sam", "123456");
-        // when findAccounts is called, return a list of accounts simulating success
-        when(mockAccountDAO.findAccounts(accounts[0].getUsername())).thenReturn(accounts);
+        accounts[0].setPasswordHash(credentials.getHasher().hash("123456"));
+        // when getAccountByUsername is called, return the account simulating success
+        when(mockAccountDAO.getAccountByUsername(accounts[0].getUsername())).thenReturn(accounts[0]);
 
         // Invoke
-        ResponseEntity<Account> response = userController.loginUser(accounts[0].getUsername(), "wrongpassword");
+        ResponseEntity<Account> response = userController.loginUser(accounts[0].getUsername(), "wrongpassword")
+                .join();
 
         // Analyze
         assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
@@ -187,12 +220,11 @@ public class UserControllerTest {
     @Test
     public void testLoginUserNotFound() throws IOException { // loginUser may throw IO Exception
         // Setup
-        Account[] emptyResult = new Account[0];
-        // when findAccounts is called, return a list of accounts simulating success
-        when(mockAccountDAO.findAccounts("notsam")).thenReturn(emptyResult);
+        // when getAccountByUsername is called, return null simulating no such account
+        when(mockAccountDAO.getAccountByUsername("notsam")).thenReturn(null);
 
         // Invoke
-        ResponseEntity<Account> response = userController.loginUser("notsam", "fake");
+        ResponseEntity<Account> response = userController.loginUser("notsam", "fake").join();
 
         // Analyze
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
@@ -203,17 +235,67 @@ public class UserControllerTest {
         // Setup
         Account[] accounts = new Account[1];
         accounts[0] = new UserAccount(11, "sam", "123456");
-        // when findAccounts is called, return a list of accounts simulating success
-        doThrow(new IOException()).when(mockAccountDAO).findAccounts(accounts[0].getUsername());
+        // when getAccountByUsername is called, throw an IOException
+        doThrow(new IOException()).when(mockAccountDAO).getAccountByUsername(accounts[0].getUsername());
 
         // Invoke
         ResponseEntity<Account> response = userController.loginUser(accounts[0].getUsername(),
-                accounts[0].getPlainPassword());
+                accounts[0].getPlainPassword()).join();
 
         // Analyze
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
+    @Test
+    public void testLoginUserSaturated() throws Exception {
+        // Setup
+        Account account = new UserAccount(11, "sam", "123456");
+        when(mockAccountDAO.getAccountByUsername("sam")).thenReturn(account);
+        // A hasher that holds its thread until released
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHasher blocking = new PasswordHasher() {
+            public String hash(String password) {
+                return password;
+            }
+
+            public boolean verify(String password, String encoded) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+
+            public boolean needsRehash(String encoded) {
+                return false;
+            }
+        };
+        userController = new UserController(mockAccountDAO, new CredentialService(blocking, 1, 1));
+        // Occupy the only worker and fill the one queue slot
+        CompletableFuture<ResponseEntity<Account>> running = userController.loginUser("sam", "123456");
+        CompletableFuture<ResponseEntity<Account>> queued = userController.loginUser("sam", "123456");
+
+        // Invoke
+        ResponseEntity<Account> response = userController.loginUser("sam", "123456").join();
+
+        // Analyze
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        release.countDown();
+        assertEquals(HttpStatus.OK, running.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(HttpStatus.OK, queued.get(5, TimeUnit.SECONDS).getStatusCode());
+    }
+
+    @Test
+    public void testCreateUserSaturated() throws IOException {
+        // Setup
+        Account user = new UserAccount(11, "sam", "Password1");
+        doThrow(new RejectedExecutionException()).when(mockAccountDAO).createAccount(user);
+
+        // Invoke & Analyze
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, userController.createUser(user).getStatusCode());
+    }
+
     @Test
     public void testLogoutUser() throws IOException { // logoutUser may throw IO Exception
         // Setup
@@ -158,7 +158,7 @@ public class AccountTest {
         
         Account account = new UserAccount(expectedID, expectedUsername, plainPassword);
         
-        String expectedString = expectedUsername + ":" + account.getPlainPassword();
+        String expectedString = expectedUsername;
         // Invoke
         String actual_string = account.toString();
         //Analyze
@@ -171,7 +171,7 @@ public class AccountTest {
         // Setup
         Account account = new OwnerAccount();
         
-        String expectedString = "admin:" + account.getPlainPassword();
+        String expectedString = "admin";
         // Invoke
         String actual_string = account.toString();
         //Analyze
@@ -0,0 +1,106 @@
+package com.ducks.api.ducksapi.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The unit test suite for the primitive cart items map
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Model-tier")
+public class CartItemsTest {
+
+    @Test
+    public void testSetAndGet() {
+        // Setup
+        CartItems items = new CartItems();
+
+        // Invoke
+        int added = items.setQuantity(7, 2);
+        int replaced = items.setQuantity(7, 5);
+        items.setQuantity(-3, 1);
+
+        // Analyze
+        assertEquals(0, added);
+        assertEquals(2, replaced);
+        assertEquals(5, items.getQuantity(7));
+        assertEquals(1, items.getQuantity(-3));
+        assertEquals(0, items.getQuantity(8));
+        assertEquals(2, items.size());
+        assertTrue(items.contains(-3));
+        assertFalse(items.contains(8));
+        assertArrayEquals(new int[] { -3, 7 }, items.getIds());
+    }
+
+    @Test
+    public void testInvalidQuantity() {
+        // Setup
+        CartItems items = new CartItems();
+
+        // Analyze
+        assertThrows(IllegalArgumentException.class, () -> items.setQuantity(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> items.put(1, -2));
+        assertTrue(items.isEmpty());
+    }
+
+    @Test
+    public void testMatchesHashMap() {
+        // Setup
+        CartItems items = new CartItems();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Invoke
+        for (int step = 0; step < 100_000; ++step) {
+            int duckId = random.nextInt(2_000) * (random.nextBoolean() ? 1 : 1024);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(duckId);
+                assertEquals(removed == null ? 0 : removed, items.removeItem(duckId));
+            } else {
+                int quantity = 1 + random.nextInt(10);
+                Integer previous = expected.put(duckId, quantity);
+                assertEquals(previous == null ? 0 : previous, items.setQuantity(duckId, quantity));
+            }
+        }
+
+        // Analyze
+        assertEquals(expected, items);
+        assertEquals(items, expected);
+        assertEquals(expected.hashCode(), items.hashCode());
+        for (int slot = items.nextSlot(-1); slot >= 0; slot = items.nextSlot(slot)) {
+            assertEquals(expected.get(items.idAt(slot)), items.quantityAt(slot));
+        }
+    }
+
+    @Test
+    public void testCopyAndEquals() {
+        // Setup
+        CartItems items = new CartItems();
+        items.putAll(Map.of(1, 1, 2, 2, 3, 3));
+
+        // Invoke
+        CartItems copy = new CartItems(items);
+        copy.removeItem(2);
+
+        // Analyze
+        assertEquals(Map.of(1, 1, 2, 2, 3, 3), items);
+        assertEquals(Map.of(1, 1, 3, 3), copy);
+        assertNotEquals(items, copy);
+        assertNull(copy.get(2));
+        assertNull(copy.get("1"));
+        assertEquals(new CartItems(), new CartItems(100));
+    }
+}
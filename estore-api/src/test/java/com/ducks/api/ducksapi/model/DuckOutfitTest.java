@@ -56,4 +56,12 @@ public class DuckOutfitTest {
             assertEquals(expected[i], actual[i]);
         }
     }
+
+    @Test
+    public void testDuckOutfitMask() {
+        assertEquals(0, new DuckOutfit(0, 0, 0, 0, 0).getMask());
+        assertEquals(0b11111, new DuckOutfit(1, 2, 3, 4, 5).getMask());
+        assertEquals(0b10101, new DuckOutfit(7, 0, 7, 0, 7).getMask());
+        assertEquals(0b01010, new DuckOutfit(0, 7, 0, 7, 0).getMask());
+    }
 }
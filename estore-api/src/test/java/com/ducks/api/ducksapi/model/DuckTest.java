@@ -1,8 +1,10 @@
 package com.ducks.api.ducksapi.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -193,4 +195,57 @@ public class DuckTest {
         assertNotEquals(testDuck, new Object());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTakeQuantity() {
+        // Invoke & Analyze
+        assertTrue(testDuck.takeQuantity(4));
+        assertEquals(6, testDuck.getQuantity());
+        assertFalse(testDuck.takeQuantity(7));
+        assertEquals(6, testDuck.getQuantity());
+        assertTrue(testDuck.takeQuantity(6));
+        assertEquals(0, testDuck.getQuantity());
+    }
+
+    @Test
+    public void testReturnQuantity() {
+        // Invoke
+        testDuck.returnQuantity(5);
+
+        // Analyze
+        assertEquals(15, testDuck.getQuantity());
+    }
+
+    @Test
+    public void testHoldQuantity() {
+        // Invoke & Analyze
+        assertTrue(testDuck.holdQuantity(4));
+        assertFalse(testDuck.holdQuantity(7));
+        assertEquals(10, testDuck.getQuantity());
+        assertEquals(6, testDuck.getAvailable());
+        assertFalse(testDuck.takeQuantity(7));
+        assertTrue(testDuck.takeQuantity(7, 3));
+        assertEquals(3, testDuck.getQuantity());
+        assertEquals(1, testDuck.getHeld());
+        testDuck.setQuantity(8);
+        assertEquals(1, testDuck.getHeld());
+    }
+
+    @Test
+    public void testReplace() {
+        // Setup
+        Duck replacement = new Duck(testDuck.getId(), "Replacement", 20, 0, Size.SMALL, Colors.RED,
+                new DuckOutfit(0, 0, 0, 0, 0));
+        testDuck.holdQuantity(4);
+
+        // Invoke
+        replacement.replace(testDuck);
+
+        // Analyze
+        assertTrue(testDuck.isRetired());
+        assertFalse(testDuck.takeQuantity(1));
+        assertFalse(testDuck.releaseHeld(1));
+        assertEquals(4, replacement.getHeld());
+        assertEquals(16, replacement.getAvailable());
+    }
+}
@@ -0,0 +1,212 @@
+package com.ducks.api.ducksapi.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The unit test suite for compiled pricing rules
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Model-tier")
+public class PriceTableTest {
+    private static final int HAT = 1; // Mask bit of the hat slot
+    private static final int JEWELRY = 1 << 4; // Mask bit of the jewelry slot
+
+    private Duck testDuck;
+
+    @BeforeEach
+    public void setupDuck() {
+        testDuck = new Duck(99, "Wi-Fire", 10, 0, Size.SMALL, Colors.BLUE, new DuckOutfit(1, 0, 0, 0, 0));
+    }
+
+    @AfterEach
+    public void resetTable() {
+        Price.setTable(PriceTable.standard());
+    }
+
+    @Test
+    public void testStandardTable() {
+        // Invoke
+        PriceTable table = PriceTable.standard();
+
+        // Analyze
+        for (Size size : Size.values()) {
+            for (Colors color : Colors.values()) {
+                for (int mask = 0; mask < 32; ++mask) {
+                    assertEquals(size.getPrice() + color.getPrice() + Integer.bitCount(mask) * Price.OUTFIT_PRICE,
+                            table.price(size, color, mask));
+                    assertEquals(table.price(size, color, mask), table.price(7, size, color, mask, 0));
+                }
+            }
+        }
+        assertEquals(Long.MAX_VALUE, table.getValidUntil());
+    }
+
+    @Test
+    public void testBaseRules() {
+        // Setup
+        List<PricingRule> rules = List.of(PricingRule.base(Size.SMALL, null, 2.50, 0),
+                PricingRule.base(null, Colors.BLUE, null, 10));
+
+        // Invoke
+        PriceTable table = PriceTable.compile(rules, 0);
+
+        // Analyze
+        assertEquals(2.25, table.price(Size.SMALL, Colors.BLUE, 0));
+        assertEquals(2.50, table.price(Size.SMALL, Colors.RED, 0));
+        assertEquals(5.40, table.price(Size.MEDIUM, Colors.BLUE, 0));
+        assertEquals(6.00, table.price(Size.MEDIUM, Colors.RED, 0));
+    }
+
+    @Test
+    public void testSlotRules() {
+        // Setup
+        List<PricingRule> rules = List.of(PricingRule.slot(PricingRule.Slot.HAT, 0.0, 0),
+                PricingRule.slot(null, null, 50));
+
+        // Invoke
+        PriceTable table = PriceTable.compile(rules, 0);
+
+        // Analyze
+        assertEquals(4.00, table.price(Size.SMALL, Colors.BLUE, HAT));
+        assertEquals(5.00, table.price(Size.SMALL, Colors.BLUE, JEWELRY));
+        assertEquals(8.00, table.price(Size.SMALL, Colors.BLUE, 0b11111 & ~HAT));
+    }
+
+    @Test
+    public void testSkuRules() {
+        // Setup
+        List<PricingRule> rules = List.of(PricingRule.sku(99, 12.00, 0), PricingRule.sku(99, null, 25),
+                PricingRule.sku(5, null, 50));
+
+        // Invoke
+        PriceTable table = PriceTable.compile(rules, 0);
+
+        // Analyze
+        assertEquals(9.00, table.price(99, Size.SMALL, Colors.BLUE, HAT, 0));
+        assertEquals(9.00, table.price(99, Size.SMALL, Colors.BLUE, HAT, 19.99));
+        assertEquals(10.00, table.price(5, Size.SMALL, Colors.BLUE, 0, 20.00));
+        assertEquals(3.00, table.price(5, Size.SMALL, Colors.BLUE, HAT, 0));
+        assertEquals(6.00, table.price(6, Size.SMALL, Colors.BLUE, HAT, 0));
+        assertEquals(6.00, table.price(Size.SMALL, Colors.BLUE, HAT));
+    }
+
+    @Test
+    public void testSparseSkuRules() {
+        // Setup
+        List<PricingRule> rules = List.of(PricingRule.sku(5, 1.00, 0), PricingRule.sku(5_000_000, 2.00, 0),
+                PricingRule.sku(-3, 3.00, 0));
+
+        // Invoke
+        PriceTable table = PriceTable.compile(rules, 0);
+
+        // Analyze
+        assertEquals(1.00, table.price(5, Size.SMALL, Colors.BLUE, 0, 0));
+        assertEquals(2.00, table.price(5_000_000, Size.SMALL, Colors.BLUE, 0, 0));
+        assertEquals(3.00, table.price(-3, Size.SMALL, Colors.BLUE, 0, 0));
+        assertEquals(4.00, table.price(6, Size.SMALL, Colors.BLUE, 0, 0));
+    }
+
+    @Test
+    public void testTimedRules() {
+        // Setup
+        List<PricingRule> rules = List.of(PricingRule.sku(99, 1.00, 0).during(100L, 200L),
+                PricingRule.base(null, null, null, 50).during(null, 300L));
+
+        // Invoke
+        PriceTable before = PriceTable.compile(rules, 50);
+        PriceTable during = PriceTable.compile(rules, 100);
+        PriceTable after = PriceTable.compile(rules, 250);
+        PriceTable over = PriceTable.compile(rules, 300);
+
+        // Analyze
+        assertEquals(4.00, before.price(99, Size.SMALL, Colors.BLUE, HAT, 0));
+        assertEquals(100, before.getValidUntil());
+        assertEquals(1.00, during.price(99, Size.SMALL, Colors.BLUE, HAT, 0));
+        assertEquals(200, during.getValidUntil());
+        assertEquals(4.00, after.price(99, Size.SMALL, Colors.BLUE, HAT, 0));
+        assertEquals(300, after.getValidUntil());
+        assertEquals(6.00, over.price(99, Size.SMALL, Colors.BLUE, HAT, 0));
+        assertEquals(Long.MAX_VALUE, over.getValidUntil());
+        assertNotEquals(before.getVersion(), during.getVersion());
+    }
+
+    @Test
+    public void testInvalidRules() {
+        // Analyze
+        assertThrows(IllegalArgumentException.class,
+                () -> new PricingRule(null, null, null, null, null, 1.0, 0, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PricingRule(PricingRule.Type.SKU, null, null, null, null, 1.0, 0, null, null));
+        assertThrows(IllegalArgumentException.class, () -> PricingRule.base(null, null, -1.0, 0));
+        assertThrows(IllegalArgumentException.class, () -> PricingRule.slot(null, Double.NaN, 0));
+        assertThrows(IllegalArgumentException.class, () -> PricingRule.slot(null, null, 101));
+        assertThrows(IllegalArgumentException.class, () -> PricingRule.slot(null, null, 0).during(5L, 5L));
+    }
+
+    @Test
+    public void testDuckReadsTable() {
+        // Setup
+        Duck custom = new Duck(99, "Wi-Fire", 10, 0, Size.SMALL, Colors.BLUE, new DuckOutfit(1, 0, 0, 0, 0));
+        custom.setCatalogItem(false);
+
+        // Invoke
+        Price.setTable(PriceTable.compile(List.of(PricingRule.sku(99, null, 50),
+                PricingRule.slot(PricingRule.Slot.HAT, 1.00, 0)), 0));
+
+        // Analyze
+        assertEquals(2.50, testDuck.getPrice());
+        assertEquals(5.00, custom.getPrice());
+        assertEquals(5.00, Price.calculate(Size.SMALL, Colors.BLUE, HAT));
+    }
+
+    @Test
+    public void testPromotionNotSaved() throws JsonProcessingException {
+        // Setup
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        Price.setTable(PriceTable.compile(List.of(PricingRule.sku(99, null, 50)), 0));
+
+        // Invoke
+        String json = objectMapper.writeValueAsString(testDuck);
+        Price.setTable(PriceTable.standard());
+        Duck read = objectMapper.readValue(json, Duck.class);
+
+        // Analyze
+        assertEquals(0, read.getCustomPrice());
+        assertEquals(6.00, read.getPrice());
+        assertEquals(19.99, objectMapper.readValue(json.replace("\"customPrice\":0.0", "\"customPrice\":19.99"),
+                Duck.class).getPrice());
+    }
+
+    @Test
+    public void testServedPriceNotReadBack() throws JsonProcessingException {
+        // Setup
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        Price.setTable(PriceTable.compile(List.of(PricingRule.sku(99, null, 50)), 0));
+        String json = objectMapper.writeValueAsString(testDuck).replace("\"customPrice\":0.0,", "");
+
+        // Invoke
+        Duck read = objectMapper.readValue(json, Duck.class);
+
+        // Analyze
+        assertTrue(json.contains("\"price\":3.0"));
+        assertEquals(0, read.getCustomPrice());
+        assertEquals(3.00, read.getPrice());
+    }
+}
@@ -1,11 +1,16 @@
 package com.ducks.api.ducksapi.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * The unit test suite for custom prices
  * 
@@ -205,4 +210,36 @@ public class PriceTest {
         double expectedPrice = 3.00 + 1.00 + 10.00;
         assertEquals(expectedPrice, testDuck.getPrice());
     }
+
+    @Test
+    public void calculateTableTest() {
+        for (Size size : Size.values()) {
+            for (Colors color : Colors.values()) {
+                assertEquals(size.getPrice() + color.getPrice(), Price.calculate(size, color, 0));
+                assertEquals(size.getPrice() + color.getPrice() + 3 * 2.00, Price.calculate(size, color, 0b10011));
+            }
+        }
+    }
+
+    @Test
+    public void outfitChangedInPlaceTest() {
+        // The price is worked out when it is read, so it follows the outfit even
+        // when the outfit is changed directly
+        testDuck.getOutfit().setShoesUID(4);
+
+        double expectedPrice = 3.00 + 1.00 + 2.00;
+        assertEquals(expectedPrice, testDuck.getPrice());
+        assertEquals(expectedPrice, new Price(testDuck).getPrice());
+    }
+
+    @Test
+    public void priceSerializedTest() throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        testDuck.setHatUID(1);
+
+        JsonNode json = objectMapper.readTree(objectMapper.writeValueAsString(testDuck));
+
+        assertEquals(3.00 + 1.00 + 2.00, json.get("price").asDouble());
+        assertFalse(json.get("outfit").has("mask"));
+    }
 }
@@ -12,6 +12,10 @@ import java.util.stream.Collectors;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * The unit test suite for the ShoppingCart class
  * 
@@ -108,4 +112,18 @@ public class ShoppingCartTest {
         assertEquals(expected_toString, cart.toString(), "toString is incorrect");
     }
 
+    @Test
+    public void testJsonRoundTrip() throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        String json = "{\"customerId\":10,\"items\":{\"1\":13,\"01\":2,\"a\":4}}";
+
+        ShoppingCart cart = objectMapper.readValue(json, ShoppingCart.class);
+        ShoppingCart read = objectMapper.readValue(objectMapper.writeValueAsString(cart), ShoppingCart.class);
+
+        assertEquals(13, cart.getCartItems().getQuantity(1), "Duck id was not parsed");
+        assertEquals(Map.of("01", 2, "a", 4), cart.getUnparsedItems(), "Keys that are not ids were not kept");
+        assertEquals(Map.of("1", 13, "01", 2, "a", 4), cart.getItems(), "Items map is incorrect");
+        assertEquals(cart, read, "Cart did not survive being written and read back");
+    }
 }
\ No newline at end of file
@@ -4,21 +4,34 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.ducks.api.ducksapi.model.Account;
 import com.ducks.api.ducksapi.model.OwnerAccount;
 import com.ducks.api.ducksapi.model.UserAccount;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * A unit test suite for the AccountFileDAO Class to test its functionality
  * 
@@ -29,6 +42,10 @@ public class AccountFileDAOTest {
     AccountFileDAO accountFileDAO;
     Account[] testAccounts;
     ObjectMapper mockObjectMapper;
+    CredentialService credentials;
+    @TempDir
+    Path tempDir;
+    String filename;
 
     /**
      * Before each test, we will create and inject a Mock Object Mapper to
@@ -39,6 +56,7 @@ public class AccountFileDAOTest {
     @BeforeEach
     public void setupAccountFileDAO() throws IOException {
         mockObjectMapper = mock(ObjectMapper.class);
+        filename = tempDir.resolve("accounts.json").toString();
         testAccounts = new Account[4];
 
         testAccounts[0] = new OwnerAccount();
@@ -49,9 +67,14 @@ public class AccountFileDAOTest {
         // When the object mapper is supposed to read from the file
         // the mock object mapper will return the duck array above
         when(mockObjectMapper
-                .readValue(new File("doesnt_matter.txt"), Account[].class))
+                .readValue(new File(filename), Account[].class))
                 .thenReturn(testAccounts);
-        accountFileDAO = new AccountFileDAO("doesnt_matter.txt", mockObjectMapper);
+        when(mockObjectMapper.writeValueAsBytes(any())).thenReturn("[]".getBytes());
+        // The DAO reads and writes through its own copy of the mapper
+        when(mockObjectMapper.copy()).thenReturn(mockObjectMapper);
+        // Few iterations keep the hashing in the tests fast
+        credentials = new CredentialService(new Pbkdf2PasswordHasher(1000), 2, 16);
+        accountFileDAO = new AccountFileDAO(filename, mockObjectMapper, 0, credentials);
 
     }
 
@@ -90,6 +113,32 @@ public class AccountFileDAOTest {
         assertNull(failResult);
     }
 
+    @Test
+    public void testGetAccountByUsername() throws IOException {
+        // Invoke & Analyze
+        assertEquals(testAccounts[2], accountFileDAO.getAccountByUsername("travis"));
+        assertEquals(testAccounts[0], accountFileDAO.getAccountByUsername("ADMIN"));
+        assertNull(accountFileDAO.getAccountByUsername("Tra"));
+    }
+
+    @Test
+    public void testGetAccountByUsernameAfterChanges() throws IOException {
+        // Setup
+        Account renamed = new UserAccount(1, "notJeff", "Password1");
+        Account created = accountFileDAO.createAccount(new UserAccount(0, "Timmy", "StrongPassword1234!"));
+
+        // Invoke
+        accountFileDAO.updateAccount(renamed);
+        accountFileDAO.deleteAccount(3);
+
+        // Analyze
+        assertNull(accountFileDAO.getAccountByUsername("Jeff"));
+        assertEquals(renamed, accountFileDAO.getAccountByUsername("NOTJEFF"));
+        assertNull(accountFileDAO.getAccountByUsername("Bob"));
+        assertEquals(created, accountFileDAO.getAccountByUsername("timmy"));
+        assertNull(accountFileDAO.createAccount(new UserAccount(0, "TIMMY", "StrongPassword1234!")));
+    }
+
     @Test
     public void testCreateUserAccount() throws IOException {
         // Setup
@@ -106,7 +155,8 @@ public class AccountFileDAOTest {
         assertEquals(UserAccount.class, successResult.getClass());
         assertEquals(4, createdAccount.getId());
         assertEquals("Timmy", createdAccount.getUsername());
-        assertEquals("StrongPassword1234!", createdAccount.getPlainPassword());
+        assertNull(createdAccount.getPlainPassword());
+        assertTrue(credentials.getHasher().verify("StrongPassword1234!", createdAccount.getPasswordHash()));
         assertEquals("", createdAccount.getFirstName());
         assertEquals("", createdAccount.getLastName());
         assertEquals("", createdAccount.getAddress());
@@ -133,7 +183,8 @@ public class AccountFileDAOTest {
         assertEquals(OwnerAccount.class, createdAccount.getClass());
         assertEquals(0, createdAccount.getId());
         assertEquals("admin", createdAccount.getUsername());
-        assertEquals("admin", createdAccount.getPlainPassword());
+        assertNull(createdAccount.getPlainPassword());
+        assertTrue(credentials.getHasher().verify("admin", createdAccount.getPasswordHash()));
         assertEquals("", createdAccount.getFirstName());
         assertEquals("", createdAccount.getLastName());
         assertEquals("", createdAccount.getAddress());
@@ -191,11 +242,52 @@ public class AccountFileDAOTest {
         // Analyze
         Account updatedAccount = accountFileDAO.getAccount(accountID);
         assertTrue(successChange);
-        assertEquals(newPassword, updatedAccount.getPlainPassword());
+        assertTrue(credentials.getHasher().verify(newPassword, updatedAccount.getPasswordHash()));
         assertFalse(failChangeWrongID);
         assertFalse(failChangeWrongOriginalPassword);
     }
 
+    @Test
+    public void testPasswordsMigratedOnLoad() throws IOException {
+        // Analyze
+        for (Account account : testAccounts) {
+            assertNull(account.getPlainPassword());
+            assertTrue(credentials.getHasher().verify(account == testAccounts[0] ? "admin" : "password",
+                    account.getPasswordHash()));
+        }
+        // The hashes are written back so the plaintext leaves the file
+        verify(mockObjectMapper).writeValueAsBytes(any(Account[].class));
+    }
+
+    @Test
+    public void testHashedPasswordsNotMigrated() throws IOException {
+        // Setup
+        ObjectMapper hashedMapper = mock(ObjectMapper.class);
+        when(hashedMapper.readValue(new File(filename), Account[].class)).thenReturn(testAccounts);
+        when(hashedMapper.copy()).thenReturn(hashedMapper);
+
+        // Invoke
+        new AccountFileDAO(filename, hashedMapper, 0, credentials);
+
+        // Analyze
+        verify(hashedMapper, never()).writeValueAsBytes(any(Account[].class));
+    }
+
+    @Test
+    public void testUpdateAccountKeepsPassword() throws IOException {
+        // Setup
+        String hash = accountFileDAO.getAccount(1).getPasswordHash();
+        Account updatedAccount = new UserAccount(1, "Jeff", null);
+        updatedAccount.setPasswordHash("pbkdf2-sha256$1$c2FsdA$aGFzaA");
+
+        // Invoke
+        Account result = accountFileDAO.updateAccount(updatedAccount);
+
+        // Analyze
+        assertEquals(hash, result.getPasswordHash());
+        assertTrue(credentials.getHasher().verify("password", accountFileDAO.getAccount(1).getPasswordHash()));
+    }
+
     @Test
     public void testChangeFirstName() throws IOException {
         // Setup
@@ -286,4 +378,149 @@ public class AccountFileDAOTest {
         assertFalse(failChangeWrongID);
     }
 
+    @Test
+    public void testWriteThroughMetrics() throws IOException {
+        // Invoke
+        accountFileDAO.changeCity(1, "Rochester");
+        accountFileDAO.changeZipCode(1, "14586");
+
+        // Analyze
+        WriteBatchMetrics metrics = accountFileDAO.getWriteBatchMetrics();
+        assertEquals(2, metrics.getFlushCount());
+        assertEquals(1, metrics.getMaxBatchSize());
+        assertTrue(accountFileDAO.getDurabilityFuture().isDone());
+    }
+
+    @Test
+    public void testChangesAreTimed() throws IOException {
+        // Setup
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            AccountFileDAO timedDAO = new AccountFileDAO(filename, mockObjectMapper, 0, credentials);
+            long lockWaits = registry.get(StoreMetrics.LOCK_WAIT).tag("store", "accounts").timer().count();
+
+            // Invoke
+            timedDAO.changeFirstName(1, "Jeffrey");
+            timedDAO.changeLastName(1, "Smith");
+            timedDAO.changeAddress(1, "1 Lomb Memorial Dr");
+            timedDAO.changeCity(1, "Rochester");
+            timedDAO.changeZipCode(1, "14623");
+
+            // Analyze
+            for (String operation : new String[] { "changeFirstName", "changeLastName", "changeAddress",
+                    "changeCity", "changeZipCode" }) {
+                assertEquals(1, registry.get(StoreMetrics.OPERATION).tag("store", "accounts")
+                        .tag("operation", operation).timer().count());
+            }
+            // One lock wait each, the account is not looked up again under the lock
+            assertEquals(lockWaits + 5,
+                    registry.get(StoreMetrics.LOCK_WAIT).tag("store", "accounts").timer().count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    @Test
+    public void testSaveReplacesFile() throws IOException {
+        // Setup
+        when(mockObjectMapper.writeValueAsBytes(any())).thenReturn("[{\"id\":1}]".getBytes());
+
+        // Invoke
+        accountFileDAO.changeCity(1, "Rochester");
+
+        // Analyze
+        assertEquals("[{\"id\":1}]", Files.readString(tempDir.resolve("accounts.json")));
+        assertFalse(Files.exists(tempDir.resolve("accounts.json.tmp")));
+    }
+
+    @Test
+    public void testPasswordHashOnlyInFile() throws IOException {
+        // Setup
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        File file = tempDir.resolve("hashed.json").toFile();
+        // Written before passwords were hashed
+        Files.writeString(file.toPath(),
+                "[{\"type\":\"UserAccount\",\"id\":1,\"username\":\"Jeff\",\"plainPassword\":\"password\"}]");
+
+        // Invoke
+        new AccountFileDAO(file.getPath(), objectMapper, 0, credentials); // Hashes the password
+        Account reloaded = new AccountFileDAO(file.getPath(), objectMapper, 0, credentials).getAccount(1);
+
+        // Analyze
+        assertTrue(Files.readString(file.toPath()).contains("\"passwordHash\""));
+        assertTrue(credentials.getHasher().verify("password", reloaded.getPasswordHash()));
+        assertFalse(objectMapper.writeValueAsString(reloaded).contains("passwordHash"));
+    }
+
+    @Test
+    public void testRehashPassword() throws IOException {
+        // Setup
+        String currentHash = accountFileDAO.getAccount(1).getPasswordHash();
+
+        // Invoke
+        boolean stale = accountFileDAO.rehashPassword(1, "not the hash", "new");
+        boolean replaced = accountFileDAO.rehashPassword(1, currentHash, "new");
+        boolean missing = accountFileDAO.rehashPassword(100, currentHash, "new");
+
+        // Analyze
+        assertFalse(stale);
+        assertTrue(replaced);
+        assertFalse(missing);
+        assertEquals("new", accountFileDAO.getAccount(1).getPasswordHash());
+    }
+
+    @Test
+    public void testBatchedChanges(@TempDir Path tempDir)
+            throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        // Setup
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        File file = tempDir.resolve("accounts.json").toFile();
+        objectMapper.writeValue(file, testAccounts);
+        AccountFileDAO batchedDAO = new AccountFileDAO(file.getPath(), objectMapper, 60_000, credentials);
+
+        // Invoke
+        batchedDAO.changeFirstName(1, "Jeff");
+        batchedDAO.changeLastName(1, "Baker");
+        batchedDAO.changeAddress(1, "1 Memorial Drive");
+        batchedDAO.changeCity(1, "Rochester");
+        batchedDAO.changeZipCode(1, "14586");
+
+        // Nothing is written until the window closes
+        assertFalse(batchedDAO.getDurabilityFuture().isDone());
+        assertEquals("", objectMapper.readValue(file, Account[].class)[1].getCity());
+
+        batchedDAO.flush();
+        batchedDAO.getDurabilityFuture().get(1, TimeUnit.SECONDS);
+
+        // Analyze
+        Account saved = objectMapper.readValue(file, Account[].class)[1];
+        assertEquals("Jeff", saved.getFirstName());
+        assertEquals("14586", saved.getZipCode());
+        WriteBatchMetrics metrics = batchedDAO.getWriteBatchMetrics();
+        assertEquals(1, metrics.getFlushCount());
+        assertEquals(5, metrics.getLastBatchSize());
+        batchedDAO.close();
+    }
+
+    @Test
+    public void testBatchedFlushScheduled(@TempDir Path tempDir)
+            throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        // Setup
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        File file = tempDir.resolve("accounts.json").toFile();
+        objectMapper.writeValue(file, testAccounts);
+        AccountFileDAO batchedDAO = new AccountFileDAO(file.getPath(), objectMapper, 10, credentials);
+
+        // Invoke
+        batchedDAO.changeCity(1, "Rochester");
+        batchedDAO.getDurabilityFuture().get(5, TimeUnit.SECONDS);
+
+        // Analyze
+        assertEquals("Rochester", objectMapper.readValue(file, Account[].class)[1].getCity());
+        batchedDAO.close();
+    }
 }
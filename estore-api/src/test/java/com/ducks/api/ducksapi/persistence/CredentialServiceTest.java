@@ -0,0 +1,80 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the CredentialService class
+ * 
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class CredentialServiceTest {
+
+    @Test
+    public void testHashAndVerify() {
+        // Setup
+        CredentialService credentials = new CredentialService(new Pbkdf2PasswordHasher(1000), 2, 4);
+
+        // Invoke
+        String hash = credentials.hash("password").join();
+
+        // Analyze
+        assertTrue(credentials.verify("password", hash).join());
+        assertFalse(credentials.verify("password1", hash).join());
+        credentials.close();
+    }
+
+    @Test
+    public void testSaturatedRejects() throws Exception {
+        // Setup
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHasher blocking = new PasswordHasher() {
+            @Override
+            public String hash(String password) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return password;
+            }
+
+            @Override
+            public boolean verify(String password, String encoded) {
+                return password.equals(hash(password));
+            }
+
+            @Override
+            public boolean needsRehash(String encoded) {
+                return false;
+            }
+        };
+        CredentialService credentials = new CredentialService(blocking, 1, 1);
+
+        // Invoke
+        CompletableFuture<String> running = credentials.hash("a");
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<Boolean> queued = credentials.verify("b", "b");
+
+        // Analyze
+        assertEquals(1, credentials.getQueuedCount());
+        assertThrows(RejectedExecutionException.class, () -> credentials.hash("c"));
+        release.countDown();
+        assertEquals("a", running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        credentials.close();
+    }
+}
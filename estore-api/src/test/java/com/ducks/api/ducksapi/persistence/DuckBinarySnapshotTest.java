@@ -0,0 +1,165 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test the Duck Binary Snapshot class and the binary mode of the Duck File DAO
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class DuckBinarySnapshotTest {
+    @TempDir
+    Path tempDir;
+
+    ObjectMapper objectMapper;
+    Duck[] testDucks;
+    File snapshot;
+
+    @BeforeEach
+    public void setupSnapshot() throws IOException {
+        objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        testDucks = new Duck[3];
+        testDucks[0] = new Duck(1, "Wi-Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0));
+        testDucks[1] = new Duck(5, "Galactic Agent", 0, 19.99, Size.EXTRA_LARGE, Colors.RED,
+                new DuckOutfit(1, 2, 3, 4, 5));
+        testDucks[2] = new Duck(7, "Canard Doré", 3, 0, Size.SMALL, Colors.GREEN, new DuckOutfit(3, 0, 0, 1, 1));
+        snapshot = tempDir.resolve("ducks" + DuckBinarySnapshot.EXTENSION).toFile();
+        DuckBinarySnapshot.write(snapshot, testDucks);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        // Invoke
+        DuckBinarySnapshot read = DuckBinarySnapshot.open(snapshot);
+
+        // Analyze
+        assertEquals(3, read.size());
+        assertArrayEquals(testDucks, read.getDucks());
+        assertEquals("Canard Doré", read.getName(2));
+        assertEquals(Size.EXTRA_LARGE, read.getSize(1));
+        assertEquals(new DuckOutfit(1, 2, 3, 4, 5), read.getOutfit(1));
+        assertFalse(tempDir.resolve("ducks.bin.tmp").toFile().exists());
+    }
+
+    @Test
+    public void testFixedWidthRecords() {
+        // Analyze
+        // The name heap is UTF-8, so "é" takes two bytes
+        long names = "Wi-Fire".length() + "Galactic Agent".length()
+                + "Canard Doré".getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(DuckBinarySnapshot.HEADER_BYTES + 3 * DuckBinarySnapshot.RECORD_BYTES + names,
+                snapshot.length());
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        // Invoke
+        DuckBinarySnapshot.write(snapshot, new Duck[0]);
+
+        // Analyze
+        assertEquals(0, DuckBinarySnapshot.open(snapshot).getDucks().length);
+    }
+
+    @Test
+    public void testNotASnapshot() throws IOException {
+        // Setup
+        Files.writeString(snapshot.toPath(), "[]");
+
+        // Invoke & Analyze
+        assertThrows(IOException.class, () -> DuckBinarySnapshot.open(snapshot));
+    }
+
+    @Test
+    public void testCorruptRecord() throws IOException {
+        // Setup
+        byte[] bytes = Files.readAllBytes(snapshot.toPath());
+        ByteBuffer.wrap(bytes).putInt(DuckBinarySnapshot.HEADER_BYTES + 44, 1000); // Name length
+
+        // Invoke & Analyze
+        assertThrows(IOException.class, () -> new DuckBinarySnapshot(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    public void testConvert() throws IOException {
+        // Setup
+        File json = tempDir.resolve("ducks.json").toFile();
+        File converted = tempDir.resolve("converted.bin").toFile();
+        File back = tempDir.resolve("back.json").toFile();
+        objectMapper.writeValue(json, testDucks);
+
+        // Invoke
+        int toBinary = DuckBinarySnapshot.fromJson(json, converted, objectMapper);
+        int toJson = DuckBinarySnapshot.toJson(converted, back, objectMapper);
+
+        // Analyze
+        assertEquals(3, toBinary);
+        assertEquals(3, toJson);
+        assertArrayEquals(testDucks, objectMapper.readValue(back, Duck[].class));
+    }
+
+    @Test
+    public void testDAOLoadsSnapshot() throws IOException {
+        // Invoke
+        DuckFileDAO duckFileDAO = new DuckFileDAO(snapshot.getPath(), objectMapper);
+
+        // Analyze
+        assertArrayEquals(testDucks, duckFileDAO.getDucks());
+        assertEquals(testDucks[1], duckFileDAO.getDuckByName("galactic agent"));
+    }
+
+    @Test
+    public void testDAOSavesSnapshot() throws IOException {
+        // Setup
+        DuckFileDAO duckFileDAO = new DuckFileDAO(snapshot.getPath(), objectMapper);
+
+        // Invoke
+        Duck created = duckFileDAO.createDuck(
+                new Duck(0, "Ice Gladiator", 10, 29.99, Size.LARGE, Colors.GREEN, new DuckOutfit(0, 0, 0, 0, 0)));
+        duckFileDAO.deleteDuck(1);
+
+        // Analyze
+        Duck[] saved = DuckBinarySnapshot.open(snapshot).getDucks();
+        assertEquals(3, saved.length);
+        assertEquals(created, saved[2]);
+        assertNull(new DuckFileDAO(snapshot.getPath(), objectMapper).getDuck(1));
+    }
+
+    @Test
+    public void testDAOCompactsJournalIntoSnapshot() throws IOException {
+        // Setup
+        DuckFileDAO duckFileDAO = new DuckFileDAO(snapshot.getPath(), objectMapper, true, 1, 2);
+
+        // Invoke
+        duckFileDAO.deleteDuck(1);
+        duckFileDAO.deleteDuck(5);
+        duckFileDAO.close();
+
+        // Analyze
+        assertEquals(1, DuckBinarySnapshot.open(snapshot).size());
+        assertEquals(0, Files.size(tempDir.resolve("ducks.bin.journal")));
+    }
+}
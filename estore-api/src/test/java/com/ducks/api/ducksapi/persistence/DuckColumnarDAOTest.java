@@ -0,0 +1,291 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test the Duck Columnar DAO class
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class DuckColumnarDAOTest {
+    DuckColumnarDAO duckColumnarDAO;
+    Duck[] testDucks;
+    ObjectMapper mockObjectMapper;
+
+    /**
+     * Before each test, we will create and inject a Mock Object Mapper to
+     * isolate the tests from the underlying file
+     *
+     * @throws IOException
+     */
+    @BeforeEach
+    public void setupDuckColumnarDAO() throws IOException {
+        mockObjectMapper = mock(ObjectMapper.class);
+        testDucks = new Duck[4];
+        // Out of order on purpose, the store sorts by id
+        testDucks[0] = new Duck(101, "Ice Gladiator", 10, 29.99, Size.EXTRA_LARGE, Colors.GREEN,
+                new DuckOutfit(1, 2, 3, 4, 5));
+        testDucks[1] = new Duck(99, "Wi-Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0));
+        testDucks[2] = new Duck(100, "Galactic Agent 2", 11, 19.99, Size.SMALL, Colors.RED,
+                new DuckOutfit(0, 0, 0, 0, 0));
+        testDucks[3] = new Duck(102, "Galactic Agent", 10, 29.99, Size.EXTRA_LARGE, Colors.GREEN,
+                new DuckOutfit(0, 0, 0, 0, 0));
+
+        when(mockObjectMapper
+                .readValue(new File("doesnt_matter.txt"), Duck[].class))
+                .thenReturn(testDucks);
+        duckColumnarDAO = new DuckColumnarDAO("doesnt_matter.txt", mockObjectMapper);
+    }
+
+    @Test
+    public void testGetDucks() {
+        // Invoke
+        Duck[] ducks = duckColumnarDAO.getDucks();
+
+        // Analyze
+        assertArrayEquals(new Duck[] { testDucks[1], testDucks[2], testDucks[0], testDucks[3] }, ducks);
+        assertNotSame(testDucks[1], ducks[0]);
+        assertEquals(new DuckOutfit(1, 2, 3, 4, 5), ducks[2].getOutfit());
+    }
+
+    @Test
+    public void testDuplicateIdsKeepLast() throws IOException {
+        // Setup
+        Duck[] duplicates = { testDucks[1], new Duck(99, "Wi-Fire 2", 1, 9.99, Size.SMALL, Colors.RED,
+                new DuckOutfit(0, 0, 0, 0, 0)), testDucks[2], testDucks[0] };
+        when(mockObjectMapper.readValue(new File("duplicates.txt"), Duck[].class)).thenReturn(duplicates);
+
+        // Invoke
+        DuckColumnarDAO dao = new DuckColumnarDAO("duplicates.txt", mockObjectMapper);
+
+        // Analyze
+        assertEquals(3, dao.size());
+        assertEquals("Wi-Fire 2", dao.getDuck(99).getName());
+    }
+
+    @Test
+    public void testFindDucks() {
+        // Invoke
+        Duck[] ducks = duckColumnarDAO.findDucks("galactic");
+
+        // Analyze
+        assertArrayEquals(new Duck[] { testDucks[2], testDucks[3] }, ducks);
+        assertArrayEquals(new Duck[] { testDucks[3] }, duckColumnarDAO.findDucks("Galactic", 1, 5));
+        assertArrayEquals(new Duck[] { testDucks[2], testDucks[0] }, duckColumnarDAO.findDucks(null, 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> duckColumnarDAO.findDucks("a", -1, 1));
+    }
+
+    @Test
+    public void testGetDuck() {
+        // Analyze
+        assertEquals(testDucks[0], duckColumnarDAO.getDuck(101));
+        assertNull(duckColumnarDAO.getDuck(98));
+        assertEquals(testDucks[1], duckColumnarDAO.getDuckByName("WI-FIRE"));
+        assertNull(duckColumnarDAO.getDuckByName("Bob"));
+    }
+
+    @Test
+    public void testGetDucksByIds() {
+        // Invoke
+        Duck[] ducks = duckColumnarDAO.getDucks(new int[] { 98, 99, 101, 101, 103, 100 });
+
+        // Analyze
+        assertArrayEquals(new Duck[] { null, testDucks[1], testDucks[0], testDucks[0], null, testDucks[2] },
+                ducks);
+    }
+
+    @Test
+    public void testCreateDuck() throws IOException {
+        // Setup
+        Duck duck = new Duck(1, "Wonder-Duck", 30, 49.99, Size.LARGE, Colors.YELLOW, new DuckOutfit(0, 0, 0, 0, 0));
+
+        // Invoke
+        Duck result = duckColumnarDAO.createDuck(duck);
+
+        // Analyze
+        assertEquals(103, result.getId());
+        assertEquals(result, duckColumnarDAO.getDuck(103));
+        assertEquals(5, duckColumnarDAO.size());
+        assertNull(duckColumnarDAO.createDuck(duck));
+    }
+
+    @Test
+    public void testUpdateDuck() throws IOException {
+        // Setup
+        Duck duck = new Duck(99, "Galactic Agent 3", 1, 9.99, Size.SMALL, Colors.RED, new DuckOutfit(2, 0, 0, 0, 0));
+
+        // Invoke
+        Duck result = duckColumnarDAO.updateDuck(duck);
+
+        // Analyze
+        assertEquals(duck, result);
+        assertEquals(duck, duckColumnarDAO.getDuck(99));
+        assertEquals(3, duckColumnarDAO.findDucks("galactic").length);
+        assertNull(duckColumnarDAO.getDuckByName("Wi-Fire"));
+        assertNull(duckColumnarDAO.updateDuck(new Duck(98, "Bolt", 1, 1, Size.SMALL, Colors.RED,
+                new DuckOutfit(0, 0, 0, 0, 0))));
+    }
+
+    @Test
+    public void testDeleteDuck() throws IOException {
+        // Setup
+        long generation = duckColumnarDAO.getGeneration();
+
+        // Invoke
+        boolean result = duckColumnarDAO.deleteDuck(100);
+
+        // Analyze
+        assertTrue(result);
+        assertFalse(duckColumnarDAO.deleteDuck(100));
+        assertArrayEquals(new Duck[] { testDucks[1], testDucks[0], testDucks[3] }, duckColumnarDAO.getDucks());
+        assertEquals(1, duckColumnarDAO.findDucks("galactic").length);
+        assertNotEquals(generation, duckColumnarDAO.getGeneration());
+    }
+
+    @Test
+    public void testReserveStock() throws IOException {
+        // Invoke
+        boolean reserved = duckColumnarDAO.reserveStock(Map.of(99, 2, 100, 11));
+        boolean insufficient = duckColumnarDAO.reserveStock(Map.of(99, 1, 100, 1));
+        boolean notFound = duckColumnarDAO.reserveStock(Map.of(99, 1, 98, 1));
+
+        // Analyze
+        assertTrue(reserved);
+        assertFalse(insufficient);
+        assertFalse(notFound);
+        assertEquals(10, duckColumnarDAO.getDuck(99).getQuantity());
+        assertEquals(0, duckColumnarDAO.getDuck(100).getQuantity());
+
+        duckColumnarDAO.releaseStock(Map.of(100, 11, 98, 1));
+        assertEquals(11, duckColumnarDAO.getDuck(100).getQuantity());
+    }
+
+    @Test
+    public void testHoldStock() throws IOException {
+        // Invoke
+        boolean held = duckColumnarDAO.holdStock(99, 10);
+        boolean tooMany = duckColumnarDAO.holdStock(99, 3);
+        boolean othersShort = duckColumnarDAO.reserveStock(Map.of(99, 3));
+        boolean reserved = duckColumnarDAO.reserveStock(Map.of(99, 11), Map.of(99, 10));
+
+        // Analyze
+        assertTrue(held);
+        assertFalse(tooMany);
+        assertFalse(othersShort);
+        assertTrue(reserved);
+        assertEquals(1, duckColumnarDAO.getDuck(99).getQuantity());
+        assertEquals(0, duckColumnarDAO.getDuck(99).getHeld());
+    }
+
+    @Test
+    public void testHoldSurvivesUpdate() throws IOException {
+        // Setup
+        duckColumnarDAO.holdStock(99, 5);
+        Duck duck = new Duck(99, "Wi-Fire", 20, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0));
+
+        // Invoke
+        duckColumnarDAO.updateDuck(duck);
+        duckColumnarDAO.releaseHold(99, 2);
+
+        // Analyze
+        assertEquals(3, duckColumnarDAO.getDuck(99).getHeld());
+        assertEquals(17, duckColumnarDAO.getDuck(99).getAvailable());
+    }
+
+    @Test
+    public void testReserveStockSaveFails() throws IOException {
+        // Setup
+        doThrow(new IOException()).when(mockObjectMapper).writeValue(any(File.class), any(Duck[].class));
+
+        // Invoke & Analyze
+        assertThrows(IOException.class, () -> duckColumnarDAO.reserveStock(Map.of(99, 2)));
+        assertEquals(12, duckColumnarDAO.getDuck(99).getQuantity());
+    }
+
+    @Test
+    public void testReserveStockConcurrently() throws Exception {
+        // Setup
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Invoke: 100 buyers each try to take one of the 12 Wi-Fire ducks
+        int[] reserved = new int[1];
+        for (int i = 0; i < 100; ++i) {
+            executor.submit(() -> {
+                if (duckColumnarDAO.reserveStock(Map.of(99, 1))) {
+                    synchronized (reserved) {
+                        ++reserved[0];
+                    }
+                }
+                return null;
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Analyze
+        assertEquals(12, reserved[0]);
+        assertEquals(0, duckColumnarDAO.getDuck(99).getQuantity());
+    }
+
+    @Test
+    public void testBinarySnapshot(@TempDir Path tempDir) throws IOException {
+        // Setup
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        File snapshot = tempDir.resolve("ducks.bin").toFile();
+        DuckBinarySnapshot.write(snapshot, testDucks);
+
+        // Invoke
+        DuckColumnarDAO dao = new DuckColumnarDAO(snapshot.getPath(), objectMapper);
+        dao.deleteDuck(102);
+
+        // Analyze
+        assertArrayEquals(new Duck[] { testDucks[1], testDucks[2], testDucks[0] },
+                DuckBinarySnapshot.open(snapshot).getDucks());
+    }
+
+    @Test
+    public void testConstructorException() throws IOException {
+        // Setup
+        doThrow(new IOException())
+                .when(mockObjectMapper)
+                .readValue(new File("doesnt_matter.txt"), Duck[].class);
+
+        // Invoke & Analyze
+        assertThrows(IOException.class,
+                () -> new DuckColumnarDAO("doesnt_matter.txt", mockObjectMapper),
+                "IOException not thrown");
+    }
+}
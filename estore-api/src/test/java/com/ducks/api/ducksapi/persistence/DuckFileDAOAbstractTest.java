@@ -1,10 +1,13 @@
 package com.ducks.api.ducksapi.persistence;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -14,6 +17,13 @@ import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -72,6 +82,32 @@ public class DuckFileDAOAbstractTest {
             assertEquals(ducks[i], testDucks[i]);
     }
 
+    @Test
+    public void testGetDucksSnapshot() throws IOException {
+        // Invoke
+        Duck[] first = duckFileDAO.getDucks();
+        Duck[] second = duckFileDAO.getDucks();
+        duckFileDAO.deleteDuck(100);
+        Duck[] afterDelete = duckFileDAO.getDucks();
+
+        // Analyze
+        assertSame(first, second);
+        assertNotSame(first, afterDelete);
+        assertEquals(testDucks.length, first.length);
+        assertEquals(testDucks.length - 1, afterDelete.length);
+    }
+
+    @Test
+    public void testGetDucksSeesStockChanges() throws IOException {
+        // Invoke
+        Duck[] before = duckFileDAO.getDucks();
+        duckFileDAO.reserveStock(Map.of(99, 2));
+
+        // Analyze
+        assertSame(before, duckFileDAO.getDucks());
+        assertEquals(10, before[0].getQuantity());
+    }
+
     @Test
     public void testFindDucks() {
         // Invoke
@@ -83,6 +119,47 @@ public class DuckFileDAOAbstractTest {
         assertEquals(testDucks[2], ducks[1]);
     }
 
+    @Test
+    public void testFindDucksIgnoresCase() {
+        // Invoke
+        Duck[] ducks = duckFileDAO.findDucks("GALACTIC");
+
+        // Analyze
+        assertEquals(2, ducks.length);
+        assertEquals(testDucks[1], ducks[0]);
+        assertEquals(testDucks[3], ducks[1]);
+    }
+
+    @Test
+    public void testFindDucksPaged() {
+        // Invoke
+        Duck[] first = duckFileDAO.findDucks("la", 0, 2);
+        Duck[] second = duckFileDAO.findDucks("la", 2, 2);
+        Duck[] all = duckFileDAO.findDucks(null, 1, 2);
+
+        // Analyze
+        assertArrayEquals(new Duck[] { testDucks[1], testDucks[2] }, first);
+        assertArrayEquals(new Duck[] { testDucks[3] }, second);
+        assertArrayEquals(new Duck[] { testDucks[1], testDucks[2] }, all);
+        assertThrows(IllegalArgumentException.class, () -> duckFileDAO.findDucks("la", -1, 2));
+    }
+
+    @Test
+    public void testFindDucksAfterChanges() throws IOException {
+        // Setup
+        DuckOutfit outfit = new DuckOutfit(0, 0, 0, 0, 0);
+        duckFileDAO.updateDuck(new Duck(99, "Lazy Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE, outfit));
+        duckFileDAO.deleteDuck(101);
+        Duck created = duckFileDAO.createDuck(new Duck(0, "Blaze", 1, 1.99, Size.SMALL, Colors.RED, outfit));
+
+        // Invoke
+        Duck[] ducks = duckFileDAO.findDucks("la");
+
+        // Analyze
+        assertArrayEquals(new Duck[] { duckFileDAO.getDuck(99), testDucks[1], testDucks[3], created }, ducks);
+        assertEquals(0, duckFileDAO.findDucks("wi-fire").length);
+    }
+
     @Test
     public void testGetDuck() {
         // Invoke
@@ -92,6 +169,21 @@ public class DuckFileDAOAbstractTest {
         assertEquals(testDucks[0], duck);
     }
 
+    @Test
+    public void testGetDucksByIds() throws IOException {
+        // Invoke
+        Duck[] ascending = duckFileDAO.getDucks(new int[] { 98, 99, 99, 101, 103 });
+        Duck[] unordered = duckFileDAO.getDucks(new int[] { 102, 100, 5 });
+        duckFileDAO.deleteDuck(101);
+        Duck[] afterDelete = duckFileDAO.getDucks(new int[] { 101 });
+
+        // Analyze
+        assertArrayEquals(new Duck[] { null, testDucks[0], testDucks[0], testDucks[2], null }, ascending);
+        assertArrayEquals(new Duck[] { testDucks[3], testDucks[1], null }, unordered);
+        assertArrayEquals(new Duck[] { null }, afterDelete);
+        assertEquals(0, duckFileDAO.getDucks(new int[0]).length);
+    }
+
     @Test
     public void testGetDuckNotFound() {
         // Invoke
@@ -110,6 +202,19 @@ public class DuckFileDAOAbstractTest {
         assertEquals(testDucks[3], duck);
     }
 
+    @Test
+    public void testGetDuckByNameIgnoresCase() throws IOException {
+        // Setup
+        DuckOutfit outfit = new DuckOutfit(0, 0, 0, 0, 0);
+        duckFileDAO.updateDuck(new Duck(99, "Lazy Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE, outfit));
+
+        // Invoke & Analyze
+        assertEquals(testDucks[1], duckFileDAO.getDuckByName("GALACTIC agent 2"));
+        assertEquals(duckFileDAO.getDuck(99), duckFileDAO.getDuckByName("lazy fire"));
+        assertNull(duckFileDAO.getDuckByName("Wi-Fire"));
+        assertNull(duckFileDAO.createDuck(new Duck(0, "LAZY FIRE", 1, 1.99, Size.SMALL, Colors.RED, outfit)));
+    }
+
     @Test
     public void testGetDuckByNameNonExistant() {
         // Invoke
@@ -201,6 +306,157 @@ public class DuckFileDAOAbstractTest {
         assertNull(result);
     }
 
+    @Test
+    public void testReserveStock() throws IOException {
+        // Invoke
+        boolean result = duckFileDAO.reserveStock(Map.of(99, 2, 101, 10));
+
+        // Analyze
+        assertTrue(result);
+        assertEquals(10, duckFileDAO.getDuck(99).getQuantity());
+        assertEquals(0, duckFileDAO.getDuck(101).getQuantity());
+    }
+
+    @Test
+    public void testReserveStockInsufficient() throws IOException {
+        // Invoke
+        boolean result = duckFileDAO.reserveStock(Map.of(99, 2, 101, 11));
+
+        // Analyze
+        assertFalse(result);
+        assertEquals(12, duckFileDAO.getDuck(99).getQuantity());
+        assertEquals(10, duckFileDAO.getDuck(101).getQuantity());
+    }
+
+    @Test
+    public void testReserveStockNotFound() throws IOException {
+        // Invoke
+        boolean result = duckFileDAO.reserveStock(Map.of(99, 2, 98, 1));
+
+        // Analyze
+        assertFalse(result);
+        assertEquals(12, duckFileDAO.getDuck(99).getQuantity());
+    }
+
+    @Test
+    public void testReserveStockSaveFails() throws IOException {
+        // Setup
+        doThrow(new IOException())
+                .when(mockObjectMapper)
+                .writeValue(any(File.class), any(Duck[].class));
+
+        // Invoke & Analyze
+        assertThrows(IOException.class, () -> duckFileDAO.reserveStock(Map.of(99, 2)));
+        assertEquals(12, duckFileDAO.getDuck(99).getQuantity());
+    }
+
+    @Test
+    public void testReserveStockConcurrently() throws Exception {
+        // Setup
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        // Invoke: 40 one-duck checkouts race for the 12 Wi-Fire ducks
+        for (int i = 0; i < 40; ++i) {
+            results.add(executor.submit(() -> duckFileDAO.reserveStock(Map.of(99, 1))));
+        }
+        int reserved = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                ++reserved;
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        // Analyze
+        assertEquals(12, reserved);
+        assertEquals(0, duckFileDAO.getDuck(99).getQuantity());
+    }
+
+    @Test
+    public void testHoldStock() throws IOException {
+        // Invoke
+        boolean held = duckFileDAO.holdStock(99, 10);
+        boolean tooMany = duckFileDAO.holdStock(99, 3);
+        boolean notFound = duckFileDAO.holdStock(98, 1);
+        boolean othersShort = duckFileDAO.reserveStock(Map.of(99, 3));
+
+        // Analyze
+        assertTrue(held);
+        assertFalse(tooMany);
+        assertFalse(notFound);
+        assertFalse(othersShort);
+        assertEquals(12, duckFileDAO.getDuck(99).getQuantity());
+        assertEquals(2, duckFileDAO.getDuck(99).getAvailable());
+
+        duckFileDAO.releaseHold(99, 4);
+        assertEquals(6, duckFileDAO.getDuck(99).getAvailable());
+    }
+
+    @Test
+    public void testReserveHeldStock() throws IOException {
+        // Setup
+        duckFileDAO.holdStock(99, 10);
+
+        // Invoke
+        boolean reserved = duckFileDAO.reserveStock(Map.of(99, 11), Map.of(99, 10));
+
+        // Analyze
+        assertTrue(reserved);
+        assertEquals(1, duckFileDAO.getDuck(99).getQuantity());
+        assertEquals(0, duckFileDAO.getDuck(99).getHeld());
+    }
+
+    @Test
+    public void testHoldSurvivesUpdate() throws IOException {
+        // Setup
+        duckFileDAO.holdStock(99, 5);
+        Duck duck = new Duck(99, "Wi-Fire", 20, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0));
+
+        // Invoke
+        duckFileDAO.updateDuck(duck);
+        duckFileDAO.releaseHold(99, 2);
+
+        // Analyze
+        assertEquals(3, duckFileDAO.getDuck(99).getHeld());
+        assertEquals(17, duckFileDAO.getDuck(99).getAvailable());
+    }
+
+    @Test
+    public void testReleaseStock() throws IOException {
+        // Invoke
+        duckFileDAO.releaseStock(Map.of(99, 3, 98, 1));
+
+        // Analyze
+        assertEquals(15, duckFileDAO.getDuck(99).getQuantity());
+        assertNull(duckFileDAO.getDuck(98));
+    }
+
+    @Test
+    public void testGenerationChanges() throws IOException {
+        long generation = duckFileDAO.getGeneration();
+
+        // Invoke & Analyze
+        duckFileDAO.updateDuck(testDucks[1]);
+        assertTrue(duckFileDAO.getGeneration() > generation);
+
+        generation = duckFileDAO.getGeneration();
+        duckFileDAO.reserveStock(Map.of(99, 1));
+        assertTrue(duckFileDAO.getGeneration() > generation);
+
+        generation = duckFileDAO.getGeneration();
+        duckFileDAO.releaseStock(Map.of(99, 1));
+        assertTrue(duckFileDAO.getGeneration() > generation);
+
+        // Reads and failed lookups leave the generation alone
+        generation = duckFileDAO.getGeneration();
+        duckFileDAO.getDucks();
+        duckFileDAO.deleteDuck(98);
+        duckFileDAO.reserveStock(Map.of(98, 1));
+        assertEquals(generation, duckFileDAO.getGeneration());
+    }
+
     @Test
     public void testConstructorException() throws IOException {
         // Setup
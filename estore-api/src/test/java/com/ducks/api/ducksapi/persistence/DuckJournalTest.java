@@ -0,0 +1,245 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test the Duck Journal class and the journaled mode of the Duck File DAO
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class DuckJournalTest {
+    @TempDir
+    Path tempDir;
+
+    ObjectMapper objectMapper;
+    Path snapshot;
+    Path journalPath;
+
+    @BeforeEach
+    public void setupJournal() throws IOException {
+        objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        snapshot = tempDir.resolve("ducks.json");
+        journalPath = tempDir.resolve("ducks.json.journal");
+
+        Duck[] ducks = new Duck[2];
+        ducks[0] = new Duck(1, "Wi-Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0));
+        ducks[1] = new Duck(2, "Galactic Agent", 11, 19.99, Size.SMALL, Colors.RED, new DuckOutfit(0, 0, 0, 0, 0));
+        objectMapper.writeValue(snapshot.toFile(), ducks);
+    }
+
+    private DuckFileDAO openDAO(int compactThreshold) throws IOException {
+        return new DuckFileDAO(snapshot.toString(), objectMapper, true, 1, compactThreshold);
+    }
+
+    /**
+     * A duck that stops a checkout between taking its stock and journaling it,
+     * until the test lets it go on
+     */
+    static class BlockingDuck extends Duck {
+        private final CountDownLatch taken = new CountDownLatch(1); // Stock has been taken
+        private final CountDownLatch proceed = new CountDownLatch(1); // The checkout may go on
+
+        BlockingDuck(int id, String name, int quantity) {
+            super(id, name, quantity, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0));
+        }
+
+        @Override
+        public boolean takeQuantity(int amount, int held) {
+            boolean took = super.takeQuantity(amount, held);
+            if (took) {
+                taken.countDown();
+                try {
+                    proceed.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return took;
+        }
+    }
+
+    /**
+     * Starts a checkout of two of duck 1 and waits until it has taken them
+     */
+    private Future<Boolean> reserveBlocked(DuckFileDAO dao, BlockingDuck blocking, ExecutorService executor)
+            throws Exception {
+        dao.updateDuck(blocking);
+        Future<Boolean> reserved = executor.submit(() -> dao.reserveStock(Map.of(1, 2)));
+        assertTrue(blocking.taken.await(5, TimeUnit.SECONDS));
+        return reserved;
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        Duck duck = new Duck(3, "Ice Gladiator", 10, 29.99, Size.LARGE, Colors.GREEN, new DuckOutfit(0, 0, 0, 0, 0));
+        try (DuckJournal journal = new DuckJournal(journalPath.toString(), objectMapper, 1, 10)) {
+            journal.appendPut(duck);
+            journal.appendDelete(1);
+        }
+
+        Map<Integer, Duck> ducks = new TreeMap<>();
+        ducks.put(1, new Duck(1, "Wi-Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0)));
+        try (DuckJournal journal = new DuckJournal(journalPath.toString(), objectMapper, 1, 10)) {
+            assertEquals(2, journal.replay(ducks));
+        }
+
+        assertEquals(1, ducks.size());
+        assertEquals(duck, ducks.get(3));
+    }
+
+    @Test
+    public void testReplayPutAll() throws IOException {
+        Duck one = new Duck(1, "Wi-Fire", 2, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0));
+        Duck two = new Duck(2, "Galactic Agent", 1, 19.99, Size.SMALL, Colors.RED, new DuckOutfit(0, 0, 0, 0, 0));
+        try (DuckJournal journal = new DuckJournal(journalPath.toString(), objectMapper, 10, 10)) {
+            journal.appendPutAll(List.of(one, two));
+        }
+
+        Map<Integer, Duck> ducks = new TreeMap<>();
+        try (DuckJournal journal = new DuckJournal(journalPath.toString(), objectMapper, 1, 10)) {
+            assertEquals(1, journal.replay(ducks));
+        }
+
+        assertEquals(one, ducks.get(1));
+        assertEquals(two, ducks.get(2));
+    }
+
+    @Test
+    public void testReplayDiscardsTornTail() throws IOException {
+        Duck duck = new Duck(3, "Ice Gladiator", 10, 29.99, Size.LARGE, Colors.GREEN, new DuckOutfit(0, 0, 0, 0, 0));
+        try (DuckJournal journal = new DuckJournal(journalPath.toString(), objectMapper, 1, 10)) {
+            journal.appendPut(duck);
+        }
+        long intactLength = Files.size(journalPath);
+        Files.write(journalPath, "{\"op\":\"DEL".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        Map<Integer, Duck> ducks = new TreeMap<>();
+        try (DuckJournal journal = new DuckJournal(journalPath.toString(), objectMapper, 1, 10)) {
+            assertEquals(1, journal.replay(ducks));
+        }
+
+        assertEquals(duck, ducks.get(3));
+        assertEquals(intactLength, Files.size(journalPath));
+    }
+
+    @Test
+    public void testNeedsCompaction() throws IOException {
+        try (DuckJournal journal = new DuckJournal(journalPath.toString(), objectMapper, 2, 2)) {
+            journal.appendDelete(1);
+            assertFalse(journal.needsCompaction());
+            journal.appendDelete(2);
+            assertTrue(journal.needsCompaction());
+
+            journal.reset();
+            assertFalse(journal.needsCompaction());
+            assertEquals(0, Files.size(journalPath));
+        }
+    }
+
+    @Test
+    public void testJournaledDAOReplaysOnLoad() throws IOException {
+        String snapshotBefore = Files.readString(snapshot);
+
+        DuckFileDAO dao = openDAO(100);
+        Duck created = dao.createDuck(
+                new Duck(0, "Ice Gladiator", 10, 29.99, Size.LARGE, Colors.GREEN, new DuckOutfit(0, 0, 0, 0, 0)));
+        dao.deleteDuck(1);
+        dao.close();
+
+        // Mutations only went to the journal
+        assertEquals(snapshotBefore, Files.readString(snapshot));
+
+        DuckFileDAO reopened = openDAO(100);
+        assertNull(reopened.getDuck(1));
+        assertEquals(created, reopened.getDuck(created.getId()));
+        assertEquals(2, reopened.getDucks().length);
+        reopened.close();
+    }
+
+    @Test
+    public void testJournaledReserveRacingUpdate() throws Exception {
+        DuckFileDAO dao = openDAO(100);
+        BlockingDuck blocking = new BlockingDuck(1, "Wi-Fire", 12);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> reserved = reserveBlocked(dao, blocking, executor);
+            dao.updateDuck(new Duck(1, "Ice Gladiator", 20, 9.99, Size.MEDIUM, Colors.BLUE,
+                    new DuckOutfit(0, 0, 0, 0, 0)));
+            blocking.proceed.countDown();
+            assertTrue(reserved.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        Duck updated = dao.getDuck(1);
+        dao.close();
+
+        // The checkout journaled the updated duck, not the one it took stock from
+        DuckFileDAO reopened = openDAO(100);
+        assertEquals("Ice Gladiator", reopened.getDuck(1).getName());
+        assertEquals(updated, reopened.getDuck(1));
+        reopened.close();
+    }
+
+    @Test
+    public void testJournaledReserveRacingDelete() throws Exception {
+        DuckFileDAO dao = openDAO(100);
+        BlockingDuck blocking = new BlockingDuck(1, "Wi-Fire", 12);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> reserved = reserveBlocked(dao, blocking, executor);
+            assertTrue(dao.deleteDuck(1));
+            blocking.proceed.countDown();
+            assertTrue(reserved.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        dao.close();
+
+        // The checkout did not bring the deleted duck back
+        DuckFileDAO reopened = openDAO(100);
+        assertNull(reopened.getDuck(1));
+        assertEquals(1, reopened.getDucks().length);
+        reopened.close();
+    }
+
+    @Test
+    public void testJournaledDAOCompacts() throws IOException {
+        DuckFileDAO dao = openDAO(2);
+        dao.deleteDuck(1);
+        dao.deleteDuck(2);
+        dao.close();
+
+        assertEquals(0, Files.size(journalPath));
+        assertEquals(0, objectMapper.readValue(snapshot.toFile(), Duck[].class).length);
+    }
+}
@@ -0,0 +1,96 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the Duck Name Index class
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class DuckNameIndexTest {
+    DuckNameIndex index;
+
+    @BeforeEach
+    public void setupIndex() {
+        index = new DuckNameIndex();
+        index.put(1, "Wi-Fire");
+        index.put(2, "Galactic Agent");
+        index.put(3, "Ice Gladiator");
+        index.put(4, "Ax");
+    }
+
+    @Test
+    public void testSearch() {
+        assertArrayEquals(new int[] { 2, 3 }, index.search("la", 0, 10));
+        assertArrayEquals(new int[] { 3 }, index.search("LAD", 0, 10));
+        assertArrayEquals(new int[] { 1 }, index.search("wI-f", 0, 10));
+        assertArrayEquals(new int[] { 4 }, index.search("ax", 0, 10));
+        assertArrayEquals(new int[0], index.search("agentx", 0, 10));
+    }
+
+    @Test
+    public void testSearchVerifiesCandidates() {
+        index.put(5, "Abcd Bcde");
+
+        // Every gram of "abcde" appears in "abcd bcde", but not next to each other
+        assertArrayEquals(new int[0], index.search("abcde", 0, 10));
+        assertArrayEquals(new int[] { 2 }, index.search("tic ag", 0, 10));
+    }
+
+    @Test
+    public void testSearchPaged() {
+        assertArrayEquals(new int[] { 1, 2 }, index.search("i", 0, 2));
+        assertArrayEquals(new int[] { 3 }, index.search("i", 2, 2));
+        assertArrayEquals(new int[] { 3 }, index.search("la", 1, 5));
+        assertArrayEquals(new int[0], index.search("la", 0, 0));
+    }
+
+    @Test
+    public void testPutReplacesName() {
+        index.put(1, "Lazy Fire");
+
+        assertArrayEquals(new int[] { 1, 2, 3 }, index.search("la", 0, 10));
+        assertArrayEquals(new int[0], index.search("wi-", 0, 10));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void testIdOf() {
+        assertEquals(2, index.idOf("galactic AGENT"));
+        assertEquals(4, index.idOf("AX"));
+        assertNull(index.idOf("Galactic"));
+
+        index.put(2, "Galactic Pirate");
+        assertNull(index.idOf("Galactic Agent"));
+        assertEquals(2, index.idOf("Galactic Pirate"));
+    }
+
+    @Test
+    public void testIdOfDuplicateNames() {
+        index.put(5, "galactic agent");
+        index.put(6, "ax");
+
+        index.remove(2);
+        index.remove(4);
+
+        assertEquals(5, index.idOf("Galactic Agent"));
+        assertEquals(6, index.idOf("Ax"));
+    }
+
+    @Test
+    public void testRemove() {
+        index.remove(2);
+        index.remove(42);
+
+        assertArrayEquals(new int[] { 3 }, index.search("la", 0, 10));
+        assertArrayEquals(new int[0], index.search("galactic", 0, 10));
+        assertEquals(3, index.size());
+    }
+}
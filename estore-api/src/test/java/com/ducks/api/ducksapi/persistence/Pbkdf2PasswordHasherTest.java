@@ -0,0 +1,76 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the Pbkdf2PasswordHasher class
+ * 
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class Pbkdf2PasswordHasherTest {
+    private Pbkdf2PasswordHasher hasher;
+
+    @BeforeEach
+    public void setupHasher() {
+        hasher = new Pbkdf2PasswordHasher(1000);
+    }
+
+    @Test
+    public void testHashAndVerify() {
+        // Invoke
+        String hash = hasher.hash("StrongPassword1234!");
+
+        // Analyze
+        assertTrue(hash.startsWith("pbkdf2-sha256$1000$"));
+        assertTrue(hasher.verify("StrongPassword1234!", hash));
+        assertFalse(hasher.verify("StrongPassword1234", hash));
+    }
+
+    @Test
+    public void testHashSalted() {
+        // Invoke
+        String first = hasher.hash("password");
+        String second = hasher.hash("password");
+
+        // Analyze
+        assertNotEquals(first, second);
+        assertTrue(hasher.verify("password", first));
+        assertTrue(hasher.verify("password", second));
+    }
+
+    @Test
+    public void testVerifyOtherIterations() {
+        // Setup
+        String hash = new Pbkdf2PasswordHasher(2000).hash("password");
+
+        // Analyze
+        assertTrue(hasher.verify("password", hash));
+        assertTrue(hasher.needsRehash(hash));
+        assertFalse(hasher.needsRehash(hasher.hash("password")));
+    }
+
+    @Test
+    public void testVerifyMalformed() {
+        // Analyze
+        assertFalse(hasher.verify("password", null));
+        assertFalse(hasher.verify(null, hasher.hash("password")));
+        assertFalse(hasher.verify("password", "password"));
+        assertFalse(hasher.verify("password", "pbkdf2-sha256$abc$c2FsdA$aGFzaA"));
+        assertFalse(hasher.verify("password", "pbkdf2-sha256$1000$not base64$aGFzaA"));
+        assertFalse(hasher.verify("password", "md5$1000$c2FsdA$aGFzaA"));
+    }
+
+    @Test
+    public void testInvalidIterations() {
+        // Analyze
+        assertThrows(IllegalArgumentException.class, () -> new Pbkdf2PasswordHasher(0));
+    }
+}
@@ -0,0 +1,164 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Price;
+import com.ducks.api.ducksapi.model.PriceTable;
+import com.ducks.api.ducksapi.model.PricingRule;
+import com.ducks.api.ducksapi.model.Size;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test the Pricing Engine class
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class PricingEngineTest {
+    PricingEngine pricingEngine;
+    PricingRule[] testRules;
+    ObjectMapper mockObjectMapper;
+
+    /**
+     * Before each test, we will create and inject a Mock Object Mapper to
+     * isolate the tests from the underlying file
+     *
+     * @throws IOException
+     */
+    @BeforeEach
+    public void setupPricingEngine() throws IOException {
+        mockObjectMapper = mock(ObjectMapper.class);
+        testRules = new PricingRule[] { PricingRule.base(Size.SMALL, null, 2.00, 0),
+                PricingRule.sku(99, 1.00, 0) };
+
+        when(mockObjectMapper
+                .readValue(new File("doesnt_matter.txt"), PricingRule[].class))
+                .thenReturn(testRules);
+        pricingEngine = new PricingEngine("doesnt_matter.txt", mockObjectMapper, () -> 0);
+    }
+
+    @AfterEach
+    public void closePricingEngine() {
+        pricingEngine.close();
+    }
+
+    @Test
+    public void testLoadPublishesTable() {
+        // Analyze
+        assertArrayEquals(testRules, pricingEngine.getRules());
+        assertSame(Price.getTable(), pricingEngine.getTable());
+        assertEquals(4.00, Price.calculate(Size.SMALL, Colors.BLUE, 1 << 2));
+        assertEquals(1.00, Price.calculate(99, Size.LARGE, Colors.RED, 0, 0));
+    }
+
+    @Test
+    public void testSetRules() throws IOException {
+        // Setup
+        PricingRule[] rules = { PricingRule.sku(5, null, 50) };
+        long version = pricingEngine.getTable().getVersion();
+
+        // Invoke
+        PriceTable table = pricingEngine.setRules(rules);
+
+        // Analyze
+        verify(mockObjectMapper).writeValue(any(File.class), any(PricingRule[].class));
+        assertArrayEquals(rules, pricingEngine.getRules());
+        assertSame(table, Price.getTable());
+        assertEquals(version + 1, table.getVersion());
+        assertEquals(4.00, Price.calculate(Size.SMALL, Colors.BLUE, 0));
+        assertEquals(2.00, Price.calculate(5, Size.SMALL, Colors.BLUE, 0, 0));
+    }
+
+    @Test
+    public void testSetRulesSaveFails() throws IOException {
+        // Setup
+        PriceTable table = pricingEngine.getTable();
+        doThrow(new IOException()).when(mockObjectMapper).writeValue(any(File.class), any(PricingRule[].class));
+
+        // Invoke & Analyze
+        assertThrows(IOException.class, () -> pricingEngine.setRules(new PricingRule[0]));
+        assertArrayEquals(testRules, pricingEngine.getRules());
+        assertSame(table, Price.getTable());
+    }
+
+    @Test
+    public void testRecompilesWhenRuleEnds() throws Exception {
+        // Setup
+        long endsAt = System.currentTimeMillis() + 50;
+        pricingEngine.close();
+        when(mockObjectMapper.readValue(new File("timed.txt"), PricingRule[].class))
+                .thenReturn(new PricingRule[] { PricingRule.sku(99, 1.00, 0).during(null, endsAt) });
+
+        // Invoke
+        pricingEngine = new PricingEngine("timed.txt", mockObjectMapper, System::currentTimeMillis);
+        double during = Price.calculate(99, Size.SMALL, Colors.BLUE, 0, 0);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Price.calculate(99, Size.SMALL, Colors.BLUE, 0, 0) != 4.00 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Analyze
+        assertEquals(1.00, during);
+        assertEquals(4.00, Price.calculate(99, Size.SMALL, Colors.BLUE, 0, 0));
+        assertEquals(Long.MAX_VALUE, pricingEngine.getTable().getValidUntil());
+    }
+
+    @Test
+    public void testSaveAndLoad(@TempDir Path tempDir) throws IOException {
+        // Setup
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        File file = tempDir.resolve("pricing_rules.json").toFile();
+        objectMapper.writeValue(file, new PricingRule[0]);
+        PricingRule[] rules = { PricingRule.slot(PricingRule.Slot.JEWELRY, 3.50, 0).during(10L, null),
+                PricingRule.base(Size.LARGE, Colors.RED, null, 20) };
+
+        // Invoke
+        PricingEngine saved = new PricingEngine(file.getPath(), objectMapper, () -> 0);
+        saved.setRules(rules);
+        saved.close();
+        PricingEngine loaded = new PricingEngine(file.getPath(), objectMapper, () -> 10);
+
+        // Analyze
+        PricingRule[] read = loaded.getRules();
+        assertEquals(2, read.length);
+        assertEquals(PricingRule.Slot.JEWELRY, read[0].getSlot());
+        assertEquals(10L, read[0].getStartsAt());
+        assertEquals(Colors.RED, read[1].getColor());
+        assertEquals(5.60 + 3.50, Price.calculate(Size.LARGE, Colors.RED, 1 << 4));
+        loaded.close();
+    }
+
+    @Test
+    public void testConstructorException() throws IOException {
+        // Setup
+        doThrow(new IOException())
+                .when(mockObjectMapper)
+                .readValue(new File("doesnt_matter.txt"), PricingRule[].class);
+
+        // Invoke & Analyze
+        assertThrows(IOException.class,
+                () -> new PricingEngine("doesnt_matter.txt", mockObjectMapper),
+                "IOException not thrown");
+    }
+}
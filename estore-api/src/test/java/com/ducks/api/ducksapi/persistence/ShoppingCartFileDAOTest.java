@@ -1,25 +1,34 @@
 package com.ducks.api.ducksapi.persistence;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -32,17 +41,21 @@ public class ShoppingCartFileDAOTest {
 
     ShoppingCartFileDAO cartFileDAO;
     ShoppingCart[] testCarts;
-    ObjectMapper mockObjectMapper;
+    ObjectMapper spyObjectMapper;
+    @TempDir
+    Path tempDir;
+    File file;
 
     /**
-     * Before each test, we will create and inject a Mock Object Mapper to
-     * isolate the tests from the underlying file
+     * Before each test, we will write the test carts to a file of their own
+     * and inject a Spy Object Mapper to see what is written to it
+     * <br>
+     * The carts are streamed in, which a mock could not do
      * 
      * @throws IOException
      */
     @BeforeEach
     public void setupShoppingCartFileDAO() throws IOException {
-        mockObjectMapper = mock(ObjectMapper.class);
         testCarts = new ShoppingCart[3];
 
         ShoppingCart cartOne = new ShoppingCart(0, Map.of("1", 30, "2", 20, "3", 10));
@@ -53,16 +66,16 @@ public class ShoppingCartFileDAOTest {
         testCarts[1] = cartTwo;
         testCarts[2] = cartThree;
 
-        // When the object mapper is supposed to read from the file
-        // the mock object mapper will return the duck array above
-        when(mockObjectMapper
-                .readValue(new File("doesnt_matter.txt"), ShoppingCart[].class))
-                .thenReturn(testCarts);
-        cartFileDAO = new ShoppingCartFileDAO("doesnt_matter.txt", mockObjectMapper);
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        file = tempDir.resolve("carts.json").toFile();
+        objectMapper.writeValue(file, testCarts);
+        spyObjectMapper = spy(objectMapper);
+        cartFileDAO = new ShoppingCartFileDAO(file.getPath(), spyObjectMapper);
     }
 
     @Test
-    public void testGetCarts() {
+    public void testGetCarts() throws IOException {
         // Invoke
         ShoppingCart[] carts = cartFileDAO.getShoppingCarts();
 
@@ -74,7 +87,7 @@ public class ShoppingCartFileDAOTest {
     }
 
     @Test
-    public void testGetValidCart() {
+    public void testGetValidCart() throws IOException {
         // Invoke
         ShoppingCart cart = cartFileDAO.getShoppingCart(0);
 
@@ -83,7 +96,7 @@ public class ShoppingCartFileDAOTest {
     }
 
     @Test
-    public void testGetInvalidCart() {
+    public void testGetInvalidCart() throws IOException {
         // Invoke
         ShoppingCart cart = cartFileDAO.getShoppingCart(7);
 
@@ -92,23 +105,23 @@ public class ShoppingCartFileDAOTest {
     }
 
     @Test
-    public void testDeleteValidShoppingCart() {
+    public void testDeleteValidShoppingCart() throws IOException {
         boolean didDelete = assertDoesNotThrow(() -> cartFileDAO.deleteShoppingCart(0),
                 "Exception was thrown when it shouldn't have");
         assertTrue(didDelete, "didDelete should be true");
-        assertEquals(cartFileDAO.carts.size(), testCarts.length - 1);
+        assertEquals(cartFileDAO.getShoppingCarts().length, testCarts.length - 1);
     }
 
     @Test
-    public void testDeleteInvalidShoppingCart() {
+    public void testDeleteInvalidShoppingCart() throws IOException {
         boolean didDelete = assertDoesNotThrow(() -> cartFileDAO.deleteShoppingCart(7),
                 "Exception was thrown when it shouldn't have");
         assertFalse(didDelete, "didDelete should be false");
-        assertEquals(cartFileDAO.carts.size(), testCarts.length);
+        assertEquals(cartFileDAO.getShoppingCarts().length, testCarts.length);
     }
 
     @Test
-    public void testCreateShoppingCart() {
+    public void testCreateShoppingCart() throws IOException {
         // Setup
         Map<String, Integer> items = new HashMap<>();
         items.put("1", 10);
@@ -127,7 +140,7 @@ public class ShoppingCartFileDAOTest {
     }
 
     @Test
-    public void testCreateDuplicateShoppingCart() {
+    public void testCreateDuplicateShoppingCart() throws IOException {
         // Setup
         int customerId = 1;
 
@@ -148,7 +161,7 @@ public class ShoppingCartFileDAOTest {
     }
 
     @Test
-    public void testValidUpdateCart() {
+    public void testValidUpdateCart() throws IOException {
         // Setup
         int customerId = 1;
 
@@ -167,7 +180,7 @@ public class ShoppingCartFileDAOTest {
     }
 
     @Test
-    public void testInvalidUpdateCart() {
+    public void testInvalidUpdateCart() throws IOException {
         // Setup
         int customerId = 7;
 
@@ -184,4 +197,126 @@ public class ShoppingCartFileDAOTest {
         ShoppingCart actual = cartFileDAO.getShoppingCart(cart.getCustomerId());
         assertNotEquals(actual, cart, "The actual and cart objects should not be equal");
     }
+
+    @Test
+    public void testShardedCarts() throws IOException {
+        // Setup
+        ShoppingCartFileDAO shardedDAO = new ShoppingCartFileDAO(file.getPath(), spyObjectMapper, 2);
+        ShoppingCart newCart = new ShoppingCart(3, Map.of("1", 10));
+
+        // Invoke
+        shardedDAO.createShoppingCart(newCart);
+
+        // Analyze
+        assertArrayEquals(new ShoppingCart[] { testCarts[0], testCarts[1], testCarts[2], newCart },
+                shardedDAO.getShoppingCarts());
+        assertEquals(testCarts[2], shardedDAO.getShoppingCart(2));
+        verify(spyObjectMapper).writeValue(new File(file.getPath() + ".1"),
+                new ShoppingCart[] { testCarts[1], newCart });
+        verify(spyObjectMapper, never()).writeValue(eq(new File(file.getPath() + ".0")), any(Object.class));
+        verify(spyObjectMapper, never()).writeValue(eq(file), any(Object.class));
+    }
+
+    @Test
+    public void testSplitIntoShards() throws IOException {
+        // Invoke
+        new ShoppingCartFileDAO(file.getPath(), spyObjectMapper, 2);
+        ShoppingCartFileDAO reopenedDAO = new ShoppingCartFileDAO(file.getPath(), spyObjectMapper, 2);
+
+        // Analyze
+        assertEquals("2", Files.readString(tempDir.resolve("carts.json.shards")));
+        assertFalse(file.exists()); // Renamed, so it is never read again
+        assertTrue(tempDir.resolve("carts.json.unsharded").toFile().exists());
+        assertArrayEquals(new ShoppingCart[] { testCarts[0], testCarts[2] },
+                spyObjectMapper.readValue(tempDir.resolve("carts.json.0").toFile(), ShoppingCart[].class));
+        assertArrayEquals(testCarts, reopenedDAO.getShoppingCarts());
+    }
+
+    @Test
+    public void testSplitAfterMergeReplacesShards() throws IOException {
+        // Setup: split into two, then merge back into carts.json to change to three
+        new ShoppingCartFileDAO(file.getPath(), spyObjectMapper, 2);
+        ShoppingCart newCart = new ShoppingCart(3, Map.of("1", 10));
+        spyObjectMapper.writeValue(file,
+                new ShoppingCart[] { testCarts[0], testCarts[1], testCarts[2], newCart });
+        Files.delete(tempDir.resolve("carts.json.shards"));
+
+        // Invoke
+        ShoppingCartFileDAO resplitDAO = new ShoppingCartFileDAO(file.getPath(), spyObjectMapper, 3);
+
+        // Analyze
+        assertEquals("3", Files.readString(tempDir.resolve("carts.json.shards")));
+        assertArrayEquals(new ShoppingCart[] { testCarts[0], newCart },
+                spyObjectMapper.readValue(tempDir.resolve("carts.json.0").toFile(), ShoppingCart[].class));
+        assertArrayEquals(new ShoppingCart[] { testCarts[0], testCarts[1], testCarts[2], newCart },
+                resplitDAO.getShoppingCarts());
+    }
+
+    @Test
+    public void testShardCountChangeRefused() throws IOException {
+        // Setup
+        new ShoppingCartFileDAO(file.getPath(), spyObjectMapper, 2);
+
+        // Invoke & Analyze
+        assertThrows(IllegalArgumentException.class,
+                () -> new ShoppingCartFileDAO(file.getPath(), spyObjectMapper, 3));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ShoppingCartFileDAO(file.getPath(), spyObjectMapper, 1));
+    }
+
+    @Test
+    public void testSparseCustomerIds() throws IOException {
+        // Setup
+        ShoppingCartFileDAO boundedDAO = new ShoppingCartFileDAO(file.getPath(), spyObjectMapper, 2, 2);
+        ShoppingCart largest = new ShoppingCart(Integer.MAX_VALUE, Map.of("1", 1));
+        ShoppingCart negative = new ShoppingCart(-1, Map.of("2", 2));
+
+        // Invoke
+        boundedDAO.createShoppingCart(largest);
+        boundedDAO.createShoppingCart(negative);
+        boolean deleted = boundedDAO.deleteShoppingCart(-1);
+
+        // Analyze
+        assertTrue(deleted);
+        assertEquals(4, boundedDAO.getCount());
+        assertEquals(largest, boundedDAO.getShoppingCart(Integer.MAX_VALUE));
+        assertNull(boundedDAO.getShoppingCart(-1));
+        assertNull(boundedDAO.getShoppingCart(ShoppingCartFileDAO.DENSE_IDS + 1));
+    }
+
+    @Test
+    public void testLoadKeepsOnlyCapacity() throws IOException {
+        // Invoke
+        ShoppingCartFileDAO boundedDAO = new ShoppingCartFileDAO(file.getPath(), spyObjectMapper, 1, 2);
+
+        // Analyze
+        assertEquals(2, boundedDAO.getResidentCount());
+        assertEquals(3, boundedDAO.getCount());
+        assertEquals(testCarts[0], boundedDAO.getShoppingCart(0)); // Pushed out while loading
+        assertArrayEquals(testCarts, boundedDAO.getShoppingCarts());
+    }
+
+    @Test
+    public void testEvictedCartsAreReadBack() throws IOException {
+        // Setup
+        ShoppingCartFileDAO boundedDAO = new ShoppingCartFileDAO(file.getPath(), spyObjectMapper, 1, 2);
+        ShoppingCart updated = new ShoppingCart(1, Map.of("1", 1));
+        ShoppingCart created = new ShoppingCart(5, Map.of("2", 2));
+
+        // Invoke
+        ShoppingCart evicted = boundedDAO.getShoppingCart(0);
+        boundedDAO.updateShoppingCart(updated);
+        boundedDAO.createShoppingCart(created);
+        boolean deleted = boundedDAO.deleteShoppingCart(2);
+        ShoppingCart missing = boundedDAO.getShoppingCart(7);
+
+        // Analyze
+        assertEquals(testCarts[0], evicted);
+        assertTrue(deleted);
+        assertNull(missing);
+        assertEquals(2, boundedDAO.getResidentCount());
+        ShoppingCart[] expected = { testCarts[0], updated, created };
+        assertArrayEquals(expected, boundedDAO.getShoppingCarts());
+        assertArrayEquals(expected, new ShoppingCartFileDAO(file.getPath(), spyObjectMapper).getShoppingCarts());
+    }
 }
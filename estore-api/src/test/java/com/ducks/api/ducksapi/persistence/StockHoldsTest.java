@@ -0,0 +1,178 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.ducks.api.ducksapi.model.CartItems;
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.ducks.api.ducksapi.model.Size;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test the Stock Holds class
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class StockHoldsTest {
+    static final long TTL = 60_000;
+    static final long TICK = 1_000;
+
+    DuckFileDAO duckFileDAO;
+    StockHolds stockHolds;
+    long now; // The time the holds see
+
+    /**
+     * Before each test, we will create holds over a duck file DAO with a Mock
+     * Object Mapper and a clock the test moves by hand
+     *
+     * @throws IOException
+     */
+    @BeforeEach
+    public void setupStockHolds() throws IOException {
+        ObjectMapper mockObjectMapper = mock(ObjectMapper.class);
+        DuckOutfit outfit = new DuckOutfit(0, 0, 0, 0, 0);
+        Duck[] testDucks = new Duck[2];
+        testDucks[0] = new Duck(99, "Wi-Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE, outfit);
+        testDucks[1] = new Duck(100, "Galactic Agent 2", 11, 19.99, Size.SMALL, Colors.RED, outfit);
+        when(mockObjectMapper
+                .readValue(new File("doesnt_matter.txt"), Duck[].class))
+                .thenReturn(testDucks);
+        duckFileDAO = new DuckFileDAO("doesnt_matter.txt", mockObjectMapper);
+        now = 5_000;
+        stockHolds = new StockHolds(duckFileDAO, true, TTL, TICK, () -> now);
+    }
+
+    /**
+     * @return A cart for customer 1 with the given duck id and quantity pairs
+     */
+    private static ShoppingCart cart(int... lines) {
+        CartItems items = new CartItems();
+        for (int i = 0; i < lines.length; i += 2) {
+            items.setQuantity(lines[i], lines[i + 1]);
+        }
+        return new ShoppingCart(1, items);
+    }
+
+    @Test
+    public void testUpdateHoldsDifference() {
+        // Invoke
+        stockHolds.update(cart(99, 5, 100, 2));
+        stockHolds.update(cart(99, 3, 100, 20));
+
+        // Analyze
+        assertEquals(Map.of(99, 3, 100, 2), stockHolds.peek(1));
+        assertEquals(3, duckFileDAO.getDuck(99).getHeld());
+        assertEquals(2, duckFileDAO.getDuck(100).getHeld());
+    }
+
+    @Test
+    public void testHoldsAreExclusive() {
+        // Setup
+        stockHolds.update(cart(99, 10));
+        ShoppingCart other = new ShoppingCart(2, cart(99, 5).getCartItems());
+
+        // Invoke
+        stockHolds.update(other);
+
+        // Analyze
+        assertTrue(stockHolds.peek(2).isEmpty());
+        assertEquals(2, duckFileDAO.getDuck(99).getAvailable());
+    }
+
+    @Test
+    public void testReapExpiredHolds() {
+        // Setup
+        stockHolds.update(cart(99, 5));
+        stockHolds.update(new ShoppingCart(2, cart(100, 1).getCartItems()));
+        now += TTL / 2;
+        stockHolds.update(cart(99, 5)); // Pushes the first cart back
+
+        // Invoke
+        now += TTL / 2;
+        int firstReap = stockHolds.reap(now);
+        now += TTL / 2;
+        int secondReap = stockHolds.reap(now);
+
+        // Analyze
+        assertEquals(1, firstReap);
+        assertEquals(1, secondReap);
+        assertTrue(stockHolds.peek(1).isEmpty());
+        assertEquals(0, duckFileDAO.getDuck(99).getHeld());
+        assertEquals(0, duckFileDAO.getDuck(100).getHeld());
+    }
+
+    @Test
+    public void testTakeAndRestore() {
+        // Setup
+        stockHolds.update(cart(99, 5, 100, 2));
+
+        // Invoke
+        CartItems held = stockHolds.take(1);
+        boolean takenAway = stockHolds.peek(1).isEmpty();
+        stockHolds.restore(1, held);
+
+        // Analyze
+        assertTrue(takenAway);
+        assertEquals(Map.of(99, 5, 100, 2), stockHolds.peek(1));
+        assertEquals(5, duckFileDAO.getDuck(99).getHeld());
+    }
+
+    @Test
+    public void testTakeIntoSale() throws IOException {
+        // Setup
+        stockHolds.update(cart(99, 5, 100, 2));
+
+        // Invoke
+        CartItems held = stockHolds.take(1);
+        boolean reserved = duckFileDAO.reserveStock(Map.of(99, 5), held);
+        stockHolds.releaseUnused(held, Map.of(99, 5));
+
+        // Analyze
+        assertTrue(reserved);
+        assertEquals(7, duckFileDAO.getDuck(99).getQuantity());
+        assertEquals(0, duckFileDAO.getDuck(99).getHeld());
+        assertEquals(0, duckFileDAO.getDuck(100).getHeld());
+    }
+
+    @Test
+    public void testRelease() {
+        // Setup
+        stockHolds.update(cart(99, 5));
+
+        // Invoke
+        stockHolds.release(1);
+
+        // Analyze
+        assertTrue(stockHolds.peek(1).isEmpty());
+        assertEquals(12, duckFileDAO.getDuck(99).getAvailable());
+    }
+
+    @Test
+    public void testDisabled() {
+        // Setup
+        StockHolds disabled = new StockHolds(duckFileDAO, false, TTL, TICK, () -> now);
+
+        // Invoke
+        disabled.update(cart(99, 5));
+
+        // Analyze
+        assertFalse(disabled.isEnabled());
+        assertTrue(disabled.take(1).isEmpty());
+        assertEquals(0, duckFileDAO.getDuck(99).getHeld());
+    }
+}
@@ -0,0 +1,140 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test the Store Metrics class
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class StoreMetricsTest {
+    SimpleMeterRegistry registry;
+    StoreMetrics storeMetrics;
+
+    /**
+     * Before each test, we will create the metrics of a store in a registry of
+     * their own
+     */
+    @BeforeEach
+    public void setupStoreMetrics() {
+        registry = new SimpleMeterRegistry();
+        storeMetrics = new StoreMetrics("test", registry);
+    }
+
+    @Test
+    public void testOperation() {
+        // Setup
+        long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(5);
+
+        // Invoke
+        storeMetrics.operation("create", start);
+        storeMetrics.operation("create", System.nanoTime());
+        storeMetrics.operation("delete", System.nanoTime());
+
+        // Analyze
+        assertEquals(2, registry.get(StoreMetrics.OPERATION).tag("store", "test").tag("operation", "create")
+                .timer().count());
+        assertTrue(registry.get(StoreMetrics.OPERATION).tag("operation", "create").timer()
+                .max(TimeUnit.MILLISECONDS) >= 5);
+        assertEquals(1, registry.get(StoreMetrics.OPERATION).tag("operation", "delete").timer().count());
+    }
+
+    @Test
+    public void testFile() {
+        // Invoke
+        storeMetrics.loaded(System.nanoTime());
+        storeMetrics.saved(100, System.nanoTime());
+        storeMetrics.saved(300, System.nanoTime());
+
+        // Analyze
+        assertEquals(1, registry.get(StoreMetrics.FILE).tag("operation", "load").timer().count());
+        assertEquals(2, registry.get(StoreMetrics.FILE).tag("operation", "save").timer().count());
+        assertEquals(400, registry.get(StoreMetrics.FILE_BYTES).summary().totalAmount());
+    }
+
+    @Test
+    public void testLocked() {
+        // Invoke
+        storeMetrics.locked(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(2));
+
+        // Analyze
+        assertEquals(1, registry.get(StoreMetrics.LOCK_WAIT).tag("store", "test").timer().count());
+        assertTrue(registry.get(StoreMetrics.LOCK_WAIT).timer().totalTime(TimeUnit.MILLISECONDS) >= 2);
+    }
+
+    @Test
+    public void testGauge() {
+        // Setup
+        int[] size = { 3 };
+
+        // Invoke
+        storeMetrics.gauge(size, owner -> owner[0]);
+        size[0] = 4;
+
+        // Analyze
+        assertEquals(4, registry.get(StoreMetrics.SIZE).tag("store", "test").gauge().value());
+    }
+
+    @Test
+    public void testBatches() {
+        // Setup
+        WriteBatchMetrics batches = new WriteBatchMetrics();
+
+        // Invoke
+        storeMetrics.batches(batches);
+        batches.record(3, TimeUnit.MILLISECONDS.toNanos(4));
+        batches.record(5, TimeUnit.MILLISECONDS.toNanos(2));
+
+        // Analyze
+        assertEquals(2, registry.get(StoreMetrics.FLUSH).tag("store", "test").functionTimer().count());
+        assertEquals(6, registry.get(StoreMetrics.FLUSH).functionTimer().totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(8, registry.get(StoreMetrics.FLUSH_MUTATIONS).functionCounter().count());
+        assertEquals(5, registry.get(StoreMetrics.FLUSH_BATCH_MAX).gauge().value());
+    }
+
+    @Test
+    public void testDataAccessObjectRecordsGlobally() throws IOException {
+        // Setup
+        ObjectMapper mockObjectMapper = mock(ObjectMapper.class);
+        Duck[] testDucks = { new Duck(1, "Wi-Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE,
+                new DuckOutfit(0, 0, 0, 0, 0)) };
+        when(mockObjectMapper.readValue(new File("doesnt_matter.txt"), Duck[].class)).thenReturn(testDucks);
+        Metrics.addRegistry(registry);
+
+        try {
+            // Invoke
+            DuckFileDAO duckFileDAO = new DuckFileDAO("doesnt_matter.txt", mockObjectMapper);
+            duckFileDAO.deleteDuck(1);
+
+            // Analyze
+            assertEquals(1, registry.get(StoreMetrics.FILE).tag("store", "ducks").tag("operation", "load")
+                    .timer().count());
+            assertEquals(1, registry.get(StoreMetrics.OPERATION).tag("store", "ducks").tag("operation", "delete")
+                    .timer().count());
+            assertEquals(1, registry.get(StoreMetrics.LOCK_WAIT).tag("store", "ducks").timer().count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.ducks.api.ducksapi.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import com.ducks.api.ducksapi.controller.CheckoutController;
+import com.ducks.api.ducksapi.model.CartItems;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.ducks.api.ducksapi.persistence.DuckFileDAO;
+import com.ducks.api.ducksapi.persistence.ShoppingCartFileDAO;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Measures validating large carts against a catalog of 100,000 ducks, which is
+ * what both the validate and the checkout endpoints do before touching any
+ * stock
+ * <br>
+ * Run with {@code java -jar target/benchmarks.jar CartCheckoutBenchmark}.
+ * {@code validate} is a cart whose lines are all in stock, {@code validateShort}
+ * one where every hundredth line asks for more than there is, so a corrected
+ * cart is built. {@code stringKeyed} is the same walk over a cart keyed by
+ * strings, parsing every key, looking each duck up on its own and building the
+ * order map as checkout used to; the controller now resolves the cart with one
+ * {@link DuckFileDAO#getDucks(int[])} call and hands its own {@link CartItems}
+ * to the DAO as the order
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CartCheckoutBenchmark {
+    private static final int DUCKS = 100_000;
+    private static final int VALID = 0; // Customer id of the cart with every line in stock
+    private static final int SHORT = 1; // Customer id of the cart with some lines short
+
+    @Param({ "100", "10000" })
+    int lines; // Number of ducks in each cart
+
+    File ducksFile;
+    File cartsFile;
+    DuckFileDAO duckDao;
+    CheckoutController controller;
+    Map<String, Integer> stringItems;
+    Logger controllerLog;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // Keep the request log of the controller out of the measurement. The
+        // logger is held on to, as the level is lost if it is collected
+        controllerLog = Logger.getLogger(CheckoutController.class.getName());
+        controllerLog.setLevel(java.util.logging.Level.WARNING);
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        Duck[] ducks = Catalogs.ducks(DUCKS, 42);
+        ducksFile = File.createTempFile("ducks", ".json");
+        cartsFile = File.createTempFile("carts", ".json");
+        objectMapper.writeValue(ducksFile, ducks);
+        objectMapper.writeValue(cartsFile, new ShoppingCart[0]);
+        duckDao = new DuckFileDAO(ducksFile.getPath(), objectMapper);
+        ShoppingCartFileDAO cartDao = new ShoppingCartFileDAO(cartsFile.getPath(), objectMapper);
+        controller = new CheckoutController(cartDao, duckDao);
+
+        // Spread the lines over the catalog, skipping ducks that are out of stock
+        CartItems valid = new CartItems(lines);
+        CartItems someShort = new CartItems(lines);
+        int stride = DUCKS / lines;
+        for (int line = 0, id = 0; line < lines; ++line, id = line * stride) {
+            while (ducks[id].getQuantity() == 0) {
+                ++id;
+            }
+            valid.setQuantity(id, 1);
+            someShort.setQuantity(id, line % 100 == 0 ? ducks[id].getQuantity() + 1 : 1);
+        }
+        cartDao.createShoppingCart(new ShoppingCart(VALID, valid));
+        cartDao.createShoppingCart(new ShoppingCart(SHORT, someShort));
+        stringItems = new HashMap<>(cartDao.getShoppingCart(VALID).getItems());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(ducksFile.toPath());
+        Files.deleteIfExists(cartsFile.toPath());
+    }
+
+    @Benchmark
+    public ResponseEntity<ShoppingCart> validate() {
+        return controller.validateCart(VALID);
+    }
+
+    @Benchmark
+    public ResponseEntity<ShoppingCart> validateShort() {
+        return controller.validateCart(SHORT);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> stringKeyed() throws IOException {
+        Map<String, Duck> invalidItems = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : stringItems.entrySet()) {
+            Duck duck = duckDao.getDuck(Integer.parseInt(entry.getKey()));
+            if (duck == null || duck.getQuantity() < entry.getValue()) {
+                invalidItems.put(entry.getKey(), duck);
+            }
+        }
+        Map<Integer, Integer> order = new HashMap<>();
+        if (invalidItems.isEmpty()) {
+            for (Map.Entry<String, Integer> entry : stringItems.entrySet()) {
+                order.put(Integer.parseInt(entry.getKey()), entry.getValue());
+            }
+        }
+        return order;
+    }
+}
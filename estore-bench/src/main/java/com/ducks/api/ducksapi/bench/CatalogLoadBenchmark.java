@@ -0,0 +1,84 @@
+package com.ducks.api.ducksapi.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.persistence.DuckBinarySnapshot;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares loading a catalog from JSON with loading it from a
+ * {@link DuckBinarySnapshot}, which is what the Duck File DAO does at startup
+ * <br>
+ * Run with {@code java -jar target/benchmarks.jar CatalogLoadBenchmark}
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CatalogLoadBenchmark {
+    @Param({ "10000", "100000", "1000000" })
+    int size; // Number of ducks in the catalog
+
+    ObjectMapper objectMapper;
+    File json;
+    File snapshot;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        Duck[] ducks = Catalogs.ducks(size, 42);
+        json = File.createTempFile("ducks", ".json");
+        snapshot = File.createTempFile("ducks", DuckBinarySnapshot.EXTENSION);
+        objectMapper.writeValue(json, ducks);
+        DuckBinarySnapshot.write(snapshot, ducks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(json.toPath());
+        Files.deleteIfExists(snapshot.toPath());
+    }
+
+    @Benchmark
+    public Duck[] json() throws IOException {
+        return objectMapper.readValue(json, Duck[].class);
+    }
+
+    @Benchmark
+    public Duck[] binary() throws IOException {
+        return DuckBinarySnapshot.open(snapshot).getDucks();
+    }
+
+    /**
+     * Only maps the snapshot and reads one record, the cost of serving fields
+     * straight from the file without building every duck
+     */
+    @Benchmark
+    public String binaryMapOnly() throws IOException {
+        DuckBinarySnapshot mapped = DuckBinarySnapshot.open(snapshot);
+        return mapped.getName(mapped.size() - 1);
+    }
+}
@@ -0,0 +1,57 @@
+package com.ducks.api.ducksapi.bench;
+
+import java.util.Random;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
+
+/**
+ * Builds synthetic {@linkplain Duck duck} catalogs for the benchmarks
+ * <br>
+ * Names are made from a small vocabulary plus a serial number, so short
+ * queries match many ducks and long ones match few, like a real storefront
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public final class Catalogs {
+    private static final String[] ADJECTIVES = { "Galactic", "Ice", "Lazy", "Royal", "Rubber", "Mighty", "Tiny",
+            "Golden", "Shadow", "Cosmic", "Fuzzy", "Wi-Fire", "Turbo", "Silent", "Neon", "Polar" };
+    private static final String[] NOUNS = { "Agent", "Gladiator", "Pirate", "Knight", "Wizard", "Duckling",
+            "Captain", "Ranger", "Chef", "Ninja", "Sailor", "Scholar", "Drummer", "Baron", "Quacker", "Pilot" };
+
+    private Catalogs() {
+    }
+
+    /**
+     * @param id The id of the duck
+     *
+     * @return The name the catalog gives to that id
+     */
+    public static String nameOf(int id) {
+        return ADJECTIVES[id % ADJECTIVES.length] + " " + NOUNS[(id / ADJECTIVES.length) % NOUNS.length] + " "
+                + id;
+    }
+
+    /**
+     * Builds a catalog with ids 0 to size - 1
+     *
+     * @param size The number of ducks
+     * @param seed Seed for quantities, prices and attributes
+     *
+     * @return The ducks ordered by id
+     */
+    public static Duck[] ducks(int size, long seed) {
+        Random random = new Random(seed);
+        Duck[] ducks = new Duck[size];
+        for (int id = 0; id < size; ++id) {
+            DuckOutfit outfit = new DuckOutfit(random.nextInt(5), random.nextInt(5), random.nextInt(5),
+                    random.nextInt(5), random.nextInt(5));
+            ducks[id] = new Duck(id, nameOf(id), random.nextInt(100), 5 + random.nextInt(4000) / 100.0,
+                    Size.values()[random.nextInt(Size.values().length)],
+                    Colors.values()[random.nextInt(Colors.values().length)], outfit);
+        }
+        return ducks;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ducks.api.ducksapi.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.persistence.DuckColumnarDAO;
+import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.ducks.api.ducksapi.persistence.DuckFileDAO;
+import com.ducks.api.ducksapi.persistence.DuckNameIndex;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Prints the retained heap of the map-based {@link DuckFileDAO} and the
+ * {@link DuckColumnarDAO} for catalogs of several sizes, measured by walking
+ * their object graphs with JOL
+ * <br>
+ * The shared ObjectMapper is left out. Both stores keep the same
+ * {@link DuckNameIndex}, whose size is printed on its own so it can be told
+ * apart from the records
+ * <br>
+ * Run with
+ * {@code java -cp target/benchmarks.jar com.ducks.api.ducksapi.bench.FootprintReport [sizes...]}
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public final class FootprintReport {
+    private FootprintReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = args.length == 0 ? new int[] { 10_000, 100_000, 1_000_000 }
+                : java.util.Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        GraphLayout mapper = GraphLayout.parseInstance(objectMapper);
+
+        System.out.printf("%10s %14s %14s %14s %10s %10s%n", "ducks", "map (B)", "columnar (B)", "name index (B)",
+                "map/duck", "col/duck");
+        for (int size : sizes) {
+            Duck[] ducks = Catalogs.ducks(size, 42);
+            File file = File.createTempFile("ducks", ".json");
+            try {
+                objectMapper.writeValue(file, ducks);
+                ducks = null; // Only what the stores load should be left
+
+                long map = retained(new DuckFileDAO(file.getPath(), objectMapper), mapper);
+                long columnar = retained(new DuckColumnarDAO(file.getPath(), objectMapper), mapper);
+                DuckNameIndex index = new DuckNameIndex();
+                for (int id = 0; id < size; ++id) {
+                    index.put(id, Catalogs.nameOf(id));
+                }
+                long names = GraphLayout.parseInstance(index).totalSize();
+
+                System.out.printf("%10d %14d %14d %14d %10d %10d%n", size, map, columnar, names,
+                        (map - names) / size, (columnar - names) / size);
+            } finally {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+        System.out.println("map/duck and col/duck leave out the name index");
+    }
+
+    /**
+     * @param dao    The store to measure
+     * @param shared Objects the store references but does not own
+     *
+     * @return The bytes reachable from the store and not from the shared objects
+     */
+    private static long retained(DuckDAO dao, GraphLayout shared) {
+        return GraphLayout.parseInstance(dao).subtract(shared).totalSize();
+    }
+}
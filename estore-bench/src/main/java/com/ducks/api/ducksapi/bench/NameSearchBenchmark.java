@@ -0,0 +1,102 @@
+package com.ducks.api.ducksapi.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.persistence.DuckNameIndex;
+
+/**
+ * Compares the trigram {@link DuckNameIndex} with the linear
+ * {@code String.contains} scan that /inventory/search used before
+ * <br>
+ * Run with {@code java -jar target/benchmarks.jar NameSearchBenchmark}
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class NameSearchBenchmark {
+    @Param({ "10000", "100000", "1000000" })
+    int size; // Number of ducks in the catalog
+
+    // "ninja" matches one name in 256, "shadow ninja 4" a handful
+    @Param({ "ninja", "Shadow Ninja 4" })
+    String query;
+
+    @Param({ "20", "2147483647" })
+    int limit; // Page size, Integer.MAX_VALUE for every match
+
+    Duck[] ducks;
+    DuckNameIndex index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ducks = Catalogs.ducks(size, 42);
+        index = new DuckNameIndex();
+        for (Duck duck : ducks) {
+            index.put(duck.getId(), duck.getName());
+        }
+    }
+
+    /**
+     * The search as it was: case-sensitive and over every duck, with paging
+     * applied afterwards
+     */
+    @Benchmark
+    public List<Duck> scan() {
+        List<Duck> found = new ArrayList<>();
+        for (Duck duck : ducks) {
+            if (duck.getName().contains(query)) {
+                found.add(duck);
+            }
+        }
+        return found.size() > limit ? found.subList(0, limit) : found;
+    }
+
+    /**
+     * A case-insensitive scan, which is what the index answers
+     */
+    @Benchmark
+    public List<Duck> scanIgnoreCase() {
+        String needle = DuckNameIndex.normalize(query);
+        List<Duck> found = new ArrayList<>();
+        for (Duck duck : ducks) {
+            if (DuckNameIndex.normalize(duck.getName()).contains(needle)) {
+                found.add(duck);
+                if (found.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public Duck[] index() {
+        int[] ids = index.search(query, 0, limit);
+        Duck[] found = new Duck[ids.length];
+        for (int i = 0; i < ids.length; ++i) {
+            found[i] = ducks[ids[i]];
+        }
+        return found;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ducks.api.ducksapi.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ducks.api.ducksapi.persistence.Pbkdf2PasswordHasher;
+
+/**
+ * Measures how many logins per second one thread can verify at each
+ * {@link Pbkdf2PasswordHasher} cost, which is what sizes
+ * {@code accounts.password.threads} for a target login rate
+ * <br>
+ * Run with {@code java -jar target/benchmarks.jar PasswordVerifyBenchmark},
+ * adding {@code -t <threads>} to see how it scales across cores
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordVerifyBenchmark {
+    @Param({ "10000", "100000", "310000", "600000" })
+    int iterations; // PBKDF2 cost, 310000 is the default
+
+    Pbkdf2PasswordHasher hasher;
+    String hash;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        hasher = new Pbkdf2PasswordHasher(iterations);
+        hash = hasher.hash("StrongPassword1234!");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify("StrongPassword1234!", hash);
+    }
+
+    @Benchmark
+    public boolean verifyWrong() {
+        return hasher.verify("StrongPassword1234?", hash);
+    }
+}
@@ -0,0 +1,231 @@
+package com.ducks.api.ducksapi.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import com.ducks.api.ducksapi.controller.CheckoutController;
+import com.ducks.api.ducksapi.model.Account;
+import com.ducks.api.ducksapi.model.CartItems;
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.ducks.api.ducksapi.model.Size;
+import com.ducks.api.ducksapi.model.UserAccount;
+import com.ducks.api.ducksapi.persistence.AccountFileDAO;
+import com.ducks.api.ducksapi.persistence.CredentialService;
+import com.ducks.api.ducksapi.persistence.DuckFileDAO;
+import com.ducks.api.ducksapi.persistence.Pbkdf2PasswordHasher;
+import com.ducks.api.ducksapi.persistence.ShoppingCartFileDAO;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Measures the file-backed DAOs as the application uses them, with the
+ * catalog, the accounts and the carts all at the same size
+ * <br>
+ * Every operation is measured as throughput and as sampled latency, whose
+ * percentiles JMH reports. Adding {@code -prof gc} gives the allocation rate;
+ * {@link PersistenceSuite} runs it that way and compares the results with a
+ * baseline. The data files live in {@code /dev/shm} when it exists, so the
+ * numbers are of the DAOs rather than of the disk; set {@code -Dbench.data.dir}
+ * to use another directory
+ * <br>
+ * Passwords are hashed with a single PBKDF2 iteration, as hashing cost is
+ * measured by {@link PasswordVerifyBenchmark}. {@code checkout} puts the stock
+ * back and refills the cart after checking it out, so that every invocation
+ * finds a full cart; the refill alone is what {@code cartUpdate} measures
+ * <br>
+ * Run with {@code java -jar target/benchmarks.jar PersistenceBenchmark}
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark {
+    private static final String PASSWORD = "StrongPassword1234!";
+    private static final int CART_LINES = 3;
+
+    @Param({ "100", "10000", "1000000" })
+    int size; // Number of ducks, accounts and carts
+
+    Path dataDir;
+    DuckFileDAO duckDao;
+    AccountFileDAO accountDao;
+    ShoppingCartFileDAO cartDao;
+    CredentialService credentials;
+    CheckoutController checkoutController;
+    CartItems[] cartItems; // The full items of every cart
+    Logger controllerLog;
+    int next; // Picks the duck, account or cart of the next invocation
+    int created; // Makes the names of created ducks and accounts unique
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // Keep the request log of the controller out of the measurement. The
+        // logger is held on to, as the level is lost if it is collected
+        controllerLog = Logger.getLogger(CheckoutController.class.getName());
+        controllerLog.setLevel(java.util.logging.Level.WARNING);
+        ObjectMapper objectMapper = new ObjectMapper()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        dataDir = Files.createTempDirectory(dataRoot(), "ducks-bench");
+        File ducksFile = dataDir.resolve("ducks.json").toFile();
+        File accountsFile = dataDir.resolve("accounts.json").toFile();
+        File cartsFile = dataDir.resolve("carts.json").toFile();
+
+        Duck[] ducks = Catalogs.ducks(size, 42);
+        objectMapper.writeValue(ducksFile, ducks);
+
+        // Accounts are written already hashed, as loading hashes plaintext ones
+        Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(1);
+        String hash = hasher.hash(PASSWORD);
+        Account[] accounts = new Account[size];
+        for (int id = 0; id < size; ++id) {
+            accounts[id] = new UserAccount(id + 1, usernameOf(id), null);
+            accounts[id].setPasswordHash(hash);
+        }
+        objectMapper.writeValue(accountsFile, accounts);
+        accounts = null;
+
+        // Every cart has a few ducks that are in stock
+        cartItems = new CartItems[size];
+        ShoppingCart[] carts = new ShoppingCart[size];
+        for (int customer = 0, id = 0; customer < size; ++customer) {
+            cartItems[customer] = new CartItems(CART_LINES);
+            while (cartItems[customer].size() < CART_LINES) {
+                if (ducks[id].getQuantity() > 0) {
+                    cartItems[customer].setQuantity(id, 1);
+                }
+                id = (id + 7919) % size;
+            }
+            carts[customer] = new ShoppingCart(customer, new CartItems(cartItems[customer]));
+        }
+        objectMapper.writeValue(cartsFile, carts);
+        carts = null;
+        ducks = null;
+
+        duckDao = new DuckFileDAO(ducksFile.getPath(), objectMapper);
+        credentials = new CredentialService(hasher, 1, 64);
+        accountDao = new AccountFileDAO(accountsFile.getPath(), objectMapper, 0, credentials);
+        cartDao = new ShoppingCartFileDAO(cartsFile.getPath(), objectMapper, 8, 100_000);
+        checkoutController = new CheckoutController(cartDao, duckDao);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        duckDao.close();
+        accountDao.close();
+        credentials.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * @return Where the data directories are made: the directory named by
+     *         {@code bench.data.dir}, else the tmpfs at {@code /dev/shm}, else
+     *         the default temporary directory
+     */
+    static Path dataRoot() {
+        String configured = System.getProperty("bench.data.dir");
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        File shm = new File("/dev/shm");
+        return shm.isDirectory() && shm.canWrite() ? shm.toPath() : Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * @param id An index from 0 to size - 1
+     *
+     * @return The username of the seeded account
+     */
+    private static String usernameOf(int id) {
+        return "customer" + id;
+    }
+
+    /**
+     * @return The index of the next duck, account or cart to use
+     */
+    private int next() {
+        next = next + 1 == size ? 0 : next + 1;
+        return next;
+    }
+
+    @Benchmark
+    public Duck[] getDucks() throws IOException {
+        return duckDao.getDucks();
+    }
+
+    @Benchmark
+    public Duck[] findDucks() throws IOException {
+        return duckDao.findDucks(Catalogs.nameOf(next()));
+    }
+
+    @Benchmark
+    public Duck createDuck() throws IOException {
+        return duckDao.createDuck(new Duck(0, "Benchmark Duck " + created++, 10, 0, Size.MEDIUM, Colors.YELLOW,
+                new DuckOutfit(0, 0, 0, 0, 0)));
+    }
+
+    @Benchmark
+    public Duck updateDuck() throws IOException {
+        int id = next();
+        Duck current = duckDao.getDuck(id);
+        return duckDao.updateDuck(new Duck(id, current.getName(), current.getQuantity(), current.getCustomPrice(),
+                current.getSize(), current.getColor(), current.getOutfit()));
+    }
+
+    @Benchmark
+    public Account createAccount() throws IOException {
+        return accountDao.createAccount(new UserAccount(0, "benchmark" + created++, PASSWORD));
+    }
+
+    @Benchmark
+    public Account login() throws IOException {
+        return accountDao.getAccountByUsername(usernameOf(next()));
+    }
+
+    @Benchmark
+    public ShoppingCart cartUpdate() throws IOException {
+        int customer = next();
+        return cartDao.updateShoppingCart(new ShoppingCart(customer, new CartItems(cartItems[customer])));
+    }
+
+    @Benchmark
+    public ResponseEntity<ShoppingCart> checkout() throws IOException {
+        int customer = next();
+        ResponseEntity<ShoppingCart> response = checkoutController.checkout(customer);
+        if (response.getStatusCode().is2xxSuccessful()) {
+            duckDao.releaseStock(cartItems[customer]);
+            cartDao.updateShoppingCart(new ShoppingCart(customer, new CartItems(cartItems[customer])));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,153 @@
+package com.ducks.api.ducksapi.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Runs {@link PersistenceBenchmark} with the GC profiler, writes the results
+ * as JSON and, given the results of an earlier run, fails when any operation
+ * got slower or allocates more than it did then
+ * <br>
+ * Throughput may not drop, and mean sampled latency and bytes allocated per
+ * operation may not grow, by more than {@code -Dbench.tolerance} (0.10 by
+ * default). {@code -Dbench.sizes=100,10000} limits the sizes that are run
+ * <br>
+ * Run with
+ * {@code java -cp target/benchmarks.jar com.ducks.api.ducksapi.bench.PersistenceSuite [results.json [baseline.json]]}
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public final class PersistenceSuite {
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private PersistenceSuite() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String results = args.length > 0 ? args[0] : "persistence-results.json";
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(PersistenceBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(results);
+        String sizes = System.getProperty("bench.sizes");
+        if (sizes != null) {
+            options.param("size", sizes.split(","));
+        }
+        new Runner(options.build()).run();
+
+        if (args.length > 1) {
+            double tolerance = Double.parseDouble(System.getProperty("bench.tolerance", "0.10"));
+            int regressions = compare(new File(results), new File(args[1]), tolerance);
+            if (regressions > 0) {
+                System.out.println(regressions + " regression(s) against " + args[1]);
+                System.exit(1);
+            }
+            System.out.println("No regressions against " + args[1]);
+        }
+    }
+
+    /**
+     * Prints every measurement of the results that is worse than the same one
+     * of the baseline by more than the tolerance
+     *
+     * @param results   The JSON results of this run
+     * @param baseline  The JSON results to compare with
+     * @param tolerance The fraction a measurement may be worse by
+     *
+     * @return The number of measurements that were worse
+     *
+     * @throws IOException If either file could not be read
+     */
+    static int compare(File results, File baseline, double tolerance) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> before = new HashMap<>();
+        for (JsonNode run : objectMapper.readTree(baseline)) {
+            before.put(keyOf(run), run);
+        }
+
+        int regressions = 0;
+        for (JsonNode run : objectMapper.readTree(results)) {
+            JsonNode old = before.get(keyOf(run));
+            if (old == null) {
+                continue; // Nothing to compare with
+            }
+            // Throughput is better higher, sampled time is better lower
+            boolean higherIsBetter = "thrpt".equals(run.path("mode").asText());
+            if (worse(keyOf(run), score(old.path("primaryMetric")), score(run.path("primaryMetric")),
+                    higherIsBetter, tolerance)) {
+                ++regressions;
+            }
+            if (higherIsBetter && worse(keyOf(run) + " " + ALLOCATION, allocation(old), allocation(run), false,
+                    tolerance)) {
+                ++regressions;
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * @return Whether the measurement got worse by more than the tolerance,
+     *         printing it if so
+     */
+    private static boolean worse(String name, double before, double after, boolean higherIsBetter,
+            double tolerance) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+            return false;
+        }
+        double change = (after - before) / before;
+        boolean worse = higherIsBetter ? change < -tolerance : change > tolerance;
+        if (worse) {
+            System.out.printf("REGRESSION %s: %.3f -> %.3f (%+.1f%%)%n", name, before, after, change * 100);
+        }
+        return worse;
+    }
+
+    /**
+     * @param run One run of the JSON results
+     *
+     * @return The benchmark, mode and parameters of the run
+     */
+    private static String keyOf(JsonNode run) {
+        return run.path("benchmark").asText() + " " + run.path("mode").asText() + " " + run.path("params");
+    }
+
+    /**
+     * @param run One run of the JSON results
+     *
+     * @return The bytes allocated per operation, or NaN if the GC profiler did
+     *         not run
+     */
+    private static double allocation(JsonNode run) {
+        // Older JMH versions put a dot in front of the profiler metrics
+        Iterator<Map.Entry<String, JsonNode>> metrics = run.path("secondaryMetrics").fields();
+        while (metrics.hasNext()) {
+            Map.Entry<String, JsonNode> metric = metrics.next();
+            if (metric.getKey().endsWith(ALLOCATION)) {
+                return score(metric.getValue());
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * @return The score of the metric, or NaN if it has none
+     */
+    private static double score(JsonNode metric) {
+        JsonNode score = metric.path("score");
+        return score.isNumber() ? score.asDouble() : Double.NaN;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ducks.api.ducksapi.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Price;
+import com.ducks.api.ducksapi.model.Size;
+
+/**
+ * Measures the cost of reading and customizing duck prices
+ * <br>
+ * Run with {@code java -jar target/benchmarks.jar PriceBenchmark -prof gc};
+ * {@code gc.alloc.rate.norm} should read 0 B/op for {@code read} and
+ * {@code customize}. {@code legacy} repeats what every setter used to do
+ * (a new outfit array and a new Price) for comparison
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceBenchmark {
+    private static final Size[] SIZES = Size.values();
+    private static final Colors[] COLORS = Colors.values();
+
+    Duck duck;
+    int step;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        duck = new Duck(1, "Wi-Fire", 10, 0, Size.SMALL, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0));
+    }
+
+    @Benchmark
+    public double read() {
+        return duck.getPrice();
+    }
+
+    /**
+     * Walks through the attributes the way the customize page does, reading the
+     * price after every change
+     */
+    @Benchmark
+    public double customize() {
+        int i = ++step;
+        double total = 0;
+        duck.setSize(SIZES[i % SIZES.length]);
+        total += duck.getPrice();
+        duck.setColor(COLORS[i % COLORS.length]);
+        total += duck.getPrice();
+        duck.setHatUID(i & 1);
+        total += duck.getPrice();
+        duck.setShirtUID(i & 2);
+        total += duck.getPrice();
+        duck.setJewelryUID(i & 4);
+        total += duck.getPrice();
+        return total;
+    }
+
+    /**
+     * The previous pricing, once per setter
+     */
+    @Benchmark
+    public double legacy() {
+        double total = 0;
+        for (int setter = 0; setter < 5; ++setter) {
+            int[] outfit = duck.getOutfit().getOutfitAsArray();
+            double price = duck.getColor().getPrice() + duck.getSize().getPrice();
+            for (int uid : outfit) {
+                if (uid != 0) {
+                    price += 2.00;
+                }
+            }
+            total += new Price(price).getPrice();
+        }
+        return total;
+    }
+}
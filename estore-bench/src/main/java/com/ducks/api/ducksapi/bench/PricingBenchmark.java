@@ -0,0 +1,98 @@
+package com.ducks.api.ducksapi.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.Price;
+import com.ducks.api.ducksapi.model.PriceTable;
+import com.ducks.api.ducksapi.model.PricingRule;
+import com.ducks.api.ducksapi.model.Size;
+
+/**
+ * Measures the cost of pricing every duck in a catalog of one million through
+ * the compiled {@link PriceTable}, which is what a catalog render or a checkout
+ * pays per duck
+ * <br>
+ * Run with {@code java -jar target/benchmarks.jar PricingBenchmark}; the
+ * {@code price} score is nanoseconds per duck. {@code skus} is the number of
+ * ducks with a rule of their own, on top of a base and a slot promotion when
+ * it is not 0. {@code compile} is the cost of rebuilding the table when the
+ * rules change
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PricingBenchmark {
+    private static final int DUCKS = 1_000_000;
+
+    @Param({ "0", "1000", "100000" })
+    int skus; // Number of ducks with a rule of their own
+
+    Duck[] ducks;
+    List<PricingRule> rules;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ducks = Catalogs.ducks(DUCKS, 42);
+        // Half of the ducks follow their attributes, half have a price set by hand
+        for (int id = 0; id < DUCKS; id += 2) {
+            ducks[id].updatePrice();
+        }
+
+        rules = new ArrayList<>();
+        if (skus > 0) {
+            rules.add(PricingRule.base(Size.EXTRA_LARGE, null, null, 15));
+            rules.add(PricingRule.base(null, Colors.YELLOW, 0.50, 0));
+            rules.add(PricingRule.slot(PricingRule.Slot.HAT, 1.00, 0));
+        }
+        int stride = skus == 0 ? 1 : DUCKS / skus;
+        for (int sku = 0; sku < skus; ++sku) {
+            rules.add(PricingRule.sku(sku * stride, sku % 2 == 0 ? 4.99 : null, 10));
+        }
+        Price.setTable(PriceTable.compile(rules, System.currentTimeMillis()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Price.setTable(PriceTable.standard());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DUCKS)
+    public double price() {
+        double total = 0;
+        for (Duck duck : ducks) {
+            total += duck.getPrice();
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public PriceTable compile() {
+        return PriceTable.compile(rules, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,399 @@
+package com.ducks.api.ducksapi.bench;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.ducks.api.ducksapi.DucksApiApplication;
+import com.ducks.api.ducksapi.model.CartItems;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Boots the whole application on a random port over seeded data files and
+ * sends it storefront traffic, then prints the latency percentiles of every
+ * endpoint
+ * <br>
+ * The load is an open model: requests are sent on a schedule at
+ * {@code load.rate} per second, with exponential gaps between them, whether
+ * or not earlier ones have been answered. Every latency is measured from when
+ * its request was due rather than from when it was sent, so a server that
+ * stalls is charged for the requests that queued up behind the stall. The
+ * latency from the send alone, which is what a closed-loop client would see,
+ * is kept next to it; where its p99 is far below the due-time p99, the row is
+ * flagged, as a closed-loop test would have hidden that wait (coordinated
+ * omission). The generator itself is flagged when it sent requests late
+ * <br>
+ * {@code load.mix} weighs the kinds of request:
+ * <ul>
+ * <li>{@code inventory}: {@code GET /inventory}</li>
+ * <li>{@code search}: {@code GET /inventory/search} for a word or two of a
+ * duck name</li>
+ * <li>{@code cart}: {@code PUT /cart} with one to three ducks</li>
+ * <li>{@code checkout}: {@code PUT /cart/checkout/{id}}, for the customer
+ * whose cart was filled longest ago</li>
+ * </ul>
+ * The other settings are {@code load.rate} (200), {@code load.seconds} (60),
+ * {@code load.warmup-seconds} (10, not recorded), {@code load.ducks} (1000),
+ * {@code load.customers} (1000), {@code load.seed} (42) and
+ * {@code load.lag-ms} (1, how late a send may be before it counts as late)
+ * <br>
+ * {@code load.threads} picks what the server handles requests on:
+ * {@code platform} (the default, Tomcat's pool), {@code virtual} (a virtual
+ * thread per request, which needs Java 21) or {@code both}, which runs the
+ * same load against each in turn, over fresh data, so that their reports can
+ * be compared. {@code load.server-threads} shrinks Tomcat's pool, so that it
+ * saturates at a rate this machine can offer. The data files are written to
+ * {@code bench.data.dir}, or a tmpfs; point it at a real disk to see requests
+ * wait behind slow saves
+ * <br>
+ * Run with
+ * {@code java -Dload.mix=inventory:60,search:25,cart:12,checkout:3 -cp target/benchmarks.jar com.ducks.api.ducksapi.bench.StorefrontLoadTest}
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public final class StorefrontLoadTest {
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final double OMISSION_RATIO = 2.0; // Due-time over send-time p99 that is flagged
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(TIMEOUT).build();
+    private final Random random;
+    private final int ducks;
+    private final int customers;
+    private final boolean virtualThreads; // Whether the server handles requests on virtual threads
+    private final int serverThreads; // Size of Tomcat's pool, 0 for its default
+    private final ConcurrentLinkedQueue<Integer> filledCarts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong maxInFlight = new AtomicLong();
+    private String base; // http://localhost:port
+
+    private StorefrontLoadTest(int ducks, int customers, long seed, boolean virtualThreads, int serverThreads) {
+        this.ducks = ducks;
+        this.customers = customers;
+        this.virtualThreads = virtualThreads;
+        this.serverThreads = serverThreads;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * The latencies of one kind of request
+     */
+    private static final class Endpoint {
+        final String name;
+        final int weight;
+        final Histogram dueTime = new ConcurrentHistogram(HIGHEST_MICROS, 3); // From when it was due
+        final Histogram sendTime = new ConcurrentHistogram(HIGHEST_MICROS, 3); // From when it was sent
+        final AtomicLong failures = new AtomicLong(); // Answers other than 2xx, and no answer
+
+        Endpoint(String name, int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("load.rate", "200"));
+        long seconds = Long.getLong("load.seconds", 60);
+        long warmupSeconds = Long.getLong("load.warmup-seconds", 10);
+        long lagMicros = TimeUnit.MILLISECONDS.toMicros(Long.getLong("load.lag-ms", 1));
+        String mixes = System.getProperty("load.mix", "inventory:60,search:25,cart:12,checkout:3");
+        int serverThreads = Integer.getInteger("load.server-threads", 0);
+
+        for (boolean virtualThreads : parseThreads(System.getProperty("load.threads", "platform"))) {
+            List<Endpoint> mix = parseMix(mixes);
+            StorefrontLoadTest test = new StorefrontLoadTest(Integer.getInteger("load.ducks", 1000),
+                    Integer.getInteger("load.customers", 1000), Long.getLong("load.seed", 42), virtualThreads,
+                    serverThreads);
+
+            Path dataDir = Files.createTempDirectory(PersistenceBenchmark.dataRoot(), "ducks-load");
+            ConfigurableApplicationContext context = null;
+            try {
+                context = test.boot(dataDir);
+                String threads = !virtualThreads ? "platform threads"
+                        : Runtime.version().feature() >= 21 ? "virtual threads"
+                        : "platform threads, as virtual threads need Java 21";
+                System.out.printf("Sending %.0f requests/s for %ds after %ds of warmup to %s on %s%n", rate, seconds,
+                        warmupSeconds, test.base, threads);
+                Histogram lag = test.run(mix, rate, TimeUnit.SECONDS.toNanos(warmupSeconds),
+                        TimeUnit.SECONDS.toNanos(seconds));
+                test.report(mix, lag, lagMicros);
+            } finally {
+                if (context != null) {
+                    context.close();
+                }
+                try (Stream<Path> files = Files.walk(dataDir)) {
+                    files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param threads {@code platform}, {@code virtual} or {@code both}
+     *
+     * @return Whether each run handles requests on virtual threads
+     */
+    static List<Boolean> parseThreads(String threads) {
+        switch (threads.trim()) {
+            case "platform":
+                return List.of(false);
+            case "virtual":
+                return List.of(true);
+            case "both":
+                return List.of(false, true);
+            default:
+                throw new IllegalArgumentException("Unknown load.threads: " + threads);
+        }
+    }
+
+    /**
+     * @param mix Comma-separated {@code name:weight} pairs
+     *
+     * @return The endpoints with a weight above 0
+     */
+    static List<Endpoint> parseMix(String mix) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split(":");
+            String name = pair[0].trim();
+            if (!List.of("inventory", "search", "cart", "checkout").contains(name) || pair.length != 2) {
+                throw new IllegalArgumentException("Unknown load.mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                endpoints.add(new Endpoint(name, weight));
+            }
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("load.mix has no weights above 0");
+        }
+        return endpoints;
+    }
+
+    /**
+     * Writes the seeded data files and starts the application over them
+     *
+     * @param dataDir Where the data files are written
+     *
+     * @return The running application
+     *
+     * @throws IOException If a data file could not be written
+     */
+    private ConfigurableApplicationContext boot(Path dataDir) throws IOException {
+        Duck[] catalog = Catalogs.ducks(ducks, 42);
+        for (Duck duck : catalog) {
+            duck.setQuantity(1_000_000); // Checkouts should not run out of stock
+        }
+        objectMapper.writeValue(dataDir.resolve("ducks.json").toFile(), catalog);
+
+        // Every customer starts with a full cart, so that checkouts have
+        // something to buy before the cart requests fill any
+        ShoppingCart[] carts = new ShoppingCart[customers];
+        for (int customer = 0; customer < customers; ++customer) {
+            carts[customer] = new ShoppingCart(customer, fill());
+            filledCarts.add(customer);
+        }
+        objectMapper.writeValue(dataDir.resolve("carts.json").toFile(), carts);
+        for (String empty : new String[] { "accounts.json", "custom_ducks.json", "pricing_rules.json" }) {
+            Files.writeString(dataDir.resolve(empty), "[]");
+        }
+
+        // Given as arguments, as they must win over application.properties
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0", "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN", "--ducks.file=" + file(dataDir, "ducks.json"),
+                "--carts.file=" + file(dataDir, "carts.json"), "--accounts.file=" + file(dataDir, "accounts.json"),
+                "--custom_ducks.file=" + file(dataDir, "custom_ducks.json"),
+                "--pricing.rules.file=" + file(dataDir, "pricing_rules.json"),
+                "--spring.threads.virtual.enabled=" + virtualThreads));
+        if (serverThreads > 0) {
+            arguments.add("--server.tomcat.threads.max=" + serverThreads);
+            arguments.add("--server.tomcat.threads.min-spare=" + serverThreads);
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DucksApiApplication.class)
+                .run(arguments.toArray(new String[0]));
+        base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        return context;
+    }
+
+    private static String file(Path dataDir, String name) {
+        return dataDir.resolve(name).toFile().getPath();
+    }
+
+    /**
+     * @return One to three random ducks, one of each
+     */
+    private CartItems fill() {
+        CartItems items = new CartItems();
+        for (int lines = 1 + random.nextInt(3); lines > 0; --lines) {
+            items.setQuantity(random.nextInt(ducks), 1);
+        }
+        return items;
+    }
+
+    /**
+     * Sends requests on schedule until the warmup and the measurement are over
+     * and every request is answered
+     *
+     * @param mix         The endpoints to pick from by weight
+     * @param rate        Requests per second
+     * @param warmupNanos How long to send before recording
+     * @param runNanos    How long to record
+     *
+     * @return How late, in microseconds, the recorded requests were sent
+     *
+     * @throws IOException If a request body could not be written
+     */
+    private Histogram run(List<Endpoint> mix, double rate, long warmupNanos, long runNanos) throws IOException {
+        int totalWeight = mix.stream().mapToInt(endpoint -> endpoint.weight).sum();
+        Histogram lag = new Histogram(HIGHEST_MICROS, 3);
+        long start = System.nanoTime();
+        long recordFrom = start + warmupNanos;
+        long end = recordFrom + runNanos;
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+
+        for (long due = start; due < end; due += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos)) {
+            long now;
+            while ((now = System.nanoTime()) < due) {
+                LockSupport.parkNanos(due - now);
+            }
+            Endpoint endpoint = pick(mix, random.nextInt(totalWeight));
+            boolean recorded = due >= recordFrom;
+            if (recorded) {
+                lag.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(now - due), HIGHEST_MICROS));
+            }
+            send(endpoint, request(endpoint), due, now, recorded);
+        }
+
+        long deadline = System.nanoTime() + TIMEOUT.toNanos() * 2;
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return lag;
+    }
+
+    private static Endpoint pick(List<Endpoint> mix, int roll) {
+        for (Endpoint endpoint : mix) {
+            roll -= endpoint.weight;
+            if (roll < 0) {
+                return endpoint;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    /**
+     * @return The next request for the endpoint
+     *
+     * @throws IOException If the request body could not be written
+     */
+    private HttpRequest request(Endpoint endpoint) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(TIMEOUT);
+        switch (endpoint.name) {
+        case "inventory":
+            return builder.uri(URI.create(base + "/inventory")).GET().build();
+        case "search":
+            // The first word, or the first two, of a name match many ducks
+            String[] words = Catalogs.nameOf(random.nextInt(ducks)).split(" ");
+            String query = random.nextBoolean() ? words[0] : words[0] + " " + words[1];
+            return builder.uri(URI.create(base + "/inventory/search?limit=20&name="
+                    + URLEncoder.encode(query, StandardCharsets.UTF_8))).GET().build();
+        case "cart":
+            int customer = random.nextInt(customers);
+            filledCarts.add(customer);
+            byte[] body = objectMapper.writeValueAsBytes(new ShoppingCart(customer, fill()));
+            return builder.uri(URI.create(base + "/cart")).header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+        default:
+            Integer filled = filledCarts.poll();
+            int buyer = filled != null ? filled : random.nextInt(customers);
+            return builder.uri(URI.create(base + "/cart/checkout/" + buyer))
+                    .PUT(HttpRequest.BodyPublishers.noBody()).build();
+        }
+    }
+
+    /**
+     * Sends the request without waiting for it and records its latencies when
+     * it is answered
+     */
+    private void send(Endpoint endpoint, HttpRequest request, long due, long sent, boolean recorded) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            long answered = System.nanoTime();
+            inFlight.decrementAndGet();
+            if (!recorded) {
+                return;
+            }
+            if (error != null || response.statusCode() / 100 != 2) {
+                endpoint.failures.incrementAndGet();
+            }
+            endpoint.dueTime.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(answered - due), HIGHEST_MICROS));
+            endpoint.sendTime.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(answered - sent), HIGHEST_MICROS));
+        });
+    }
+
+    /**
+     * Prints the percentiles of every endpoint and flags coordinated omission
+     */
+    private void report(List<Endpoint> mix, Histogram lag, long lagMicros) {
+        System.out.printf("%-10s %8s %8s %10s %10s %10s %10s %12s %s%n", "endpoint", "requests", "failed",
+                "p50 (ms)", "p99 (ms)", "p999 (ms)", "max (ms)", "sent p99", "");
+        for (Endpoint endpoint : mix) {
+            Histogram due = endpoint.dueTime;
+            double dueP99 = due.getValueAtPercentile(99);
+            double sentP99 = endpoint.sendTime.getValueAtPercentile(99);
+            boolean omitted = sentP99 > 0 && dueP99 / sentP99 > OMISSION_RATIO;
+            System.out.printf("%-10s %8d %8d %10.3f %10.3f %10.3f %10.3f %12.3f %s%n", endpoint.name,
+                    due.getTotalCount(), endpoint.failures.get(), millis(due.getValueAtPercentile(50)),
+                    millis(dueP99), millis(due.getValueAtPercentile(99.9)), millis(due.getMaxValue()),
+                    millis(sentP99), omitted ? "CO" : "");
+        }
+        System.out.println("Latencies are from when each request was due; \"sent p99\" is from when it was sent");
+        for (Endpoint endpoint : mix) {
+            double dueP99 = endpoint.dueTime.getValueAtPercentile(99);
+            double sentP99 = endpoint.sendTime.getValueAtPercentile(99);
+            if (sentP99 > 0 && dueP99 / sentP99 > OMISSION_RATIO) {
+                System.out.printf("CO %s: requests waited behind earlier ones; a closed-loop client would report "
+                        + "a p99 %.1fx too low%n", endpoint.name, dueP99 / sentP99);
+            }
+        }
+
+        long late = lag.getMaxValue() > lagMicros ? lag.getCountBetweenValues(lagMicros + 1, lag.getMaxValue()) : 0;
+        System.out.printf("Generator: %d of %d sends were over %.3f ms late (max %.3f ms), %d requests in flight "
+                + "at most%n", late, lag.getTotalCount(), millis(lagMicros), millis(lag.getMaxValue()),
+                maxInFlight.get());
+        if (late > lag.getTotalCount() / 100) {
+            System.out.println("CO generator: over 1% of sends were late, so the offered rate was not reached; "
+                    + "lower load.rate or give the generator more CPU");
+        }
+    }
+
+    private static double millis(double micros) {
+        return micros / 1000.0;
+    }
+}
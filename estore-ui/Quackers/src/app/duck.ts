@@ -6,6 +6,7 @@ export interface Duck {
     name: string,
     quantity: number,
     price: number,
+    customPrice?: number,
     size: string,
     color: string,
     outfit: DuckOutfit
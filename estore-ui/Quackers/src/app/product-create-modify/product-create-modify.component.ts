@@ -114,7 +114,7 @@ export class ProductCreateComponent implements OnInit {
 
       controls.name.setValue(this.duck.name);
       controls.quantity.setValue(this.duck.quantity);
-      controls.price.setValue(this.duck.price);
+      controls.price.setValue(this.duck.customPrice ?? 0);
       controls.size.setValue(this.duck.size);
       controls.color.setValue(this.duck.color);
 
@@ -143,7 +143,7 @@ export class ProductCreateComponent implements OnInit {
       id: this.duck ? this.duck.id : -1,
       name: formValue.name as string,
       quantity: formValue.quantity as number,
-      price: formValue.price as number,
+      customPrice: formValue.price as number,
       size: formValue.size as string,
       color: formValue.color as string,
       outfit: duckOutfit